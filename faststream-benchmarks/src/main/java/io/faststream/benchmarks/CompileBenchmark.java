@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenBlock;
+import io.faststream.codegen.core.CodegenClass;
+
+/**
+ * Measures the time it takes Janino to compile a class that is similar to a generated query. Queries are compiled by a
+ * new codegen whose parent is the codegen of the factory. The types used by the query are resolved once for all
+ * queries with the same parent, which is measured by {@link #compileWithSharedParent()}. Compared to
+ * {@link #compileWithNewParent()} where nothing has been resolved in advance.
+ *
+ * @author Kasper Nielsen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class CompileBenchmark {
+
+    /** A long lived codegen, like the codegen of a factory. */
+    final Codegen parent = new Codegen();
+
+    /** Measures compiling a query with a parent that has already compiled other queries. */
+    @Benchmark
+    public Map<String, byte[]> compileWithSharedParent() {
+        return compile(parent);
+    }
+
+    /** Measures compiling a query with a new parent. */
+    @Benchmark
+    public Map<String, byte[]> compileWithNewParent() {
+        return compile(new Codegen());
+    }
+
+    static Map<String, byte[]> compile(Codegen parent) {
+        Codegen c = new Codegen(parent);
+        CodegenClass cl = c.newClass("public class Query");
+        cl.addImport(ArrayList.class, Arrays.class, Comparator.class, HashMap.class, IntPredicate.class,
+                IntUnaryOperator.class);
+        CodegenBlock m = cl.addMethod("public Object process(int[] array, IntPredicate p, IntUnaryOperator m, "
+                + "Comparator c)");
+        m.add("ArrayList list = new ArrayList();");
+        m.add("HashMap map = new HashMap();");
+        m.add("for (int i = 0; i < array.length; i++) {");
+        m.add("    if (p.test(array[i])) {");
+        m.add("        int v = m.applyAsInt(array[i]);");
+        m.add("        list.add(Integer.valueOf(v));");
+        m.add("        map.put(Integer.valueOf(v), String.valueOf(i));");
+        m.add("    }");
+        m.add("}");
+        m.add("Object[] a = list.toArray();");
+        m.add("Arrays.sort(a, c);");
+        m.add("return map.isEmpty() ? null : Arrays.asList(a);");
+        return c.compileBytecode(cl);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.faststream.ArrayFactory;
+import io.faststream.ArrayFactoryBuilder;
+import io.faststream.ListFactory;
+import io.faststream.ListFactoryBuilder;
+
+/**
+ * Measures the cost of the first call of a query. Every invocation uses a newly built factory, so the time includes
+ * planning the query and compiling the generated class with Janino. The warm path is measured by
+ * {@link IntStreamBenchmark} and {@link StreamBenchmark}.
+ *
+ * @author Kasper Nielsen
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(3)
+public class FirstCallBenchmark {
+
+    /** The elements that are streamed. Kept small as the cost of generating the query dominates. */
+    static final int[] ARRAY = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+
+    /** Measures building a factory, without executing any queries. */
+    @Benchmark
+    public Object buildFactory() {
+        return new ArrayFactoryBuilder().buildOfInt();
+    }
+
+    /** Measures the first query on an array, including planning and compilation. */
+    @Benchmark
+    public Object firstArrayQuery(ArrayQuery q, Blackhole bh) {
+        return q.operation.apply(q.factory.of(ARRAY), bh);
+    }
+
+    /** Measures the first query on a list, including planning and compilation. */
+    @Benchmark
+    public Object firstListQuery(ListQuery q, Blackhole bh) {
+        return q.operation.apply(q.list.stream(), bh);
+    }
+
+    /** Creates a new int array factory before every invocation. */
+    @State(Scope.Thread)
+    public static class ArrayQuery {
+
+        /** A newly built int array factory. */
+        ArrayFactory.OfInt factory;
+
+        /** The operation to benchmark. */
+        @Param({ "SUM", "FILTER", "MAP_TO_OBJ", "COLLECT", "SORTED" })
+        IntStreamBenchmark.Operation operation;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            factory = new ArrayFactoryBuilder().buildOfInt();
+        }
+    }
+
+    /** Creates a list using a new list factory before every invocation. */
+    @State(Scope.Thread)
+    public static class ListQuery {
+
+        /** A list created by a newly built list factory. */
+        List<Integer> list;
+
+        /** The operation to benchmark. */
+        @Param({ "COUNT", "FILTER", "MAP_TO_INT", "COLLECT", "SORTED_ASCENDING" })
+        StreamBenchmark.Operation operation;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            ListFactory<Integer> factory = new ListFactoryBuilder().build();
+            list = factory.newArrayList();
+            for (int i : ARRAY) {
+                list.add(i);
+            }
+        }
+    }
+}
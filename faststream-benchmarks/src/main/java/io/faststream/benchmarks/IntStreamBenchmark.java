@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.faststream.FastStreams;
+
+/**
+ * Measures the warm path of every {@link IntStream} operation on arrays, comparing {@link FastStreams#ofInt(int...)}
+ * with {@link IntStream#of(int...)}. Intermediate operations are followed by a {@code sum()}. The query is generated
+ * during warmup, see {@link FirstCallBenchmark} for the cost of generating it.
+ *
+ * @author Kasper Nielsen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IntStreamBenchmark {
+
+    /** The array that is streamed. */
+    int[] array;
+
+    /** The operation to benchmark. */
+    @Param
+    Operation operation;
+
+    /** The number of elements in the array. */
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(size);
+        array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = r.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public Object fastStream(Blackhole bh) {
+        return operation.apply(FastStreams.ofInt(array), bh);
+    }
+
+    @Benchmark
+    public Object intStream(Blackhole bh) {
+        return operation.apply(IntStream.of(array), bh);
+    }
+
+    /** The operations that are benchmarked, one for each int stream node. */
+    public enum Operation {
+        ALL_MATCH {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.allMatch(e -> e >= 0);
+            }
+        },
+        ANY_MATCH {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.anyMatch(e -> e < 0);
+            }
+        },
+        AS_DOUBLE_STREAM {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.asDoubleStream().sum();
+            }
+        },
+        AS_LONG_STREAM {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.asLongStream().sum();
+            }
+        },
+        AVERAGE {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.average();
+            }
+        },
+        BOXED {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.boxed().reduce(0, Integer::sum);
+            }
+        },
+        COLLECT {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.collect(ArrayList<Integer>::new, ArrayList::add, ArrayList::addAll);
+            }
+        },
+        COUNT {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.count();
+            }
+        },
+        DISTINCT {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.distinct().sum();
+            }
+        },
+        FILTER {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.filter(e -> (e & 1) == 0).sum();
+            }
+        },
+        FIND_ANY {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.findAny();
+            }
+        },
+        FIND_FIRST {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.findFirst();
+            }
+        },
+        FLAT_MAP {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.flatMap(e -> IntStream.of(e, e)).sum();
+            }
+        },
+        FOR_EACH {
+            Object apply(IntStream s, Blackhole bh) {
+                s.forEach(bh::consume);
+                return null;
+            }
+        },
+        FOR_EACH_ORDERED {
+            Object apply(IntStream s, Blackhole bh) {
+                s.forEachOrdered(bh::consume);
+                return null;
+            }
+        },
+        ITERATOR {
+            Object apply(IntStream s, Blackhole bh) {
+                PrimitiveIterator.OfInt iterator = s.iterator();
+                while (iterator.hasNext()) {
+                    bh.consume(iterator.nextInt());
+                }
+                return null;
+            }
+        },
+        LIMIT {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.limit(100).sum();
+            }
+        },
+        MAP {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.map(e -> e + 1).sum();
+            }
+        },
+        MAP_TO_DOUBLE {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.mapToDouble(e -> e).sum();
+            }
+        },
+        MAP_TO_LONG {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.mapToLong(e -> e).sum();
+            }
+        },
+        MAP_TO_OBJ {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.mapToObj(Integer::valueOf).reduce(0, Integer::sum);
+            }
+        },
+        MAX {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.max();
+            }
+        },
+        MIN {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.min();
+            }
+        },
+        NONE_MATCH {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.noneMatch(e -> e < 0);
+            }
+        },
+        PARALLEL {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.parallel().sum();
+            }
+        },
+        PEEK {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.peek(bh::consume).sum();
+            }
+        },
+        REDUCE {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.reduce(Math::max);
+            }
+        },
+        REDUCE_IDENTITY {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.reduce(0, Math::max);
+            }
+        },
+        SEQUENTIAL {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.sequential().sum();
+            }
+        },
+        SKIP {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.skip(100).sum();
+            }
+        },
+        SORTED {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.sorted().sum();
+            }
+        },
+        SORTED_LIMIT {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.sorted().limit(100).sum();
+            }
+        },
+        SPLITERATOR {
+            Object apply(IntStream s, Blackhole bh) {
+                Spliterator.OfInt spliterator = s.spliterator();
+                spliterator.forEachRemaining((int e) -> bh.consume(e));
+                return null;
+            }
+        },
+        SUM {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.sum();
+            }
+        },
+        SUMMARY_STATISTICS {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.summaryStatistics();
+            }
+        },
+        TO_ARRAY {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.toArray();
+            }
+        },
+        UNORDERED {
+            Object apply(IntStream s, Blackhole bh) {
+                return s.unordered().sum();
+            }
+        };
+
+        /**
+         * Applies this operation to the specified stream.
+         *
+         * @param s
+         *            the stream to apply the operation to
+         * @param bh
+         *            a black hole for operations that do not return a result
+         * @return the result of the operation
+         */
+        abstract Object apply(IntStream s, Blackhole bh);
+    }
+}
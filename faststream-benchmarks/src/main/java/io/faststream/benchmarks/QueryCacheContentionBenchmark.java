@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.faststream.ArrayFactory;
+import io.faststream.ArrayFactoryBuilder;
+
+/**
+ * Measures looking up compiled queries in the query cache when many threads execute queries using the same factory.
+ * The streamed array contains a single element, so the time is dominated by finding the compiled query. The scaling
+ * of lookups can be seen by comparing the results of different thread counts, for example, by running with
+ * {@code -t 1} and {@code -t 64}.
+ *
+ * @author Kasper Nielsen
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(32)
+@Fork(3)
+public class QueryCacheContentionBenchmark {
+
+    /** The streamed array. */
+    static final int[] ARRAY = { 1 };
+
+    /** Executes the same query from all threads. */
+    @Benchmark
+    public Object sameQuery(Shared s, Blackhole bh) {
+        return s.operation.apply(s.factory.of(ARRAY), bh);
+    }
+
+    /** Executes all queries in turn, so different threads look up different queries at the same time. */
+    @Benchmark
+    public Object mixedQueries(Shared s, PerThread t, Blackhole bh) {
+        IntStreamBenchmark.Operation[] operations = IntStreamBenchmark.Operation.values();
+        IntStreamBenchmark.Operation o = operations[t.next++ % operations.length];
+        return o.apply(s.factory.of(ARRAY), bh);
+    }
+
+    /** A factory shared by all threads. Queries are compiled during the warmup iterations. */
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        /** The shared factory. */
+        ArrayFactory.OfInt factory;
+
+        /** The operation used by {@link QueryCacheContentionBenchmark#sameQuery(Shared, Blackhole)}. */
+        @Param({ "SUM", "FILTER", "SORTED" })
+        IntStreamBenchmark.Operation operation;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            factory = new ArrayFactoryBuilder().buildOfInt();
+        }
+    }
+
+    /** The state of each thread. */
+    @State(Scope.Thread)
+    public static class PerThread {
+
+        /** The index of the next operation executed by the thread. */
+        int next;
+    }
+}
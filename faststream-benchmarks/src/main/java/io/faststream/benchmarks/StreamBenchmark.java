@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.faststream.FastStreams;
+import io.faststream.ListFactory;
+
+/**
+ * Measures the warm path of every {@link Stream} operation on arrays and lists. Arrays are streamed using
+ * {@link FastStreams#of(Object...)} and {@link Arrays#stream(Object[])}. Lists are created by a {@link ListFactory} and
+ * compared with {@link java.util.ArrayList}. Intermediate operations are followed by an integer sum. The query is
+ * generated during warmup, see {@link FirstCallBenchmark} for the cost of generating it.
+ *
+ * @author Kasper Nielsen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StreamBenchmark {
+
+    /** The array that is streamed. */
+    Integer[] array;
+
+    /** A list created by {@link FastStreams#newArrayList(java.util.Collection)}. */
+    List<Integer> fastList;
+
+    /** A {@link java.util.ArrayList} with the same elements. */
+    List<Integer> jdkList;
+
+    /** The operation to benchmark. */
+    @Param
+    Operation operation;
+
+    /** The number of elements in the data structure. */
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    /** The data structure that is streamed. */
+    @Param
+    Source source;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(size);
+        array = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = r.nextInt(size);
+        }
+        jdkList = new ArrayList<>(Arrays.asList(array));
+        fastList = FastStreams.newArrayList(jdkList);
+    }
+
+    @Benchmark
+    public Object fastStream(Blackhole bh) {
+        return operation.apply(source == Source.ARRAY ? FastStreams.of(array) : fastList.stream(), bh);
+    }
+
+    @Benchmark
+    public Object stream(Blackhole bh) {
+        return operation.apply(source == Source.ARRAY ? Arrays.stream(array) : jdkList.stream(), bh);
+    }
+
+    /** The data structures that are benchmarked. */
+    public enum Source {
+        ARRAY, LIST;
+    }
+
+    /** The operations that are benchmarked, one for each object stream node. */
+    public enum Operation {
+        ALL_MATCH {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.allMatch(e -> e >= 0);
+            }
+        },
+        ANY_MATCH {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.anyMatch(e -> e < 0);
+            }
+        },
+        COLLECT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.collect(Collectors.toList());
+            }
+        },
+        COLLECT_SUPPLIER {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.collect(ArrayList<Integer>::new, ArrayList::add, ArrayList::addAll);
+            }
+        },
+        COUNT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.count();
+            }
+        },
+        DISTINCT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.distinct().reduce(0, Integer::sum);
+            }
+        },
+        FILTER {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.filter(e -> (e & 1) == 0).reduce(0, Integer::sum);
+            }
+        },
+        FIND_ANY {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.findAny();
+            }
+        },
+        FIND_FIRST {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.findFirst();
+            }
+        },
+        FLAT_MAP {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.flatMap(e -> Stream.of(e, e)).reduce(0, Integer::sum);
+            }
+        },
+        FLAT_MAP_TO_DOUBLE {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.flatMapToDouble(e -> DoubleStream.of(e, e)).sum();
+            }
+        },
+        FLAT_MAP_TO_INT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.flatMapToInt(e -> IntStream.of(e, e)).sum();
+            }
+        },
+        FLAT_MAP_TO_LONG {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.flatMapToLong(e -> LongStream.of(e, e)).sum();
+            }
+        },
+        FOR_EACH {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                s.forEach(bh::consume);
+                return null;
+            }
+        },
+        FOR_EACH_ORDERED {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                s.forEachOrdered(bh::consume);
+                return null;
+            }
+        },
+        ITERATOR {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                Iterator<Integer> iterator = s.iterator();
+                while (iterator.hasNext()) {
+                    bh.consume(iterator.next());
+                }
+                return null;
+            }
+        },
+        LIMIT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.limit(100).reduce(0, Integer::sum);
+            }
+        },
+        MAP {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.map(e -> e + 1).reduce(0, Integer::sum);
+            }
+        },
+        MAP_TO_DOUBLE {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.mapToDouble(e -> e).sum();
+            }
+        },
+        MAP_TO_INT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.mapToInt(e -> e).sum();
+            }
+        },
+        MAP_TO_LONG {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.mapToLong(e -> e).sum();
+            }
+        },
+        MAX_COMPARATOR {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.max(Comparator.naturalOrder());
+            }
+        },
+        MIN_COMPARATOR {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.min(Comparator.naturalOrder());
+            }
+        },
+        NONE_MATCH {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.noneMatch(e -> e < 0);
+            }
+        },
+        PARALLEL {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.parallel().reduce(0, Integer::sum);
+            }
+        },
+        PEEK {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.peek(bh::consume).reduce(0, Integer::sum);
+            }
+        },
+        REDUCE {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.reduce(Integer::max);
+            }
+        },
+        REDUCE_COMBINER {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.reduce(0, (a, b) -> a + b, Integer::sum);
+            }
+        },
+        REDUCE_IDENTITY {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.reduce(0, Integer::max);
+            }
+        },
+        SEQUENTIAL {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.sequential().reduce(0, Integer::sum);
+            }
+        },
+        SKIP {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.skip(100).reduce(0, Integer::sum);
+            }
+        },
+        SORTED_ASCENDING {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.sorted().reduce(0, Integer::sum);
+            }
+        },
+        SORTED_COMPARATOR {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.sorted(Comparator.reverseOrder()).reduce(0, Integer::sum);
+            }
+        },
+        SORTED_LIMIT {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.sorted(Comparator.reverseOrder()).limit(100).reduce(0, Integer::sum);
+            }
+        },
+        SPLITERATOR {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                Spliterator<Integer> spliterator = s.spliterator();
+                spliterator.forEachRemaining(bh::consume);
+                return null;
+            }
+        },
+        TO_ARRAY {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.toArray();
+            }
+        },
+        TO_ARRAY_FUNCTION {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.toArray(Integer[]::new);
+            }
+        },
+        UNORDERED {
+            Object apply(Stream<Integer> s, Blackhole bh) {
+                return s.unordered().reduce(0, Integer::sum);
+            }
+        };
+
+        /**
+         * Applies this operation to the specified stream.
+         *
+         * @param s
+         *            the stream to apply the operation to
+         * @param bh
+         *            a black hole for operations that do not return a result
+         * @return the result of the operation
+         */
+        abstract Object apply(Stream<Integer> s, Blackhole bh);
+    }
+}
@@ -19,6 +19,7 @@ import static io.faststream.codegen.core.CodegenUtil.LS;
 import static io.faststream.codegen.core.CodegenUtil.indent;
 
 import java.util.ArrayDeque;
+import java.util.List;
 
 /**
  * 
@@ -26,6 +27,9 @@ import java.util.ArrayDeque;
  */
 class BlockRenderer {
 
+    /** The name of the method invocations that are rendered in place of {@link CodegenStatements}. */
+    static final String STATEMENTS_MARKER = "$codegenStatements";
+
     int indent;
 
     /** A string buffer containing the rendered code. */
@@ -33,10 +37,18 @@ class BlockRenderer {
 
     private final CodegenBlock b;
 
+    /** Collects any statements that are rendered as markers, or null if they should be rendered as source code. */
+    private final List<CodegenStatements> statements;
+
     BlockRenderer(int indent, StringBuilder sb, CodegenBlock b) {
+        this(indent, sb, b, null);
+    }
+
+    BlockRenderer(int indent, StringBuilder sb, CodegenBlock b, List<CodegenStatements> statements) {
         this.indent = indent;
         this.sb = sb;
         this.b = b;
+        this.statements = statements;
     }
 
     public void addLine(Object... oo) {
@@ -66,6 +78,9 @@ class BlockRenderer {
                     }
                 } else if (o instanceof CodegenBlock) {
                     throw new Error();
+                } else if (statements != null && o instanceof CodegenStatements) {
+                    sb.append(STATEMENTS_MARKER).append(statements.size()).append("();");
+                    statements.add((CodegenStatements) o);
                 } else if (o.getClass() == Class.class) {
                     Class<?> cc = (Class<?>) o;
                     if (cc.getDeclaringClass() != null) {
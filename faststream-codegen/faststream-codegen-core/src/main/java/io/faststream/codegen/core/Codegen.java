@@ -21,12 +21,26 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
 import java.nio.file.Path;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+import io.faststream.codegen.janino.AstCompilationUnitGenerator;
+import io.faststream.codegen.janino.Java;
 import io.faststream.codegen.janino.JavaSourceClassLoader;
+import io.faststream.codegen.janino.Parser;
+import io.faststream.codegen.janino.Scanner;
+import io.faststream.codegen.janino.compiler.CompileException;
 import io.faststream.codegen.janino.util.resource.Resource;
 import io.faststream.codegen.janino.util.resource.ResourceFinder;
 
@@ -38,12 +52,24 @@ public class Codegen {
 
     final ConcurrentHashMap<CodegenClass, CodegenClass> classes = new ConcurrentHashMap<>();
 
+    /** The classes that have not been compiled yet, by the name of their source file. Guarded by itself. */
+    private final HashMap<String, CodegenClass> sources = new HashMap<>();
+
+    /** Whether or not classes have been added, or renamed, since {@link #sources} was last rebuilt. */
+    private volatile boolean sourcesStale;
+
     private volatile JavaSourceClassLoader classLoader;
 
     private final String defaultPackageName;
 
     private Object lateInitializer;
 
+    /** Lookups, per package name, used for defining hidden classes. */
+    private final ConcurrentHashMap<String, Lookup> lookups = new ConcurrentHashMap<>();
+
+    /** The number of classes whose statements could not be represented as a syntax tree. */
+    private final LongAdder syntaxTreeFallbacks = new LongAdder();
+
     final ClassLoader parent;
 
     final PrintWriter[] pws;
@@ -87,6 +113,18 @@ public class Codegen {
         });
     }
 
+    /**
+     * Adds classes that have already been compiled, for example, classes returned by
+     * {@link #compileBytecode(CodegenClass)} in another JVM. The classes are defined by this codegen's class loader the
+     * first time they are requested, for example, via {@link #loadClass(String)}.
+     *
+     * @param bytecode
+     *            a map of binary class names to class files
+     */
+    public void addBytecode(Map<String, byte[]> bytecode) {
+        classLoader.addPrecompiledClasses(bytecode);
+    }
+
     public <T extends CodegenClass> T addClass(T clazz) {
         if (clazz.getClassLoader() != null) {
             throw new IllegalArgumentException("clazz has already been added to a codegen");
@@ -98,10 +136,62 @@ public class Codegen {
             clazz.setPackage(defaultPackageName);
         }
         clazz.setClassLoader(getClassLoader());
+        clazz.codegen = this;
         classes.put(clazz, clazz);
+        sourcesStale = true;
         return clazz;
     }
 
+    /**
+     * Compiles the specified class, and any inner classes, without loading them. The class can subsequently be loaded
+     * using {@link CodegenClass#compile()}.
+     *
+     * @param clazz
+     *            the class to compile
+     * @return a map of binary class names to class files
+     * @throws IllegalStateException
+     *             if the class could not be compiled
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, byte[]> compileBytecode(CodegenClass clazz) {
+        try {
+            return classLoader.compile(clazz.getQualifiedName());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Compiles the specified classes, and any inner classes, in a single pass without loading them. Which is faster
+     * than compiling the classes one at a time, as types that are used by several of the classes are only resolved
+     * once. The classes can subsequently be loaded using {@link CodegenClass#compile()}.
+     * <p>
+     * A codegen compiles one batch of classes at a time. Independent batches can be compiled concurrently using
+     * different codegens, for example, codegens created via {@link #Codegen(Codegen)} from the same parent codegen.
+     * <p>
+     * Queries are compiled one class at a time as they are first executed, using
+     * {@link #compileBytecode(CodegenClass)}. This method is for callers that generate several classes up front.
+     *
+     * @param classes
+     *            the classes to compile
+     * @return a map of binary class names to class files
+     * @throws IllegalStateException
+     *             if the classes could not be compiled
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, byte[]> compileBytecode(Collection<? extends CodegenClass> classes) {
+        String[] names = new String[classes.size()];
+        int i = 0;
+        for (CodegenClass c : classes) {
+            names[i++] = c.getQualifiedName();
+        }
+        try {
+            return classLoader.compile(names);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e.getMessage(), e.getCause());
+        }
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     final void create(CodegenClass claz, Codegen codegen) {
         ((LazyInitializer) claz).accept(lateInitializer);
@@ -120,6 +210,37 @@ public class Codegen {
         }
     }
 
+    /**
+     * Defines a compiled class as a hidden class in this codegen's class loader. Unlike classes loaded by the class
+     * loader, a hidden class can be unloaded as soon as it is no longer used. And the JIT trusts its final fields to
+     * be constant.
+     * <p>
+     * Only classes without inner classes, that are not in the default package, can be defined as hidden classes. And
+     * only on Java 15 or later.
+     *
+     * @param bytecode
+     *            a map of binary class names to class files, for example, as returned by
+     *            {@link #compileBytecode(CodegenClass)}
+     * @return the hidden class, or null if the class could not be defined as a hidden class. In which case it must be
+     *         loaded normally
+     */
+    public Class<?> defineHiddenClass(Map<String, byte[]> bytecode) {
+        if (bytecode.size() != 1 || !HiddenClasses.isSupported()) {
+            return null;
+        }
+        Map.Entry<String, byte[]> e = bytecode.entrySet().iterator().next();
+        int index = e.getKey().lastIndexOf('.');
+        if (index < 0) {
+            return null;
+        }
+        String packageName = e.getKey().substring(0, index);
+        Lookup lookup = lookups.get(packageName);
+        if (lookup == null) {
+            lookup = lookups.computeIfAbsent(packageName, k -> newLookup(packageName));
+        }
+        return HiddenClasses.define(lookup, e.getValue());
+    }
+
     ClassLoader getClassLoader() {
         // This is mainly done to test the speed of classloaders with to many classes.
         // if (ThreadLocalRandom.current().nextInt(500) == 0) {
@@ -129,6 +250,30 @@ public class Codegen {
         return classLoader;
     }
 
+    /**
+     * Returns the number of classes that were compiled from their source code, because some of their
+     * {@link CodegenStatements} could not be represented as a syntax tree. Classes are always compiled from source
+     * code if a code writer or source path has been configured, such classes are not counted.
+     *
+     * @return the number of classes that were compiled from source code instead of a syntax tree
+     */
+    public long getNumberOfSyntaxTreeFallbacks() {
+        return syntaxTreeFallbacks.sum();
+    }
+
+    /**
+     * Loads the class with the specified name using this codegen's class loader.
+     *
+     * @param name
+     *            the binary name of the class
+     * @return the class
+     * @throws ClassNotFoundException
+     *             if the class could not be found
+     */
+    public Class<?> loadClass(String name) throws ClassNotFoundException {
+        return classLoader.loadClass(name);
+    }
+
     public byte[] load(String name) {
         return classLoader.load(name);
     }
@@ -151,6 +296,54 @@ public class Codegen {
         return l;
     }
 
+    /**
+     * Compiles a class in the specified package that hands out a full privilege lookup of itself. Which is needed for
+     * defining hidden classes in the package.
+     */
+    @SuppressWarnings("unchecked")
+    private Lookup newLookup(String packageName) {
+        CodegenClass c = new CodegenClass().setDefinition("public final class HiddenClassHost implements ",
+                Supplier.class);
+        c.setPackage(packageName);
+        c.addImport(MethodHandles.class).addImport(Supplier.class);
+        c.addMethod("public Object get()").add("return MethodHandles.lookup();");
+        addClass(c);
+        try {
+            return ((Supplier<Lookup>) c.compile().newInstance()).get();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes the class with the specified source file name from the classes that have not been compiled yet.
+     *
+     * @param resourceName
+     *            the name of the source file, for example, io/faststream/Foo.java
+     * @return the class, or null if there is no uncompiled class with the specified source file name
+     */
+    CodegenClass removeSource(String resourceName) {
+        synchronized (sources) {
+            if (sourcesStale) {
+                sourcesStale = false;
+                sources.clear();
+                for (CodegenClass c : classes.keySet()) {
+                    sources.put(c.getJavaName(), c);
+                }
+            }
+            CodegenClass cc = sources.remove(resourceName);
+            if (cc != null) {
+                classes.remove(cc);
+            }
+            return cc;
+        }
+    }
+
+    /** Invoked whenever a class that has been added to this codegen changes its name. */
+    void renamed() {
+        sourcesStale = true;
+    }
+
     public void setLateInitializerObject(Object o) {
         this.lateInitializer = o;
     }
@@ -159,20 +352,17 @@ public class Codegen {
 
         @Override
         public Resource findResource(final String resourceName) {
-            CodegenClass cc = null;
-            for (CodegenClass c : classes.keySet()) {
-                if (c.getJavaName().equals(resourceName)) {
-                    cc = c;
-                    classes.remove(cc);
-                    break;
-                }
-            }
+            CodegenClass cc = removeSource(resourceName);
             // check if we don't have a class corresponding to the name.
             // In which case it should look at the current classloader
             if (cc == null) {
                 return null;
             }
             CodegenClass ccc = cc;
+            // Only render the complete source code if someone wants to look at it
+            if (pws.length == 0 && sourcePath == null) {
+                return new SyntaxTreeResource(resourceName, ccc);
+            }
             return new Resource() {
                 public String getFileName() {
                     return resourceName;
@@ -196,4 +386,62 @@ public class Codegen {
             };
         }
     }
+
+    /**
+     * A resource that creates the syntax tree of a class without rendering and parsing the source code of any
+     * {@link CodegenStatements} in the class. Only the remaining parts of the class, such as field and method
+     * declarations, are parsed.
+     */
+    class SyntaxTreeResource implements Resource, AstCompilationUnitGenerator {
+
+        /** The class to create a syntax tree for. */
+        private final CodegenClass clazz;
+
+        /** The name of the resource. */
+        private final String resourceName;
+
+        SyntaxTreeResource(String resourceName, CodegenClass clazz) {
+            this.resourceName = resourceName;
+            this.clazz = clazz;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Java.CompilationUnit generate() throws CompileException, IOException {
+            ArrayList<CodegenStatements> statements = new ArrayList<>();
+            StringBuilder sb = clazz.toString(new StringBuilder(), statements);
+            if (!statements.isEmpty()) {
+                try {
+                    return StatementsSplicer.splice(parse(sb), statements);
+                } catch (UnsupportedOperationException ignore) {
+                    // Some of the statements could not be represented as a syntax tree, fallback to source code
+                    syntaxTreeFallbacks.increment();
+                    sb = clazz.toString(new StringBuilder());
+                }
+            }
+            return parse(sb);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getFileName() {
+            return resourceName;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long lastModified() {
+            return 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public InputStream open() throws IOException {
+            return new ByteArrayInputStream(clazz.toString().getBytes());
+        }
+
+        private Java.CompilationUnit parse(StringBuilder sb) throws CompileException, IOException {
+            return new Parser(new Scanner(resourceName, new StringReader(sb.toString()))).parseCompilationUnit();
+        }
+    }
 }
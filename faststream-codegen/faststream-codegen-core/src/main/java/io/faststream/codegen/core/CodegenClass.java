@@ -45,6 +45,9 @@ public class CodegenClass extends AbstractCodegenEntity {
 
     private ClassLoader classLoader;
 
+    /** The codegen this class has been added to, or null if it has not been added to a codegen. */
+    Codegen codegen;
+
     private String definition;
 
     private final JavadocBuilder javadoc = new JavadocBuilder();
@@ -267,6 +270,9 @@ public class CodegenClass extends AbstractCodegenEntity {
                 type = Type.ENUM;
             }
         }
+        if (codegen != null) {
+            codegen.renamed();
+        }
         return this;
     }
 
@@ -288,6 +294,9 @@ public class CodegenClass extends AbstractCodegenEntity {
             throw new IllegalStateException("Cannot add an inner class with a package name");
         }
         this.packageName = packageName;
+        if (codegen != null) {
+            codegen.renamed();
+        }
         return this;
     }
 
@@ -296,6 +305,20 @@ public class CodegenClass extends AbstractCodegenEntity {
     }
 
     final StringBuilder toString(StringBuilder sb) {
+        return toString(sb, null);
+    }
+
+    /**
+     * Renders the source code of this class.
+     *
+     * @param sb
+     *            the string builder to render to
+     * @param statements
+     *            if non-null, any {@link CodegenStatements} are added to this list and rendered as markers instead of
+     *            as source code
+     * @return the specified string builder
+     */
+    final StringBuilder toString(StringBuilder sb, List<CodegenStatements> statements) {
         if (parent == null) {
             if (license != null) {
                 sb.append(license);
@@ -328,7 +351,7 @@ public class CodegenClass extends AbstractCodegenEntity {
 
                     sb.append(" {").append(LS);
                     for (CodegenMethod m : cec.methods) {
-                        m.toString(sb);
+                        m.toString(sb, statements);
                     }
                     sb.append(indent(indent + 1)).append("}");
                 }
@@ -349,11 +372,11 @@ public class CodegenClass extends AbstractCodegenEntity {
         }
         for (CodegenMethod m : methods) {
             sb.append(LS);
-            m.toString(sb);
+            m.toString(sb, statements);
         }
         if (innerClasses != null) {
             for (CodegenClass cc : innerClasses) {
-                cc.toString(sb);
+                cc.toString(sb, statements);
             }
         }
         sb.append(indent(indent)).append("}").append(LS);
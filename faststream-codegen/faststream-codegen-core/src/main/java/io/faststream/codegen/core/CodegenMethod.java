@@ -20,6 +20,8 @@ import static io.faststream.codegen.core.CodegenUtil.indent;
 import static io.faststream.codegen.core.CodegenUtil.toStringg;
 import static java.util.Objects.requireNonNull;
 
+import java.util.List;
+
 /**
  *
  * @author Kasper Nielsen
@@ -105,6 +107,10 @@ public class CodegenMethod extends CodegenBlock {
     }
 
     StringBuilder toString(StringBuilder sb) {
+        return toString(sb, null);
+    }
+
+    StringBuilder toString(StringBuilder sb, List<CodegenStatements> statements) {
         if (declaration == null) {
             throw new IllegalStateException("Method declaration has not been set, type="
                     + getClass().getCanonicalName());
@@ -142,7 +148,7 @@ public class CodegenMethod extends CodegenBlock {
             sb.append(" {");
         }
         sb.append(LS);
-        new BlockRenderer(indent + 1, sb, this).render();
+        new BlockRenderer(indent + 1, sb, this, statements).render();
         if (!isAbstract) {
             sb.append(indent(indent)).append("}");// dont add } to abstract methods
             sb.append(LS);
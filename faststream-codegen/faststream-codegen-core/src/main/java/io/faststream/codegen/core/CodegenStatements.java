@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.core;
+
+import java.util.List;
+
+import io.faststream.codegen.janino.Java;
+import io.faststream.codegen.janino.compiler.Location;
+
+/**
+ * A sequence of statements that can be added to a {@link CodegenBlock}. Unlike plain text, the statements can be
+ * handed directly to the compiler as a syntax tree, so they are not rendered as source code and parsed again. The
+ * source code is only rendered if it has been requested via
+ * {@link CodegenConfiguration#addCodeWriter(java.io.PrintWriter)} or
+ * {@link CodegenConfiguration#setSourcePath(java.nio.file.Path)}.
+ * <p>
+ * {@link #toString()} must return the source code of the statements.
+ *
+ * @author Kasper Nielsen
+ */
+public interface CodegenStatements {
+
+    /**
+     * Creates the syntax tree of the statements.
+     *
+     * @param location
+     *            the location of the statements in the enclosing compilation unit
+     * @return a list of statements
+     * @throws UnsupportedOperationException
+     *             if the statements cannot be represented as a syntax tree, in which case the enclosing class is
+     *             compiled from source code
+     */
+    List<Java.BlockStatement> toSyntaxTree(Location location);
+}
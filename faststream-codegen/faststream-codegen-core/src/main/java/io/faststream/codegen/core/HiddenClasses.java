@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+
+/**
+ * Support for defining hidden classes via {@code Lookup.defineHiddenClass}. Which is only available from Java 15, so
+ * the method is looked up reflectively.
+ *
+ * @author Kasper Nielsen
+ */
+final class HiddenClasses {
+
+    /** A handle for {@code Lookup.defineHiddenClass}, or null if hidden classes are not supported by the JVM. */
+    private static final MethodHandle DEFINE_HIDDEN_CLASS;
+
+    /** An empty {@code Lookup.ClassOption[]}. */
+    private static final Object NO_OPTIONS;
+
+    static {
+        MethodHandle mh = null;
+        Object options = null;
+        try {
+            Class<?> optionType = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            options = Array.newInstance(optionType, 0);
+            MethodType type = MethodType.methodType(Lookup.class, byte[].class, boolean.class, options.getClass());
+            mh = MethodHandles.publicLookup().findVirtual(Lookup.class, "defineHiddenClass", type).asFixedArity();
+        } catch (ReflectiveOperationException ignore) {
+            mh = null;
+        }
+        DEFINE_HIDDEN_CLASS = mh;
+        NO_OPTIONS = options;
+    }
+
+    /** Cannot instantiate. */
+    private HiddenClasses() {}
+
+    /**
+     * Defines the specified class file as a hidden class in the package and class loader of the lookup class.
+     *
+     * @param lookup
+     *            a lookup with full privilege access
+     * @param bytecode
+     *            the class file
+     * @return the hidden class, or null if the class could not be defined
+     */
+    static Class<?> define(Lookup lookup, byte[] bytecode) {
+        try {
+            return ((Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytecode, true, NO_OPTIONS)).lookupClass();
+        } catch (IllegalAccessException | LinkageError ignore) {
+            return null;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** @return whether or not the JVM supports hidden classes */
+    static boolean isSupported() {
+        return DEFINE_HIDDEN_CLASS != null;
+    }
+}
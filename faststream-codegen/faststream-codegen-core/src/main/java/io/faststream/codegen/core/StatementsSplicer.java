@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.core;
+
+import java.util.Iterator;
+import java.util.List;
+
+import io.faststream.codegen.janino.Java;
+import io.faststream.codegen.janino.Java.BlockStatement;
+
+/**
+ * Replaces the markers rendered by {@link BlockRenderer} in a parsed compilation unit with the syntax trees of the
+ * corresponding {@link CodegenStatements}.
+ *
+ * @author Kasper Nielsen
+ */
+final class StatementsSplicer {
+
+    /** The statements to splice in, indexed by the number of the marker. */
+    private final List<CodegenStatements> statements;
+
+    /** The number of markers that have been replaced. */
+    private int replaced;
+
+    private StatementsSplicer(List<CodegenStatements> statements) {
+        this.statements = statements;
+    }
+
+    private void visitType(Java.AbstractTypeDeclaration type) {
+        for (Object o : type.getMethodDeclarations()) {
+            visitFunction((Java.FunctionDeclarator) o);
+        }
+        if (type instanceof Java.ClassDeclaration) {
+            Java.ClassDeclaration cd = (Java.ClassDeclaration) type;
+            for (Object o : cd.constructors) {
+                visitFunction((Java.FunctionDeclarator) o);
+            }
+            for (Object o : cd.variableDeclaratorsAndInitializers) {
+                if (o instanceof Java.Initializer) {
+                    visitStatement(((Java.Initializer) o).block);
+                }
+            }
+        }
+        for (Object o : type.getMemberTypeDeclarations()) {
+            visitType((Java.AbstractTypeDeclaration) o);
+        }
+    }
+
+    private void visitFunction(Java.FunctionDeclarator f) {
+        if (f.optionalStatements != null) {
+            visitStatements(f.optionalStatements);
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void visitStatements(List list) {
+        for (int i = 0; i < list.size(); i++) {
+            BlockStatement bs = (BlockStatement) list.get(i);
+            int index = markerIndex(bs);
+            if (index >= 0) {
+                List<BlockStatement> replacement = statements.get(index).toSyntaxTree(bs.getLocation());
+                for (BlockStatement r : replacement) {
+                    r.setEnclosingScope(bs.getEnclosingScope());
+                }
+                list.remove(i);
+                list.addAll(i, replacement);
+                i += replacement.size() - 1;
+                replaced++;
+            } else {
+                visitStatement(bs);
+            }
+        }
+    }
+
+    private void visitStatement(BlockStatement s) {
+        if (s instanceof Java.Block) {
+            visitStatements(((Java.Block) s).statements);
+        } else if (s instanceof Java.IfStatement) {
+            Java.IfStatement is = (Java.IfStatement) s;
+            visitStatement(is.thenStatement);
+            if (is.optionalElseStatement != null) {
+                visitStatement(is.optionalElseStatement);
+            }
+        } else if (s instanceof Java.ForStatement) {
+            visitStatement(((Java.ForStatement) s).body);
+        } else if (s instanceof Java.WhileStatement) {
+            visitStatement(((Java.WhileStatement) s).body);
+        } else if (s instanceof Java.DoStatement) {
+            visitStatement(((Java.DoStatement) s).body);
+        } else if (s instanceof Java.SynchronizedStatement) {
+            visitStatement(((Java.SynchronizedStatement) s).body);
+        } else if (s instanceof Java.LabeledStatement) {
+            visitStatement(((Java.LabeledStatement) s).body);
+        } else if (s instanceof Java.TryStatement) {
+            Java.TryStatement ts = (Java.TryStatement) s;
+            visitStatement(ts.body);
+            for (Iterator<?> iter = ts.catchClauses.iterator(); iter.hasNext();) {
+                visitStatement(((Java.CatchClause) iter.next()).body);
+            }
+            if (ts.optionalFinally != null) {
+                visitStatement(ts.optionalFinally);
+            }
+        } else if (s instanceof Java.SwitchStatement) {
+            for (Object o : ((Java.SwitchStatement) s).sbsgs) {
+                visitStatements(((Java.SwitchStatement.SwitchBlockStatementGroup) o).blockStatements);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the statements that the specified statement is a marker for, or -1 if it is not a marker.
+     */
+    private static int markerIndex(BlockStatement bs) {
+        if (bs instanceof Java.ExpressionStatement) {
+            Java.Rvalue rv = ((Java.ExpressionStatement) bs).rvalue;
+            if (rv instanceof Java.MethodInvocation) {
+                Java.MethodInvocation mi = (Java.MethodInvocation) rv;
+                if (mi.optionalTarget == null && mi.methodName.startsWith(BlockRenderer.STATEMENTS_MARKER)) {
+                    return Integer.parseInt(mi.methodName.substring(BlockRenderer.STATEMENTS_MARKER.length()));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces all markers in the specified compilation unit.
+     *
+     * @param cu
+     *            the compilation unit
+     * @param statements
+     *            the statements that was rendered as markers
+     * @return the specified compilation unit
+     * @throws UnsupportedOperationException
+     *             if some of the statements could not be represented as a syntax tree
+     */
+    static Java.CompilationUnit splice(Java.CompilationUnit cu, List<CodegenStatements> statements) {
+        StatementsSplicer s = new StatementsSplicer(statements);
+        for (Java.PackageMemberTypeDeclaration t : cu.getPackageMemberTypeDeclarations()) {
+            s.visitType((Java.AbstractTypeDeclaration) t);
+        }
+        if (s.replaced != statements.size()) {
+            throw new UnsupportedOperationException("Could only locate " + s.replaced + " out of "
+                    + statements.size() + " statements");
+        }
+        return cu;
+    }
+}
@@ -15,11 +15,20 @@
  */
 package io.faststream.codegen.core;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+
 import org.junit.Test;
 
 import io.faststream.codegen.core.CodegenBlock;
 import io.faststream.codegen.core.CodegenClass;
 import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.janino.Java;
+import io.faststream.codegen.janino.compiler.CompileException;
+import io.faststream.codegen.janino.compiler.Location;
 
 /**
  * 
@@ -74,4 +83,53 @@ public class CodegenBlockTest extends AbstractCodegenTest {
         b1.add("System.out.println(str + \"first2\");");
         clz.compile();
     }
+
+    @Test
+    public void statements() {
+        for (Codegen codegen : new Codegen[] { c, new Codegen() }) {
+            CodegenClass clz = codegen.newClass("public class Test implements ", IntSupplier.class);
+            clz.addImport(IntSupplier.class);
+            CodegenMethod m = clz.addMethod("public int getAsInt()");
+            m.add("int i = 20;");
+            m.newNestedBlock("if (i > 10)").add(new CodegenStatements() {
+                public List<Java.BlockStatement> toSyntaxTree(Location location) {
+                    Java.Rvalue sum = new Java.BinaryOperation(location, new Java.AmbiguousName(location,
+                            new String[] { "i" }), "+", new Java.IntegerLiteral(location, "22"));
+                    try {
+                        return Collections.singletonList(new Java.ExpressionStatement(new Java.Assignment(location,
+                                new Java.AmbiguousName(location, new String[] { "i" }), "=", sum)));
+                    } catch (CompileException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+
+                public String toString() {
+                    return "i = i + 22;";
+                }
+            });
+            m.add("return i;");
+            assertEquals(42, ((IntSupplier) clz.compileAndInstantiate()).getAsInt());
+            assertEquals(0, codegen.getNumberOfSyntaxTreeFallbacks());
+        }
+    }
+
+    @Test
+    public void statementsFallback() {
+        Codegen codegen = new Codegen();
+        CodegenClass clz = codegen.newClass("public class Test implements ", IntSupplier.class);
+        clz.addImport(IntSupplier.class);
+        CodegenMethod m = clz.addMethod("public int getAsInt()");
+        m.add(new CodegenStatements() {
+            public List<Java.BlockStatement> toSyntaxTree(Location location) {
+                throw new UnsupportedOperationException();
+            }
+
+            public String toString() {
+                return "return 42;";
+            }
+        });
+        // The class is compiled from its source code instead
+        assertEquals(42, ((IntSupplier) clz.compileAndInstantiate()).getAsInt());
+        assertEquals(1, codegen.getNumberOfSyntaxTreeFallbacks());
+    }
 }
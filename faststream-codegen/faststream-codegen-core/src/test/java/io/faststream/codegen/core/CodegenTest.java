@@ -16,9 +16,13 @@
 package io.faststream.codegen.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
 
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -57,6 +61,35 @@ public class CodegenTest {
         assertEquals("Hello", call.newInstance().call());
     }
 
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void compileBytecodeBatch() throws Exception {
+        Codegen c = new Codegen();
+        CodegenClass clz1 = c.newClass("public class Test implements Callable");
+        clz1.addImport(Callable.class);
+        clz1.addMethod("public Object call()").add("return new Test2().toString();");
+        CodegenClass clz2 = c.newClass("public class Test2");
+        clz2.addMethod("public String toString()").add("return \"Hello\";");
+        Map<String, byte[]> bytecode = c.compileBytecode(Arrays.asList(clz1, clz2));
+        assertEquals(2, bytecode.size());
+        Class<Callable> call = clz1.compile();
+        assertEquals("Hello", call.newInstance().call());
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void hiddenClass() throws Exception {
+        Codegen c = new Codegen();
+        CodegenClass clz = c.newClass("public class Test implements Callable").setPackage("test");
+        clz.addImport(Callable.class);
+        clz.addMethod("public Object call()").add("return \"Hello\";");
+        Class<?> hidden = c.defineHiddenClass(c.compileBytecode(clz));
+        assumeTrue(hidden != null); // Hidden classes requires Java 15
+        assertEquals("Hello", ((Callable) hidden.newInstance()).call());
+        // The class can still be loaded normally
+        assertNotSame(hidden, clz.compile());
+    }
+
     @SuppressWarnings({ "rawtypes" })
     @Test
     public void simple2() throws Exception {
@@ -0,0 +1,12 @@
+import java.util.function.IntSupplier;
+
+public class Test implements IntSupplier {
+
+    public int getAsInt() {
+        int i = 20;
+        if (i > 10) {
+            i = i + 22;
+        }
+        return i;
+    }
+}
@@ -25,6 +25,10 @@
 
 package io.faststream.codegen.janino;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * An {@link IClassLoader} that loads {@link IClass}es through a reflection {@link ClassLoader}.
  */
@@ -61,6 +65,35 @@ public class ClassLoaderIClassLoader extends IClassLoader {
         return this.classLoader;
     }
 
+    /**
+     * Returns a {@link ClassLoaderIClassLoader} for the given {@link ClassLoader} that is shared by all callers in this
+     * JVM. Each {@link IClass} is thereby created, and its methods, fields and descriptors are determined via
+     * reflection, only once, instead of once for every compilation.
+     * <p>
+     * The returned {@link IClassLoader} is thread-safe. It is retained as long as any compiler uses it, and it does not
+     * remember types that could not be loaded.
+     * 
+     * @param classLoader
+     *            The delegate that loads the classes.
+     */
+    public static ClassLoaderIClassLoader getShared(ClassLoader classLoader) {
+        synchronized (ClassLoaderIClassLoader.SHARED) {
+            WeakReference<ClassLoaderIClassLoader> ref = ClassLoaderIClassLoader.SHARED.get(classLoader);
+            ClassLoaderIClassLoader result = ref == null ? null : ref.get();
+            if (result == null) {
+                result = new ClassLoaderIClassLoader(classLoader);
+                result.cacheUnloadableIClasses = false;
+                ClassLoaderIClassLoader.SHARED.put(classLoader, new WeakReference<>(result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The shared instances, values are only weakly referenced as they strongly reference their key.
+     */
+    private static final Map<ClassLoader, WeakReference<ClassLoaderIClassLoader>> SHARED = new WeakHashMap<>();
+
     /**
      * Find a new {@link IClass} by descriptor.
      */
@@ -35,6 +35,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import io.faststream.codegen.janino.compiler.CompileException;
 import io.faststream.codegen.janino.util.ClassFile;
 
 /**
@@ -43,11 +44,7 @@ import io.faststream.codegen.janino.util.ClassFile;
  * table size and flow analysis.
  */
 public class CodeContext {
-    private static final boolean DEBUG = false;
     private static final int INITIAL_SIZE = 128;
-    private static final byte UNEXAMINED = -1;
-    private static final byte INVALID_OFFSET = -2;
-    private static final int MAX_STACK_SIZE = 254;
     private/* final */ClassFile classFile;
 
     private short maxStack;
@@ -58,6 +55,12 @@ public class CodeContext {
     private Inserter currentInserter;
     private/* final */List exceptionTableEntries; // ExceptionTableEntry
 
+    /** The exception table as determined by {@link #flowAnalysis}, as (startPC, endPC, handlerPC, catchType) tuples. */
+    private int[] exceptionTable;
+
+    /** The "StackMapTable" attribute as determined by {@link #flowAnalysis}, or <code>null</code>. */
+    private ClassFile.AttributeInfo stackMapTableAttribute;
+
     /**
      * List of Java.LocalVariableSlot objects that contain all the local variables that are allocated in any block in
      * this CodeContext.
@@ -187,7 +190,8 @@ public class CodeContext {
     }
 
     /**
-     * 
+     * Stores the body of the "Code" attribute. Must be invoked after {@link #flowAnalysis}.
+     *
      * @param dos
      * @param lineNumberTableAttributeNameIndex
      *            0 == don't generate a "LineNumberTable" attribute
@@ -199,16 +203,17 @@ public class CodeContext {
         dos.writeShort(this.maxLocals); // max_locals
         dos.writeInt(this.end.offset); // code_length
         dos.write(this.code, 0, this.end.offset); // code
-        dos.writeShort(this.exceptionTableEntries.size()); // exception_table_length
-        for (int i = 0; i < this.exceptionTableEntries.size(); ++i) { // exception_table
-            ExceptionTableEntry exceptionTableEntry = (ExceptionTableEntry) this.exceptionTableEntries.get(i);
-            dos.writeShort(exceptionTableEntry.startPC.offset);
-            dos.writeShort(exceptionTableEntry.endPC.offset);
-            dos.writeShort(exceptionTableEntry.handlerPC.offset);
-            dos.writeShort(exceptionTableEntry.catchType);
+        dos.writeShort(this.exceptionTable.length / 4); // exception_table_length
+        for (int i = 0; i < this.exceptionTable.length; ++i) { // exception_table
+            dos.writeShort(this.exceptionTable[i]);
         }
 
-        List attributes = new ArrayList(); // ClassFile.AttributeInfo
+        List<ClassFile.AttributeInfo> attributes = new ArrayList<>();
+
+        // Add "StackMapTable" attribute.
+        if (this.stackMapTableAttribute != null) {
+            attributes.add(this.stackMapTableAttribute);
+        }
 
         // Add "LineNumberTable" attribute.
         if (lineNumberTableAttributeNameIndex != 0) {
@@ -273,349 +278,38 @@ public class CodeContext {
     }
 
     /**
-     * Checks the code for consistency; updates the "maxStack" member.
+     * Checks the code for consistency; updates the "maxStack" member, replaces unreachable code and, for class files
+     * of version 50 and later, computes the "StackMapTable" attribute. Must be invoked after
+     * {@link #fixUpAndRelocate()}.
      * 
      * Notice: On inconsistencies, a "RuntimeException" is thrown (KLUDGE).
-     */
-    public void flowAnalysis(String functionName) {
-        if (CodeContext.DEBUG) {
-            System.err.println("flowAnalysis(" + functionName + ")");
-        }
-
-        short[] stackSizes = new short[this.end.offset];
-        Arrays.fill(stackSizes, CodeContext.UNEXAMINED);
-
-        // Analyze flow from offset zero.
-        this.flowAnalysis(functionName, this.code, // code
-                this.end.offset, // codeSize
-                0, // offset
-                (short) 0, // stackSize
-                stackSizes // stackSizes
-        );
-
-        // Analyze flow from exception handler entry points.
-        int analyzedExceptionHandlers = 0;
-        while (analyzedExceptionHandlers != this.exceptionTableEntries.size()) {
-            for (int i = 0; i < this.exceptionTableEntries.size(); ++i) {
-                ExceptionTableEntry exceptionTableEntry = (ExceptionTableEntry) this.exceptionTableEntries.get(i);
-                if (stackSizes[exceptionTableEntry.startPC.offset] != CodeContext.UNEXAMINED) {
-                    this.flowAnalysis(functionName, this.code, // code
-                            this.end.offset, // codeSize
-                            exceptionTableEntry.handlerPC.offset, // offset
-                            (short) (stackSizes[exceptionTableEntry.startPC.offset] + 1), // stackSize
-                            stackSizes // stackSizes
-                    );
-                    ++analyzedExceptionHandlers;
-                }
-            }
-        }
-
-        // Check results and determine maximum stack size.
-        this.maxStack = 0;
-        for (int i = 0; i < stackSizes.length; ++i) {
-            short ss = stackSizes[i];
-            if (ss == CodeContext.UNEXAMINED) {
-                if (CodeContext.DEBUG) {
-                    System.out.println(functionName + ": Unexamined code at offset " + i);
-                    return;
-                } else {
-                    throw new JaninoRuntimeException(functionName + ": Unexamined code at offset " + i);
-                }
-            }
-            if (ss > this.maxStack)
-                this.maxStack = ss;
-        }
-    }
-
-    private void flowAnalysis(String functionName, byte[] code, // Bytecode
-            int codeSize, // Size
-            int offset, // Current PC
-            short stackSize, // Stack size on entry
-            short[] stackSizes // Stack sizes in code
-    ) {
-        for (;;) {
-            if (CodeContext.DEBUG)
-                System.out.println("Offset = " + offset + ", stack size = " + stackSize);
-
-            // Check current bytecode offset.
-            if (offset < 0 || offset >= codeSize) {
-                throw new JaninoRuntimeException(functionName + ": Offset out of range");
-            }
-
-            // Have we hit an area that has already been analyzed?
-            int css = stackSizes[offset];
-            if (css == stackSize)
-                return; // OK.
-            if (css == CodeContext.INVALID_OFFSET)
-                throw new JaninoRuntimeException(functionName + ": Invalid offset");
-            if (css != CodeContext.UNEXAMINED) {
-                if (CodeContext.DEBUG) {
-                    System.err.println(functionName + ": Operand stack inconsistent at offset " + offset
-                            + ": Previous size " + css + ", now " + stackSize);
-                    return;
-                } else {
-                    throw new JaninoRuntimeException(functionName + ": Operand stack inconsistent at offset " + offset
-                            + ": Previous size " + css + ", now " + stackSize);
-                }
-            }
-            stackSizes[offset] = stackSize;
-
-            // Analyze current opcode.
-            byte opcode = code[offset];
-            int operandOffset = offset + 1;
-            short props;
-            if (opcode == Opcode.WIDE) {
-                opcode = code[operandOffset++];
-                props = Opcode.WIDE_OPCODE_PROPERTIES[0xff & opcode];
-            } else {
-                props = Opcode.OPCODE_PROPERTIES[0xff & opcode];
-            }
-            if (props == Opcode.INVALID_OPCODE) {
-                throw new JaninoRuntimeException(functionName + ": Invalid opcode " + (0xff & opcode) + " at offset "
-                        + offset);
-            }
-
-            switch (props & Opcode.SD_MASK) {
-
-            case Opcode.SD_M4:
-            case Opcode.SD_M3:
-            case Opcode.SD_M2:
-            case Opcode.SD_M1:
-            case Opcode.SD_P0:
-            case Opcode.SD_P1:
-            case Opcode.SD_P2:
-                stackSize += (props & Opcode.SD_MASK) - Opcode.SD_P0;
-                break;
-
-            case Opcode.SD_0:
-                stackSize = 0;
-                break;
-
-            case Opcode.SD_GETFIELD:
-                --stackSize;
-                /* FALL THROUGH */
-            case Opcode.SD_GETSTATIC:
-                stackSize += this.determineFieldSize((short) (extract16BitValue(0, operandOffset, code)));
-                break;
-
-            case Opcode.SD_PUTFIELD:
-                --stackSize;
-                /* FALL THROUGH */
-            case Opcode.SD_PUTSTATIC:
-                stackSize -= this.determineFieldSize((short) (extract16BitValue(0, operandOffset, code)));
-                break;
-
-            case Opcode.SD_INVOKEVIRTUAL:
-            case Opcode.SD_INVOKESPECIAL:
-            case Opcode.SD_INVOKEINTERFACE:
-                --stackSize;
-                /* FALL THROUGH */
-            case Opcode.SD_INVOKESTATIC:
-                stackSize -= this.determineArgumentsSize((short) (extract16BitValue(0, operandOffset, code)));
-                break;
-
-            case Opcode.SD_MULTIANEWARRAY:
-                stackSize -= code[operandOffset + 2] - 1;
-                break;
-
-            default:
-                throw new JaninoRuntimeException(functionName + ": Invalid stack delta");
-            }
-
-            if (stackSize < 0) {
-                String msg = (this.classFile.getThisClassName() + '.' + functionName
-                        + ": Operand stack underrun at offset " + offset);
-                if (CodeContext.DEBUG) {
-                    System.err.println(msg);
-                    return;
-                } else {
-                    throw new JaninoRuntimeException(msg);
-                }
-            }
-
-            if (stackSize > MAX_STACK_SIZE) {
-                String msg = (this.classFile.getThisClassName() + '.' + functionName
-                        + ": Operand stack overflow at offset " + offset);
-                if (CodeContext.DEBUG) {
-                    System.err.println(msg);
-                    return;
-                } else {
-                    throw new JaninoRuntimeException(msg);
-                }
-            }
-
-            switch (props & Opcode.OP1_MASK) {
-
-            case 0:
-                ;
-                break;
-
-            case Opcode.OP1_SB:
-            case Opcode.OP1_UB:
-            case Opcode.OP1_CP1:
-            case Opcode.OP1_LV1:
-                ++operandOffset;
-                break;
-
-            case Opcode.OP1_SS:
-            case Opcode.OP1_CP2:
-            case Opcode.OP1_LV2:
-                operandOffset += 2;
-                break;
-
-            case Opcode.OP1_BO2:
-                if (CodeContext.DEBUG) {
-                    System.out.println("Offset = " + offset);
-                    System.out.println("Operand offset = " + operandOffset);
-                    System.out.println(code[operandOffset]);
-                    System.out.println(code[operandOffset + 1]);
-                }
-                this.flowAnalysis(functionName, code, codeSize, extract16BitValue(offset, operandOffset, code),
-                        stackSize, stackSizes);
-                operandOffset += 2;
-                break;
-
-            case Opcode.OP1_JSR:
-                if (CodeContext.DEBUG) {
-                    System.out.println("Offset = " + offset);
-                    System.out.println("Operand offset = " + operandOffset);
-                    System.out.println(code[operandOffset]);
-                    System.out.println(code[operandOffset + 1]);
-                }
-                int targetOffset = extract16BitValue(offset, operandOffset, code);
-                operandOffset += 2;
-                if (stackSizes[targetOffset] == CodeContext.UNEXAMINED) {
-                    this.flowAnalysis(functionName, code, codeSize, targetOffset, (short) (stackSize + 1), stackSizes);
-                }
-                break;
-
-            case Opcode.OP1_BO4:
-                this.flowAnalysis(functionName, code, codeSize, extract32BitValue(offset, operandOffset, code),
-                        stackSize, stackSizes);
-                operandOffset += 4;
-                break;
-
-            case Opcode.OP1_LOOKUPSWITCH:
-                while ((operandOffset & 3) != 0)
-                    ++operandOffset;
-                this.flowAnalysis(functionName, code, codeSize, extract32BitValue(offset, operandOffset, code),
-                        stackSize, stackSizes);
-                operandOffset += 4;
-
-                int npairs = extract32BitValue(0, operandOffset, code);
-                operandOffset += 4;
-
-                for (int i = 0; i < npairs; ++i) {
-                    operandOffset += 4; // skip match value
-                    this.flowAnalysis(functionName, code, codeSize, extract32BitValue(offset, operandOffset, code),
-                            stackSize, stackSizes);
-                    operandOffset += 4; // advance over offset
-                }
-                break;
-
-            case Opcode.OP1_TABLESWITCH:
-                while ((operandOffset & 3) != 0)
-                    ++operandOffset;
-                this.flowAnalysis(functionName, code, codeSize, extract32BitValue(offset, operandOffset, code),
-                        stackSize, stackSizes);
-                operandOffset += 4;
-                int low = extract32BitValue(offset, operandOffset, code);
-                operandOffset += 4;
-                int hi = extract32BitValue(offset, operandOffset, code);
-                operandOffset += 4;
-                for (int i = low; i <= hi; ++i) {
-                    this.flowAnalysis(functionName, code, codeSize, extract32BitValue(offset, operandOffset, code),
-                            stackSize, stackSizes);
-                    operandOffset += 4;
-                }
-                break;
-
-            default:
-                throw new JaninoRuntimeException(functionName + ": Invalid OP1");
-            }
-
-            switch (props & Opcode.OP2_MASK) {
-
-            case 0:
-                ;
-                break;
-
-            case Opcode.OP2_SB:
-                ++operandOffset;
-                break;
-
-            case Opcode.OP2_SS:
-                operandOffset += 2;
-                break;
-
-            default:
-                throw new JaninoRuntimeException(functionName + ": Invalid OP2");
-            }
-
-            switch (props & Opcode.OP3_MASK) {
-
-            case 0:
-                ;
-                break;
-
-            case Opcode.OP3_SB:
-                ++operandOffset;
-                break;
-
-            default:
-                throw new JaninoRuntimeException(functionName + ": Invalid OP3");
-            }
-
-            Arrays.fill(stackSizes, offset + 1, operandOffset, CodeContext.INVALID_OFFSET);
-
-            if ((props & Opcode.NO_FALLTHROUGH) != 0)
-                return;
-            offset = operandOffset;
-        }
-    }
-
-    /**
-     * Extract a 16 bit value at offset in code and add bias to it
      * 
-     * @param bias
-     *            An int to skew the final result by (useful for calculating relative offsets)
-     * @param offset
-     *            The position in the code array to extract the bytes from
-     * @param code
-     *            The array of bytes
-     * @return An integer that treats the two bytes at position offset as an UNSIGNED SHORT
-     */
-    private int extract16BitValue(int bias, int offset, byte[] code) {
-        int res = bias + (((code[offset]) << 8) + (code[offset + 1] & 0xff));
-        if (CodeContext.DEBUG) {
-            System.out.println("extract16BitValue(bias, offset) = (" + bias + ", " + offset + ")");
-            System.out.println("bytes = {" + code[offset] + ", " + code[offset + 1] + "}");
-            System.out.println("result = " + res);
+     * @param functionName
+     *            The name of the function, for error messages
+     * @param methodInfo
+     *            The method that this code belongs to
+     * @param classHierarchy
+     *            Determines the common superclass of reference types where control flow merges
+     */
+    public void flowAnalysis(String functionName, ClassFile.MethodInfo methodInfo, ClassHierarchy classHierarchy)
+            throws CompileException {
+        int[] exceptionTable = new int[4 * this.exceptionTableEntries.size()];
+        for (int i = 0; i < this.exceptionTableEntries.size(); ++i) {
+            ExceptionTableEntry exceptionTableEntry = (ExceptionTableEntry) this.exceptionTableEntries.get(i);
+            exceptionTable[4 * i] = exceptionTableEntry.startPC.offset;
+            exceptionTable[4 * i + 1] = exceptionTableEntry.endPC.offset;
+            exceptionTable[4 * i + 2] = exceptionTableEntry.handlerPC.offset;
+            exceptionTable[4 * i + 3] = 0xffff & exceptionTableEntry.catchType;
         }
-        return res;
-    }
 
-    /**
-     * Extract a 32 bit value at offset in code and add bias to it
-     * 
-     * @param bias
-     *            An int to skew the final result by (useful for calculating relative offsets)
-     * @param offset
-     *            The position in the code array to extract the bytes from
-     * @param code
-     *            The array of bytes
-     * @return The 4 bytes at position offset + bias
-     */
-    private int extract32BitValue(int bias, int offset, byte[] code) {
-        int res = bias
-                + ((code[offset] << 24) + ((0xff & code[offset + 1]) << 16) + ((0xff & code[offset + 2]) << 8) + (0xff & code[offset + 3]));
-        if (CodeContext.DEBUG) {
-            System.out.println("extract32BitValue(bias, offset) = (" + bias + ", " + offset + ")");
-            System.out.println("" + "bytes = {" + code[offset] + ", " + code[offset + 1] + ", " + code[offset + 2]
-                    + ", " + code[offset + 3] + "}");
-            System.out.println("result = " + res);
+        FlowAnalyzer fa = new FlowAnalyzer(functionName, methodInfo, classHierarchy, this.code, this.end.offset,
+                this.maxLocals, exceptionTable);
+        fa.analyze();
+        this.maxStack = (short) fa.getMaxStack();
+        this.exceptionTable = fa.getExceptionTable();
+        if (this.classFile.getMajorVersion() >= ClassFile.MAJOR_VERSION_JDK_1_6) {
+            this.stackMapTableAttribute = fa.createStackMapTableAttribute();
         }
-        return res;
     }
 
     /**
@@ -658,75 +352,6 @@ public class CodeContext {
         return finished;
     }
 
-    /**
-     * Analyse the descriptor of the Fieldref and return its size.
-     */
-    private int determineFieldSize(short idx) {
-        ClassFile.ConstantFieldrefInfo cfi = ((ClassFile.ConstantFieldrefInfo) this.classFile.getConstantPoolInfo(idx));
-        ClassFile.ConstantNameAndTypeInfo cnati = ((ClassFile.ConstantNameAndTypeInfo) this.classFile
-                .getConstantPoolInfo(cfi.getNameAndTypeIndex()));
-        ClassFile.ConstantUtf8Info cui = ((ClassFile.ConstantUtf8Info) this.classFile.getConstantPoolInfo(cnati
-                .getDescriptorIndex()));
-        return Descriptor.size(cui.getString());
-    }
-
-    /**
-     * Analyse the descriptor of the Methodref and return the sum of the arguments' sizes minus the return value's size.
-     */
-    private int determineArgumentsSize(short idx) {
-        ClassFile.ConstantPoolInfo cpi = this.classFile.getConstantPoolInfo(idx);
-        ClassFile.ConstantNameAndTypeInfo nat = (ClassFile.ConstantNameAndTypeInfo) this.classFile
-                .getConstantPoolInfo(cpi instanceof ClassFile.ConstantInterfaceMethodrefInfo ? ((ClassFile.ConstantInterfaceMethodrefInfo) cpi)
-                        .getNameAndTypeIndex() : ((ClassFile.ConstantMethodrefInfo) cpi).getNameAndTypeIndex());
-        ClassFile.ConstantUtf8Info cui = ((ClassFile.ConstantUtf8Info) this.classFile.getConstantPoolInfo(nat
-                .getDescriptorIndex()));
-        String desc = cui.getString();
-
-        if (desc.charAt(0) != '(')
-            throw new JaninoRuntimeException("Method descriptor does not start with \"(\"");
-        int i = 1;
-        int res = 0;
-        for (;;) {
-            switch (desc.charAt(i++)) {
-            case ')':
-                return res - Descriptor.size(desc.substring(i));
-            case 'B':
-            case 'C':
-            case 'F':
-            case 'I':
-            case 'S':
-            case 'Z':
-                res += 1;
-                break;
-            case 'D':
-            case 'J':
-                res += 2;
-                break;
-            case '[':
-                res += 1;
-                while (desc.charAt(i) == '[')
-                    ++i;
-                if ("BCFISZDJ".indexOf(desc.charAt(i)) != -1) {
-                    ++i;
-                    break;
-                }
-                if (desc.charAt(i) != 'L')
-                    throw new JaninoRuntimeException("Invalid char after \"[\"");
-                ++i;
-                while (desc.charAt(i++) != ';')
-                    ;
-                break;
-            case 'L':
-                res += 1;
-                while (desc.charAt(i++) != ';')
-                    ;
-                break;
-            default:
-                throw new JaninoRuntimeException("Invalid method descriptor");
-            }
-        }
-    }
-
     /**
      * Inserts a sequence of bytes at the current insertion position. Creates {@link LineNumberOffset}s as necessary.
      * 
@@ -1154,6 +779,23 @@ public class CodeContext {
         void fixUp();
     }
 
+    /**
+     * Provides the class hierarchy information that {@link CodeContext#flowAnalysis} needs to compute the
+     * verification types of values where control flow merges.
+     */
+    public interface ClassHierarchy {
+
+        /**
+         * @param fd1
+         *            Field descriptor of a class or interface
+         * @param fd2
+         *            Field descriptor of another class or interface
+         * @return The field descriptor of the most specific common superclass of the two types;
+         *         "Ljava/lang/Object;" if either of the two is an interface
+         */
+        String getCommonSuperclass(String fd1, String fd2) throws CompileException;
+    }
+
     public List getAllLocalVars() {
         return this.allLocalVars;
     }
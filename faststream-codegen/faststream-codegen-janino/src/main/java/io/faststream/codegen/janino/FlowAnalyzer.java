@@ -0,0 +1,1346 @@
+/*
+ * Janino - An embedded Java[TM] compiler
+ *
+ * Copyright (c) 2001-2010, Arno Unkrig
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of conditions and the
+ *       following disclaimer.
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ *       following disclaimer in the documentation and/or other materials provided with the distribution.
+ *    3. The name of the author may not be used to endorse or promote products derived from this software without
+ *       specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.faststream.codegen.janino;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.faststream.codegen.janino.compiler.CompileException;
+import io.faststream.codegen.janino.util.ClassFile;
+
+/**
+ * Infers the verification types (JVMS 4.10.1.2) of the local variables and the operand stack at each instruction of
+ * a method's byte code. This determines "max_stack", replaces unreachable code with <code>NOP ... ATHROW</code>
+ * sequences, removes unreachable code from the exception table and produces the entries of the "StackMapTable"
+ * attribute (JVMS 4.7.4) that class files of version 50 and later require.
+ * <p>
+ * Verification types are represented as strings: a field descriptor for class and array types, {@link #TOP},
+ * {@link #INTEGER}, {@link #FLOAT}, {@link #LONG}, {@link #DOUBLE}, {@link #NULL}, {@link #UNINITIALIZED_THIS} and
+ * {@link #UNINITIALIZED_THIS} followed by the offset of the "new" instruction for uninitialized objects. Long and
+ * double values occupy two slots, both in the local variables and on the operand stack; the second slot is
+ * {@link #TOP}.
+ */
+final class FlowAnalyzer {
+    private static final String TOP = "T";
+    private static final String INTEGER = "I";
+    private static final String FLOAT = "F";
+    private static final String LONG = "J";
+    private static final String DOUBLE = "D";
+    private static final String NULL = "N";
+    private static final String UNINITIALIZED_THIS = "U";
+
+    private static final int MAX_STACK_SIZE = 254;
+
+    private final String functionName;
+    private final ClassFile classFile;
+    private final ClassFile.MethodInfo methodInfo;
+    private final CodeContext.ClassHierarchy classHierarchy;
+    private final byte[] code;
+    private final int codeLength;
+    private final int maxLocals;
+    private final String thisClassFD;
+
+    /** The exception table as (startPC, endPC, handlerPC, catchType) tuples. */
+    private int[] exceptionTable;
+
+    /** The frames at the beginning of the basic blocks; <code>null</code> for unreached blocks. */
+    private final Frame[] frames;
+
+    private final boolean[] blockStarts;
+    private final boolean[] reached;
+
+    /** The offsets that require an explicit entry in the "StackMapTable" attribute. */
+    private final boolean[] explicitFrames;
+
+    private final int[] workList;
+    private final boolean[] queued;
+    private int workListSize;
+
+    private int maxStack;
+
+    FlowAnalyzer(String functionName, ClassFile.MethodInfo methodInfo, CodeContext.ClassHierarchy classHierarchy,
+            byte[] code, int codeLength, int maxLocals, int[] exceptionTable) {
+        this.functionName = functionName;
+        this.classFile = methodInfo.getClassFile();
+        this.methodInfo = methodInfo;
+        this.classHierarchy = classHierarchy;
+        this.code = code;
+        this.codeLength = codeLength;
+        this.maxLocals = maxLocals;
+        this.exceptionTable = exceptionTable;
+        this.thisClassFD = Descriptor.fromInternalForm(this.classFile.getConstantClassName(this.classFile.thisClass));
+
+        this.frames = new Frame[codeLength];
+        this.blockStarts = new boolean[codeLength];
+        this.reached = new boolean[codeLength];
+        this.explicitFrames = new boolean[codeLength];
+        this.workList = new int[codeLength];
+        this.queued = new boolean[codeLength];
+    }
+
+    /**
+     * Runs the analysis. On inconsistent code, a {@link JaninoRuntimeException} is thrown.
+     */
+    void analyze() throws CompileException {
+        this.removeEmptyExceptionTableEntries();
+        this.findBlockStarts();
+
+        Frame initialFrame = this.initialFrame();
+        this.merge(0, initialFrame, false);
+        while (this.workListSize > 0) {
+            int offset = this.workList[--this.workListSize];
+            this.queued[offset] = false;
+            Frame f = this.frames[offset].copy();
+            for (;;) {
+                this.reached[offset] = true;
+                this.mergeIntoHandlers(offset, f);
+                int next = this.execute(offset, f);
+                this.mergeIntoHandlers(offset, f);
+                if (f.stackSize > this.maxStack) {
+                    this.maxStack = f.stackSize;
+                    if (this.maxStack > FlowAnalyzer.MAX_STACK_SIZE) {
+                        throw new JaninoRuntimeException(this.classFile.getThisClassName() + '.' + this.functionName
+                                + ": Operand stack overflow at offset " + offset);
+                    }
+                }
+                if (next == -1) {
+                    break;
+                }
+                if (next >= this.codeLength) {
+                    throw new JaninoRuntimeException(this.functionName + ": Offset out of range");
+                }
+                if (this.blockStarts[next]) {
+                    this.merge(next, f, false);
+                    break;
+                }
+                offset = next;
+            }
+        }
+
+        this.replaceUnreachableCode();
+    }
+
+    /**
+     * Returns the value for the "max_stack" field of the "Code" attribute.
+     */
+    int getMaxStack() {
+        return this.maxStack;
+    }
+
+    /**
+     * Returns the exception table without entries for unreachable code, as (startPC, endPC, handlerPC, catchType)
+     * tuples.
+     */
+    int[] getExceptionTable() {
+        return this.exceptionTable;
+    }
+
+    /**
+     * Creates the "StackMapTable" attribute for the analyzed code.
+     *
+     * @return <code>null</code> if the code needs no explicit stack map frames
+     */
+    ClassFile.StackMapTableAttribute createStackMapTableAttribute() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        int numberOfEntries = 0;
+        try {
+            String[] previousLocals = FlowAnalyzer.localEntries(this.initialFrame());
+            int previousOffset = -1;
+            for (int offset = 0; offset < this.codeLength; ++offset) {
+                if (!this.explicitFrames[offset]) {
+                    continue;
+                }
+                Frame f = this.frames[offset];
+                String[] locals = FlowAnalyzer.localEntries(f);
+                String[] stack = FlowAnalyzer.stackEntries(f);
+                int offsetDelta = offset - previousOffset - 1;
+                int k = locals.length - previousLocals.length;
+
+                if (stack.length == 0 && Arrays.equals(locals, previousLocals)) {
+                    if (offsetDelta < 64) {
+                        dos.writeByte(offsetDelta); // same_frame
+                    } else {
+                        dos.writeByte(251); // same_frame_extended
+                        dos.writeShort(offsetDelta);
+                    }
+                } else if (stack.length == 1 && Arrays.equals(locals, previousLocals)) {
+                    if (offsetDelta < 64) {
+                        dos.writeByte(64 + offsetDelta); // same_locals_1_stack_item_frame
+                    } else {
+                        dos.writeByte(247); // same_locals_1_stack_item_frame_extended
+                        dos.writeShort(offsetDelta);
+                    }
+                    this.storeVerificationType(dos, stack[0]);
+                } else if (stack.length == 0 && k < 0 && k >= -3 && FlowAnalyzer.startsWith(previousLocals, locals)) {
+                    dos.writeByte(251 + k); // chop_frame
+                    dos.writeShort(offsetDelta);
+                } else if (stack.length == 0 && k > 0 && k <= 3 && FlowAnalyzer.startsWith(locals, previousLocals)) {
+                    dos.writeByte(251 + k); // append_frame
+                    dos.writeShort(offsetDelta);
+                    for (int i = previousLocals.length; i < locals.length; ++i) {
+                        this.storeVerificationType(dos, locals[i]);
+                    }
+                } else {
+                    dos.writeByte(255); // full_frame
+                    dos.writeShort(offsetDelta);
+                    dos.writeShort(locals.length);
+                    for (int i = 0; i < locals.length; ++i) {
+                        this.storeVerificationType(dos, locals[i]);
+                    }
+                    dos.writeShort(stack.length);
+                    for (int i = 0; i < stack.length; ++i) {
+                        this.storeVerificationType(dos, stack[i]);
+                    }
+                }
+                previousLocals = locals;
+                previousOffset = offset;
+                ++numberOfEntries;
+            }
+        } catch (IOException ioe) {
+            throw new JaninoRuntimeException("SNO: Writing to a ByteArrayOutputStream failed", ioe);
+        }
+        if (numberOfEntries == 0) {
+            return null;
+        }
+        return new ClassFile.StackMapTableAttribute(this.classFile.addConstantUtf8Info("StackMapTable"),
+                numberOfEntries, baos.toByteArray());
+    }
+
+    private void storeVerificationType(DataOutputStream dos, String type) throws IOException {
+        switch (type.charAt(0)) {
+        case 'T':
+            dos.writeByte(0);
+            break;
+        case 'I':
+            dos.writeByte(1);
+            break;
+        case 'F':
+            dos.writeByte(2);
+            break;
+        case 'D':
+            dos.writeByte(3);
+            break;
+        case 'J':
+            dos.writeByte(4);
+            break;
+        case 'N':
+            dos.writeByte(5);
+            break;
+        case 'U':
+            if (type.length() == 1) {
+                dos.writeByte(6);
+            } else {
+                dos.writeByte(8);
+                dos.writeShort(Integer.parseInt(type.substring(1)));
+            }
+            break;
+        default:
+            dos.writeByte(7);
+            dos.writeShort(this.classFile.addConstantClassInfo(type));
+        }
+    }
+
+    private static boolean startsWith(String[] a, String[] prefix) {
+        for (int i = 0; i < prefix.length; ++i) {
+            if (!a[i].equals(prefix[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the local variables of the frame as stack map frame entries, without the implicit second slot of long
+     * and double values and without trailing {@link #TOP}s.
+     */
+    private static String[] localEntries(Frame f) {
+        List<String> l = FlowAnalyzer.entries(f.locals, f.locals.length);
+        while (!l.isEmpty() && l.get(l.size() - 1) == FlowAnalyzer.TOP) {
+            l.remove(l.size() - 1);
+        }
+        return l.toArray(new String[l.size()]);
+    }
+
+    private static String[] stackEntries(Frame f) {
+        List<String> l = FlowAnalyzer.entries(f.stack, f.stackSize);
+        return l.toArray(new String[l.size()]);
+    }
+
+    private static List<String> entries(String[] slots, int size) {
+        List<String> l = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            String type = slots[i];
+            l.add(type);
+            if (FlowAnalyzer.isCategory2(type)) {
+                ++i;
+            }
+        }
+        return l;
+    }
+
+    private Frame initialFrame() {
+        String[] locals = new String[this.maxLocals];
+        Arrays.fill(locals, FlowAnalyzer.TOP);
+        int slot = 0;
+        if ((this.methodInfo.getAccessFlags() & Mod.STATIC) == 0) {
+            String methodName = this.classFile.getConstantUtf8(this.methodInfo.getNameIndex());
+            locals[slot++] = "<init>".equals(methodName) && !Descriptor.OBJECT.equals(this.thisClassFD) ? FlowAnalyzer.UNINITIALIZED_THIS
+                    : this.thisClassFD;
+        }
+        MethodDescriptor md = new MethodDescriptor(this.classFile.getConstantUtf8(this.methodInfo
+                .getDescriptorIndex()));
+        for (int i = 0; i < md.parameterFDs.length; ++i) {
+            String type = FlowAnalyzer.verificationType(md.parameterFDs[i]);
+            locals[slot++] = type;
+            if (FlowAnalyzer.isCategory2(type)) {
+                locals[slot++] = FlowAnalyzer.TOP;
+            }
+        }
+        return new Frame(locals, new String[4], 0);
+    }
+
+    private void removeEmptyExceptionTableEntries() {
+        int[] et = new int[this.exceptionTable.length];
+        int size = 0;
+        for (int i = 0; i < this.exceptionTable.length; i += 4) {
+            if (this.exceptionTable[i] < this.exceptionTable[i + 1]) {
+                System.arraycopy(this.exceptionTable, i, et, size, 4);
+                size += 4;
+            }
+        }
+        this.exceptionTable = FlowAnalyzer.copyOf(et, size);
+    }
+
+    /**
+     * Marks the branch targets and the exception handlers as the beginnings of basic blocks.
+     */
+    private void findBlockStarts() {
+        for (int i = 0; i < this.exceptionTable.length; i += 4) {
+            this.blockStarts[this.exceptionTable[i + 2]] = true;
+        }
+        for (int offset = 0; offset < this.codeLength;) {
+            byte opcode = this.code[offset];
+            switch (opcode) {
+            case Opcode.IFEQ:
+            case Opcode.IFNE:
+            case Opcode.IFLT:
+            case Opcode.IFGE:
+            case Opcode.IFGT:
+            case Opcode.IFLE:
+            case Opcode.IF_ICMPEQ:
+            case Opcode.IF_ICMPNE:
+            case Opcode.IF_ICMPLT:
+            case Opcode.IF_ICMPGE:
+            case Opcode.IF_ICMPGT:
+            case Opcode.IF_ICMPLE:
+            case Opcode.IF_ACMPEQ:
+            case Opcode.IF_ACMPNE:
+            case Opcode.IFNULL:
+            case Opcode.IFNONNULL:
+            case Opcode.GOTO:
+                this.markBlockStart(offset + this.s2(offset + 1));
+                break;
+            case Opcode.GOTO_W:
+                this.markBlockStart(offset + this.s4(offset + 1));
+                break;
+            case Opcode.TABLESWITCH: {
+                int p = FlowAnalyzer.padded(offset);
+                this.markBlockStart(offset + this.s4(p));
+                int low = this.s4(p + 4);
+                int high = this.s4(p + 8);
+                for (int i = 0; i <= high - low; ++i) {
+                    this.markBlockStart(offset + this.s4(p + 12 + 4 * i));
+                }
+                break;
+            }
+            case Opcode.LOOKUPSWITCH: {
+                int p = FlowAnalyzer.padded(offset);
+                this.markBlockStart(offset + this.s4(p));
+                int npairs = this.s4(p + 4);
+                for (int i = 0; i < npairs; ++i) {
+                    this.markBlockStart(offset + this.s4(p + 12 + 8 * i));
+                }
+                break;
+            }
+            default:
+                break;
+            }
+            offset = this.nextOffset(offset);
+        }
+    }
+
+    private void markBlockStart(int offset) {
+        if (offset < 0 || offset >= this.codeLength) {
+            throw new JaninoRuntimeException(this.functionName + ": Offset out of range");
+        }
+        this.blockStarts[offset] = true;
+    }
+
+    /**
+     * Returns the offset of the instruction that follows the instruction at the given offset.
+     */
+    private int nextOffset(int offset) {
+        byte opcode = this.code[offset];
+        int operandOffset = offset + 1;
+        short props;
+        if (opcode == Opcode.WIDE) {
+            opcode = this.code[operandOffset++];
+            props = Opcode.WIDE_OPCODE_PROPERTIES[0xff & opcode];
+        } else {
+            props = Opcode.OPCODE_PROPERTIES[0xff & opcode];
+        }
+        if (props == Opcode.INVALID_OPCODE) {
+            throw new JaninoRuntimeException(this.functionName + ": Invalid opcode " + (0xff & opcode)
+                    + " at offset " + offset);
+        }
+        switch (props & Opcode.OP1_MASK) {
+        case 0:
+            break;
+        case Opcode.OP1_SB:
+        case Opcode.OP1_UB:
+        case Opcode.OP1_CP1:
+        case Opcode.OP1_LV1:
+            ++operandOffset;
+            break;
+        case Opcode.OP1_SS:
+        case Opcode.OP1_CP2:
+        case Opcode.OP1_LV2:
+        case Opcode.OP1_BO2:
+        case Opcode.OP1_JSR:
+            operandOffset += 2;
+            break;
+        case Opcode.OP1_BO4:
+            operandOffset += 4;
+            break;
+        case Opcode.OP1_LOOKUPSWITCH:
+            operandOffset = FlowAnalyzer.padded(offset);
+            operandOffset += 8 + 8 * this.s4(operandOffset + 4);
+            break;
+        case Opcode.OP1_TABLESWITCH:
+            operandOffset = FlowAnalyzer.padded(offset);
+            operandOffset += 12 + 4 * (this.s4(operandOffset + 8) - this.s4(operandOffset + 4) + 1);
+            break;
+        default:
+            throw new JaninoRuntimeException(this.functionName + ": Invalid OP1");
+        }
+        switch (props & Opcode.OP2_MASK) {
+        case 0:
+            break;
+        case Opcode.OP2_SB:
+            ++operandOffset;
+            break;
+        case Opcode.OP2_SS:
+            operandOffset += 2;
+            break;
+        default:
+            throw new JaninoRuntimeException(this.functionName + ": Invalid OP2");
+        }
+        if ((props & Opcode.OP3_MASK) == Opcode.OP3_SB) {
+            ++operandOffset;
+        }
+        return operandOffset;
+    }
+
+    /**
+     * Merges the frame into the frame at the given offset and schedules that offset for (re-)analysis if the frame
+     * changed.
+     */
+    private void merge(int offset, Frame f, boolean branch) throws CompileException {
+        if (branch) {
+            this.explicitFrames[offset] = true;
+        }
+        Frame target = this.frames[offset];
+        boolean changed;
+        if (target == null) {
+            this.frames[offset] = f.copy();
+            changed = true;
+        } else {
+            if (target.stackSize != f.stackSize) {
+                throw new JaninoRuntimeException(this.functionName + ": Operand stack inconsistent at offset "
+                        + offset + ": Previous size " + target.stackSize + ", now " + f.stackSize);
+            }
+            changed = this.mergeTypes(target.locals, f.locals, target.locals.length);
+            changed |= this.mergeTypes(target.stack, f.stack, f.stackSize);
+        }
+        if (changed && !this.queued[offset]) {
+            this.queued[offset] = true;
+            this.workList[this.workListSize++] = offset;
+        }
+    }
+
+    private boolean mergeTypes(String[] target, String[] source, int size) throws CompileException {
+        boolean changed = false;
+        for (int i = 0; i < size; ++i) {
+            String t = target[i];
+            String merged = this.mergeType(t, source[i]);
+            if (!merged.equals(t)) {
+                target[i] = merged;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private String mergeType(String t1, String t2) throws CompileException {
+        if (t1.equals(t2)) {
+            return t1;
+        }
+        if (!FlowAnalyzer.isReference(t1) || !FlowAnalyzer.isReference(t2)) {
+            return FlowAnalyzer.TOP;
+        }
+        if (t1 == FlowAnalyzer.NULL) {
+            return t2;
+        }
+        if (t2 == FlowAnalyzer.NULL) {
+            return t1;
+        }
+        return this.commonSupertype(t1, t2);
+    }
+
+    private String commonSupertype(String fd1, String fd2) throws CompileException {
+        if (fd1.equals(fd2)) {
+            return fd1;
+        }
+        boolean isArray1 = Descriptor.isArrayReference(fd1);
+        boolean isArray2 = Descriptor.isArrayReference(fd2);
+        if (isArray1 && isArray2) {
+            String cfd1 = Descriptor.getComponentDescriptor(fd1);
+            String cfd2 = Descriptor.getComponentDescriptor(fd2);
+            if (Descriptor.isReference(cfd1) && Descriptor.isReference(cfd2)) {
+                return '[' + this.commonSupertype(cfd1, cfd2);
+            }
+            return Descriptor.OBJECT;
+        }
+        if (isArray1 || isArray2) {
+            return Descriptor.OBJECT;
+        }
+        return this.classHierarchy.getCommonSuperclass(fd1, fd2);
+    }
+
+    /**
+     * Merges the local variables of the frame into the frames of the exception handlers that cover the given offset.
+     */
+    private void mergeIntoHandlers(int offset, Frame f) throws CompileException {
+        for (int i = 0; i < this.exceptionTable.length; i += 4) {
+            if (offset >= this.exceptionTable[i] && offset < this.exceptionTable[i + 1]) {
+                int catchType = this.exceptionTable[i + 3];
+                String[] stack = { catchType == 0 ? Descriptor.THROWABLE : this.classDescriptor(catchType) };
+                this.merge(this.exceptionTable[i + 2], new Frame(f.locals, stack, 1), true);
+            }
+        }
+    }
+
+    /**
+     * Replaces each maximal sequence of unreached instructions with <code>NOP ... NOP ATHROW</code>, and removes it
+     * from the exception table (JVMS 4.10.1 requires that also unreachable code be type-safe).
+     */
+    private void replaceUnreachableCode() {
+        for (int offset = 0; offset < this.codeLength;) {
+            if (this.reached[offset]) {
+                offset = this.nextOffset(offset);
+                continue;
+            }
+            int start = offset;
+            while (offset < this.codeLength && !this.reached[offset]) {
+                offset = this.nextOffset(offset);
+            }
+            Arrays.fill(this.code, start, offset - 1, Opcode.NOP);
+            this.code[offset - 1] = Opcode.ATHROW;
+
+            String[] locals = new String[this.maxLocals];
+            Arrays.fill(locals, FlowAnalyzer.TOP);
+            this.frames[start] = new Frame(locals, new String[] { Descriptor.THROWABLE }, 1);
+            this.explicitFrames[start] = true;
+            if (this.maxStack < 1) {
+                this.maxStack = 1;
+            }
+            this.removeFromExceptionTable(start, offset);
+        }
+        for (int offset = 0; offset < this.codeLength; ++offset) {
+            if (this.frames[offset] == null) {
+                this.explicitFrames[offset] = false;
+            }
+        }
+    }
+
+    private void removeFromExceptionTable(int start, int end) {
+        int[] et = new int[this.exceptionTable.length + 4];
+        int size = 0;
+        for (int i = 0; i < this.exceptionTable.length; i += 4) {
+            int startPC = this.exceptionTable[i];
+            int endPC = this.exceptionTable[i + 1];
+            if (!this.reached[this.exceptionTable[i + 2]]) {
+                continue;
+            }
+            if (endPC <= start || startPC >= end) {
+                et = FlowAnalyzer.add(et, size, startPC, endPC, this.exceptionTable, i);
+                size += 4;
+                continue;
+            }
+            if (startPC < start) {
+                et = FlowAnalyzer.add(et, size, startPC, start, this.exceptionTable, i);
+                size += 4;
+            }
+            if (endPC > end) {
+                et = FlowAnalyzer.add(et, size, end, endPC, this.exceptionTable, i);
+                size += 4;
+            }
+        }
+        this.exceptionTable = FlowAnalyzer.copyOf(et, size);
+    }
+
+    private static int[] add(int[] et, int size, int startPC, int endPC, int[] from, int index) {
+        if (size + 4 > et.length) {
+            et = FlowAnalyzer.copyOf(et, 2 * et.length);
+        }
+        et[size] = startPC;
+        et[size + 1] = endPC;
+        et[size + 2] = from[index + 2];
+        et[size + 3] = from[index + 3];
+        return et;
+    }
+
+    private static int[] copyOf(int[] a, int length) {
+        int[] result = new int[length];
+        System.arraycopy(a, 0, result, 0, Math.min(a.length, length));
+        return result;
+    }
+
+    /**
+     * Simulates the execution of the instruction at the given offset on the frame.
+     *
+     * @return the offset of the next instruction, or -1 if the instruction does not fall through
+     */
+    private int execute(int offset, Frame f) throws CompileException {
+        byte opcode = this.code[offset];
+        switch (opcode) {
+        case Opcode.NOP:
+            return offset + 1;
+        case Opcode.ACONST_NULL:
+            f.push(FlowAnalyzer.NULL);
+            return offset + 1;
+        case Opcode.ICONST_M1:
+        case Opcode.ICONST_0:
+        case Opcode.ICONST_1:
+        case Opcode.ICONST_2:
+        case Opcode.ICONST_3:
+        case Opcode.ICONST_4:
+        case Opcode.ICONST_5:
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.LCONST_0:
+        case Opcode.LCONST_1:
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.FCONST_0:
+        case Opcode.FCONST_1:
+        case Opcode.FCONST_2:
+            f.push(FlowAnalyzer.FLOAT);
+            return offset + 1;
+        case Opcode.DCONST_0:
+        case Opcode.DCONST_1:
+            f.push(FlowAnalyzer.DOUBLE);
+            return offset + 1;
+        case Opcode.BIPUSH:
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 2;
+        case Opcode.SIPUSH:
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 3;
+        case Opcode.LDC:
+            this.ldc(f, 0xff & this.code[offset + 1]);
+            return offset + 2;
+        case Opcode.LDC_W:
+        case Opcode.LDC2_W:
+            this.ldc(f, this.u2(offset + 1));
+            return offset + 3;
+        case Opcode.ILOAD:
+        case Opcode.LLOAD:
+        case Opcode.FLOAD:
+        case Opcode.DLOAD:
+        case Opcode.ALOAD:
+            this.load(f, opcode, 0xff & this.code[offset + 1]);
+            return offset + 2;
+        case Opcode.ILOAD_0:
+        case Opcode.ILOAD_1:
+        case Opcode.ILOAD_2:
+        case Opcode.ILOAD_3:
+            this.load(f, Opcode.ILOAD, opcode - Opcode.ILOAD_0);
+            return offset + 1;
+        case Opcode.LLOAD_0:
+        case Opcode.LLOAD_1:
+        case Opcode.LLOAD_2:
+        case Opcode.LLOAD_3:
+            this.load(f, Opcode.LLOAD, opcode - Opcode.LLOAD_0);
+            return offset + 1;
+        case Opcode.FLOAD_0:
+        case Opcode.FLOAD_1:
+        case Opcode.FLOAD_2:
+        case Opcode.FLOAD_3:
+            this.load(f, Opcode.FLOAD, opcode - Opcode.FLOAD_0);
+            return offset + 1;
+        case Opcode.DLOAD_0:
+        case Opcode.DLOAD_1:
+        case Opcode.DLOAD_2:
+        case Opcode.DLOAD_3:
+            this.load(f, Opcode.DLOAD, opcode - Opcode.DLOAD_0);
+            return offset + 1;
+        case Opcode.ALOAD_0:
+        case Opcode.ALOAD_1:
+        case Opcode.ALOAD_2:
+        case Opcode.ALOAD_3:
+            this.load(f, Opcode.ALOAD, opcode - Opcode.ALOAD_0);
+            return offset + 1;
+        case Opcode.IALOAD:
+        case Opcode.BALOAD:
+        case Opcode.CALOAD:
+        case Opcode.SALOAD:
+            f.pop(2);
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.LALOAD:
+            f.pop(2);
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.FALOAD:
+            f.pop(2);
+            f.push(FlowAnalyzer.FLOAT);
+            return offset + 1;
+        case Opcode.DALOAD:
+            f.pop(2);
+            f.push(FlowAnalyzer.DOUBLE);
+            return offset + 1;
+        case Opcode.AALOAD: {
+            f.pop(1);
+            String arrayType = f.pop();
+            f.push(Descriptor.isArrayReference(arrayType) ? Descriptor.getComponentDescriptor(arrayType)
+                    : arrayType == FlowAnalyzer.NULL ? FlowAnalyzer.NULL : Descriptor.OBJECT);
+            return offset + 1;
+        }
+        case Opcode.ISTORE:
+        case Opcode.LSTORE:
+        case Opcode.FSTORE:
+        case Opcode.DSTORE:
+        case Opcode.ASTORE:
+            this.store(f, opcode, 0xff & this.code[offset + 1]);
+            return offset + 2;
+        case Opcode.ISTORE_0:
+        case Opcode.ISTORE_1:
+        case Opcode.ISTORE_2:
+        case Opcode.ISTORE_3:
+            this.store(f, Opcode.ISTORE, opcode - Opcode.ISTORE_0);
+            return offset + 1;
+        case Opcode.LSTORE_0:
+        case Opcode.LSTORE_1:
+        case Opcode.LSTORE_2:
+        case Opcode.LSTORE_3:
+            this.store(f, Opcode.LSTORE, opcode - Opcode.LSTORE_0);
+            return offset + 1;
+        case Opcode.FSTORE_0:
+        case Opcode.FSTORE_1:
+        case Opcode.FSTORE_2:
+        case Opcode.FSTORE_3:
+            this.store(f, Opcode.FSTORE, opcode - Opcode.FSTORE_0);
+            return offset + 1;
+        case Opcode.DSTORE_0:
+        case Opcode.DSTORE_1:
+        case Opcode.DSTORE_2:
+        case Opcode.DSTORE_3:
+            this.store(f, Opcode.DSTORE, opcode - Opcode.DSTORE_0);
+            return offset + 1;
+        case Opcode.ASTORE_0:
+        case Opcode.ASTORE_1:
+        case Opcode.ASTORE_2:
+        case Opcode.ASTORE_3:
+            this.store(f, Opcode.ASTORE, opcode - Opcode.ASTORE_0);
+            return offset + 1;
+        case Opcode.IASTORE:
+        case Opcode.FASTORE:
+        case Opcode.AASTORE:
+        case Opcode.BASTORE:
+        case Opcode.CASTORE:
+        case Opcode.SASTORE:
+            f.pop(3);
+            return offset + 1;
+        case Opcode.LASTORE:
+        case Opcode.DASTORE:
+            f.pop(4);
+            return offset + 1;
+        case Opcode.POP:
+            f.pop(1);
+            return offset + 1;
+        case Opcode.POP2:
+            f.pop(2);
+            return offset + 1;
+        case Opcode.DUP:
+            f.dup(1, 0);
+            return offset + 1;
+        case Opcode.DUP_X1:
+            f.dup(1, 1);
+            return offset + 1;
+        case Opcode.DUP_X2:
+            f.dup(1, 2);
+            return offset + 1;
+        case Opcode.DUP2:
+            f.dup(2, 0);
+            return offset + 1;
+        case Opcode.DUP2_X1:
+            f.dup(2, 1);
+            return offset + 1;
+        case Opcode.DUP2_X2:
+            f.dup(2, 2);
+            return offset + 1;
+        case Opcode.SWAP: {
+            String v1 = f.pop();
+            String v2 = f.pop();
+            f.push(v1);
+            f.push(v2);
+            return offset + 1;
+        }
+        case Opcode.IADD:
+        case Opcode.ISUB:
+        case Opcode.IMUL:
+        case Opcode.IDIV:
+        case Opcode.IREM:
+        case Opcode.ISHL:
+        case Opcode.ISHR:
+        case Opcode.IUSHR:
+        case Opcode.IAND:
+        case Opcode.IOR:
+        case Opcode.IXOR:
+        case Opcode.FCMPL:
+        case Opcode.FCMPG:
+            f.pop(2);
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.LADD:
+        case Opcode.LSUB:
+        case Opcode.LMUL:
+        case Opcode.LDIV:
+        case Opcode.LREM:
+        case Opcode.LAND:
+        case Opcode.LOR:
+        case Opcode.LXOR:
+            f.pop(4);
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.LSHL:
+        case Opcode.LSHR:
+        case Opcode.LUSHR:
+            f.pop(3);
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.FADD:
+        case Opcode.FSUB:
+        case Opcode.FMUL:
+        case Opcode.FDIV:
+        case Opcode.FREM:
+            f.pop(2);
+            f.push(FlowAnalyzer.FLOAT);
+            return offset + 1;
+        case Opcode.DADD:
+        case Opcode.DSUB:
+        case Opcode.DMUL:
+        case Opcode.DDIV:
+        case Opcode.DREM:
+            f.pop(4);
+            f.push(FlowAnalyzer.DOUBLE);
+            return offset + 1;
+        case Opcode.INEG:
+        case Opcode.I2B:
+        case Opcode.I2C:
+        case Opcode.I2S:
+            f.pop(1);
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.FNEG:
+        case Opcode.I2F:
+            f.pop(1);
+            f.push(FlowAnalyzer.FLOAT);
+            return offset + 1;
+        case Opcode.LNEG:
+        case Opcode.D2L:
+            f.pop(2);
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.DNEG:
+        case Opcode.L2D:
+            f.pop(2);
+            f.push(FlowAnalyzer.DOUBLE);
+            return offset + 1;
+        case Opcode.IINC:
+            return offset + 3;
+        case Opcode.I2L:
+        case Opcode.F2L:
+            f.pop(1);
+            f.push(FlowAnalyzer.LONG);
+            return offset + 1;
+        case Opcode.I2D:
+        case Opcode.F2D:
+            f.pop(1);
+            f.push(FlowAnalyzer.DOUBLE);
+            return offset + 1;
+        case Opcode.L2I:
+        case Opcode.D2I:
+        case Opcode.LCMP:
+        case Opcode.DCMPL:
+        case Opcode.DCMPG:
+            f.pop(opcode == Opcode.L2I || opcode == Opcode.D2I ? 2 : 4);
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.L2F:
+        case Opcode.D2F:
+            f.pop(2);
+            f.push(FlowAnalyzer.FLOAT);
+            return offset + 1;
+        case Opcode.F2I:
+            f.pop(1);
+            f.push(FlowAnalyzer.INTEGER);
+            return offset + 1;
+        case Opcode.IFEQ:
+        case Opcode.IFNE:
+        case Opcode.IFLT:
+        case Opcode.IFGE:
+        case Opcode.IFGT:
+        case Opcode.IFLE:
+        case Opcode.IFNULL:
+        case Opcode.IFNONNULL:
+            f.pop(1);
+            this.merge(offset + this.s2(offset + 1), f, true);
+            return offset + 3;
+        case Opcode.IF_ICMPEQ:
+        case Opcode.IF_ICMPNE:
+        case Opcode.IF_ICMPLT:
+        case Opcode.IF_ICMPGE:
+        case Opcode.IF_ICMPGT:
+        case Opcode.IF_ICMPLE:
+        case Opcode.IF_ACMPEQ:
+        case Opcode.IF_ACMPNE:
+            f.pop(2);
+            this.merge(offset + this.s2(offset + 1), f, true);
+            return offset + 3;
+        case Opcode.GOTO:
+            this.merge(offset + this.s2(offset + 1), f, true);
+            return -1;
+        case Opcode.GOTO_W:
+            this.merge(offset + this.s4(offset + 1), f, true);
+            return -1;
+        case Opcode.TABLESWITCH: {
+            f.pop(1);
+            int p = FlowAnalyzer.padded(offset);
+            this.merge(offset + this.s4(p), f, true);
+            int low = this.s4(p + 4);
+            int high = this.s4(p + 8);
+            for (int i = 0; i <= high - low; ++i) {
+                this.merge(offset + this.s4(p + 12 + 4 * i), f, true);
+            }
+            return -1;
+        }
+        case Opcode.LOOKUPSWITCH: {
+            f.pop(1);
+            int p = FlowAnalyzer.padded(offset);
+            this.merge(offset + this.s4(p), f, true);
+            int npairs = this.s4(p + 4);
+            for (int i = 0; i < npairs; ++i) {
+                this.merge(offset + this.s4(p + 12 + 8 * i), f, true);
+            }
+            return -1;
+        }
+        case Opcode.IRETURN:
+        case Opcode.LRETURN:
+        case Opcode.FRETURN:
+        case Opcode.DRETURN:
+        case Opcode.ARETURN:
+        case Opcode.RETURN:
+        case Opcode.ATHROW:
+            return -1;
+        case Opcode.GETSTATIC:
+            f.push(FlowAnalyzer.verificationType(this.memberDescriptor(this.u2(offset + 1))));
+            return offset + 3;
+        case Opcode.PUTSTATIC:
+            f.pop(Descriptor.size(this.memberDescriptor(this.u2(offset + 1))));
+            return offset + 3;
+        case Opcode.GETFIELD:
+            f.pop(1);
+            f.push(FlowAnalyzer.verificationType(this.memberDescriptor(this.u2(offset + 1))));
+            return offset + 3;
+        case Opcode.PUTFIELD:
+            f.pop(Descriptor.size(this.memberDescriptor(this.u2(offset + 1))) + 1);
+            return offset + 3;
+        case Opcode.INVOKEVIRTUAL:
+        case Opcode.INVOKESPECIAL:
+        case Opcode.INVOKESTATIC:
+            this.invoke(f, opcode, this.u2(offset + 1));
+            return offset + 3;
+        case Opcode.INVOKEINTERFACE:
+            this.invoke(f, opcode, this.u2(offset + 1));
+            return offset + 5;
+        case Opcode.NEW:
+            f.push(FlowAnalyzer.UNINITIALIZED_THIS + offset);
+            return offset + 3;
+        case Opcode.NEWARRAY:
+            f.pop(1);
+            f.push(FlowAnalyzer.primitiveArrayType(this.code[offset + 1]));
+            return offset + 2;
+        case Opcode.ANEWARRAY:
+            f.pop(1);
+            f.push('[' + this.classDescriptor(this.u2(offset + 1)));
+            return offset + 3;
+        case Opcode.ARRAYLENGTH:
+        case Opcode.INSTANCEOF:
+            f.pop(1);
+            f.push(FlowAnalyzer.INTEGER);
+            return opcode == Opcode.ARRAYLENGTH ? offset + 1 : offset + 3;
+        case Opcode.CHECKCAST:
+            f.pop(1);
+            f.push(this.classDescriptor(this.u2(offset + 1)));
+            return offset + 3;
+        case Opcode.MONITORENTER:
+        case Opcode.MONITOREXIT:
+            f.pop(1);
+            return offset + 1;
+        case Opcode.WIDE: {
+            byte wideOpcode = this.code[offset + 1];
+            int index = this.u2(offset + 2);
+            switch (wideOpcode) {
+            case Opcode.ILOAD:
+            case Opcode.LLOAD:
+            case Opcode.FLOAD:
+            case Opcode.DLOAD:
+            case Opcode.ALOAD:
+                this.load(f, wideOpcode, index);
+                return offset + 4;
+            case Opcode.ISTORE:
+            case Opcode.LSTORE:
+            case Opcode.FSTORE:
+            case Opcode.DSTORE:
+            case Opcode.ASTORE:
+                this.store(f, wideOpcode, index);
+                return offset + 4;
+            case Opcode.IINC:
+                return offset + 6;
+            default:
+                throw new JaninoRuntimeException(this.functionName + ": Unsupported wide opcode "
+                        + (0xff & wideOpcode) + " at offset " + offset);
+            }
+        }
+        case Opcode.MULTIANEWARRAY:
+            f.pop(0xff & this.code[offset + 3]);
+            f.push(this.classDescriptor(this.u2(offset + 1)));
+            return offset + 4;
+        default:
+            // Notice: JSR and RET are not allowed in class files of version 51 and later; "finally" clauses are
+            // inlined instead.
+            throw new JaninoRuntimeException(this.functionName + ": Unsupported opcode " + (0xff & opcode)
+                    + " at offset " + offset);
+        }
+    }
+
+    private void ldc(Frame f, int index) {
+        ClassFile.ConstantPoolInfo cpi = this.classFile.getConstantPoolInfo((short) index);
+        if (cpi instanceof ClassFile.ConstantClassInfo) {
+            f.push(Descriptor.CLASS);
+            return;
+        }
+        Object value = ((ClassFile.ConstantValuePoolInfo) cpi).getValue(this.classFile);
+        if (value instanceof Integer) {
+            f.push(FlowAnalyzer.INTEGER);
+        } else if (value instanceof Float) {
+            f.push(FlowAnalyzer.FLOAT);
+        } else if (value instanceof Long) {
+            f.push(FlowAnalyzer.LONG);
+        } else if (value instanceof Double) {
+            f.push(FlowAnalyzer.DOUBLE);
+        } else {
+            f.push(Descriptor.STRING);
+        }
+    }
+
+    private void load(Frame f, byte opcode, int index) {
+        switch (opcode) {
+        case Opcode.ILOAD:
+            f.push(FlowAnalyzer.INTEGER);
+            break;
+        case Opcode.LLOAD:
+            f.push(FlowAnalyzer.LONG);
+            break;
+        case Opcode.FLOAD:
+            f.push(FlowAnalyzer.FLOAT);
+            break;
+        case Opcode.DLOAD:
+            f.push(FlowAnalyzer.DOUBLE);
+            break;
+        default:
+            f.push(f.locals[index]);
+        }
+    }
+
+    private void store(Frame f, byte opcode, int index) {
+        String type;
+        switch (opcode) {
+        case Opcode.ISTORE:
+            type = FlowAnalyzer.INTEGER;
+            f.pop(1);
+            break;
+        case Opcode.LSTORE:
+            type = FlowAnalyzer.LONG;
+            f.pop(2);
+            break;
+        case Opcode.FSTORE:
+            type = FlowAnalyzer.FLOAT;
+            f.pop(1);
+            break;
+        case Opcode.DSTORE:
+            type = FlowAnalyzer.DOUBLE;
+            f.pop(2);
+            break;
+        default:
+            type = f.pop();
+        }
+
+        // Storing into the second slot of a long or double value invalidates that value.
+        if (index > 0 && FlowAnalyzer.isCategory2(f.locals[index - 1])) {
+            f.locals[index - 1] = FlowAnalyzer.TOP;
+        }
+        f.locals[index] = type;
+        if (FlowAnalyzer.isCategory2(type)) {
+            f.locals[index + 1] = FlowAnalyzer.TOP;
+        }
+    }
+
+    private void invoke(Frame f, byte opcode, int index) {
+        ClassFile.ConstantPoolInfo cpi = this.classFile.getConstantPoolInfo((short) index);
+        ClassFile.ConstantNameAndTypeInfo nat = (ClassFile.ConstantNameAndTypeInfo) this.classFile
+                .getConstantPoolInfo(cpi instanceof ClassFile.ConstantInterfaceMethodrefInfo ? ((ClassFile.ConstantInterfaceMethodrefInfo) cpi)
+                        .getNameAndTypeIndex() : ((ClassFile.ConstantMethodrefInfo) cpi).getNameAndTypeIndex());
+        MethodDescriptor md = new MethodDescriptor(this.classFile.getConstantUtf8(nat.getDescriptorIndex()));
+        for (int i = md.parameterFDs.length - 1; i >= 0; --i) {
+            f.pop(Descriptor.size(md.parameterFDs[i]));
+        }
+        if (opcode != Opcode.INVOKESTATIC) {
+            String receiver = f.pop();
+            if (opcode == Opcode.INVOKESPECIAL && receiver.charAt(0) == 'U'
+                    && "<init>".equals(this.classFile.getConstantUtf8(nat.getNameIndex()))) {
+
+                // The constructor invocation initializes all copies of the uninitialized object.
+                String initialized = receiver == FlowAnalyzer.UNINITIALIZED_THIS ? this.thisClassFD : this
+                        .classDescriptor(this.u2(Integer.parseInt(receiver.substring(1)) + 1));
+                f.replace(receiver, initialized);
+            }
+        }
+        if (!Descriptor.VOID_.equals(md.returnFD)) {
+            f.push(FlowAnalyzer.verificationType(md.returnFD));
+        }
+    }
+
+    private String memberDescriptor(int index) {
+        ClassFile.ConstantFieldrefInfo cfi = (ClassFile.ConstantFieldrefInfo) this.classFile
+                .getConstantPoolInfo((short) index);
+        ClassFile.ConstantNameAndTypeInfo nat = (ClassFile.ConstantNameAndTypeInfo) this.classFile
+                .getConstantPoolInfo(cfi.getNameAndTypeIndex());
+        return this.classFile.getConstantUtf8(nat.getDescriptorIndex());
+    }
+
+    private String classDescriptor(int index) {
+        String name = this.classFile.getConstantClassName((short) index);
+        return name.charAt(0) == '[' ? name : Descriptor.fromInternalForm(name);
+    }
+
+    private static String primitiveArrayType(byte atype) {
+        switch (atype) {
+        case 4:
+            return "[Z";
+        case 5:
+            return "[C";
+        case 6:
+            return "[F";
+        case 7:
+            return "[D";
+        case 8:
+            return "[B";
+        case 9:
+            return "[S";
+        case 10:
+            return "[I";
+        case 11:
+            return "[J";
+        default:
+            throw new JaninoRuntimeException("Invalid array type " + atype);
+        }
+    }
+
+    /**
+     * Returns the verification type for a value of the given field descriptor.
+     */
+    private static String verificationType(String fd) {
+        switch (fd.charAt(0)) {
+        case 'B':
+        case 'C':
+        case 'I':
+        case 'S':
+        case 'Z':
+            return FlowAnalyzer.INTEGER;
+        case 'F':
+            return FlowAnalyzer.FLOAT;
+        case 'J':
+            return FlowAnalyzer.LONG;
+        case 'D':
+            return FlowAnalyzer.DOUBLE;
+        default:
+            return fd;
+        }
+    }
+
+    private static boolean isCategory2(String type) {
+        return type == FlowAnalyzer.LONG || type == FlowAnalyzer.DOUBLE;
+    }
+
+    private static boolean isReference(String type) {
+        char c = type.charAt(0);
+        return c == 'L' || c == '[' || type == FlowAnalyzer.NULL;
+    }
+
+    /**
+     * Returns the offset of the first operand of the TABLESWITCH or LOOKUPSWITCH instruction at the given offset.
+     */
+    private static int padded(int offset) {
+        return (offset + 4) & ~3;
+    }
+
+    private int u2(int offset) {
+        return ((0xff & this.code[offset]) << 8) | (0xff & this.code[offset + 1]);
+    }
+
+    private int s2(int offset) {
+        return (this.code[offset] << 8) | (0xff & this.code[offset + 1]);
+    }
+
+    private int s4(int offset) {
+        return (this.code[offset] << 24) | ((0xff & this.code[offset + 1]) << 16)
+                | ((0xff & this.code[offset + 2]) << 8) | (0xff & this.code[offset + 3]);
+    }
+
+    /**
+     * The verification types of the local variables and the operand stack at one point of the code.
+     */
+    private static final class Frame {
+        final String[] locals;
+        String[] stack;
+        int stackSize;
+
+        Frame(String[] locals, String[] stack, int stackSize) {
+            this.locals = locals;
+            this.stack = stack;
+            this.stackSize = stackSize;
+        }
+
+        Frame copy() {
+            String[] stack = new String[Math.max(this.stack.length, 4)];
+            System.arraycopy(this.stack, 0, stack, 0, this.stackSize);
+            return new Frame(this.locals.clone(), stack, this.stackSize);
+        }
+
+        void push(String type) {
+            if (this.stackSize == this.stack.length) {
+                String[] stack = new String[2 * this.stack.length + 2];
+                System.arraycopy(this.stack, 0, stack, 0, this.stackSize);
+                this.stack = stack;
+            }
+            this.stack[this.stackSize++] = type;
+            if (FlowAnalyzer.isCategory2(type)) {
+                this.push(FlowAnalyzer.TOP);
+            }
+        }
+
+        String pop() {
+            if (this.stackSize == 0) {
+                throw new JaninoRuntimeException("Operand stack underrun");
+            }
+            String type = this.stack[--this.stackSize];
+            if (type == FlowAnalyzer.TOP && this.stackSize > 0
+                    && FlowAnalyzer.isCategory2(this.stack[this.stackSize - 1])) {
+                type = this.stack[--this.stackSize];
+            }
+            return type;
+        }
+
+        /**
+         * Pops the given number of stack slots.
+         */
+        void pop(int slots) {
+            if (slots > this.stackSize) {
+                throw new JaninoRuntimeException("Operand stack underrun");
+            }
+            this.stackSize -= slots;
+        }
+
+        /**
+         * Duplicates the top <code>size</code> stack slots and inserts the copy below the following
+         * <code>depth</code> slots (DUP, DUP_X1, DUP_X2, DUP2, DUP2_X1, DUP2_X2).
+         */
+        void dup(int size, int depth) {
+            if (size + depth > this.stackSize) {
+                throw new JaninoRuntimeException("Operand stack underrun");
+            }
+            String[] top = new String[size + depth];
+            System.arraycopy(this.stack, this.stackSize - size - depth, top, 0, size + depth);
+            this.stackSize -= size + depth;
+            for (int i = depth; i < size + depth; ++i) {
+                this.pushSlot(top[i]);
+            }
+            for (int i = 0; i < size + depth; ++i) {
+                this.pushSlot(top[i]);
+            }
+        }
+
+        private void pushSlot(String type) {
+            if (this.stackSize == this.stack.length) {
+                String[] stack = new String[2 * this.stack.length + 2];
+                System.arraycopy(this.stack, 0, stack, 0, this.stackSize);
+                this.stack = stack;
+            }
+            this.stack[this.stackSize++] = type;
+        }
+
+        void replace(String from, String to) {
+            for (int i = 0; i < this.locals.length; ++i) {
+                if (this.locals[i].equals(from)) {
+                    this.locals[i] = to;
+                }
+            }
+            for (int i = 0; i < this.stackSize; ++i) {
+                if (this.stack[i].equals(from)) {
+                    this.stack[i] = to;
+                }
+            }
+        }
+    }
+}
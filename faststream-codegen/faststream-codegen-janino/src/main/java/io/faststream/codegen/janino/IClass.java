@@ -39,6 +39,9 @@ import io.faststream.codegen.janino.compiler.CompileException;
 
 /**
  * A simplified equivalent to "java.lang.reflect".
+ * <p>
+ * The lazily computed members of an {@link IClass} are guarded by the {@link IClass} itself, so that {@link IClass}es
+ * loaded through a shared {@link IClassLoader} can be used by several compilations at the same time.
  */
 public abstract class IClass {
     private static final boolean DEBUG = false;
@@ -145,7 +148,7 @@ public abstract class IClass {
      * <p>
      * Returns an array with zero elements for an interface, array, primitive type or "void".
      */
-    public final IConstructor[] getDeclaredIConstructors() {
+    public final synchronized IConstructor[] getDeclaredIConstructors() {
         if (this.declaredIConstructors == null) {
             this.declaredIConstructors = this.getDeclaredIConstructors2();
         }
@@ -160,7 +163,7 @@ public abstract class IClass {
      * Returns the methods of the class or interface (but not inherited methods).<br>
      * Returns an empty array for an array, primitive type or "void".
      */
-    public final IMethod[] getDeclaredIMethods() {
+    public final synchronized IMethod[] getDeclaredIMethods() {
         if (this.declaredIMethods == null) {
             this.declaredIMethods = this.getDeclaredIMethods2();
         }
@@ -177,7 +180,7 @@ public abstract class IClass {
      * 
      * @return an array of {@link IMethod}s that must not be modified
      */
-    public final IMethod[] getDeclaredIMethods(String methodName) {
+    public final synchronized IMethod[] getDeclaredIMethods(String methodName) {
         if (this.declaredIMethodCache == null) {
             Map m = new HashMap();
 
@@ -224,7 +227,7 @@ public abstract class IClass {
      * 
      * @return an array of {@link IMethod}s that must not be modified
      */
-    public final IMethod[] getIMethods() throws CompileException {
+    public final synchronized IMethod[] getIMethods() throws CompileException {
         if (this.iMethodCache == null) {
             List iMethods = new ArrayList();
             this.getIMethods(iMethods);
@@ -294,7 +297,7 @@ public abstract class IClass {
     }
 
     /** @return String field-name => IField */
-    private Map getDeclaredIFieldsCache() {
+    private synchronized Map getDeclaredIFieldsCache() {
         if (this.declaredIFieldsCache == null) {
             IField[] fields = getDeclaredIFields2();
             Map m = new HashMap();
@@ -316,7 +319,7 @@ public abstract class IClass {
         return (IField) getDeclaredIFieldsCache().get(name);
     }
 
-    protected void clearIFieldCaches() {
+    protected synchronized void clearIFieldCaches() {
         this.declaredIFieldsCache = null;
     }
 
@@ -339,7 +342,7 @@ public abstract class IClass {
      * Returns the classes and interfaces declared as members of the class (but not inherited classes and interfaces).<br>
      * Returns an empty array for an array, primitive type or "void".
      */
-    public final IClass[] getDeclaredIClasses() throws CompileException {
+    public final synchronized IClass[] getDeclaredIClasses() throws CompileException {
         if (this.declaredIClasses == null) {
             this.declaredIClasses = this.getDeclaredIClasses2();
         }
@@ -353,7 +356,7 @@ public abstract class IClass {
     /**
      * If this class is a member class, return the declaring class, otherwise return <code>null</code>.
      */
-    public final IClass getDeclaringIClass() throws CompileException {
+    public final synchronized IClass getDeclaringIClass() throws CompileException {
         if (!this.declaringIClassIsCached) {
             this.declaringIClass = this.getDeclaringIClass2();
             this.declaringIClassIsCached = true;
@@ -374,7 +377,7 @@ public abstract class IClass {
      * <li>Non-static member classes
      * </ul>
      */
-    public final IClass getOuterIClass() throws CompileException {
+    public final synchronized IClass getOuterIClass() throws CompileException {
         if (!this.outerIClassIsCached) {
             this.outerIClass = this.getOuterIClass2();
             this.outerIClassIsCached = true;
@@ -391,7 +394,7 @@ public abstract class IClass {
      * Returns the superclass of the class.<br>
      * Returns "null" for class "Object", interfaces, arrays, primitive types and "void".
      */
-    public final IClass getSuperclass() throws CompileException {
+    public final synchronized IClass getSuperclass() throws CompileException {
         if (!this.superclassIsCached) {
             this.superclass = this.getSuperclass2();
             this.superclassIsCached = true;
@@ -423,7 +426,7 @@ public abstract class IClass {
      * Returns "Cloneable" and "Serializable" for arrays.<br>
      * Returns an empty array for primitive types and "void".
      */
-    public final IClass[] getInterfaces() throws CompileException {
+    public final synchronized IClass[] getInterfaces() throws CompileException {
         if (this.interfaces == null) {
             this.interfaces = this.getInterfaces2();
             for (int i = 0; i < this.interfaces.length; ++i) {
@@ -450,7 +453,7 @@ public abstract class IClass {
     /**
      * Returns the field descriptor for the type as defined by JVMS 4.3.2.
      */
-    public final String getDescriptor() {
+    public final synchronized String getDescriptor() {
         if (this.descriptor == null) {
             this.descriptor = this.getDescriptor2();
         }
@@ -497,7 +500,7 @@ public abstract class IClass {
      * Returns the component type of the array.<br>
      * Returns "null" for classes, interfaces, primitive types and "void".
      */
-    public final IClass getComponentType() {
+    public final synchronized IClass getComponentType() {
         if (!this.componentTypeIsCached) {
             this.componentType = this.getComponentType2();
             this.componentTypeIsCached = true;
@@ -784,7 +787,7 @@ public abstract class IClass {
      * 
      * @return an array of {@link IClass}es in unspecified order, possibly of length zero
      */
-    IClass[] findMemberType(String optionalName) throws CompileException {
+    synchronized IClass[] findMemberType(String optionalName) throws CompileException {
         IClass[] res = (IClass[]) this.memberTypeCache.get(optionalName);
         if (res == null) {
 
@@ -136,29 +136,37 @@ public abstract class IClassLoader {
             if (result != null)
                 return result;
 
-            // Special handling for array types.
-            if (Descriptor.isArrayReference(fieldDescriptor)) {
-
-                // Load the component type.
-                IClass componentIClass = this.loadIClass(Descriptor.getComponentDescriptor(fieldDescriptor));
-                if (componentIClass == null)
+            // Load the class through the {@link #findIClass(String)} method implemented by the
+            // derived class. Array types are handled below.
+            if (!Descriptor.isArrayReference(fieldDescriptor)) {
+                if (IClassLoader.DEBUG)
+                    System.out.println("call IClassLoader.findIClass(\"" + fieldDescriptor + "\")");
+                result = this.findIClass(fieldDescriptor);
+                if (result == null) {
+                    if (this.cacheUnloadableIClasses)
+                        this.unloadableIClasses.add(fieldDescriptor);
                     return null;
-
-                // Now get and define the array type.
-                IClass arrayIClass = componentIClass.getArrayIClass(this.OBJECT);
-                this.loadedIClasses.put(fieldDescriptor, arrayIClass);
-                return arrayIClass;
+                }
             }
+        }
 
-            // Load the class through the {@link #findIClass(String)} method implemented by the
-            // derived class.
-            if (IClassLoader.DEBUG)
-                System.out.println("call IClassLoader.findIClass(\"" + fieldDescriptor + "\")");
-            result = this.findIClass(fieldDescriptor);
-            if (result == null) {
-                this.unloadableIClasses.add(fieldDescriptor);
+        // Special handling for array types. The array type must be created without holding the lock of this
+        // loader. Because IClasses load other classes, such as their superclass, while holding their own lock.
+        if (result == null) {
+
+            // Load the component type.
+            IClass componentIClass = this.loadIClass(Descriptor.getComponentDescriptor(fieldDescriptor));
+            if (componentIClass == null)
                 return null;
+
+            // Now get and define the array type.
+            IClass arrayIClass = componentIClass.getArrayIClass(this.OBJECT);
+            synchronized (this) {
+                result = (IClass) this.loadedIClasses.get(fieldDescriptor);
+                if (result == null)
+                    this.loadedIClasses.put(fieldDescriptor, arrayIClass);
             }
+            return result == null ? arrayIClass : result;
         }
 
         if (!result.getDescriptor().equalsIgnoreCase(fieldDescriptor)) {
@@ -265,6 +273,13 @@ public abstract class IClassLoader {
         return icl;
     }
 
+    /**
+     * Whether types that could not be loaded are remembered, so that they are not searched for again. Must be turned
+     * off if types may become loadable later, for example, because the underlying {@link ClassLoader} compiles classes
+     * on demand and this {@link IClassLoader} outlives a single compilation.
+     */
+    protected boolean cacheUnloadableIClasses = true;
+
     private final IClassLoader optionalParentIClassLoader;
     private final Map loadedIClasses = new HashMap(); // String descriptor => IClass
     private final Set unloadableIClasses = new HashSet(); // String descriptor
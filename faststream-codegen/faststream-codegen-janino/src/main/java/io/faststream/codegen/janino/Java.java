@@ -1542,7 +1542,11 @@ public final class Java {
             visitor.visitTryStatement(this);
         }
 
-        CodeContext.Offset finallyOffset = null;
+        /**
+         * The code ranges (pairs of start and end offsets) into which copies of "finally" clauses were inlined while
+         * leaving this statement. These ranges must not be covered by the exception handlers of this statement.
+         */
+        List<CodeContext.Offset> finallyGaps = null;
     }
 
     public static class CatchClause extends Located implements Scope {
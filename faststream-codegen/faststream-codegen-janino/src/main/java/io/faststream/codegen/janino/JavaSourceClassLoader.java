@@ -27,9 +27,12 @@ package io.faststream.codegen.janino;
 
 import java.io.File;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,6 +53,13 @@ import io.faststream.codegen.janino.util.resource.ResourceFinder;
  */
 public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
 
+    static {
+        // Classes are compiled and defined one at a time, but already defined classes, and classes loaded by the
+        // parent class loader, can be loaded concurrently. Which matters when many class loaders share this class
+        // loader as their parent
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public JavaSourceClassLoader() {
         this(ClassLoader.getSystemClassLoader());
     }
@@ -96,10 +106,15 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
             String optionalCharacterEncoding) {
         super(parentClassLoader);
 
+        // Classes loaded through the parent class loader are resolved once for all class loaders with the same parent
+        ClassLoaderIClassLoader parentIClassLoader = ClassLoaderIClassLoader.getShared(parentClassLoader);
+        if (parentClassLoader instanceof JavaSourceClassLoader) {
+            ((JavaSourceClassLoader) parentClassLoader).childIClassLoader = parentIClassLoader;
+        }
         this.iClassLoader = new JavaSourceIClassLoader(sourceFinder, // sourceFinder
                 optionalCharacterEncoding, // optionalCharacterEncoding
                 this.unitCompilers, // unitCompilers
-                new ClassLoaderIClassLoader(parentClassLoader) // optionalParentIClassLoader
+                parentIClassLoader // optionalParentIClassLoader
         );
     }
 
@@ -137,7 +152,7 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
      * 
      * @throws ClassNotFoundException
      */
-    protected Class findClass(String name) throws ClassNotFoundException {
+    protected synchronized Class findClass(String name) throws ClassNotFoundException {
 
         // Check if the bytecode for that class was generated already.
         byte[] bytecode = (byte[]) this.precompiledClasses.remove(name);
@@ -163,7 +178,7 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
         return this.defineBytecode(name, bytecode);
     }
 
-    public byte[] load(String name) {
+    public synchronized byte[] load(String name) {
         // Check if the bytecode for that class was generated already.
         byte[] bytecode = (byte[]) this.precompiledClasses.remove(name);
         if (bytecode == null) {
@@ -188,6 +203,47 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
         return bytecode;
     }
 
+    /**
+     * Adds classes that have already been compiled, for example, by another instance of this class loader. The classes
+     * are defined the first time they are requested instead of being compiled from source.
+     * 
+     * @param bytecodes
+     *            String name => byte[] bytecode
+     */
+    public synchronized void addPrecompiledClasses(Map bytecodes) {
+        this.precompiledClasses.putAll(bytecodes);
+    }
+
+    /**
+     * Compiles the compilation unit containing the specified class, without defining any classes. The classes are
+     * defined the first time they are requested.
+     * 
+     * @return String name => byte[] bytecode for all classes in the compilation unit
+     * @throws ClassNotFoundException
+     *             on compilation problems, or if no source code could be found
+     */
+    public Map compile(String name) throws ClassNotFoundException {
+        return this.compile(new String[] { name });
+    }
+
+    /**
+     * Compiles the compilation units containing the specified classes in a single pass, without defining any classes.
+     * Compared to compiling the classes one at a time, types that are referred to by more than one of the compilation
+     * units are only resolved once. The classes are defined the first time they are requested.
+     * 
+     * @return String name => byte[] bytecode for all classes in the compilation units
+     * @throws ClassNotFoundException
+     *             on compilation problems, or if no source code could be found for one of the classes
+     */
+    public synchronized Map compile(String[] names) throws ClassNotFoundException {
+        Map bytecodes = this.generateBytecodes(names);
+        if (bytecodes == null) {
+            throw new ClassNotFoundException(Arrays.asList(names).toString());
+        }
+        this.precompiledClasses.putAll(bytecodes);
+        return new HashMap(bytecodes);
+    }
+
     /**
      * This {@link Map} keeps those classes which were already compiled, but not yet defined i.e. which were not yet
      * passed to {@link ClassLoader#defineClass(java.lang.String, byte[], int, int)}.
@@ -203,32 +259,53 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
      *             on compilation problems
      */
     public Map generateBytecodes(String name) throws ClassNotFoundException {
-        if (this.iClassLoader.loadIClass(Descriptor.fromClassName(name)) == null) {
-            return null;
+        return this.generateBytecodes(new String[] { name });
+    }
+
+    /**
+     * Like {@link #generateBytecodes(String)}, but for several classes that are compiled in the same pass.
+     * 
+     * @return String name => byte[] bytecode, or <code>null</code> if no source code could be found for one of the
+     *         classes
+     * @throws ClassNotFoundException
+     *             on compilation problems
+     */
+    public synchronized Map generateBytecodes(String[] names) throws ClassNotFoundException {
+        for (int i = 0; i < names.length; ++i) {
+            if (this.iClassLoader.loadIClass(Descriptor.fromClassName(names[i])) == null) {
+                return null;
+            }
         }
 
         Map bytecodes = new HashMap(); // String name => byte[] bytecode
-        Set compiledUnitCompilers = new HashSet();
-        COMPILE_UNITS: for (;;) {
+        for (;;) {
+
+            // Compiling a unit may cause more compilation units being scanned and parsed
+            List uncompiledUnitCompilers = new ArrayList(); // UnitCompiler
             for (Iterator it = this.unitCompilers.iterator(); it.hasNext();) {
                 UnitCompiler uc = (UnitCompiler) it.next();
-                if (!compiledUnitCompilers.contains(uc)) {
-                    ClassFile[] cfs;
-                    try {
-                        cfs = uc.compileUnit(this.debugSource, this.debugLines, this.debugVars);
-                    } catch (CompileException ex) {
-                        throw new ClassNotFoundException("Compiling unit \"" + uc.compilationUnit.optionalFileName
-                                + "\"", ex);
-                    }
-                    for (int i = 0; i < cfs.length; ++i) {
-                        ClassFile cf = cfs[i];
-                        bytecodes.put(cf.getThisClassName(), cf.toByteArray());
-                    }
-                    compiledUnitCompilers.add(uc);
-                    continue COMPILE_UNITS;
+                if (!this.compiledUnitCompilers.contains(uc)) {
+                    uncompiledUnitCompilers.add(uc);
                 }
             }
-            return bytecodes;
+            if (uncompiledUnitCompilers.isEmpty()) {
+                return bytecodes;
+            }
+            for (Iterator it = uncompiledUnitCompilers.iterator(); it.hasNext();) {
+                UnitCompiler uc = (UnitCompiler) it.next();
+                ClassFile[] cfs;
+                try {
+                    cfs = uc.compileUnit(this.debugSource, this.debugLines, this.debugVars);
+                } catch (CompileException ex) {
+                    throw new ClassNotFoundException("Compiling unit \"" + uc.compilationUnit.optionalFileName
+                            + "\"", ex);
+                }
+                for (int i = 0; i < cfs.length; ++i) {
+                    ClassFile cf = cfs[i];
+                    bytecodes.put(cf.getThisClassName(), cf.toByteArray());
+                }
+                this.compiledUnitCompilers.add(uc);
+            }
         }
     }
 
@@ -269,13 +346,25 @@ public class JavaSourceClassLoader extends AbstractJavaSourceClassLoader {
 
     private final JavaSourceIClassLoader iClassLoader;
 
+    /**
+     * The shared {@link IClassLoader} used by class loaders that have this class loader as their parent. Referenced
+     * from here, so it is not discarded between compilations.
+     */
+    private volatile ClassLoaderIClassLoader childIClassLoader;
+
     protected boolean debugSource = Boolean.getBoolean(ICookable.SYSTEM_PROPERTY_SOURCE_DEBUGGING_ENABLE);
     protected boolean debugLines = this.debugSource;
     protected boolean debugVars = this.debugSource;
 
     /**
-     * Collection of parsed, but uncompiled compilation units.
+     * Collection of parsed compilation units. The units remain in the collection after they have been compiled, so
+     * their classes can still be found by later compilation units.
      */
     private final Set unitCompilers = new HashSet(); // UnitCompiler
 
+    /**
+     * The subset of {@link #unitCompilers} that have already been compiled, and must not be compiled again.
+     */
+    private final Set compiledUnitCompilers = new HashSet(); // UnitCompiler
+
 }
@@ -138,19 +138,25 @@ public final class JavaSourceIClassLoader extends IClassLoader {
 
         try {
 
-            // Scan and parse the source file.
-            InputStream inputStream = sourceResource.open();
             Java.CompilationUnit cu;
-            try {
-                Scanner scanner = new Scanner(sourceResource.getFileName(), inputStream, this.optionalCharacterEncoding);
-                scanner.setWarningHandler(this.optionalWarningHandler);
-                Parser parser = new Parser(scanner);
-                parser.setWarningHandler(this.optionalWarningHandler);
-                cu = parser.parseCompilationUnit();
-            } finally {
+            if (sourceResource instanceof AstCompilationUnitGenerator) {
+                // The resource creates the syntax tree itself, so there is no source file to scan and parse.
+                cu = ((AstCompilationUnitGenerator) sourceResource).generate();
+            } else {
+                // Scan and parse the source file.
+                InputStream inputStream = sourceResource.open();
                 try {
-                    inputStream.close();
-                } catch (IOException ex) {}
+                    Scanner scanner = new Scanner(sourceResource.getFileName(), inputStream,
+                            this.optionalCharacterEncoding);
+                    scanner.setWarningHandler(this.optionalWarningHandler);
+                    Parser parser = new Parser(scanner);
+                    parser.setWarningHandler(this.optionalWarningHandler);
+                    cu = parser.parseCompilationUnit();
+                } finally {
+                    try {
+                        inputStream.close();
+                    } catch (IOException ex) {}
+                }
             }
             UnitCompiler uc = new UnitCompiler(cu, this);
             uc.setCompileErrorHandler(this.optionalCompileErrorHandler);
@@ -174,6 +180,10 @@ public final class JavaSourceIClassLoader extends IClassLoader {
             throw new ClassNotFoundException("Parsing compilation unit \"" + sourceResource + "\"", e);
         } catch (CompileException e) {
             throw new ClassNotFoundException("Parsing compilation unit \"" + sourceResource + "\"", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ClassNotFoundException("Generating compilation unit \"" + sourceResource + "\"", e);
         }
     }
 }
@@ -394,6 +394,7 @@ public class UnitCompiler {
 
     public void compile2(ClassDeclaration cd) throws CompileException {
         IClass iClass = this.resolve(cd);
+        this.declaredIClasses.put(iClass.getDescriptor(), iClass);
 
         // Check that all methods are implemented.
         if ((cd.getModifiers() & Mod.ABSTRACT) == 0) {
@@ -631,6 +632,7 @@ public class UnitCompiler {
 
     public void compile2(InterfaceDeclaration id) throws CompileException {
         IClass iClass = this.resolve(id);
+        this.declaredIClasses.put(iClass.getDescriptor(), iClass);
 
         // Determine extended interfaces.
         id.interfaces = new IClass[id.extendedTypes.length];
@@ -813,7 +815,7 @@ public class UnitCompiler {
         );
         this.writeOpcode(Located.NOWHERE, Opcode.ARETURN);
         this.replaceCodeContext(savedCodeContext);
-        codeContext.flowAnalysis(override.getName());
+        codeContext.flowAnalysis(override.getName(), mi, this.classHierarchy);
 
         // Add the code context as a code attribute to the MethodInfo.
         mi.addAttribute(new ClassFile.AttributeInfo(cf.addConstantUtf8Info("Code")) {
@@ -1611,7 +1613,10 @@ public class UnitCompiler {
                     + otherLCD.getLocation());
         }
 
-        this.compile(lcds.lcd);
+        // A local class declared in a "finally" clause is compiled only once, although the clause may be inlined
+        // several times.
+        if (this.compiledLocalClasses.add(lcds.lcd))
+            this.compile(lcds.lcd);
         return true;
     }
 
@@ -1797,8 +1802,7 @@ public class UnitCompiler {
     }
 
     private boolean compile2(TryStatement ts) throws CompileException {
-        if (ts.optionalFinally != null)
-            ts.finallyOffset = this.codeContext.new Offset();
+        ts.finallyGaps = new ArrayList<>();
 
         CodeContext.Offset beginningOfBody = this.codeContext.newOffset();
         CodeContext.Offset afterStatement = this.codeContext.new Offset();
@@ -1806,17 +1810,6 @@ public class UnitCompiler {
         this.codeContext.saveLocalVariables();
         try {
 
-            // Allocate a LV for the JSR of the FINALLY clause.
-            //
-            // Notice:
-            // For unclear reasons, this variable must not overlap with any of the body's
-            // variables (although the body's variables are out of scope when it comes to the
-            // FINALLY clause!?), otherwise you get
-            // java.lang.VerifyError: ... Accessing value from uninitialized local variable 4
-            // See bug #56.
-            short pcLVIndex = (ts.optionalFinally != null ? this.codeContext.allocateLocalVariable((short) 1)
-                    : (short) 0);
-
             // Initialize all catch clauses as "unreachable" only to check later that they ARE indeed reachable.
             for (int i = 0; i < ts.catchClauses.size(); ++i) {
                 CatchClause cc = (CatchClause) ts.catchClauses.get(i);
@@ -1836,6 +1829,9 @@ public class UnitCompiler {
                 this.writeBranch(ts, Opcode.GOTO, afterStatement);
             }
 
+            // The "finally" clauses inlined into the body are not protected by the catch clauses.
+            List<CodeContext.Offset> bodyGaps = new ArrayList<>(ts.finallyGaps);
+
             if (beginningOfBody.offset != afterBody.offset) { // Avoid zero-length exception table entries.
                 this.codeContext.saveLocalVariables();
                 try {
@@ -1859,10 +1855,11 @@ public class UnitCompiler {
                             // variable of the catch clause body.
                             UnitCompiler.this.getLocalVariable(cc.caughtException).setSlot(exceptionVarSlot);
 
-                            this.codeContext.addExceptionTableEntry(beginningOfBody, // startPC
+                            this.addExceptionTableEntries(beginningOfBody, // startPC
                                     afterBody, // endPC
                                     this.codeContext.newOffset(), // handlerPC
-                                    caughtExceptionType.getDescriptor() // catchTypeFD
+                                    caughtExceptionType.getDescriptor(), // catchTypeFD
+                                    bodyGaps // gaps
                                     );
                             this.store((Locatable) cc, // l
                                     caughtExceptionType, // lvType
@@ -1885,62 +1882,100 @@ public class UnitCompiler {
 
             if (ts.optionalFinally != null) {
                 CodeContext.Offset here = this.codeContext.newOffset();
-                this.codeContext.addExceptionTableEntry(beginningOfBody, // startPC
+                this.addExceptionTableEntries(beginningOfBody, // startPC
                         here, // endPC
                         here, // handlerPC
-                        null // catchTypeFD
+                        null, // catchTypeFD
+                        ts.finallyGaps // gaps
                         );
 
                 this.codeContext.saveLocalVariables();
                 try {
 
-                    // Save the exception object in an anonymous local variable.
+                    // Save the exception object in an anonymous local variable, execute a copy of the "finally"
+                    // clause, and rethrow the exception.
                     short evi = this.codeContext.allocateLocalVariable((short) 1);
                     this.store((Locatable) ts.optionalFinally, // l
-                            this.iClassLoader.OBJECT, // valueType
-                            evi // localVariableIndex
-                    );
-                    this.writeBranch(ts.optionalFinally, Opcode.JSR, ts.finallyOffset);
-                    this.load((Locatable) ts.optionalFinally, // l
-                            this.iClassLoader.OBJECT, // valueType
+                            this.iClassLoader.THROWABLE, // valueType
                             evi // localVariableIndex
                     );
-                    this.writeOpcode(ts.optionalFinally, Opcode.ATHROW);
-
-                    // Compile the "finally" body.
-                    ts.finallyOffset.set();
-                    this.store((Locatable) ts.optionalFinally, // l
-                            this.iClassLoader.OBJECT, // valueType
-                            pcLVIndex // localVariableIndex
-                    );
                     if (this.compile(ts.optionalFinally)) {
-                        if (pcLVIndex > 255) {
-                            this.writeOpcode(ts.optionalFinally, Opcode.WIDE);
-                            this.writeOpcode(ts.optionalFinally, Opcode.RET);
-                            this.writeShort(pcLVIndex);
-                        } else {
-                            this.writeOpcode(ts.optionalFinally, Opcode.RET);
-                            this.writeByte(pcLVIndex);
-                        }
+                        this.load((Locatable) ts.optionalFinally, // l
+                                this.iClassLoader.THROWABLE, // valueType
+                                evi // localVariableIndex
+                        );
+                        this.writeOpcode(ts.optionalFinally, Opcode.ATHROW);
                     }
                 } finally {
-
-                    // The exception object local variable allocated above MUST NOT BE RELEASED
-                    // until after the FINALLY block is compiled, for otherwise you get
-                    // java.lang.VerifyError: ... Accessing value from uninitialized register 7
                     this.codeContext.restoreLocalVariables();
                 }
             }
 
             afterStatement.set();
-            if (canCompleteNormally)
-                this.leave(ts, null);
+            if (canCompleteNormally && ts.optionalFinally != null) {
+                canCompleteNormally = this.compileFinallyClause(ts, null, Collections.<TryStatement> emptyList());
+            }
             return canCompleteNormally;
         } finally {
             this.codeContext.restoreLocalVariables();
         }
     }
 
+    /**
+     * Adds exception table entries that cover the range from <code>startPC</code> to <code>endPC</code>, except for
+     * the given <code>gaps</code> (pairs of start and end offsets, in ascending order).
+     */
+    private void addExceptionTableEntries(CodeContext.Offset startPC, CodeContext.Offset endPC,
+            CodeContext.Offset handlerPC, String catchTypeFD, List<CodeContext.Offset> gaps) {
+        CodeContext.Offset from = startPC;
+        for (Iterator<CodeContext.Offset> it = gaps.iterator(); it.hasNext();) {
+            CodeContext.Offset gapStart = it.next();
+            CodeContext.Offset gapEnd = it.next();
+            if (gapStart.offset >= from.offset && gapEnd.offset <= endPC.offset) {
+                this.codeContext.addExceptionTableEntry(from, gapStart, handlerPC, catchTypeFD);
+                from = gapEnd;
+            }
+        }
+        this.codeContext.addExceptionTableEntry(from, endPC, handlerPC, catchTypeFD);
+    }
+
+    /**
+     * Generates an inline copy of the "finally" clause of the given {@link TryStatement}. If
+     * <code>optionalStackValueType</code> is not <code>null</code>, then one operand of that type is on the stack, and
+     * is preserved across the "finally" clause. The generated code is excluded from the exception handlers of all
+     * <code>gapTryStatements</code>.
+     * 
+     * @return Whether the "finally" clause can complete normally
+     */
+    private boolean compileFinallyClause(TryStatement ts, IClass optionalStackValueType,
+            List<TryStatement> gapTryStatements) throws CompileException {
+        CodeContext.Offset gapStart = this.codeContext.newOffset();
+        boolean canCompleteNormally;
+        this.codeContext.saveLocalVariables();
+        try {
+            short sv = 0;
+            if (optionalStackValueType != null) {
+                sv = this.codeContext.allocateLocalVariable(Descriptor.size(optionalStackValueType.getDescriptor()));
+                this.store((Locatable) ts, optionalStackValueType, sv);
+            }
+
+            canCompleteNormally = this.compile(ts.optionalFinally);
+
+            if (canCompleteNormally && optionalStackValueType != null) {
+                this.load((Locatable) ts, optionalStackValueType, sv);
+            }
+        } finally {
+            this.codeContext.restoreLocalVariables();
+        }
+        CodeContext.Offset gapEnd = this.codeContext.newOffset();
+        for (Iterator<TryStatement> it = gapTryStatements.iterator(); it.hasNext();) {
+            TryStatement gts = it.next();
+            gts.finallyGaps.add(gapStart);
+            gts.finallyGaps.add(gapEnd);
+        }
+        return canCompleteNormally;
+    }
+
     // ------------ FunctionDeclarator.compile() -------------
 
     private void compile(FunctionDeclarator fd, final ClassFile classFile) throws CompileException {
@@ -2101,13 +2136,13 @@ public class UnitCompiler {
         // Do flow analysis.
         if (UnitCompiler.DEBUG) {
             try {
-                codeContext.flowAnalysis(fd.toString());
+                codeContext.flowAnalysis(fd.toString(), mi, this.classHierarchy);
             } catch (RuntimeException ex) {
                 ex.printStackTrace();
                 ;
             }
         } else {
-            codeContext.flowAnalysis(fd.toString());
+            codeContext.flowAnalysis(fd.toString(), mi, this.classHierarchy);
         }
 
         final short lntani;
@@ -4614,10 +4649,14 @@ public class UnitCompiler {
                 ), Collections.EMPTY_LIST // optionalStatements
         );
 
-        // Compile the anonymous class.
-        acd.addConstructor(anonymousConstructor);
+        // Compile the anonymous class, unless this expression was compiled before (e.g. in an inlined "finally"
+        // clause).
+        boolean compileClass = this.compiledLocalClasses.add(acd);
+        if (compileClass)
+            acd.addConstructor(anonymousConstructor);
         try {
-            this.compile(acd);
+            if (compileClass)
+                this.compile(acd);
 
             // Instantiate the anonymous class.
             this.writeOpcode(naci, Opcode.NEW);
@@ -4657,7 +4696,8 @@ public class UnitCompiler {
             // Remove the synthetic constructor that was temporarily added. This is necessary because this NACI
             // expression (and all other expressions) are sometimes compiled more than once (see "fakeCompile()"),
             // and we'd end up with TWO synthetic constructors. See JANINO-143.
-            acd.constructors.remove(acd.constructors.size() - 1);
+            if (compileClass)
+                acd.constructors.remove(acd.constructors.size() - 1);
         }
         return this.resolve(naci.anonymousClassDeclaration);
     }
@@ -5706,15 +5746,13 @@ public class UnitCompiler {
     // ------------ BlockStatement.leave() -------------
 
     /**
-     * Clean up the statement context. This is currently relevant for "try ... catch ... finally" statements (execute
-     * "finally" clause) and "synchronized" statements (monitorexit).
+     * Clean up the statement context. This is currently relevant for "synchronized" statements (monitorexit); the
+     * "finally" clauses of "try" statements are inlined by {@link #leaveStatements(Scope, Scope, IClass)}.
      * <p>
      * Statements like "return", "break", "continue" must call this method for all the statements they terminate.
      * <p>
      * Notice: If <code>optionalStackValueType</code> is <code>null</code>, then the operand stack is empty; otherwise
-     * exactly one operand with that type is on the stack. This information is vital to implementations of
-     * {@link #leave(BlockStatement, IClass)} that require a specific operand stack state (e.g. an empty operand stack
-     * for JSR).
+     * exactly one operand with that type is on the stack.
      */
     private void leave(BlockStatement bs, final IClass optionalStackValueType) {
         BlockStatementVisitor bsv = new BlockStatementVisitor() {
@@ -5816,33 +5854,6 @@ public class UnitCompiler {
         this.writeOpcode(ss, Opcode.MONITOREXIT);
     }
 
-    public void leave2(TryStatement ts, IClass optionalStackValueType) {
-        if (ts.finallyOffset != null) {
-
-            this.codeContext.saveLocalVariables();
-            try {
-                short sv = 0;
-
-                // Obviously, JSR must always be executed with the operand stack being
-                // empty; otherwise we get "java.lang.VerifyError: Inconsistent stack height
-                // 1 != 2"
-                if (optionalStackValueType != null) {
-                    sv = this.codeContext
-                            .allocateLocalVariable(Descriptor.size(optionalStackValueType.getDescriptor()));
-                    this.store((Locatable) ts, optionalStackValueType, sv);
-                }
-
-                this.writeBranch(ts, Opcode.JSR, ts.finallyOffset);
-
-                if (optionalStackValueType != null) {
-                    this.load((Locatable) ts, optionalStackValueType, sv);
-                }
-            } finally {
-                this.codeContext.restoreLocalVariables();
-            }
-        }
-    }
-
     // ---------------- Lvalue.compileSet() -----------------
 
     /**
@@ -7098,9 +7109,22 @@ public class UnitCompiler {
      * Statements that jump out of blocks ("return", "break", "continue") must call this method to make sure that the
      * "finally" clauses of all "try...catch" statements are executed.
      */
-    private void leaveStatements(Scope from, Scope to, IClass optionalStackValueType) {
-        for (Scope s = from; s != to; s = s.getEnclosingScope()) {
-            if (s instanceof BlockStatement) {
+    private void leaveStatements(Scope from, Scope to, IClass optionalStackValueType) throws CompileException {
+        List<TryStatement> leftTryStatements = new ArrayList<>();
+        Scope prev = null;
+        for (Scope s = from; s != to; prev = s, s = s.getEnclosingScope()) {
+            if (s instanceof TryStatement) {
+                TryStatement ts = (TryStatement) s;
+
+                // Jumping out of a "finally" clause does not execute that clause again.
+                if (prev != null && prev == ts.optionalFinally)
+                    continue;
+                leftTryStatements.add(ts);
+                if (ts.optionalFinally != null
+                        && !this.compileFinallyClause(ts, optionalStackValueType, leftTryStatements)) {
+                    return;
+                }
+            } else if (s instanceof BlockStatement) {
                 this.leave((BlockStatement) s, optionalStackValueType);
             }
         }
@@ -10972,4 +10996,43 @@ public class UnitCompiler {
     /** String staticMemberName => List of(IField, IMethod and IClass) */
     private final Map singleStaticImports = new HashMap();
     private final Collection staticImportsOnDemand = new ArrayList(); // IClass
+
+    /** String descriptor => IClass */
+    private final Map<String, IClass> declaredIClasses = new HashMap<>();
+    /** Local and anonymous class declarations that have already been compiled. */
+    private final Set<ClassDeclaration> compiledLocalClasses = new HashSet<>();
+
+    /**
+     * Resolves the common superclass of two classes for the flow analysis, preferring the classes declared in this
+     * compilation unit over those of the {@link IClassLoader}.
+     */
+    private final CodeContext.ClassHierarchy classHierarchy = new CodeContext.ClassHierarchy() {
+        public String getCommonSuperclass(String fd1, String fd2) throws CompileException {
+            IClass c1 = this.getIClass(fd1);
+            IClass c2 = this.getIClass(fd2);
+            if (c1 == null || c2 == null || c1.isInterface() || c2.isInterface())
+                return Descriptor.OBJECT;
+            for (IClass c = c1; c != null; c = c.getSuperclass()) {
+                if (c.isAssignableFrom(c2))
+                    return c.getDescriptor();
+            }
+            return Descriptor.OBJECT;
+        }
+
+        private IClass getIClass(String fd) throws CompileException {
+            IClass res = UnitCompiler.this.declaredIClasses.get(fd);
+            if (res != null)
+                return res;
+            res = UnitCompiler.this.findClass(Descriptor.toClassName(fd));
+            if (res != null)
+                return res;
+            try {
+                return UnitCompiler.this.iClassLoader.loadIClass(fd);
+            } catch (ClassNotFoundException ex) {
+                if (ex.getException() instanceof CompileException)
+                    throw (CompileException) ex.getException();
+                throw new CompileException(Descriptor.toClassName(fd), null, ex);
+            }
+        }
+    };
 }
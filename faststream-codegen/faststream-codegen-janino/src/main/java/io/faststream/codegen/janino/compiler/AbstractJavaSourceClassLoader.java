@@ -37,6 +37,11 @@ import java.security.ProtectionDomain;
  */
 public abstract class AbstractJavaSourceClassLoader extends ClassLoader {
 
+    static {
+        // Allows subclasses to load classes in parallel
+        ClassLoader.registerAsParallelCapable();
+    }
+
     protected ProtectionDomainFactory optionalProtectionDomainFactory = null;
 
     public AbstractJavaSourceClassLoader() {}
@@ -68,8 +68,8 @@ public class ClassFile {
      *            the field descriptors for the implemented interfaces
      */
     public ClassFile(short accessFlags, String thisClassFD, String superclassFD, String[] interfaceFDs) {
-        this.majorVersion = ClassFile.MAJOR_VERSION_JDK_1_1;
-        this.minorVersion = ClassFile.MINOR_VERSION_JDK_1_1;
+        this.majorVersion = ClassFile.MAJOR_VERSION_JDK_1_8;
+        this.minorVersion = ClassFile.MINOR_VERSION_JDK_1_8;
 
         this.constantPool = new ArrayList();
         this.constantPool.add(null); // Add fake "0" index entry.
@@ -194,8 +194,9 @@ public class ClassFile {
     }
 
     /**
-     * Sets the major and minor class file version numbers (JVMS 4.1). The class file version defaults to the JDK 1.1
-     * values (45.3) which execute on virtually every JVM.
+     * Sets the major and minor class file version numbers (JVMS 4.1). The class file version defaults to the JDK 1.8
+     * values (52.0), which are verified by the type-checking verifier using the "StackMapTable" attributes of the
+     * methods (JVMS 4.10.1).
      * 
      * @param majorVersion
      * @param minorVersion
@@ -647,6 +648,12 @@ public class ClassFile {
     public static final short MINOR_VERSION_JDK_1_4 = 0;
     public static final short MAJOR_VERSION_JDK_1_5 = 49;
     public static final short MINOR_VERSION_JDK_1_5 = 0;
+    public static final short MAJOR_VERSION_JDK_1_6 = 50;
+    public static final short MINOR_VERSION_JDK_1_6 = 0;
+    public static final short MAJOR_VERSION_JDK_1_7 = 51;
+    public static final short MINOR_VERSION_JDK_1_7 = 0;
+    public static final short MAJOR_VERSION_JDK_1_8 = 52;
+    public static final short MINOR_VERSION_JDK_1_8 = 0;
 
     private short majorVersion;
     private short minorVersion;
@@ -1006,6 +1013,10 @@ public class ClassFile {
             this.descriptorIndex = descriptorIndex;
         }
 
+        public short getNameIndex() {
+            return this.nameIndex;
+        }
+
         public short getDescriptorIndex() {
             return this.descriptorIndex;
         }
@@ -1501,6 +1512,27 @@ public class ClassFile {
         protected void storeBody(DataOutputStream dos) throws IOException {}
     }
 
+    /**
+     * Representation of a "StackMapTable" attribute (see JVMS 4.7.4). The stack map frames are kept in their
+     * encoded form.
+     */
+    public static class StackMapTableAttribute extends AttributeInfo {
+        private final int numberOfEntries;
+        private final byte[] entries;
+
+        public StackMapTableAttribute(short attributeNameIndex, int numberOfEntries, byte[] entries) {
+            super(attributeNameIndex);
+            this.numberOfEntries = numberOfEntries;
+            this.entries = entries;
+        }
+
+        // Implement "AttributeInfo".
+        protected void storeBody(DataOutputStream dos) throws IOException {
+            dos.writeShort(this.numberOfEntries); // number_of_entries
+            dos.write(this.entries); // entries
+        }
+    }
+
     /**
      * Representation of an unmodifiable "Code" attribute, as read from a class file.
      */
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.janino;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import io.faststream.codegen.janino.util.ClassFile;
+
+/**
+ * Tests concurrent compilations that share a {@link ClassLoaderIClassLoader}.
+ *
+ * @author Kasper Nielsen
+ */
+public class ConcurrentCompileTest {
+
+    /** Returns a new shared loader, which has not loaded any classes yet. */
+    static ClassLoaderIClassLoader newSharedLoader() {
+        return ClassLoaderIClassLoader.getShared(new ClassLoader(ConcurrentCompileTest.class.getClassLoader()) {});
+    }
+
+    static Class<?> compile(IClassLoader loader, String name, String source) throws Exception {
+        Java.CompilationUnit unit = new Parser(new Scanner(null, new StringReader(source))).parseCompilationUnit();
+        Map<String, byte[]> bytecode = new HashMap<>();
+        for (ClassFile cf : new UnitCompiler(unit, loader).compileUnit(true, true, true)) {
+            bytecode.put(cf.getThisClassName(), cf.toByteArray());
+        }
+        return Class.forName(name, true, new ByteArrayClassLoader(bytecode, ConcurrentCompileTest.class
+                .getClassLoader()));
+    }
+
+    /**
+     * Loading an array type must not hold the lock of the loader while waiting for the lock of the component type.
+     * Because the component type holds its own lock while loading its superclass through the loader.
+     */
+    @Test(timeout = 60000)
+    public void arrayTypeWhileComponentTypeIsLocked() throws Exception {
+        ClassLoaderIClassLoader loader = newSharedLoader();
+        IClass list = loader.loadIClass(Descriptor.fromClassName("java.util.ArrayList"));
+        AtomicReference<IClass> array = new AtomicReference<>();
+        Thread arrayLoader = new Thread(() -> {
+            try {
+                array.set(loader.loadIClass(Descriptor.fromClassName("[Ljava.util.ArrayList;")));
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread superclassLoader;
+        synchronized (list) {
+            arrayLoader.start();
+            while (arrayLoader.getState() != Thread.State.BLOCKED) {
+                Thread.sleep(1);
+            }
+            // Loads a class while the component type is locked, like IClass.getSuperclass()
+            superclassLoader = new Thread(() -> {
+                try {
+                    loader.loadIClass(Descriptor.fromClassName("java.util.AbstractList"));
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            superclassLoader.start();
+            superclassLoader.join(10000);
+            assertFalse(superclassLoader.isAlive());
+        }
+        arrayLoader.join();
+        assertSame(list.getArrayIClass(loader.OBJECT), array.get());
+        assertSame(array.get(), loader.loadIClass(Descriptor.fromClassName("[Ljava.util.ArrayList;")));
+    }
+
+    /** Compiles classes that use the same arrays and super types concurrently. */
+    @Test(timeout = 60000)
+    public void concurrentCompile() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 10; round++) {
+                ClassLoaderIClassLoader loader = newSharedLoader();
+                List<Future<Object>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    String name = "Test" + i;
+                    String source = String.join("\n", //
+                            "import java.util.*;",
+                            "public class " + name + " extends ArrayList implements java.util.concurrent.Callable {",
+                            "    public Object call() {",
+                            "        ArrayList[] lists = new ArrayList[] { this, new ArrayList() };",
+                            "        AbstractList[][] nested = { lists };",
+                            "        lists[1].add(\"b\");",
+                            "        add(\"a\");",
+                            "        return nested[0][0].get(0) + \"\" + nested[0][1].get(0) + lists.length;",
+                            "    }",
+                            "}");
+                    futures.add(executor.submit(() -> ((Callable<?>) compile(loader, name, source).newInstance())
+                            .call()));
+                }
+                for (Future<Object> f : futures) {
+                    assertEquals("ab2", f.get(30, TimeUnit.SECONDS));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.janino;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.faststream.codegen.janino.util.ClassFile;
+
+/**
+ * Tests the stack map frames computed by {@link FlowAnalyzer}, and the inlining of finally clauses by
+ * {@link UnitCompiler}. Classes defined by a class loader other than the boot class loader are checked by the
+ * type-checking verifier when they are linked, so every test fails with a {@link VerifyError} if a frame is wrong.
+ *
+ * @author Kasper Nielsen
+ */
+public class FlowAnalyzerTest {
+
+    static final String SOURCE = String.join("\n", //
+            "public class Test {",
+            "    public static StringBuilder log = new StringBuilder();",
+
+            "    public static int returnThroughFinally(int x) {",
+            "        int r = 0;",
+            "        try {",
+            "            if (x > 0) {",
+            "                return x;",
+            "            }",
+            "            r = -x;",
+            "        } finally {",
+            "            log.append('f');",
+            "            r++;",
+            "        }",
+            "        return r;",
+            "    }",
+
+            "    public static int returnValueNotChangedByFinally() {",
+            "        int x = 1;",
+            "        try {",
+            "            return x;",
+            "        } finally {",
+            "            x = 2;",
+            "        }",
+            "    }",
+
+            "    public static int breakContinueThroughFinally(int n) {",
+            "        int sum = 0;",
+            "        int finallies = 0;",
+            "        for (int i = 0; i < n; i++) {",
+            "            try {",
+            "                if (i == 2) continue;",
+            "                if (i == 5) break;",
+            "                sum += i;",
+            "            } finally {",
+            "                finallies++;",
+            "            }",
+            "        }",
+            "        return sum * 100 + finallies;",
+            "    }",
+
+            "    public static String nested(int x) {",
+            "        StringBuilder sb = new StringBuilder();",
+            "        try {",
+            "            try {",
+            "                if (x == 1) throw new IllegalStateException(\"a\");",
+            "                if (x == 2) throw new IllegalArgumentException(\"b\");",
+            "                sb.append(\"body\");",
+            "            } catch (IllegalStateException e) {",
+            "                sb.append(\"catch1\");",
+            "                throw new RuntimeException(\"c\");",
+            "            } finally {",
+            "                sb.append(\"-finally1\");",
+            "            }",
+            "        } catch (RuntimeException e) {",
+            "            sb.append(\"-catch2:\").append(e.getMessage());",
+            "        } finally {",
+            "            sb.append(\"-finally2\");",
+            "        }",
+            "        return sb.toString();",
+            "    }",
+
+            "    public static int synchronizedBlock(Object lock, int x) {",
+            "        synchronized (lock) {",
+            "            if (x == 0) return 1;",
+            "            if (x == 1) throw new IllegalStateException();",
+            "            for (int i = 0; i < 3; i++) {",
+            "                synchronized (log) {",
+            "                    if (i == x) break;",
+            "                }",
+            "            }",
+            "        }",
+            "        return Thread.holdsLock(lock) || Thread.holdsLock(log) ? -1 : 2;",
+            "    }",
+
+            "    public static String switchInTry(int x) {",
+            "        String s = \"\";",
+            "        try {",
+            "            switch (x) {",
+            "            case 1: return \"one\";",
+            "            case 2: s = \"two\"; break;",
+            "            case 3: throw new IllegalStateException();",
+            "            default: s = \"default\";",
+            "            }",
+            "        } catch (IllegalStateException e) {",
+            "            s = \"caught\";",
+            "        } finally {",
+            "            log.append(x);",
+            "        }",
+            "        return s;",
+            "    }",
+
+            "    public static int anonymousClassInFinally(int x) {",
+            "        try {",
+            "            if (x > 0) return x;",
+            "        } finally {",
+            "            Runnable r = new Runnable() {",
+            "                public void run() {",
+            "                    log.append('r');",
+            "                }",
+            "            };",
+            "            r.run();",
+            "        }",
+            "        return 0;",
+            "    }",
+
+            "    public static int merge(int x) {",
+            "        Object o;",
+            "        if (x > 0) o = \"abc\"; else o = Integer.valueOf(x);",
+            "        CharSequence c = x > 1 ? (CharSequence) new StringBuilder(\"sb\") : \"str\";",
+            "        int r = c.length();",
+            "        {",
+            "            long l = x;",
+            "            r += (int) l;",
+            "        }",
+            "        {",
+            "            String s = \"s\" + x;",
+            "            r += s.length();",
+            "        }",
+            "        Object a = x > 0 ? (Object) new int[1] : new String[2];",
+            "        for (int i = 0; i < 2; i++) {",
+            "            Number n = i == 0 ? (Number) Integer.valueOf(i) : Long.valueOf(i);",
+            "            r += n.intValue();",
+            "        }",
+            "        return r + o.toString().length() + (a instanceof int[] ? 100 : 200);",
+            "    }",
+
+            "    public static double mergeWide(boolean b) {",
+            "        double d;",
+            "        long l;",
+            "        if (b) {",
+            "            d = 1.5;",
+            "            l = 2;",
+            "        } else {",
+            "            d = 2.5;",
+            "            l = 3;",
+            "        }",
+            "        return d + l;",
+            "    }",
+
+            "    public static int infiniteLoop(int x) {",
+            "        while (true) {",
+            "            if (x > 3) return x;",
+            "            x++;",
+            "        }",
+            "    }",
+            "}");
+
+    static Class<?> test;
+
+    static Map<String, byte[]> bytecode;
+
+    @BeforeClass
+    public static void compile() throws Exception {
+        Java.CompilationUnit unit = new Parser(new Scanner(null, new StringReader(SOURCE))).parseCompilationUnit();
+        ClassFile[] classFiles = new UnitCompiler(unit, new ClassLoaderIClassLoader(FlowAnalyzerTest.class
+                .getClassLoader())).compileUnit(true, true, true);
+        bytecode = new HashMap<>();
+        for (ClassFile cf : classFiles) {
+            bytecode.put(cf.getThisClassName(), cf.toByteArray());
+        }
+        test = Class.forName("Test", true, new ByteArrayClassLoader(bytecode, FlowAnalyzerTest.class.getClassLoader()));
+    }
+
+    static Object invoke(String name, Object... args) throws Exception {
+        for (Method m : test.getMethods()) {
+            if (m.getName().equals(name)) {
+                try {
+                    return m.invoke(null, args);
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getCause();
+                }
+            }
+        }
+        throw new AssertionError("No such method " + name);
+    }
+
+    static String log() throws Exception {
+        StringBuilder log = (StringBuilder) test.getField("log").get(null);
+        String result = log.toString();
+        log.setLength(0);
+        return result;
+    }
+
+    @Test
+    public void classFile() {
+        // The anonymous class in the finally clause is compiled once, even though the clause is inlined twice
+        assertEquals(2, bytecode.size());
+        for (byte[] b : bytecode.values()) {
+            assertEquals(52, ((b[6] & 0xff) << 8) | (b[7] & 0xff));
+        }
+        assertTrue(new String(bytecode.get("Test"), StandardCharsets.ISO_8859_1).contains("StackMapTable"));
+    }
+
+    @Test
+    public void returnThroughFinally() throws Exception {
+        log();
+        assertEquals(5, invoke("returnThroughFinally", 5));
+        assertEquals(4, invoke("returnThroughFinally", -3));
+        assertEquals("ff", log());
+        assertEquals(1, invoke("returnValueNotChangedByFinally"));
+    }
+
+    @Test
+    public void breakContinueThroughFinally() throws Exception {
+        assertEquals(806, invoke("breakContinueThroughFinally", 10));
+        assertEquals(103, invoke("breakContinueThroughFinally", 3));
+    }
+
+    @Test
+    public void nestedTryCatchFinally() throws Exception {
+        assertEquals("body-finally1-finally2", invoke("nested", 0));
+        assertEquals("catch1-finally1-catch2:c-finally2", invoke("nested", 1));
+        assertEquals("-finally1-catch2:b-finally2", invoke("nested", 2));
+    }
+
+    @Test
+    public void synchronizedBlock() throws Exception {
+        Object lock = new Object();
+        assertEquals(1, invoke("synchronizedBlock", lock, 0));
+        try {
+            invoke("synchronizedBlock", lock, 1);
+            throw new AssertionError();
+        } catch (IllegalStateException ignore) {}
+        assertEquals(2, invoke("synchronizedBlock", lock, 2));
+        assertEquals(2, invoke("synchronizedBlock", lock, 5));
+        // All monitors were released on every path
+        assertFalse(Thread.holdsLock(lock));
+    }
+
+    @Test
+    public void switchInTry() throws Exception {
+        log();
+        assertEquals("one", invoke("switchInTry", 1));
+        assertEquals("two", invoke("switchInTry", 2));
+        assertEquals("caught", invoke("switchInTry", 3));
+        assertEquals("default", invoke("switchInTry", 4));
+        assertEquals("1234", log());
+    }
+
+    @Test
+    public void anonymousClassInFinally() throws Exception {
+        log();
+        assertEquals(3, invoke("anonymousClassInFinally", 3));
+        assertEquals(0, invoke("anonymousClassInFinally", -1));
+        assertEquals("rr", log());
+    }
+
+    @Test
+    public void mergeDifferentLocalTypes() throws Exception {
+        assertEquals(110, invoke("merge", 2));
+        assertEquals(207, invoke("merge", 0));
+        assertEquals(204, invoke("merge", -5));
+        assertEquals(3.5, (Double) invoke("mergeWide", true), 0);
+        assertEquals(5.5, (Double) invoke("mergeWide", false), 0);
+        assertEquals(7, invoke("infiniteLoop", 7));
+        assertEquals(4, invoke("infiniteLoop", 0));
+    }
+}
@@ -0,0 +1,727 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.model.visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.lang.model.SourceVersion;
+
+import io.faststream.codegen.core.CodegenStatements;
+import io.faststream.codegen.janino.Java;
+import io.faststream.codegen.janino.compiler.CompileException;
+import io.faststream.codegen.janino.compiler.Location;
+import io.faststream.codegen.model.PackageDeclaration;
+import io.faststream.codegen.model.body.FieldDeclaration;
+import io.faststream.codegen.model.body.InitializerDeclaration;
+import io.faststream.codegen.model.body.Parameter;
+import io.faststream.codegen.model.body.VariableDeclarator;
+import io.faststream.codegen.model.expression.ArrayAccessExpression;
+import io.faststream.codegen.model.expression.ArrayCreationExpression;
+import io.faststream.codegen.model.expression.AssignExpression;
+import io.faststream.codegen.model.expression.BinaryExpression;
+import io.faststream.codegen.model.expression.CastExpression;
+import io.faststream.codegen.model.expression.ClassExpression;
+import io.faststream.codegen.model.expression.ConditionalExpression;
+import io.faststream.codegen.model.expression.EncapsulatedExpression;
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.codegen.model.expression.FieldAccessExpression;
+import io.faststream.codegen.model.expression.InstanceOfExpression;
+import io.faststream.codegen.model.expression.Literal;
+import io.faststream.codegen.model.expression.MethodInvocation;
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.expression.NewInstanceExpression;
+import io.faststream.codegen.model.expression.SuperExpression;
+import io.faststream.codegen.model.expression.ThisExpression;
+import io.faststream.codegen.model.expression.UnaryExpression;
+import io.faststream.codegen.model.expression.UnaryExpression.UnOperator;
+import io.faststream.codegen.model.expression.VariableDeclarationExpression;
+import io.faststream.codegen.model.statement.AssertStatement;
+import io.faststream.codegen.model.statement.BlockStatement;
+import io.faststream.codegen.model.statement.BreakStatement;
+import io.faststream.codegen.model.statement.CatchClause;
+import io.faststream.codegen.model.statement.ContinueStatement;
+import io.faststream.codegen.model.statement.DoStatement;
+import io.faststream.codegen.model.statement.EmptyStatement;
+import io.faststream.codegen.model.statement.ExplicitConstructorInvocationStatement;
+import io.faststream.codegen.model.statement.ExpressionStatement;
+import io.faststream.codegen.model.statement.ForStatement;
+import io.faststream.codegen.model.statement.IfStatement;
+import io.faststream.codegen.model.statement.LabeledStatement;
+import io.faststream.codegen.model.statement.ReturnStatement;
+import io.faststream.codegen.model.statement.Statement;
+import io.faststream.codegen.model.statement.SwitchEntryStatement;
+import io.faststream.codegen.model.statement.SwitchStatement;
+import io.faststream.codegen.model.statement.SynchronizedStatement;
+import io.faststream.codegen.model.statement.TextLineStatement;
+import io.faststream.codegen.model.statement.ThrowStatement;
+import io.faststream.codegen.model.statement.TryStatement;
+import io.faststream.codegen.model.statement.WhileStatement;
+import io.faststream.codegen.model.type.ClassOrInterfaceType;
+import io.faststream.codegen.model.type.PrimitiveType;
+import io.faststream.codegen.model.type.ReferenceType;
+import io.faststream.codegen.model.type.Type;
+
+/**
+ * A visitor that creates a Janino syntax tree for the specified model. The syntax tree is identical to the one Janino
+ * would create when parsing the source code created by {@link JavaRenderer}. Since {@link JavaRenderer} does not add
+ * any parentheses, any expression whose source code would be parsed differently than the model reads, is rejected
+ * with an {@link UnsupportedOperationException}. As is any other construct that is not supported.
+ *
+ * @author Kasper Nielsen
+ */
+public class JaninoRenderer extends CodegenVisitor {
+
+    /** Precedence of literals, names, method invocations, parenthesized expressions, ... */
+    private static final int PRIMARY = 15;
+
+    /** Precedence of postfix increments and decrements. */
+    private static final int POSTFIX = 14;
+
+    /** Precedence of prefix operators and casts. */
+    private static final int UNARY = 13;
+
+    /** Precedence of relational operators, such as less than and instanceof. */
+    private static final int RELATIONAL = 9;
+
+    /** Precedence of conditional expressions. */
+    private static final int CONDITIONAL = 2;
+
+    /** Precedence of assignments, the lowest precedence of any expression. */
+    private static final int ASSIGNMENT = 1;
+
+    /** The location of every node in the syntax tree. */
+    private final Location location;
+
+    /** The statements created by the statement currently being visited. */
+    private List<Java.BlockStatement> statements = new ArrayList<>();
+
+    /** The atom created by the expression or type currently being visited. */
+    private Java.Atom atom;
+
+    JaninoRenderer(Location location) {
+        this.location = location;
+    }
+
+    private Java.Atom atom(Expression e, int precedence) {
+        if (precedence(e) < precedence) {
+            throw new UnsupportedOperationException("Expression would be parsed differently, expression = "
+                    + JavaRenderer.toString(e));
+        }
+        e.accept(this);
+        return atom;
+    }
+
+    private Java.Rvalue rvalue(Expression e, int precedence) {
+        Java.Rvalue r = atom(e, precedence).toRvalue();
+        if (r == null) {
+            throw new UnsupportedOperationException("Not an rvalue, expression = " + JavaRenderer.toString(e));
+        }
+        return r;
+    }
+
+    private Java.Rvalue[] rvalues(List<Expression> list) {
+        Java.Rvalue[] result = new Java.Rvalue[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rvalue(list.get(i), ASSIGNMENT);
+        }
+        return result;
+    }
+
+    private Java.Lvalue lvalue(Expression e) {
+        Java.Lvalue l = atom(e, PRIMARY).toLvalue();
+        if (l == null) {
+            throw new UnsupportedOperationException("Not an lvalue, expression = " + JavaRenderer.toString(e));
+        }
+        return l;
+    }
+
+    private Java.Type type(Type t) {
+        t.accept(this);
+        return (Java.Type) atom;
+    }
+
+    private List<Java.BlockStatement> statements(Statement s) {
+        List<Java.BlockStatement> existing = statements;
+        statements = new ArrayList<>();
+        try {
+            s.accept(this);
+            return statements;
+        } finally {
+            statements = existing;
+        }
+    }
+
+    /** Returns the single statement that is created for the specified statement. */
+    private Java.BlockStatement statement(Statement s) {
+        List<Java.BlockStatement> list = statements(s);
+        if (list.size() != 1) {
+            throw new UnsupportedOperationException("Expected a single statement, was " + list.size());
+        }
+        return list.get(0);
+    }
+
+    private Java.Block block(BlockStatement s) {
+        return (Java.Block) statement(s);
+    }
+
+    private Java.ExpressionStatement expressionStatement(Java.Rvalue rvalue) {
+        try {
+            return new Java.ExpressionStatement(rvalue);
+        } catch (CompileException e) {
+            // Let Janino report the error when compiling the source code
+            throw new UnsupportedOperationException(e.getMessage(), e);
+        }
+    }
+
+    /** Creates an atom for a (possible qualified) name. Using the first n identifiers. */
+    private Java.Atom name(String[] identifiers, int n) {
+        for (int i = 0; i < n; i++) {
+            String s = identifiers[i];
+            if (!(i == 0 && s.equals("this")) && !(SourceVersion.isIdentifier(s) && !SourceVersion.isKeyword(s))) {
+                throw new UnsupportedOperationException("Not a valid name, name = " + String.join(".", identifiers));
+            }
+        }
+        if (!identifiers[0].equals("this")) {
+            return new Java.AmbiguousName(location, identifiers, n);
+        }
+        Java.Atom a = new Java.ThisReference(location);
+        for (int i = 1; i < n; i++) {
+            a = new Java.FieldAccessExpression(location, a, identifiers[i]);
+        }
+        return a;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ArrayAccessExpression n) {
+        Java.Rvalue a = rvalue(n.getArray(), PRIMARY);
+        for (Expression e : n) {
+            a = new Java.ArrayAccessExpression(location, a, rvalue(e, ASSIGNMENT));
+        }
+        atom = a;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ArrayCreationExpression n) {
+        if (n.getType() instanceof ReferenceType || n.getExpression() == null || n.getExpression().isEmpty()) {
+            throw new UnsupportedOperationException();
+        }
+        atom = new Java.NewArray(location, type(n.getType()), rvalues(n.getExpression()), 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(AssertStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(AssignExpression n) {
+        atom = new Java.Assignment(location, lvalue(n.getLeft()), n.getOperator().toString(), rvalue(n.getRight(),
+                ASSIGNMENT));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(BinaryExpression n) {
+        int p = precedence(n);
+        atom = new Java.BinaryOperation(location, rvalue(n.getLeft(), p), n.getOperator().toString(), rvalue(
+                n.getRight(), p + 1));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(BlockStatement n) {
+        Java.Block b = new Java.Block(location);
+        for (Statement s : n.getStatements()) {
+            b.addStatements(statements(s));
+        }
+        statements.add(b);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(BreakStatement n) {
+        statements.add(new Java.BreakStatement(location, n.getLabel()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(CastExpression n) {
+        Type t = n.getType();
+        if (t instanceof ReferenceType) {
+            t = ((ReferenceType) t).getType();
+        }
+        // Janino only parses a unary plus or minus as part of the cast, if casting to a primitive type
+        atom = new Java.Cast(location, type(n.getType()), rvalue(n.getExpression(),
+                t instanceof PrimitiveType ? UNARY : POSTFIX));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(CatchClause n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ClassExpression n) {
+        atom = new Java.ClassLiteral(location, type(n.getType()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ClassOrInterfaceType n) {
+        ArrayList<String> identifiers = new ArrayList<>();
+        for (ClassOrInterfaceType t = n; t != null; t = t.getScope()) {
+            identifiers.addAll(0, Arrays.asList(t.getName().split("\\.", -1)));
+        }
+        for (String s : identifiers) {
+            if (!SourceVersion.isIdentifier(s) || SourceVersion.isKeyword(s)) {
+                throw new UnsupportedOperationException("Not a valid type, type = " + JavaRenderer.toString(n));
+            }
+        }
+        atom = new Java.ReferenceType(location, identifiers.toArray(new String[identifiers.size()]));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ConditionalExpression n) {
+        atom = new Java.ConditionalExpression(location, rvalue(n.getCondition(), CONDITIONAL + 1), rvalue(
+                n.getThenExpression(), ASSIGNMENT), rvalue(n.getElseExpression(), CONDITIONAL));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ContinueStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(DoStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(EmptyStatement n) {}
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(EncapsulatedExpression n) {
+        atom = new Java.ParenthesizedExpression(location, rvalue(n.getInner(), ASSIGNMENT));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ExplicitConstructorInvocationStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ExpressionStatement n) {
+        if (n.getExpression() instanceof VariableDeclarationExpression) {
+            statements.add(variableDeclaration((VariableDeclarationExpression) n.getExpression()));
+        } else {
+            statements.add(expressionStatement(rvalue(n.getExpression(), ASSIGNMENT)));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(FieldAccessExpression n) {
+        String[] names = names(n);
+        if (names != null) {
+            atom = name(names, names.length);
+        } else {
+            String name = n.getFieldName();
+            if (!SourceVersion.isIdentifier(name) || SourceVersion.isKeyword(name)) {
+                throw new UnsupportedOperationException("Not a valid field name, name = " + name);
+            }
+            atom = new Java.FieldAccessExpression(location, rvalue(n.getScope(), PRIMARY), name);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(FieldDeclaration n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ForStatement n) {
+        Java.BlockStatement init = null;
+        if (n.getInit().size() == 1) {
+            Expression e = n.getInit().get(0);
+            init = e instanceof VariableDeclarationExpression ? variableDeclaration((VariableDeclarationExpression) e)
+                    : expressionStatement(rvalue(e, ASSIGNMENT));
+        } else if (n.getInit().size() > 1) {
+            throw new UnsupportedOperationException();
+        }
+        Java.Rvalue compare = n.getCompare() == null ? null : rvalue(n.getCompare(), ASSIGNMENT);
+        Java.Rvalue[] update = n.getUpdate().isEmpty() ? null : rvalues(n.getUpdate());
+        statements.add(new Java.ForStatement(location, init, compare, update, statement(n.getBody())));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(IfStatement n) {
+        Java.Rvalue condition = rvalue(n.getCondition(), ASSIGNMENT);
+        Java.BlockStatement then = statement(n.getThenStatement());
+        Java.BlockStatement otherwise = n.getElseStatement() == null ? null : statement(n.getElseStatement());
+        statements.add(new Java.IfStatement(location, condition, then, otherwise));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(InitializerDeclaration n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(InstanceOfExpression n) {
+        atom = new Java.Instanceof(location, rvalue(n.getExpression(), RELATIONAL), type(n.getType()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(LabeledStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(Literal n) {
+        Object c = n.getConstant();
+        String s = n.toString();
+        if (c == null) {
+            atom = new Java.NullLiteral(location, s);
+        } else if (c instanceof Boolean) {
+            atom = new Java.BooleanLiteral(location, s);
+        } else if (c instanceof String) {
+            if (s.indexOf('"', 1) != s.length() - 1 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                throw new UnsupportedOperationException("String literal cannot be rendered, literal = " + s);
+            }
+            atom = new Java.StringLiteral(location, s);
+        } else if (c instanceof Integer || c instanceof Long || c instanceof Short || c instanceof Byte) {
+            atom = negate(s, new Java.IntegerLiteral(location, s.startsWith("-") ? s.substring(1) : s));
+        } else if ((c instanceof Double && Double.isFinite((Double) c))
+                || (c instanceof Float && Float.isFinite((Float) c))) {
+            atom = negate(s, new Java.FloatingPointLiteral(location, s.startsWith("-") ? s.substring(1) : s));
+        } else {
+            throw new UnsupportedOperationException("Literal cannot be rendered, literal = " + s);
+        }
+    }
+
+    /** Janino parses a negative number as a unary minus followed by a positive literal. */
+    private Java.Rvalue negate(String s, Java.Literal literal) {
+        return s.startsWith("-") ? new Java.UnaryOperation(location, "-", literal) : literal;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(MethodInvocation n) {
+        String name = n.getName();
+        if (!SourceVersion.isIdentifier(name) || SourceVersion.isKeyword(name)) {
+            throw new UnsupportedOperationException("Not a valid method name, name = " + name);
+        }
+        Java.Atom target = null;
+        if (n.getScope() != null) {
+            String[] names = names(n.getScope());
+            target = names == null ? rvalue(n.getScope(), PRIMARY) : name(names, names.length);
+        }
+        atom = new Java.MethodInvocation(location, target, name, rvalues(n.getArguments()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(NameExpression n) {
+        String[] names = n.getName().split("\\.", -1);
+        atom = name(names, names.length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(NewInstanceExpression n) {
+        if (n.getScope() != null || !(n.getType() instanceof ClassOrInterfaceType)) {
+            throw new UnsupportedOperationException();
+        }
+        atom = new Java.NewClassInstance(location, null, type(n.getType()), rvalues(n.getArguments()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(PackageDeclaration n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(Parameter n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(PrimitiveType n) {
+        int index = Arrays.asList("void", "byte", "short", "char", "int", "long", "float", "double", "boolean")
+                .indexOf(n.toString());
+        atom = new Java.BasicType(location, index);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ReferenceType n) {
+        Java.Type t = type(n.getType());
+        for (int i = 0; i < n.getArrayDimensions(); i++) {
+            t = new Java.ArrayType(t);
+        }
+        atom = t;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ReturnStatement n) {
+        statements.add(new Java.ReturnStatement(location, n.getExpression() == null ? null : rvalue(
+                n.getExpression(), ASSIGNMENT)));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(SuperExpression n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(SwitchEntryStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(SwitchStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(SynchronizedStatement n) {
+        statements.add(new Java.SynchronizedStatement(location, rvalue(n.getMutex(), ASSIGNMENT), block(n.getBlock())));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(TextLineStatement n) {
+        // Comments and empty lines are not part of the syntax tree
+        String s = n.getComment().trim();
+        if (!s.isEmpty() && !s.startsWith("//")) {
+            throw new UnsupportedOperationException("Only comments are supported, line = " + s);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ThisExpression n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(ThrowStatement n) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(TryStatement n) {
+        if (!n.getCatchClauses().isEmpty() || n.getFinallyBlock() == null) {
+            throw new UnsupportedOperationException();
+        }
+        statements.add(new Java.TryStatement(location, block(n.getTryBlock()), Collections.emptyList(), block(n
+                .getFinallyBlock())));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(UnaryExpression n) {
+        UnOperator op = n.getOperator();
+        if (op == UnOperator.POST_INCREMENT || op == UnOperator.POST_DECREMENT) {
+            atom = new Java.Crement(location, lvalue(n.getExpression()), op.toString());
+        } else if (startsWithSign(n) && startsWithSign(n.getExpression())) {
+            // for example, - -1 would be rendered as --1
+            throw new UnsupportedOperationException("Expression would be parsed differently, expression = "
+                    + JavaRenderer.toString(n));
+        } else if (op == UnOperator.PRE_INCREMENT || op == UnOperator.PRE_DECREMENT) {
+            atom = new Java.Crement(location, op.toString(), lvalue(n.getExpression()));
+        } else {
+            atom = new Java.UnaryOperation(location, op.toString(), rvalue(n.getExpression(), UNARY));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(VariableDeclarationExpression n) {
+        throw new UnsupportedOperationException("Variables can only be declared as statements");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(WhileStatement n) {
+        Java.Rvalue condition = rvalue(n.getCondition(), ASSIGNMENT);
+        statements.add(new Java.WhileStatement(location, condition, statement(n.getBody())));
+    }
+
+    private Java.LocalVariableDeclarationStatement variableDeclaration(VariableDeclarationExpression n) {
+        List<VariableDeclarator> list = n.getDeclarators();
+        Java.VariableDeclarator[] declarators = new Java.VariableDeclarator[list.size()];
+        for (int i = 0; i < declarators.length; i++) {
+            VariableDeclarator vd = list.get(i);
+            String name = vd.getName().getName();
+            if (!SourceVersion.isIdentifier(name) || SourceVersion.isKeyword(name)) {
+                throw new UnsupportedOperationException("Not a valid variable name, name = " + name);
+            }
+            declarators[i] = new Java.VariableDeclarator(location, name, vd.getDimensions(), vd.getInit() == null ? null
+                    : rvalue(vd.getInit(), ASSIGNMENT));
+        }
+        return new Java.LocalVariableDeclarationStatement(location, (short) 0, type(n.getType()), declarators);
+    }
+
+    /**
+     * Returns the identifiers of the specified expression if it consists only of names and field accesses. Otherwise
+     * returns null.
+     */
+    private static String[] names(Expression e) {
+        if (e instanceof NameExpression) {
+            return ((NameExpression) e).getName().split("\\.", -1);
+        } else if (e instanceof FieldAccessExpression) {
+            FieldAccessExpression fa = (FieldAccessExpression) e;
+            String[] scope = fa.getScope() == null ? new String[0] : names(fa.getScope());
+            if (scope != null) {
+                String[] field = fa.getFieldName().split("\\.", -1);
+                String[] result = Arrays.copyOf(scope, scope.length + field.length);
+                System.arraycopy(field, 0, result, scope.length, field.length);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /** Returns the precedence of the specified expression as parsed from the source code. */
+    private static int precedence(Expression e) {
+        if (e instanceof Literal) {
+            return e.toString().startsWith("-") ? UNARY : PRIMARY;
+        } else if (e instanceof ArrayCreationExpression) {
+            return POSTFIX; // new int[5][0] would be parsed as a two dimensional array
+        } else if (e instanceof UnaryExpression) {
+            UnOperator op = ((UnaryExpression) e).getOperator();
+            return op == UnOperator.POST_INCREMENT || op == UnOperator.POST_DECREMENT ? POSTFIX : UNARY;
+        } else if (e instanceof CastExpression) {
+            return UNARY;
+        } else if (e instanceof BinaryExpression) {
+            switch (((BinaryExpression) e).getOperator()) {
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULUS:
+                return 12;
+            case PLUS:
+            case MINUS:
+                return 11;
+            case LEFT_SHIFT:
+            case RIGHT_SHIFT:
+            case RIGHT_UNSIGNED_SHIFT:
+                return 10;
+            case LESS_THEN:
+            case GREATER_THEN:
+            case LESS_THEN_OR_EQUALS:
+            case GREATER_THEN_OR_EQUALS:
+                return RELATIONAL;
+            case EQUALS:
+            case NOT_EQUALS:
+                return 8;
+            case BINARY_AND:
+                return 7;
+            case BINARY_XOR:
+                return 6;
+            case BINARY_OR:
+                return 5;
+            case AND:
+                return 4;
+            case OR:
+                return 3;
+            default:
+                return 0; // NOT and BINARY_NOT are not binary operators
+            }
+        } else if (e instanceof InstanceOfExpression) {
+            return RELATIONAL;
+        } else if (e instanceof ConditionalExpression) {
+            return CONDITIONAL;
+        } else if (e instanceof AssignExpression) {
+            return ASSIGNMENT;
+        } else if (e instanceof EncapsulatedExpression || e instanceof NameExpression
+                || e instanceof MethodInvocation || e instanceof FieldAccessExpression
+                || e instanceof ArrayAccessExpression || e instanceof ClassExpression
+                || e instanceof NewInstanceExpression) {
+            return PRIMARY;
+        }
+        return 0;
+    }
+
+    /** Returns whether or not the source code of the specified expression starts with a plus or minus sign. */
+    private static boolean startsWithSign(Expression e) {
+        if (e instanceof UnaryExpression) {
+            UnOperator op = ((UnaryExpression) e).getOperator();
+            return op == UnOperator.POSITIVE || op == UnOperator.NEGATIVE || op == UnOperator.PRE_INCREMENT
+                    || op == UnOperator.PRE_DECREMENT;
+        }
+        return e instanceof Literal && precedence(e) == UNARY;
+    }
+
+    /**
+     * Returns statements that are rendered exactly like {@link JavaRenderer#renderBlock(BlockStatement, int)}, but can
+     * also be compiled without being rendered.
+     *
+     * @param bs
+     *            the block whose statements should be rendered
+     * @param indent
+     *            the indentation used when rendered as source code
+     * @return the statements
+     */
+    public static CodegenStatements renderBlock(BlockStatement bs, int indent) {
+        return new CodegenStatements() {
+            public List<Java.BlockStatement> toSyntaxTree(Location location) {
+                JaninoRenderer r = new JaninoRenderer(location);
+                for (Statement s : bs.getStatements()) {
+                    s.accept(r);
+                }
+                return r.statements;
+            }
+
+            public String toString() {
+                return JavaRenderer.renderBlock(bs, indent);
+            }
+        };
+    }
+}
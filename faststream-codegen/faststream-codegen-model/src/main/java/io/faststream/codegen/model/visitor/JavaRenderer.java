@@ -217,7 +217,11 @@ public class JavaRenderer extends CodegenVisitor {
     /** {@inheritDoc} */
     @Override
     public void visit(BreakStatement n) {
-        throw new UnsupportedOperationException();
+        a("break");
+        if (n.getLabel() != null) {
+            a(" ").a(n.getLabel());
+        }
+        a(";");
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.codegen.model.visitor;
+
+import static io.faststream.codegen.model.expression.Expressions.literal;
+import static io.faststream.codegen.model.expression.Expressions.newVar;
+import static io.faststream.codegen.model.expression.Expressions.var;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+import org.junit.Test;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenConfiguration;
+import io.faststream.codegen.core.CodegenStatements;
+import io.faststream.codegen.janino.compiler.Location;
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.statement.BlockStatement;
+import io.faststream.codegen.model.statement.ForStatement;
+import io.faststream.codegen.model.statement.IfStatement;
+
+/**
+ * Tests {@link JaninoRenderer}.
+ *
+ * @author Kasper Nielsen
+ */
+public class JaninoRendererTest {
+
+    static final Location LOCATION = new Location(null, (short) 1, (short) 1);
+
+    /** Compiles a class whose getAsInt method has the specified body, and invokes the method. */
+    static int getAsInt(Codegen codegen, BlockStatement body) {
+        CodegenClass clz = codegen.newClass("public class Test implements ", IntSupplier.class);
+        clz.addImport(IntSupplier.class);
+        clz.addMethod("public int getAsInt()").add(JaninoRenderer.renderBlock(body, 2));
+        return ((IntSupplier) clz.compileAndInstantiate()).getAsInt();
+    }
+
+    @Test
+    public void compile() {
+        NameExpression s = var("s");
+        NameExpression i = var("i");
+        BlockStatement loop = new BlockStatement();
+        loop.getStatements().add(new IfStatement(i.greaterThen(literal(4)), s.plusAssign(i).statement(), null));
+        BlockStatement b = new BlockStatement();
+        b.getStatements().add(newVar(s, int.class, literal(0)).statement());
+        b.getStatements().add(new ForStatement(Arrays.asList(newVar(i, int.class, literal(0))), i.lessThen(literal(10)),
+                Arrays.asList(i.postIncrement()), loop));
+        b.getStatements().add(s.returnIt());
+
+        Codegen tree = new Codegen();
+        assertEquals(35, getAsInt(tree, b));
+        assertEquals(0, tree.getNumberOfSyntaxTreeFallbacks());
+
+        // A code writer forces the class to be compiled from the rendered source code
+        CodegenConfiguration conf = new CodegenConfiguration();
+        conf.addCodeWriter(new PrintWriter(new StringWriter()));
+        assertEquals(35, getAsInt(new Codegen(conf), b));
+    }
+
+    @Test
+    public void precedence() {
+        // Rendered without parentheses as c = a = b + 1, which would assign b + 1 to a
+        BlockStatement b = new BlockStatement();
+        b.getStatements().add(var("c").assign(var("a").assign(var("b")).plus(literal(1))).statement());
+        CodegenStatements statements = JaninoRenderer.renderBlock(b, 0);
+        try {
+            statements.toSyntaxTree(LOCATION);
+            throw new AssertionError("Expected an UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertTrue(e.getMessage().startsWith("Expression would be parsed differently"));
+        }
+
+        // Encapsulated expressions are rendered with parentheses
+        b = new BlockStatement();
+        b.getStatements().add(var("c").assign(var("a").assign(var("b")).encapsulate().plus(literal(1))).statement());
+        assertEquals(1, JaninoRenderer.renderBlock(b, 0).toSyntaxTree(LOCATION).size());
+    }
+
+    @Test
+    public void toStringIsSourceCode() {
+        BlockStatement b = new BlockStatement();
+        b.getStatements().add(var("x").returnIt());
+        assertEquals(JavaRenderer.renderBlock(b, 2), JaninoRenderer.renderBlock(b, 2).toString());
+    }
+}
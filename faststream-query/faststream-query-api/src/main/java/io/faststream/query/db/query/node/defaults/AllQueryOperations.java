@@ -42,6 +42,9 @@ TableOperations {
     /** All iterable operations. */
     public static final Operation ITERABLE = aggregate(CA_ITERABLE, MA_ITERABLE, UA_ITERABLE);
 
+    /** All operations that aggregate the elements of a stream into a value per key. */
+    public static final Operation AGGREGATING = aggregate(C_FREQUENCY_COUNT, U_COUNT, U_REDUCE);
+
     /** All operations where the size does not change. */
     public static final Operation SIZE_CONSTANT = aggregate(CA_SIZE_CONSTANT, MA_SIZE_CONSTANT, UA_SIZE_CONSTANT);
 
@@ -88,6 +88,13 @@ public interface CollectionQueryOperations {
     public static final Operation C_TRUNCATE_TAKE     = of("C_TRUNCATE_TAKE",     C_TRUNCATE);
     public static final Operation C_TRUNCATE_SKIP     = of("C_TRUNCATE_SKIP",     C_TRUNCATE);
 
+    /** A sort followed by a limit or take, only the retained elements are sorted. */
+    public static final Operation C_SORTED_TOP                    = of("C_SORTED_TOP",                    C_TRUNCATE);
+    public static final Operation C_SORTED_TOP_NATURAL            = of("C_SORTED_TOP_NATURAL",            C_SORTED_TOP);
+    public static final Operation C_SORTED_TOP_COMPARATOR         = of("C_SORTED_TOP_COMPARATOR",         C_SORTED_TOP);
+    public static final Operation C_SORTED_TOP_NATURAL_REVERSE    = of("C_SORTED_TOP_NATURAL_REVERSE",    C_SORTED_TOP);
+    public static final Operation C_SORTED_TOP_COMPARATOR_REVERSE = of("C_SORTED_TOP_COMPARATOR_REVERSE", C_SORTED_TOP);
+
     public static final Operation C_PARALLEL      = of("C_PARALLEL",      C);
     public static final Operation C_SEQUENTIAL    = of("C_SEQUENTIAL",    C);
     public static final Operation C_UNORDERED     = of("C_UNORDERED",     C);
@@ -154,6 +161,7 @@ public interface CollectionQueryOperations {
             ,C_PARALLEL,C_SEQUENTIAL,C_UNORDERED
 
             , CT_TO_ITERATOR, CT_TO_SPLITERATOR, CT_ANYFIRSTLAST, CT_FOR_EACH, CT_SIZEABLE, CA_REDUCING, CT_MATH, CT_MATCH, CT_COLLECT
+            , C_FREQUENCY_COUNT
             );
     //Should never start an iteration of these elements from an array
     public static final Operation CA_ITERABLE_NON_STARTING = aggregate(CT_ANYFIRSTLAST, CT_SIZE, CT_IS_EMPTY, CT_TO_TYPE, CT_TO_LIST, CT_TO_ARRAY, CT_TO_ARRAY_FUNCTION);
@@ -89,7 +89,7 @@ public interface MultimapOperations {
     public static final Operation UT_FOR_EACH_ORDERED    = of("UT_FOR_EACH_ORDERED", UT_FOR_EACH);
 
 
-    public static final Operation UA_ITERABLE = aggregate(U_MAP, U_FILTER, UT_SIZEABLE, UT_FOR_EACH);
+    public static final Operation UA_ITERABLE = aggregate(U_MAP, U_FILTER, UT_SIZEABLE, UT_FOR_EACH, U_REDUCE, U_COUNT);
 
     public static final Operation UA_SIZE_CONSTANT = aggregate(U_MAP, U_ORDERING);
     public static final Operation UA_SIZE_SHRINKABLE_NOT_EMPTY = aggregate(U_TRUNCATE_TAKE, U_REDUCE, U_COUNT, U_DISTINCT, U_ANY, U_FIRST, U_LAST, U_ONE);
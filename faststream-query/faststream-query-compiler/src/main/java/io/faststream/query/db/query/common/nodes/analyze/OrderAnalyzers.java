@@ -18,7 +18,11 @@ package io.faststream.query.db.query.common.nodes.analyze;
 import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_FREQUENCY_COUNT;
 import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_GROUP_BY;
 import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_MAP_TO_INDEX;
+import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_SHUFFLE;
+import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_SORTED;
+import static io.faststream.query.db.query.node.defaults.CollectionQueryOperations.C_UNORDERED;
 
+import io.faststream.query.db.query.compiler.Order;
 import io.faststream.query.db.query.node.Operation;
 
 /**
@@ -31,6 +35,9 @@ public class OrderAnalyzers extends Analyzers {
     @Override
     public void col() {
         col((f, t) -> t.setOrder(f.getOrder()), new Operation[] { null });
+        col((f, t) -> t.setOrder(f.getOrder().removeOrdering()), C_UNORDERED);
+        col((f, t) -> t.setOrder(Order.ORDERED), C_SORTED);
+        col((f, t) -> t.setOrder(Order.RANDOM), C_SHUFFLE);
 
         colToMap((f, t) -> t.setOrder(f.getOrder()), C_MAP_TO_INDEX);
         colToMap((f, t) -> t.setOrder(f.getOrder().removeOrdering()), C_FREQUENCY_COUNT);
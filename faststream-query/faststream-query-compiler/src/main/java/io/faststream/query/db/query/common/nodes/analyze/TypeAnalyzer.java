@@ -122,6 +122,15 @@ public class TypeAnalyzer extends Analyzers implements AllQueryOperations {
         multiToCol((f, t) -> t.setElement(f.getKey().clone()), U_VIEW_KEYS);
         multiToCol((f, t) -> t.setElement(f.getValue().clone()), U_VIEW_VALUES);
 
+        multiToMap((f, t) -> {
+            t.setKey(f.getKey().clone());
+            t.setValue(newVar(long.class, false));
+        }, U_COUNT);
+        multiToMap((f, t) -> {
+            t.setKey(f.getKey().clone());
+            t.setValue(f.getValue().clone());
+        }, U_REDUCE);
+
         // public static final MultimapOperation U_MAP_ENTRY = of("U_MAP_ENTRY", U);
         // public static final MultimapOperation U_MAP_KEY = of("U_MAP_KEY", U);
         // public static final MultimapOperation U_MAP_VALUE = of("U_MAP_VALUE", U);
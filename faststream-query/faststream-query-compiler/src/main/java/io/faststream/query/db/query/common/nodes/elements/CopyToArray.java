@@ -34,6 +34,7 @@ import io.faststream.codegen.model.statement.Statement;
 import io.faststream.codegen.model.type.ReferenceType;
 import io.faststream.codegen.model.type.Type;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.Composite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
 import io.faststream.query.db.query.compiler.render.util.IntroduceArrays;
@@ -85,26 +86,37 @@ public class CopyToArray extends AbstractOperationNode implements AllQueryOperat
     public void buildModel() {
         StreamingComposite sc = (StreamingComposite) sources().getMain();
 
-        boolean sizeConstant = sizeConstant();
         ForAll forAll = findFirst(WalkOrder.PREVIOUS_OR_PARENT, ForAll.class);
 
-        ArrayOrListComposite previous = (ArrayOrListComposite) forAll.sources().getMain();
-        requireNonNull(previous);
+        // Maps are iterated by their entries, and iterable only composites might skip indexes without an element. So
+        // the index of an element in the array is not known and the array cannot be reused
+        Composite main = requireNonNull(forAll.sources().getMain());
+        ArrayOrListComposite previous = main instanceof ArrayOrListComposite
+                && !((ArrayOrListComposite) main).isIterableOnly() ? (ArrayOrListComposite) main : null;
+        boolean sizeConstant = previous != null && sizeConstant();
+        boolean reused = previous != null && this.reused;
         ArrayOrListComposite composite = previous;
 
+        // The number of elements in an iterable only composite is often known in advance
+        Expression capacity = literal(2);
+        if (main instanceof ArrayOrListComposite && ((ArrayOrListComposite) main).isIterableOnly()
+                && ((ArrayOrListComposite) main).isSizeKnown() && sizeNotIncreasing()) {
+            capacity = ((ArrayOrListComposite) main).size();
+        }
+
         // getTree().print(e -> e.toString());
         // group().addComment(" " + ar.getComponentType());
 
         if (!reused) {
             Expression nie = new ArrayCreationExpression(Type.of(ar.getComponentType()),
                     Arrays.asList(sizeConstant ? previous.getUpperBound().minus(previous.getLowerBound()).simplify()
-                            : literal(2)));
+                            : capacity));
             group().bAddFirst(
                     new VariableDeclarationExpression(ReferenceType.createArray(ar.getComponentType()), Arrays
                             .asList(new VariableDeclarator(ar.getArray(), 0, nie))));
             composite = ArrayOrListComposite.create(ar.getType(), ar.getArray());
             if (!sizeConstant) {
-                group().bAddFirst(newVar(ar.getArraySize(), int.class, new Literal(2)).statement());
+                group().bAddFirst(newVar(ar.getArraySize(), int.class, capacity).statement());
             } else {
                 ar.sizeConstant = true;
             }
@@ -112,8 +124,6 @@ public class CopyToArray extends AbstractOperationNode implements AllQueryOperat
             composite = ArrayOrListComposite.create(ar.getType(), ar.getArray()).withUpperBounds(
                     previous.getUpperBound());
         }
-        Expression aIndex = forAll.getI().getI();
-
         if (!sizeConstant) {
             NameExpression upper = new NameExpression("upper");
             group().bAddFirst(newVar(upper, int.class, new Literal(0)).statement());
@@ -121,12 +131,13 @@ public class CopyToArray extends AbstractOperationNode implements AllQueryOperat
             if (!reused || sizeIncreasing()) {
                 ar.enlargeArrayIfNeeded(this, b(), upper);
             }
-            aIndex = upper.postIncrement();
+            Expression aIndex = upper.postIncrement();
             composite = composite.withBounds(new Literal(0), upper);
             b().add(new ArrayAccessExpression(ar.getArray(), Arrays.asList(aIndex)).assign(stealIfVariableDeclaration(
                     b(), sc.getAccessor())));
 
         } else {
+            Expression aIndex = forAll.getI().getI();
             b().add(new ArrayAccessExpression(ar.getArray(), Arrays.asList(aIndex.minus(previous.getLowerBound())
                     .simplify())).assign(stealIfVariableDeclaration(b(), sc.getAccessor())));
             composite = composite.withUpperBounds(previous.getUpperBound().minus(previous.getLowerBound()));
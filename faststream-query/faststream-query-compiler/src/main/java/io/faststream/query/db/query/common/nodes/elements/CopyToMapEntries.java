@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.nodes.elements;
+
+import java.util.Collections;
+
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.expression.NewInstanceExpression;
+import io.faststream.codegen.model.type.ClassOrInterfaceType;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.compiler.datasource.MapEntriesComposite;
+import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
+import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
+import io.faststream.query.db.query.runtime.MapEntries;
+
+/**
+ * Collects the entries of a streamed map view into {@link MapEntries}, for the map operations that cannot be streamed
+ * such as sorting.
+ *
+ * @author Kasper Nielsen
+ */
+public class CopyToMapEntries extends AbstractOperationNode {
+
+    /** {@inheritDoc} */
+    @Override
+    public void buildModel() {
+        StreamingMapComposite c = (StreamingMapComposite) sources().getMain();
+        addImport(MapEntries.class);
+        NameExpression entries = group().cache(MapEntries.class, new Identifier(MapEntries.class, "entries"),
+                new NewInstanceExpression(null, new ClassOrInterfaceType(MapEntries.class), Collections.emptyList()));
+        b().add(entries.invoke("add", c.getKeyAccessor().lazyBox(c.getKeyType()),
+                c.getValueAccessor().lazyBox(c.getValueType())));
+        group().next().sources().setMain(new MapEntriesComposite(entries));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.nodes.elements;
+
+import java.util.Collections;
+
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.expression.NewInstanceExpression;
+import io.faststream.codegen.model.type.ClassOrInterfaceType;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.compiler.datasource.MultimapEntriesComposite;
+import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
+import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
+import io.faststream.query.db.query.runtime.MultimapEntries;
+
+/**
+ * Groups the entries of a streamed multimap view by key into {@link MultimapEntries}, for the multimap operations that
+ * are interpreted by {@link InterpretMultimap}.
+ *
+ * @author Kasper Nielsen
+ */
+public class CopyToMultimapEntries extends AbstractOperationNode {
+
+    /** {@inheritDoc} */
+    @Override
+    public void buildModel() {
+        StreamingMapComposite c = (StreamingMapComposite) sources().getMain();
+        addImport(MultimapEntries.class);
+        NameExpression entries = group().cache(MultimapEntries.class, new Identifier(MultimapEntries.class, "entries"),
+                new NewInstanceExpression(null, new ClassOrInterfaceType(MultimapEntries.class),
+                        Collections.emptyList()));
+        b().add(entries.invoke("add", c.getKeyAccessor().lazyBox(c.getKeyType()),
+                c.getValueAccessor().lazyBox(c.getValueType())));
+        group().next().sources().setMain(new MultimapEntriesComposite(entries));
+    }
+}
@@ -15,12 +15,26 @@
  */
 package io.faststream.query.db.query.common.nodes.elements;
 
+import static io.faststream.codegen.model.expression.Expressions.literal;
+import static io.faststream.codegen.model.expression.Expressions.newVar;
+
+import java.util.Iterator;
+import java.util.Map;
+
 import io.faststream.codegen.model.expression.Expression;
+import io.faststream.codegen.model.statement.BlockStatement;
+import io.faststream.codegen.model.statement.ForStatement;
 import io.faststream.codegen.model.util.ForAllI;
+import io.faststream.codegen.model.util.Identifier;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
 import io.faststream.query.db.query.compiler.datasource.Composite;
+import io.faststream.query.db.query.compiler.datasource.HashTableComposite;
+import io.faststream.query.db.query.compiler.datasource.IndexedMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
+import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.util.StreamingGroup;
+import io.faststream.query.db.query.runtime.MapUtil;
 
 /**
  *
@@ -30,6 +44,12 @@ public class ForAll extends StreamingGroup {
 
     ForAllI i;
 
+    /** The block that is executed for each element when iterating by index. */
+    BlockStatement elementBlock;
+
+    /** The block that is executed for each entry when iterating a map. */
+    BlockStatement entryBlock;
+
     /**
      * @return the i
      */
@@ -46,13 +66,47 @@ public class ForAll extends StreamingGroup {
             if (i == null) {
                 i = ForAllI.create(composite.getLowerBound(), composite.getUpperBound());
                 b().add(i.getForStatement());
+                elementBlock = present(composite.isPresent(i.getI()));
+            }
+            if (composite instanceof HashTableComposite) {
+                addImport(MapUtil.class);
             }
-
             Expression var = composite.getElement(i.getI());
             firstChild().sources().setMain(new StreamingComposite(composite.getComponentType(), var));
 
-            children().forEach(c -> c.setIn(i.getBlock()));
+            children().forEach(c -> c.setIn(elementBlock));
+
+        } else if (v instanceof IndexedMapComposite) {
+            IndexedMapComposite composite = (IndexedMapComposite) v;
+            if (i == null) {
+                i = ForAllI.create(literal(0), composite.getUpperBound());
+                b().add(i.getForStatement());
+                elementBlock = present(composite.isPresent(i.getI()));
+            }
+            firstChild().sources().setMain(composite.getEntry(i.getI()));
+
+            children().forEach(c -> c.setIn(elementBlock));
+        } else if (v instanceof MapComposite) {
+            // for (Iterator iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            // Map.Entry entry = (Map.Entry) iterator.next();
+            Identifier entry = new Identifier(Map.Entry.class, "entry");
+            if (entryBlock == null) {
+                addImport(Iterator.class);
+                addImport(Map.Entry.class);
+                Identifier iterator = new Identifier(Iterator.class, "iterator");
+                entryBlock = new BlockStatement();
+                entryBlock.add(newVar(entry, Map.Entry.class, iterator.invoke("next").cast(Map.Entry.class)));
+                ForStatement fs = new ForStatement();
+                fs.getInit().add(newVar(iterator, Iterator.class, ((MapComposite) v).iterator()));
+                fs.setCompare(iterator.invoke("hasNext"));
+                fs.setBody(entryBlock);
+                b().add(fs);
+            }
+            firstChild().sources().setMain(
+                    new StreamingMapComposite(Object.class, entry.invoke("getKey"), Object.class, entry
+                            .invoke("getValue")));
 
+            children().forEach(c -> c.setIn(entryBlock));
         } else {
             throw new RuntimeException("" + v.getClass());
         }
@@ -63,4 +117,15 @@ public class ForAll extends StreamingGroup {
         // }
         renderChildren();
     }
+
+    /**
+     * Returns the block that is executed for each index that holds an element.
+     *
+     * @param isPresent
+     *            an expression testing whether or not the current index holds an element, or null if all indexes do
+     * @return the block that is executed for each index that holds an element
+     */
+    private BlockStatement present(Expression isPresent) {
+        return isPresent == null ? i.getBlock() : i.getBlock().addIfBlock(isPresent);
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.nodes.elements;
+
+import static io.faststream.codegen.model.expression.Expressions.literal;
+
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.query.db.query.compiler.datasource.MultimapEntriesComposite;
+import io.faststream.query.db.query.node.Operation;
+import io.faststream.query.db.query.node.defaults.AllQueryOperations;
+
+/**
+ * Interprets the remaining operations of a query on the entries of a multimap view, that have been grouped by key by
+ * {@link CopyToMultimapEntries}. Only multimap operations that do not depend on how values are grouped by key are
+ * compiled, the first operation that does and all operations following it are replaced by this node.
+ *
+ * @author Kasper Nielsen
+ */
+public final class InterpretMultimap extends RealNode implements AllQueryOperations {
+
+    /** The multimap operations that are compiled, they process each entry on its own. */
+    private static final Operation COMPILED = Operation.aggregate(U_FILTER, U_MAP_VALUE, UT_SIZEABLE, U_COUNT, U_REDUCE);
+
+    /** The index of the first operation to interpret. */
+    private final int start;
+
+    /**
+     * Creates a new node.
+     *
+     * @param start
+     *            the index of the first operation of the query to interpret
+     */
+    public InterpretMultimap(int start) {
+        this.start = start;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void buildModel() {
+        MultimapEntriesComposite c = (MultimapEntriesComposite) sources().getMain();
+        b().addReturn(c.getAccessor().invoke("process", new NameExpression("node"), literal(start)));
+    }
+
+    /**
+     * Returns whether or not the specified operation, and all operations following it, must be interpreted.
+     *
+     * @param operation
+     *            the operation to test
+     * @return whether or not the specified operation must be interpreted
+     */
+    public static boolean isInterpreted(Operation operation) {
+        return operation.is(U) && !operation.is(COMPILED);
+    }
+}
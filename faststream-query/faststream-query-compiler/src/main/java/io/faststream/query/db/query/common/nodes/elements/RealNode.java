@@ -23,7 +23,7 @@ import java.util.stream.Stream;
 
 import io.faststream.query.db.query.compiler.render.PartialQuery;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
-import io.faststream.query.db.query.util.tree.WalkOrder;
+import io.faststream.query.db.query.plan.QueryNode;
 
 /**
  * I really want to get rid of this one. But right now its here to maintain the original order of operation
@@ -47,7 +47,12 @@ public abstract class RealNode extends AbstractOperationNode {
     }
 
     public static RealNode getFirst(PartialQuery plan) {
-        return plan.getRoot().find(WalkOrder.IN).first(RealNode.class);
+        // The first operation might follow a group that only copies the elements of the data structure
+        QueryNode root = plan.getRoot();
+        for (RealNode n : root.depthFirstTraversal(RealNode.class, n -> n != root)) {
+            return n;
+        }
+        return null;
     }
 
     public static Stream<RealNode> streamAll(PartialQuery plan) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.nodes.render;
+
+import java.util.Arrays;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.expression.NewInstanceExpression;
+import io.faststream.codegen.model.type.ClassOrInterfaceType;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.common.nodes.elements.MapElement;
+import io.faststream.query.db.query.compiler.datasource.AggregatedMapComposite;
+import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
+import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
+import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
+import io.faststream.query.db.query.runtime.AggregatingHashMap;
+import io.faststream.query.db.query.runtime.CountingHashMap;
+import io.faststream.query.db.query.runtime.ReducingHashMap;
+
+/**
+ * Generates code for operations that aggregate a stream into a value per key, such as {@code groupBy(...).count()}.
+ * The values are aggregated while iterating, so the values of each key are never collected.
+ *
+ * @author Kasper Nielsen
+ */
+public class AggregatingGenerator extends ModelGenerator {
+
+    /** {@inheritDoc} */
+    @Override
+    void generate() {
+        register(StreamingComposite.class, AggregatingGenerator::count, C_FREQUENCY_COUNT);
+        register(StreamingMapComposite.class, AggregatingGenerator::count, U_COUNT);
+        register(StreamingMapComposite.class, AggregatingGenerator::reduce, U_REDUCE);
+
+        register(AggregatedMapComposite.class, MapElement.class, AggregatingGenerator::to, MT_TO);
+    }
+
+    static void count(StreamingComposite c, AbstractOperationNode n) {
+        NameExpression map = newMap(n, CountingHashMap.class);
+        n.b().add(map.invoke("add", c.getAccessor().lazyBox(c.getType())));
+    }
+
+    static void count(StreamingMapComposite c, AbstractOperationNode n) {
+        NameExpression map = newMap(n, CountingHashMap.class);
+        n.b().add(map.invoke("add", c.getKeyAccessor()));
+    }
+
+    static void reduce(StreamingMapComposite c, AbstractOperationNode n) {
+        NameExpression map = newMap(n, ReducingHashMap.class, n.parameters().first().accessor());
+        n.b().add(map.invoke("add", c.getKeyAccessor(), c.getValueAccessor().lazyBox(c.getValueType())));
+    }
+
+    static void to(AggregatedMapComposite c, MapElement n) {
+        if (n.is(MT_TO_TYPE)) {
+            n.b().addReturn(c.getAccessor().invoke("toMap", n.parameters().first().accessor()));
+        } else {
+            n.b().addReturn(c.getAccessor().invoke("toMap"));
+        }
+    }
+
+    /**
+     * Declares the map to aggregate into before iterating, and makes it the source of the operation following the
+     * iteration.
+     */
+    private static NameExpression newMap(AbstractOperationNode n, Class<? extends AggregatingHashMap> type,
+            Expression... arguments) {
+        n.addImport(type);
+        Expression init = new NewInstanceExpression(null, new ClassOrInterfaceType(type), Arrays.asList(arguments));
+        NameExpression map = n.group().cache(type, new Identifier(type, "map"), init);
+        n.group().next().sources().setMain(new AggregatedMapComposite(type, map));
+        return map;
+    }
+}
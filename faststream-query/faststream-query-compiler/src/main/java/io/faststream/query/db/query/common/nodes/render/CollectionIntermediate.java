@@ -28,6 +28,8 @@ import java.util.HashSet;
 
 import io.faststream.codegen.core.CodegenUtil;
 import io.faststream.codegen.model.body.VariableDeclarator;
+import io.faststream.codegen.model.expression.BinaryExpression;
+import io.faststream.codegen.model.expression.BinaryExpression.BiOperator;
 import io.faststream.codegen.model.expression.ConditionalExpression;
 import io.faststream.codegen.model.expression.Expression;
 import io.faststream.codegen.model.expression.Expressions;
@@ -40,14 +42,20 @@ import io.faststream.codegen.model.statement.ReturnStatement;
 import io.faststream.codegen.model.type.ClassOrInterfaceType;
 import io.faststream.codegen.model.type.ReferenceType;
 import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.common.nodes.elements.ForAll;
 import io.faststream.query.db.query.common.nodes.elements.SingleElement;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.BufferComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
 import io.faststream.query.db.query.compiler.render.util.FunctionalInterfaces;
 import io.faststream.query.db.query.compiler.render.util.ReturnIteratorOrSpliterator;
+import io.faststream.query.db.query.plan.QueryNode;
+import io.faststream.query.db.query.plan.QueryOperationParameterList.QueryOperationParameter;
 import io.faststream.query.db.query.runtime.ArrayUtil;
+import io.faststream.query.db.query.runtime.IntHashSet;
+import io.faststream.query.db.query.runtime.LongHashSet;
 import io.faststream.query.db.query.util.tree.WalkOrder;
 
 /**
@@ -70,6 +78,7 @@ public class CollectionIntermediate extends ModelGenerator {
         register(ArrayOrListComposite.class, SingleElement.class, CollectionIntermediate::skip, C_TRUNCATE_SKIP);
         register(ArrayOrListComposite.class, SingleElement.class, CollectionIntermediate::sort, C_SORTED);
         register(ArrayOrListComposite.class, SingleElement.class, CollectionIntermediate::take, C_TRUNCATE_TAKE);
+        register(ArrayOrListComposite.class, SingleElement.class, CollectionIntermediate::sortedTop, C_SORTED_TOP);
         register(StreamingComposite.class, SingleElement.class, CollectionIntermediate::returnSpliterator, CT_TO_SPLITERATOR);
         register(StreamingComposite.class, SingleElement.class, CollectionIntermediate::returnIterator, CT_TO_ITERATOR);
     }
@@ -97,15 +106,19 @@ public class CollectionIntermediate extends ModelGenerator {
     static void distinct(ArrayOrListComposite c, SingleElement n) {
         n.addImport(ArrayUtil.class);
         Expression e = c.getAccessor();
+        // Sorted primitives are distinct if they are different from the previous element, no set is needed
+        Expression distinct = c.getComponentType().isPrimitive() && n.previous() != null && n.previous().is(C_SORTED)
+                ? staticMethodInvoke(ArrayUtil.class, "distinctSorted", c.asExpression())
+                : staticMethodInvoke(ArrayUtil.class, "distinct", c.asExpressionIfNonDefault());
         if (c.isImmutable()) {
             e = new NameExpression("array");
-            Expression init = staticMethodInvoke(ArrayUtil.class, "distinct", c.asExpressionIfNonDefault());
+            Expression init = distinct;
             VariableDeclarationExpression vde = new VariableDeclarationExpression(ReferenceType.createArray(Object.class),
                     Arrays.asList(new VariableDeclarator((NameExpression) e, 0, init)));
             // composite = ArrayOrListComposite.create(Array.newInstance(type, 1).getClass(), array);
             n.b().add(vde);
         } else {
-            n.b().add(e.assign(staticMethodInvoke(ArrayUtil.class, "distinct", c.asExpressionIfNonDefault())));
+            n.b().add(e.assign(distinct));
         }
         ArrayOrListComposite next = ArrayOrListComposite.create(c.getType(), e);
         n.next().sources().setMain(next);
@@ -114,14 +127,31 @@ public class CollectionIntermediate extends ModelGenerator {
     static void distinct(StreamingComposite c, SingleElement n) {
         // Add et HashSet Oeverst.
         // brug hashSet.add() som filter
-        n.addImport(HashSet.class);
-        NameExpression set = new Identifier(HashSet.class, "set");
+        // Primitives are added to sets that do not box them, doubles are compared by their bits like Double.equals()
+        Class<?> type = n.getElement().getType();
+        QueryNode parent = n.getParent();
+        if (type.isPrimitive() && parent instanceof ForAll && parent.firstChild() == n && parent.previous() != null
+                && parent.previous().is(C_SORTED)) {
+            distinctSorted(c, n, (ForAll) parent);
+            return;
+        }
+        Class<?> setType = HashSet.class;
+        Expression element = c.getAccessor();
+        if (type == int.class) {
+            setType = IntHashSet.class;
+        } else if (type == long.class) {
+            setType = LongHashSet.class;
+        } else if (type == double.class) {
+            setType = LongHashSet.class;
+            element = staticMethodInvoke(Double.class, "doubleToLongBits", element);
+        }
+        n.addImport(setType);
+        NameExpression set = new Identifier(setType, "set");
 
-        Expression init = new NewInstanceExpression(null, new ClassOrInterfaceType(HashSet.class), Arrays.asList());
-        n.addImport(ArrayUtil.class);
-        set = n.group().cache(HashSet.class, set, init);
+        Expression init = new NewInstanceExpression(null, new ClassOrInterfaceType(setType), Arrays.asList());
+        set = n.group().cache(setType, set, init);
 
-        BlockStatement bs = n.b().addIfBlock(set.invoke("add", c.getAccessor()));
+        BlockStatement bs = n.b().addIfBlock(set.invoke("add", element));
         n.children().forEach(cc -> cc.setIn(bs));
 
         // Set the main source to the list we just created
@@ -129,6 +159,23 @@ public class CollectionIntermediate extends ModelGenerator {
         n.renderChildren();
     }
 
+    /** Iterating over sorted primitives, an element is distinct if it is different from the previous element. */
+    static void distinctSorted(StreamingComposite c, SingleElement n, ForAll forAll) {
+        ArrayOrListComposite array = (ArrayOrListComposite) forAll.sources().getMain();
+        NameExpression i = forAll.getI().getI();
+        Expression element = c.getAccessor();
+        Expression previous = array.getElement(i.minus(literal(1)));
+        if (n.getElement().getType() == double.class) {
+            element = staticMethodInvoke(Double.class, "doubleToLongBits", element);
+            previous = staticMethodInvoke(Double.class, "doubleToLongBits", previous);
+        }
+        Expression isFirst = i.equalsTo(array.getLowerBound());
+        BlockStatement bs = n.b().addIfBlock(new BinaryExpression(isFirst, BiOperator.OR, element.notEquals(previous)));
+        n.children().forEach(cc -> cc.setIn(bs));
+        n.firstChild().sources().setMain(c);
+        n.renderChildren();
+    }
+
     static void filter(StreamingComposite c, SingleElement n) {
         Expression e = c.getAccessor();
         final BlockStatement bs;
@@ -156,7 +203,8 @@ public class CollectionIntermediate extends ModelGenerator {
     static void returnSpliterator(StreamingComposite c, SingleElement n) {
         ReturnIteratorOrSpliterator re = n.findFirst(WalkOrder.PREVIOUS_OR_PARENT, ReturnIteratorOrSpliterator.class);
         n.b().add(re.getNext().invoke("accept", c.getAccessor()));
-        n.b().add(literal(true).returnIt());
+        // Only returns if invoked by tryAdvance(), forEachRemaining() continues with the next element
+        n.b().addIf(re.getSingle(), literal(true).returnIt());
     }
 
     static void limit(ArrayOrListComposite c, SingleElement n) {
@@ -225,6 +273,41 @@ public class CollectionIntermediate extends ModelGenerator {
         n.next().sources().setMain(c);
     }
 
+    static void sortedTop(ArrayOrListComposite c, SingleElement n) {
+        n.addImport(ArrayUtil.class);
+        // Buffers are copied, lists are converted to an array, arrays are used as is
+        if (c instanceof BufferComposite) {
+            Class<?> arrayType = ((BufferComposite) c).getArrayType();
+            Identifier array = new Identifier(arrayType, "array");
+            n.b().add(Expressions.newVar(array, arrayType, c.cloneForReturn(n)));
+            c = ArrayOrListComposite.create(arrayType, array);
+        } else if (!c.getType().isArray()) {
+            Identifier array = new Identifier(Object[].class, "array");
+            n.b().add(Expressions.newVar(array, Object[].class, c.getAccessor().invoke("toArray")));
+            c = ArrayOrListComposite.create(Object[].class, array).withBounds(c.getLowerBound(), c.getUpperBound());
+        }
+
+        ArrayList<Expression> arguments = new ArrayList<>(Arrays.asList(c.asExpression()));
+        // sorted().limit(n) and sorted().take(n) has the number of elements as parameter, first() and last() keeps 1
+        Expression count = literal(1);
+        for (QueryOperationParameter p : n.parameters()) {
+            if (p.getType() == long.class) {
+                count = p.accessor();
+            }
+        }
+        arguments.add(count);
+        if (!c.getComponentType().isPrimitive()) {
+            arguments.add(n.is(C_SORTED_TOP_COMPARATOR, C_SORTED_TOP_COMPARATOR_REVERSE) ? n.parameters().first()
+                    .accessor() : literal(null));
+        }
+        arguments.add(literal(n.is(C_SORTED_TOP_NATURAL_REVERSE, C_SORTED_TOP_COMPARATOR_REVERSE)));
+
+        Identifier top = new Identifier(c.getType(), "top");
+        n.b().add(Expressions.newVar(top, c.getType(),
+                staticMethodInvoke(ArrayUtil.class, "sortedTop", arguments.toArray(new Expression[arguments.size()]))));
+        n.next().sources().setMain(ArrayOrListComposite.create(c.getType(), top));
+    }
+
     static void take(ArrayOrListComposite c, SingleElement n) {
         Identifier start = new Identifier(int.class, "startIndex");
         Identifier stop = new Identifier(int.class, "stopIndex");
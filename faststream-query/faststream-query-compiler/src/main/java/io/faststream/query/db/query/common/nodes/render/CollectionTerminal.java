@@ -44,6 +44,7 @@ import io.faststream.codegen.model.util.Identifier;
 import io.faststream.query.db.query.common.nodes.elements.CopyToArray;
 import io.faststream.query.db.query.common.nodes.elements.SingleElement;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.BufferComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
 import io.faststream.query.db.query.compiler.render.util.ReducerSimplifier;
@@ -341,7 +342,7 @@ public class CollectionTerminal extends ModelGenerator {
 
     static void to(ArrayOrListComposite c, SingleElement n) {
         boolean needsCloning = !c.isImmutable() || !c.isDefaultBounds();
-        if (c.getType().isArray()) {
+        if (c.getType().isArray() || c instanceof BufferComposite) {
             if (n.is(CT_TO_LIST)) {
                 n.addImport(ArrayUtil.class);
                 if (c.isImmutable()) {
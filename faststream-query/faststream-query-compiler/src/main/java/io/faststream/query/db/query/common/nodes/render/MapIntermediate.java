@@ -25,9 +25,15 @@ import io.faststream.codegen.model.util.Identifier;
 import io.faststream.query.db.query.common.nodes.elements.MapElement;
 import io.faststream.query.db.query.common.nodes.elements.MapOrMultimapElement;
 import io.faststream.query.db.query.common.nodes.elements.RealNode;
+import io.faststream.query.db.query.compiler.datasource.AggregatedMapComposite;
+import io.faststream.query.db.query.compiler.datasource.Composite;
+import io.faststream.query.db.query.compiler.datasource.HashTableMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapEntriesComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.util.FunctionalInterfaces;
+import io.faststream.query.db.query.runtime.MapEntries;
 import io.faststream.query.db.query.runtime.MapUtil;
 
 /**
@@ -40,15 +46,68 @@ public class MapIntermediate extends ModelGenerator {
     void generate() {
         register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> mapValue(c, n), M_MAP_VALUE,
                 U_MAP_VALUE);
-        register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> mapKey(c, n), M_MAP_KEY, U_MAP_KEY);
-        register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> mapEntry(c, n), M_MAP_BI, U_MAP_BI);
-        register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> mapViewKeys(c, n), M_VIEW_KEYS,
-                U_VIEW_KEYS);
-        register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> mapViewValues(c, n), M_VIEW_VALUES,
-                U_VIEW_VALUES);
+        // Other multimap operations depend on how values are grouped by key, so InterpretMultimap interprets them
+        register(StreamingMapComposite.class, MapElement.class, (c, n) -> mapKey(c, n), M_MAP_KEY);
+        register(StreamingMapComposite.class, MapElement.class, (c, n) -> mapEntry(c, n), M_MAP_BI);
+        register(StreamingMapComposite.class, MapElement.class, (c, n) -> mapViewKeys(c, n), M_VIEW_KEYS);
+        register(StreamingMapComposite.class, MapElement.class, (c, n) -> mapViewValues(c, n), M_VIEW_VALUES);
         register(StreamingMapComposite.class, MapElement.class, (c, n) -> mapViewEntries(c, n), M_VIEW_ENTRIES);
 
         register(StreamingMapComposite.class, MapOrMultimapElement.class, (c, n) -> filter(c, n), M_FILTER, U_FILTER);
+
+        // Sorting and truncating needs all entries, so they are done in place on MapEntries
+        register(MapComposite.class, MapElement.class, MapIntermediate::sorted, M_SORTED);
+        register(MapComposite.class, MapElement.class, MapIntermediate::take, M_TRUNCATE_TAKE);
+        register(AggregatedMapComposite.class, MapElement.class, MapIntermediate::sorted, M_SORTED);
+        register(AggregatedMapComposite.class, MapElement.class, MapIntermediate::take, M_TRUNCATE_TAKE);
+        register(MapEntriesComposite.class, MapElement.class, MapIntermediate::sorted, M_SORTED);
+        register(MapEntriesComposite.class, MapElement.class, MapIntermediate::take, M_TRUNCATE_TAKE);
+        register(HashTableMapComposite.class, MapElement.class, MapIntermediate::sorted, M_SORTED);
+        register(HashTableMapComposite.class, MapElement.class, MapIntermediate::take, M_TRUNCATE_TAKE);
+    }
+
+    /**
+     * Returns the entries of the specified map, copying them into a new {@link MapEntries} if needed.
+     *
+     * @param c
+     *            the map
+     * @param n
+     *            the node that needs the entries
+     * @return the entries of the map
+     */
+    static Expression entries(Composite c, MapElement n) {
+        if (c instanceof MapEntriesComposite) {
+            return c.getAccessor();
+        }
+        n.addImport(MapEntries.class);
+        Identifier e = new Identifier(MapEntries.class, "entries");
+        Expression init = c instanceof HashTableMapComposite ? ((HashTableMapComposite) c).entries()
+                : staticMethodInvoke(MapEntries.class, "of", c.getAccessor());
+        n.b().add(Expressions.newVar(e, MapEntries.class, init));
+        return e;
+    }
+
+    static void sorted(Composite c, MapElement n) {
+        Expression entries = entries(c, n);
+        if (n.is(M_SORTED_COMPARATOR)) {
+            n.b().add(entries.invoke("sort", n.parameters().first().accessor()));
+        } else {
+            boolean natural = n.is(M_SORTED_BY_KEY_NATURAL, M_SORTED_BY_KEY_NATURAL_REVERSE, M_SORTED_BY_VALUE_NATURAL,
+                    M_SORTED_BY_VALUE_NATURAL_REVERSE);
+            boolean reverse = n.is(M_SORTED_BY_KEY_NATURAL_REVERSE, M_SORTED_BY_KEY_COMPARATOR_REVERSE,
+                    M_SORTED_BY_VALUE_NATURAL_REVERSE, M_SORTED_BY_VALUE_COMPARATOR_REVERSE);
+            boolean byKey = n.is(M_SORTED_BY_KEY_NATURAL, M_SORTED_BY_KEY_COMPARATOR, M_SORTED_BY_KEY_NATURAL_REVERSE,
+                    M_SORTED_BY_KEY_COMPARATOR_REVERSE);
+            Expression comparator = natural ? literal(null) : n.parameters().first().accessor();
+            n.b().add(entries.invoke(byKey ? "sortByKey" : "sortByValue", comparator, literal(reverse)));
+        }
+        n.next().sources().setMain(new MapEntriesComposite(entries));
+    }
+
+    static void take(Composite c, MapElement n) {
+        Expression entries = entries(c, n);
+        n.b().add(entries.invoke("take", n.parameters().first().accessor()));
+        n.next().sources().setMain(new MapEntriesComposite(entries));
     }
 
     static void filter(StreamingMapComposite c, MapOrMultimapElement n) {
@@ -70,28 +129,6 @@ public class MapIntermediate extends ModelGenerator {
         // Set the main source to the list we just created
         n.firstChild().sources().setMain(c);
         n.renderChildren();
-
-        // QueryOperationType M_MAP_KEY = of("M_MAP_KEY", M_MAP_FUNCTION);
-        //
-        // QueryOperationType M_ORDERING = of("M_ORDERING", M);
-        // QueryOperationType M_SHUFFLE = of("M_SHUFFLE", M_ORDERING);
-        // QueryOperationType M_REVERSE = of("M_REVERSE", M_ORDERING);
-        // QueryOperationType M_SORT = of("M_SORT", M_ORDERING);
-        // QueryOperationType M_SORT_COMPARATOR = of("M_SORT_COMPARATOR", M_SORT);
-        // QueryOperationType M_SORT_BY_KEY_NATURAL = of("M_SORT_BY_KEY_NATURAL", M_SORT);
-        // QueryOperationType M_SORT_BY_KEY_COMPARATOR = of("M_SORT_BY_KEY_COMPARATOR", M_SORT);
-        // QueryOperationType M_SORT_BY_KEY_NATURAL_REVERSE = of("M_SORT_BY_KEY_NATURAL_REVERSE",
-        // M_SORT);
-        // QueryOperationType M_SORT_BY_KEY_COMPARATOR_REVERSE =
-        // of("M_SORT_BY_KEY_COMPARATOR_REVERSE", M_SORT);
-        // QueryOperationType M_SORT_BY_VALUE_NATURAL = of("M_SORT_BY_VALUE_NATURAL", M_SORT);
-        // QueryOperationType M_SORT_BY_VALUE_COMPARATOR = of("M_SORT_BY_VALUE_COMPARATOR", M_SORT);
-        // QueryOperationType M_SORT_BY_VALUE_NATURAL_REVERSE =
-        // of("M_SORT_BY_VALUE_NATURAL_REVERSE", M_SORT);
-        // QueryOperationType M_SORT_BY_VALUE_COMPARATOR_REVERSE =
-        // of("M_SORT_BY_VALUE_COMPARATOR_REVERSE", M_SORT);
-        //
-        // QueryOperationType M_TRUNCATE_TAKE = of("M_TRUNCATE_TAKE", M);
     }
 
     private void mapViewKeys(StreamingMapComposite c, RealNode n) {
@@ -15,8 +15,13 @@
  */
 package io.faststream.query.db.query.common.nodes.render;
 
+import io.faststream.codegen.model.expression.Expression;
 import io.faststream.codegen.model.expression.Literal;
 import io.faststream.query.db.query.common.nodes.elements.MapElement;
+import io.faststream.query.db.query.compiler.datasource.Composite;
+import io.faststream.query.db.query.compiler.datasource.HashTableMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapEntriesComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 
 /**
@@ -30,6 +35,9 @@ public class MapTerminal extends ModelGenerator {
     void generate() {
         register(StreamingMapComposite.class, MapElement.class, (c, n) -> forEach(c, n), MT_FOR_EACH);
         register(StreamingMapComposite.class, MapElement.class, (c, n) -> to(c, n), MT_TO);
+        register(MapComposite.class, MapElement.class, MapTerminal::to, MT_TO);
+        register(MapEntriesComposite.class, MapElement.class, MapTerminal::to, MT_TO);
+        register(HashTableMapComposite.class, MapElement.class, MapTerminal::to, MT_TO);
     }
 
     // public static final MapOperation MT_TO = of("MT_TO", M);
@@ -45,6 +53,15 @@ public class MapTerminal extends ModelGenerator {
         throw new UnsupportedOperationException();
     }
 
+    static void to(Composite c, MapElement n) {
+        Expression entries = MapIntermediate.entries(c, n);
+        if (n.is(MT_TO_TYPE)) {
+            n.b().addReturn(entries.invoke("toMap", n.parameters().first().accessor()));
+        } else {
+            n.b().addReturn(entries.invoke("toMap"));
+        }
+    }
+
     /**
      * @param c
      * @param n
@@ -35,6 +35,7 @@ import io.faststream.codegen.model.expression.Expressions;
 import io.faststream.codegen.model.statement.BlockStatement;
 import io.faststream.codegen.model.statement.ForStatement;
 import io.faststream.codegen.model.statement.TryStatement;
+import io.faststream.codegen.model.statement.WhileStatement;
 import io.faststream.codegen.model.type.ClassOrInterfaceType;
 import io.faststream.codegen.model.type.Type;
 import io.faststream.codegen.model.util.ForAllI;
@@ -45,6 +46,7 @@ import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
 import io.faststream.query.db.query.compiler.render.util.FunctionalInterfaces;
+import io.faststream.query.db.query.compiler.render.util.ReturnIteratorOrSpliterator;
 import io.faststream.query.db.query.plan.QueryNode;
 import io.faststream.query.db.query.runtime.StreamUtil;
 import io.faststream.query.db.query.util.tree.WalkOrder;
@@ -115,6 +117,34 @@ public class MappingGenerator extends ModelGenerator {
         BlockStatement b = new BlockStatement();
 
         n.b().addIf(s.notEquals(literal(null)), b);
+        String next = targetType == Object.class ? "next" : "next"
+                + CodegenUtil.capitalizeFirstLetter(targetType.getName());
+        Expression newIterator = isPrimitive ? staticMethodInvoke(StreamUtil.class, "from"
+                + streamType.getSimpleName(), s) : s.invoke("iterator");
+        if (isPrimitive) {
+            n.addImport(StreamUtil.class);
+        }
+
+        ReturnIteratorOrSpliterator ri = n.findFirst(WalkOrder.PREVIOUS_OR_PARENT, ReturnIteratorOrSpliterator.class);
+        if (ri != null && ri.isResumable(n)) {
+            // Keep the stream open, the generated iterator continues iterating it in the next invocation
+            BlockStatement resume = ri.resumeFlatMap(streamType, iteratorType);
+            b.add(ri.getFlatMapStream().assign(s));
+            b.add(ri.getFlatMapIterator().assign(newIterator));
+
+            BlockStatement bb = new BlockStatement();
+            resume.add(new WhileStatement(ri.getFlatMapIterator().invoke("hasNext"), bb));
+            Identifier e = new Identifier(targetType, "e");
+            bb.add(Expressions.newVar(e, targetType, ri.getFlatMapIterator().invoke(next)));
+            resume.add(ri.getFlatMapStream().invoke("close"));
+            resume.add(ri.getFlatMapStream().assign(literal(null)));
+            resume.add(ri.getFlatMapIterator().assign(literal(null)));
+
+            n.children().forEach(cc -> cc.setIn(bb));
+            n.firstChild().sources().setMain(new StreamingComposite(targetType, e));
+            n.renderChildren();
+            return;
+        }
 
         Identifier iter = new Identifier(Iterator.class, "iter");
 
@@ -133,20 +163,12 @@ public class MappingGenerator extends ModelGenerator {
         }
 
         List<Expression> update = ignoreContents ? Arrays.asList(iter.invoke("next")) : Collections.emptyList();
-        ForStatement fs = new ForStatement(Arrays.asList(Expressions.newVar(iter, iteratorType, s.invoke("iterator"))),
+        ForStatement fs = new ForStatement(Arrays.asList(Expressions.newVar(iter, iteratorType, newIterator)),
                 iter.invoke("hasNext"), update, bb);
-        if (isPrimitive) {
-            n.addImport(StreamUtil.class);
-            fs = new ForStatement(Arrays.asList(Expressions.newVar(iter, iteratorType,
-                    staticMethodInvoke(StreamUtil.class, "from" + streamType.getSimpleName(), s))),
-                    iter.invoke("hasNext"), update, bb);
-        }
         b.add(new TryStatement(new BlockStatement(Arrays.asList(fs)), Collections.emptyList(), new BlockStatement(
                 Arrays.asList(s.invoke("close").statement()))));
 
         n.children().forEach(cc -> cc.setIn(bb));
-        String next = targetType == Object.class ? "next" : "next"
-                + CodegenUtil.capitalizeFirstLetter(targetType.getName());
         n.firstChild().sources().setMain(new StreamingComposite(targetType, iter.invoke(next)));
         n.renderChildren();
     }
@@ -42,7 +42,7 @@ public abstract class ModelGenerator implements AllQueryOperations {
         ALL = new ConcurrentHashMap<>();
         List<ModelGenerator> l = Arrays.asList(new CollectionIntermediate(), new CollectionTerminal(),
                 new SizeIsEmptyGenerator(), new MapIntermediate(), new MapTerminal(),
-                new MappingGenerator());
+                new MappingGenerator(), new AggregatingGenerator());
         for (ModelGenerator c : l) {
             c.map = ALL;
             c.generate();
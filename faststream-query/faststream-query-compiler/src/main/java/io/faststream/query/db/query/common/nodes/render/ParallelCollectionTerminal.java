@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.nodes.render;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.core.CodegenUtil;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.node.Operation;
+import io.faststream.query.db.query.node.QueryOperationNode;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+import io.faststream.query.db.query.node.defaults.AllQueryOperations;
+import io.faststream.query.db.query.plan.QueryEngine;
+import io.faststream.query.db.query.plan.QueryPlan;
+import io.faststream.query.db.query.runtime.ParallelRangeTask;
+import io.faststream.query.db.query.runtime.ParallelUtil;
+
+/**
+ * Renders parallel versions of queries on an {@link ArrayOrListComposite}. The serial query is rendered into a
+ * {@code processRange} method that only processes the elements between two indexes. The {@code process} method splits
+ * the bounds of the composite into {@link ParallelRangeTask fork join tasks} that each invoke {@code processRange}, and
+ * merges the partial results using {@link ParallelUtil}.
+ * <p>
+ * Only queries where the last of any {@code parallel()} or {@code sequential()} operations is {@code parallel()}, where
+ * all intermediate operations are stateless and where the terminal operation can be merged are rendered in parallel.
+ * All other queries are rendered serially.
+ *
+ * @author Kasper Nielsen
+ */
+public class ParallelCollectionTerminal implements AllQueryOperations {
+
+    /** The default number of elements below which a range is not split further. */
+    public static final int DEFAULT_THRESHOLD = 1 << 13;
+
+    /** Operations that can be evaluated independently on each range. */
+    static final Operation STATELESS = Operation.aggregate(C_FILTER, C_MAP, C_PEEK, C_FLAT_MAP, C_AS_STREAM, C_PARALLEL,
+            C_SEQUENTIAL, C_UNORDERED, C_ON_CLOSE);
+
+    /** Terminal operations whose partial results can be merged. */
+    static final Operation MERGEABLE = Operation.aggregate(CT_MATH_SUM, CT_SIZE, CT_MINMAX, CT_REDUCE_OPERATOR,
+            CT_COLLECT_FUSED, CT_COLLECT_COLLECTOR, CT_MATH_SUMMARY_STATISTICS);
+
+    /** The names of the parameters holding the bounds of a range. */
+    static final Identifier LOWER = new Identifier(int.class, "lo"), UPPER = new Identifier(int.class, "hi");
+
+    /** The composite with the full bounds of the data structure. */
+    private final ArrayOrListComposite main;
+
+    /** The pool that tasks are submitted to. */
+    private final ForkJoinPool pool;
+
+    /** A planner that creates plans for a range of the composite. */
+    private final QueryEngine rangePlanner;
+
+    /** The number of elements below which a range is not split further. */
+    private final int threshold;
+
+    /**
+     * Creates a new parallel render.
+     *
+     * @param main
+     *            the composite with the full bounds of the data structure
+     * @param rangePlanner
+     *            a planner whose plans uses {@link #rangeOf(ArrayOrListComposite)} as the main composite
+     * @param pool
+     *            the pool that tasks are submitted to
+     * @param threshold
+     *            the number of elements below which a range is not split further
+     */
+    public ParallelCollectionTerminal(ArrayOrListComposite main, QueryEngine rangePlanner, ForkJoinPool pool,
+            int threshold) {
+        this.main = requireNonNull(main, "main is null");
+        this.rangePlanner = requireNonNull(rangePlanner, "rangePlanner is null");
+        this.pool = requireNonNull(pool, "pool is null");
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive, was " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a plan for the specified node that only processes the elements between the range parameters.
+     *
+     * @param node
+     *            the terminal node
+     * @return the plan
+     */
+    public QueryPlan createPlan(TerminalQueryOperationNode node) {
+        return rangePlanner.createPlan(node);
+    }
+
+    /** @return the pool that tasks are submitted to */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns whether or not the specified query should be rendered in parallel.
+     *
+     * @param node
+     *            the terminal node of the query
+     * @return whether or not the specified query should be rendered in parallel
+     */
+    public boolean isParallel(TerminalQueryOperationNode node) {
+        if (!node.getOperationPackage().getOperation().is(MERGEABLE)) {
+            return false;
+        }
+        // We walk backwards from the terminal node, so the first parallel or sequential operation decides
+        boolean isParallel = false, isDecided = false;
+        // The root node is the data source and does not represent an operation
+        for (QueryOperationNode n = node.previous(); n.previous() != null; n = n.previous()) {
+            Operation o = n.getOperationPackage().getOperation();
+            if (!o.is(STATELESS)) {
+                return false;
+            } else if (!isDecided && (o.is(C_PARALLEL) || o.is(C_SEQUENTIAL))) {
+                isParallel = o.is(C_PARALLEL);
+                isDecided = true;
+            }
+        }
+        return isParallel;
+    }
+
+    /**
+     * Renders the method that splits the data structure into tasks, and the task class itself.
+     *
+     * @param cl
+     *            the class of the processor
+     * @param identifiers
+     *            the parameters of the processor
+     * @param node
+     *            the terminal node of the query
+     */
+    public void render(CodegenClass cl, List<Identifier> identifiers, TerminalQueryOperationNode node) {
+        String parameters = names(identifiers);
+        cl.addImport(ForkJoinPool.class, ParallelRangeTask.class, ParallelUtil.class);
+        cl.addField("private final ", ForkJoinPool.class, " pool;");
+        cl.addMethod("public (", ForkJoinPool.class, " pool)").add("this.pool = pool;");
+
+        // The method that splits the data structure
+        CodegenMethod m = cl.addMethod(processDeclaration("process", identifiers, false));
+        m.add("int ", LOWER, " = ", main.getLowerBound(), ";");
+        m.add("int ", UPPER, " = ", main.getUpperBound(), ";");
+        String small = UPPER + " - " + LOWER + " <= " + threshold;
+        if (node.getOperationPackage().getOperation().is(CT_COLLECT_COLLECTOR)) {
+            small += " || !ParallelUtil.isIdentityFinish(" + parameter(cl, node, 0) + ")";
+        }
+        m.add("if (", small, ") {");
+        m.add("return processRange(", parameters, LOWER, ", ", UPPER, ", node);");
+        m.add("}");
+        m.add("return pool.invoke(new Task(this, ", parameters, "node, ", LOWER, ", ", UPPER, "));");
+
+        // The task
+        CodegenClass t = cl.addInnerClass("static final class Task extends ", ParallelRangeTask.class);
+        t.addField("private final ", cl.getSimpleName(), " processor;");
+        for (Identifier i : identifiers) {
+            t.addField("private final ", i.getType(), " ", i.getName(), ";");
+        }
+        t.addField("private final ", TerminalQueryOperationNode.class, " node;");
+        m = t.addMethod("Task(", cl.getSimpleName(), " processor, ", declarations(identifiers),
+                TerminalQueryOperationNode.class, " node, int ", LOWER, ", int ", UPPER, ")");
+        m.add("super(", LOWER, ", ", UPPER, ", ", threshold, ");");
+        m.add("this.processor = processor;");
+        for (Identifier i : identifiers) {
+            m.add("this.", i.getName(), " = ", i.getName(), ";");
+        }
+        m.add("this.node = node;");
+
+        t.addMethod("protected Object processRange(int ", LOWER, ", int ", UPPER, ")").add(
+                "return processor.processRange(", parameters, LOWER, ", ", UPPER, ", node);");
+        t.addMethod("protected ", ParallelRangeTask.class, " newTask(int ", LOWER, ", int ", UPPER, ")").add(
+                "return new Task(processor, ", parameters, "node, ", LOWER, ", ", UPPER, ");");
+        t.addMethod("protected Object combine(Object left, Object right)").add("return ", combine(cl, node), ";");
+    }
+
+    /**
+     * Returns the declaration of the method that the serial query on a single range is rendered into.
+     *
+     * @param identifiers
+     *            the parameters of the processor
+     * @return the declaration of the method
+     */
+    public Object[] rangeDeclaration(List<Identifier> identifiers) {
+        return processDeclaration("processRange", identifiers, true);
+    }
+
+    private static String combine(CodegenClass cl, TerminalQueryOperationNode node) {
+        Operation o = node.getOperationPackage().getOperation();
+        if (o.is(CT_MATH_SUM) || o.is(CT_SIZE)) {
+            return "ParallelUtil.sum(left, right)";
+        } else if (o.is(CT_MATH_SUMMARY_STATISTICS)) {
+            return "ParallelUtil.summary(left, right)";
+        } else if (o.is(CT_MIN_NATURAL_ORDERING)) {
+            return "ParallelUtil.min(left, right)";
+        } else if (o.is(CT_MAX_NATURAL_ORDERING)) {
+            return "ParallelUtil.max(left, right)";
+        } else if (o.is(CT_MIN_COMPARATOR)) {
+            return "ParallelUtil.min(left, right, " + parameter(cl, node, 0) + ")";
+        } else if (o.is(CT_MAX_COMPARATOR)) {
+            return "ParallelUtil.max(left, right, " + parameter(cl, node, 0) + ")";
+        } else if (o.is(CT_REDUCE_OPERATOR)) {
+            Class<?> type = node.getOperationPackage().getAll().values().iterator().next();
+            String method = type == DoubleBinaryOperator.class ? "reduceDouble" : type == IntBinaryOperator.class
+                    ? "reduceInt" : type == LongBinaryOperator.class ? "reduceLong" : "reduce";
+            return "ParallelUtil." + method + "(left, right, " + parameter(cl, node, 0) + ")";
+        } else if (o.is(CT_COLLECT_FUSED)) {
+            return "ParallelUtil.collect(left, right, " + parameter(cl, node, 2) + ")";
+        } else if (o.is(CT_COLLECT_COLLECTOR)) {
+            return "ParallelUtil.collect(left, right, " + parameter(cl, node, 0) + ")";
+        }
+        throw new IllegalArgumentException("Cannot merge the results of " + o);
+    }
+
+    private static String declarations(List<Identifier> identifiers) {
+        StringBuilder sb = new StringBuilder();
+        for (Identifier i : identifiers) {
+            sb.append(i.getType().getSimpleName()).append(" ").append(i.getName()).append(", ");
+        }
+        return sb.toString();
+    }
+
+    private static String names(List<Identifier> identifiers) {
+        StringBuilder sb = new StringBuilder();
+        for (Identifier i : identifiers) {
+            sb.append(i.getName()).append(", ");
+        }
+        return sb.toString();
+    }
+
+    /** Returns an expression that extracts the parameter with the specified index from the terminal node. */
+    private static String parameter(CodegenClass cl, TerminalQueryOperationNode node, int index) {
+        String name = node.getOperationPackage().getAll().keySet().toArray(new String[0])[index];
+        cl.addImport(node.getClass());
+        return "((" + node.getClass().getSimpleName() + ") node).get" + CodegenUtil.capitalizeFirstLetter(name) + "()";
+    }
+
+    private static Object[] processDeclaration(String name, List<Identifier> identifiers, boolean withRange) {
+        StringBuilder sb = new StringBuilder("public Object ").append(name).append("(").append(declarations(identifiers));
+        if (withRange) {
+            sb.append("int ").append(LOWER).append(", int ").append(UPPER).append(", ");
+        }
+        return new Object[] { sb.toString(), TerminalQueryOperationNode.class, " node)" };
+    }
+
+    /**
+     * Returns a composite that only contains the elements between the range parameters.
+     *
+     * @param main
+     *            the composite with the full bounds of the data structure
+     * @return the composite that only contains the elements between the range parameters
+     */
+    public static ArrayOrListComposite rangeOf(ArrayOrListComposite main) {
+        return main.withBounds(LOWER, UPPER);
+    }
+}
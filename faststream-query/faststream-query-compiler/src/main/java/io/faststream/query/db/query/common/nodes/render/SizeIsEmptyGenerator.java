@@ -20,8 +20,13 @@ import static io.faststream.codegen.model.expression.Expressions.staticField;
 
 import io.faststream.codegen.model.expression.NameExpression;
 import io.faststream.codegen.model.statement.Statements;
+import io.faststream.query.db.query.compiler.datasource.AggregatedMapComposite;
 import io.faststream.query.db.query.compiler.datasource.AnyStreaming;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.HashTableMapComposite;
+import io.faststream.query.db.query.compiler.datasource.IndexedMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapEntriesComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
@@ -44,12 +49,29 @@ public class SizeIsEmptyGenerator extends ModelGenerator {
 
         register(StreamingMapComposite.class, SizeIsEmptyGenerator::size, SIZE);
         register(StreamingMapComposite.class, SizeIsEmptyGenerator::isEmpty, IS_EMPTY);
+
+        register(MapComposite.class, SizeIsEmptyGenerator::size, SIZE);
+        register(MapComposite.class, SizeIsEmptyGenerator::isEmpty, IS_EMPTY);
+        register(AggregatedMapComposite.class, SizeIsEmptyGenerator::size, SIZE);
+        register(AggregatedMapComposite.class, SizeIsEmptyGenerator::isEmpty, IS_EMPTY);
+        register(MapEntriesComposite.class, SizeIsEmptyGenerator::size, SIZE);
+        register(MapEntriesComposite.class, SizeIsEmptyGenerator::isEmpty, IS_EMPTY);
+        register(HashTableMapComposite.class, SizeIsEmptyGenerator::size, SIZE);
+        register(HashTableMapComposite.class, SizeIsEmptyGenerator::isEmpty, IS_EMPTY);
     }
 
     static void isEmpty(ArrayOrListComposite c, AbstractOperationNode n) {
         n.b().addReturn(c.isEmpty().box(Boolean.class));
     }
 
+    static void isEmpty(IndexedMapComposite c, AbstractOperationNode n) {
+        n.b().addReturn(c.size().equalsTo(literal(0)).box(Boolean.class));
+    }
+
+    static void isEmpty(MapComposite c, AbstractOperationNode n) {
+        n.b().addReturn(c.isEmpty().box(Boolean.class));
+    }
+
     static void isEmpty(AnyStreaming c, AbstractOperationNode n) {
         n.b().add(staticField(Boolean.class, "FALSE").returnIt());
         // we are at the end of any stream and at least one element has passed all filters
@@ -60,6 +82,14 @@ public class SizeIsEmptyGenerator extends ModelGenerator {
         n.b().addReturn(c.size().box(Long.class));
     }
 
+    static void size(IndexedMapComposite c, AbstractOperationNode n) {
+        n.b().addReturn(c.size().box(Long.class));
+    }
+
+    static void size(MapComposite c, AbstractOperationNode n) {
+        n.b().addReturn(c.size().box(Long.class));
+    }
+
     static void size(AnyStreaming ignore, AbstractOperationNode n) {
         // We initialize a counter variable called size
         NameExpression size = new NameExpression("size");
@@ -25,6 +25,7 @@ import io.faststream.query.db.query.node.Operation;
 import io.faststream.query.db.query.plan.InstalledNodes;
 import io.faststream.query.db.query.plan.QueryNode;
 import io.faststream.query.db.query.plan.QueryNodeProcessor;
+import io.faststream.query.db.query.plan.QueryOperationParameterList;
 
 /**
  *
@@ -152,6 +153,63 @@ public abstract class AbstractQueryNodeRewriter {
         });
     }
 
+    /**
+     * Replaces two nodes following each other with a single node. The new node takes the parameters of the first node
+     * followed by the parameters of the second node.
+     *
+     * @param operation1
+     *            the first type of operation
+     * @param operation2
+     *            the second type of operation
+     * @param replaceWith
+     *            the operation to replace them with
+     */
+    protected final void replace2With1AndMergeParameters(final Operation operation1, final Operation operation2,
+            final Operation replaceWith) {
+        add(new QueryNodeProcessor() {
+            public void processNode(QueryNode node) {
+                if (node.is(operation1) && node.hasNext() && node.next().is(operation2)) {
+                    QueryNode q = newNode(replaceWith);
+                    q.setParameterList(QueryOperationParameterList.concat(node.parameters(), node.next().parameters()));
+                    node.insertBeforeThis(q);
+                    node.next().remove();
+                    node.remove();
+                }
+            }
+
+            public String toString() {
+                return "Replace&Merge [" + operation1 + ", " + operation2 + "] ->" + replaceWith;
+            }
+        });
+    }
+
+    /**
+     * Like {@link #replace2With2(Operation, Operation, Operation, Operation)} except that each new node keeps the
+     * parameters of the node it replaces.
+     */
+    protected final void replace2With2AndKeepParameters(final Operation operation1, final Operation operation2,
+            final Operation replaceWith1, final Operation replaceWith2) {
+        add(new QueryNodeProcessor() {
+            public void processNode(QueryNode node) {
+                if (node.is(operation1) && node.hasNext() && node.next().is(operation2)) {
+                    QueryNode q1 = newNode(replaceWith1);
+                    q1.setParameterList(node.parameters());
+                    QueryNode q2 = newNode(replaceWith2);
+                    q2.setParameterList(node.next().parameters());
+                    node.insertBeforeThis(q1);
+                    node.insertBeforeThis(q2);
+                    node.next().remove();
+                    node.remove();
+                }
+            }
+
+            public String toString() {
+                return "Replace&Keep [" + operation1 + ", " + operation2 + "] -> [" + replaceWith1 + ", "
+                        + replaceWith2 + "]";
+            }
+        });
+    }
+
     protected final void replace2With2AndSwapParameters(final Operation operation1, final Operation operation2,
             final Operation replaceWith1, final Operation replaceWith2) {
         add(new QueryNodeProcessor() {
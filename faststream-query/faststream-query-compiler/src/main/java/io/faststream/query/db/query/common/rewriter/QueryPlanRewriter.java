@@ -31,6 +31,7 @@ import io.faststream.query.db.query.common.rewriter.nodes.MapTypeRewriter;
 import io.faststream.query.db.query.common.rewriter.nodes.MultimapTypeRewriter;
 import io.faststream.query.db.query.common.rewriter.nodes.NullableRewriter;
 import io.faststream.query.db.query.common.rewriter.nodes.SizeableRewriter;
+import io.faststream.query.db.query.common.rewriter.nodes.SortedTopRewriter;
 import io.faststream.query.db.query.plan.QueryNode;
 import io.faststream.query.db.query.plan.QueryNodeProcessor;
 import io.faststream.query.db.query.plan.QueryPlan;
@@ -50,7 +51,7 @@ public final class QueryPlanRewriter {
 
     public QueryPlanRewriter() {
         rewriters = new AbstractQueryNodeRewriter[] { new CollectionTypeRewriter(), new MapTypeRewriter(),
-                new MultimapTypeRewriter(), new NullableRewriter(), new SizeableRewriter() };
+                new MultimapTypeRewriter(), new NullableRewriter(), new SizeableRewriter(), new SortedTopRewriter() };
 
     }
 
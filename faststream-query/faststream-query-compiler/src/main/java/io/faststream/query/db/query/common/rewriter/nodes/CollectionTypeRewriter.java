@@ -38,8 +38,9 @@ public class CollectionTypeRewriter extends AbstractQueryNodeRewriter implements
     public CollectionTypeRewriter() {
         super(C);
 
-        Operation orderShuffle = aggregate(C_FREQUENCY_COUNT, C_GATHER, C_GROUP_BY, C_SORTED, C_SHUFFLE, C_DISTINCT,
-                CT_ANY, /* CT_FOR_EACH, C_FILTER, */CT_IS_EMPTY, CT_REDUCE, CT_SIZE, CT_ONE);
+        // distinct() is not included, as it keeps the encounter order
+        Operation orderShuffle = aggregate(C_FREQUENCY_COUNT, C_GATHER, C_GROUP_BY, C_SORTED, C_SHUFFLE, CT_ANY,
+                /* CT_FOR_EACH, C_FILTER, */CT_IS_EMPTY, CT_REDUCE, CT_SIZE, CT_ONE);
 
         replace2With1(C_FREQUENCY_COUNT, M_VIEW_KEYS, C_DISTINCT);
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.common.rewriter.nodes;
+
+import io.faststream.query.db.query.common.rewriter.AbstractQueryNodeRewriter;
+import io.faststream.query.db.query.node.Operation;
+import io.faststream.query.db.query.node.defaults.AllQueryOperations;
+
+/**
+ * Replaces a sort followed by a limit, take, first or last with a partial sort that only keeps the elements that are
+ * needed. For example, {@code sorted().limit(100)} keeps the 100 smallest elements in a bounded heap instead of
+ * sorting all elements.
+ *
+ * @author Kasper Nielsen
+ */
+public class SortedTopRewriter extends AbstractQueryNodeRewriter implements AllQueryOperations {
+
+    /** The default instance of this query rewriter. */
+    public static final SortedTopRewriter INSTANCE = new SortedTopRewriter();
+
+    public SortedTopRewriter() {
+        super(C);
+        Operation[] sorted = { C_SORTED_NATURAL, C_SORTED_COMPARATOR, C_SORTED_NATURAL_REVERSE,
+                C_SORTED_COMPARATOR_REVERSE };
+        Operation[] top = { C_SORTED_TOP_NATURAL, C_SORTED_TOP_COMPARATOR, C_SORTED_TOP_NATURAL_REVERSE,
+                C_SORTED_TOP_COMPARATOR_REVERSE };
+        Operation[] topReversed = { C_SORTED_TOP_NATURAL_REVERSE, C_SORTED_TOP_COMPARATOR_REVERSE,
+                C_SORTED_TOP_NATURAL, C_SORTED_TOP_COMPARATOR };
+        for (int i = 0; i < sorted.length; i++) {
+            replace2With1AndMergeParameters(sorted[i], C_TRUNCATE_LIMIT, top[i]);
+            replace2With1AndMergeParameters(sorted[i], C_TRUNCATE_TAKE, top[i]);
+
+            // The first element is the top 1 element, the last element is the top 1 element in the reverse order
+            replace2With2AndKeepParameters(sorted[i], CT_FIRST, top[i], CT_FIRST);
+            replace2With2AndKeepParameters(sorted[i], CT_LAST, topReversed[i], CT_FIRST);
+        }
+    }
+}
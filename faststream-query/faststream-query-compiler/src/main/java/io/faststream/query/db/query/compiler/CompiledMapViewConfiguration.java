@@ -17,17 +17,30 @@ package io.faststream.query.db.query.compiler;
 
 import static java.util.Objects.requireNonNull;
 
+import io.faststream.codegen.core.Codegen;
 import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.nodes.view.mapview.AbstractMapView;
 import io.faststream.query.db.query.common.nodes.elements.MapElement;
-import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.compiler.render.util.GroupNodes;
+import io.faststream.query.db.query.compiler.render.util.IntroduceArrays;
+import io.faststream.query.db.query.compiler.render.util.IntroduceForAll;
+import io.faststream.query.db.query.compiler.render.util.ReducingNodes;
+import io.faststream.query.db.query.compiler.render.util.SetRealNode;
+import io.faststream.query.db.query.plan.QueryEngine;
+import io.faststream.query.db.query.plan.QueryEngineBuilder;
+import io.faststream.query.db.query.plan.QueryPlan;
 import io.faststream.query.db.query.plan.logical.LogicalElementProperties;
 import io.faststream.query.db.query.plan.logical.LogicalReferenceTracker;
+import io.faststream.query.util.view.MapView;
 
 /**
+ * The configuration of compiled map views. The entries of the map are iterated directly using
+ * {@code Map.entrySet()}, instead of being copied into an array first.
  *
  * @author Kasper Nielsen
  */
-public class CompiledMapViewConfiguration {
+public class CompiledMapViewConfiguration<K, V> extends AbstractCompiledEntityConfiguration {
     /** <tt>True</tt> if keys can be null. */
     private boolean isKeyNullable = true;
 
@@ -37,6 +50,9 @@ public class CompiledMapViewConfiguration {
     /** Type of keys. */
     private Class<?> keyType = Object.class;
 
+    /** The map to query. */
+    MapComposite main;
+
     /** The order of elements. */
     private Order order = Order.NONE;
 
@@ -45,6 +61,34 @@ public class CompiledMapViewConfiguration {
     /** Type of values. */
     private Class<?> valueType = Object.class;
 
+    public ViewFactory<MapView<K, V>> compile(Codegen c) {
+        QueryEngineBuilder m = new QueryEngineBuilder();
+        m.add(new SetRealNode());
+        m.add(new GroupNodes());
+        m.add(new IntroduceForAll().processAll());
+        m.add(new ReducingNodes().processAll());
+        m.add(new IntroduceArrays());
+
+        QueryEngine qo = new QueryEngine(m) {
+            public void initRoot(QueryPlan plan) {
+                MapElement cd = new MapElement();
+                cd.setKey(new LogicalElementProperties(new LogicalReferenceTracker(), getKeyType(), isKeyNullable()));
+                cd.setValue(new LogicalElementProperties(new LogicalReferenceTracker(), getValueType(),
+                        isValueNullable()));
+                cd.setOrder(getOrder());
+                cd.sources().setMain(main);
+                plan.getPq().setRoot(cd);
+            }
+        };
+        return new ViewFactory<MapView<K, V>>() {
+
+            @Override
+            public MapView<K, V> create(Object... sourceInstances) {
+                return AbstractMapView.from(cre(qo, c));
+            }
+        };
+    }
+
     /**
      * Returns the type of keys.
      *
@@ -72,46 +116,6 @@ public class CompiledMapViewConfiguration {
         return valueType;
     }
 
-    // /**
-    // * Creates a new MapView from the specified {@link QueryResultOperationProcessor}.
-    // *
-    // * @param processor
-    // * the view processor
-    // * @return the new map view
-    // */
-    // public <T> MapView<K, V> create(QueryResultOperationProcessor processor) {
-    // return AbstractMapView.from(wrapInDebuggingProcecure(processor));
-    // }
-
-    // /**
-    // * Creates a new map view from the specified map
-    // *
-    // * @param map
-    // * the map with data
-    // * @return the new map view
-    // */
-    // @Deprecated
-    // public MapView<K, V> createFromMap(Map<? extends K, ? extends V> map) {
-    // throw new UnsupportedOperationException();
-    // // return create(SerialMapViewProcessor.newProcessorFromMap(map));
-    // }
-
-    public AbstractOperationNode init() {
-        MapElement cd = new MapElement();
-        cd.setKey(new LogicalElementProperties(new LogicalReferenceTracker(), Object.class, false));
-        cd.setValue(new LogicalElementProperties(new LogicalReferenceTracker(), Object.class, false));
-
-        // Identifier id = new Identifier((Class<?>) null, "source");
-        //
-        // Expression table = id.fieldAccess("entries");
-        // Type entry = typeOf(Data.MapEntry.class);
-        // ChainedMapComposite mc = ChainedMapComposite.create(id, table, entry, entry.withFieldAccess("key"),
-        // entry.withFieldAccess("value"), entry.withFieldAccess("next"));
-        // mc.setImmutable(true);
-        // cd.sources().setMain(mc);
-        return cd;
-    }
-
     // som getSize(), hvis isEmpty==null, prov getSize, hvis ogsaa null, itererer
     public Object isEmpty() {
         return null;
@@ -139,6 +143,18 @@ public class CompiledMapViewConfiguration {
         this.isKeyNullable = isKeyNullable;
     }
 
+    /**
+     * Sets the map to query.
+     *
+     * @param map
+     *            the map
+     * @return this configuration
+     */
+    public CompiledMapViewConfiguration<K, V> setMain(MapComposite map) {
+        this.main = requireNonNull(map, "map is null");
+        return this;
+    }
+
     public void setKeyType(Class<?> keyType) {
         this.keyType = requireNonNull(keyType, "keyType is null");
     }
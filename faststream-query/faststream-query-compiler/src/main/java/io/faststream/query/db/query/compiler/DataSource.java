@@ -18,13 +18,17 @@ package io.faststream.query.db.query.compiler;
 import static java.util.Objects.requireNonNull;
 
 import java.lang.reflect.Field;
+import java.util.Map;
 
 import io.faststream.codegen.core.CodegenUtil;
+import io.faststream.codegen.model.expression.Expression;
 import io.faststream.codegen.model.expression.NameExpression;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.IndexedContainerComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
 
 /**
- * A data source is th
+ * A data source is an object whose fields and methods hold the data that queries are compiled against.
  *
  * @author Kasper Nielsen
  */
@@ -70,22 +74,123 @@ public class DataSource {
     }
 
     /**
+     * Creates a composite for an array, list or buffer held by the specified field or returned by the specified
+     * method. Methods are specified by their name followed by {@code ()}, for example {@code "getArray()"}, and must
+     * be public and take no parameters.
+     *
      * @param fieldOrMethod
-     *            the field or method t
-     * @return
+     *            the name of the field or method
+     * @return the new composite
      */
     public ArrayOrListComposite createIndexBoundComposite(String fieldOrMethod) {
-        if (fieldOrMethod.contains("(")) {
-            throw new UnsupportedOperationException("Methods not yet accepted");
-        } else {
+        return ArrayOrListComposite.create(typeOf(fieldOrMethod), accessorOf(fieldOrMethod));
+    }
+
+    /**
+     * Creates a composite for the elements of an array between a lower bound (inclusive) and an upper bound
+     * (exclusive). For example, the elements of a ring buffer that does not wrap around. Each of the array and the
+     * bounds are a field or a method, as accepted by {@link #createIndexBoundComposite(String)}.
+     *
+     * @param array
+     *            the field or method holding the array
+     * @param lowerBound
+     *            the field or method holding the lower bound
+     * @param upperBound
+     *            the field or method holding the upper bound
+     * @return the new composite
+     */
+    public ArrayOrListComposite createIndexBoundComposite(String array, String lowerBound, String upperBound) {
+        Class<?> arrayType = typeOf(array);
+        if (!arrayType.isArray()) {
+            throw new IllegalArgumentException("The specified field or method is not an array, name = " + array);
+        }
+        return ArrayOrListComposite.create(arrayType, accessorOf(array)).withBounds(bound(lowerBound),
+                bound(upperBound));
+    }
+
+    /**
+     * Creates a composite for a data source that is a custom container. The elements of the container are accessed
+     * through a public method taking an {@code int} index, and the number of elements is returned by a public method
+     * taking no parameters.
+     *
+     * @param get
+     *            the name of the method returning the element at an index
+     * @param size
+     *            the name of the method returning the number of elements
+     * @return the new composite
+     */
+    public IndexedContainerComposite createIndexedComposite(String get, String size) {
+        try {
+            type.getMethod(get, int.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Could not find a method taking an int with the specified name, name = "
+                    + get, e);
+        }
+        if (typeOf(size + "()") != int.class) {
+            throw new IllegalArgumentException("The specified method does not return an int, name = " + size);
+        }
+        return new IndexedContainerComposite(type, ne, get, size);
+    }
+
+    /**
+     * Creates a composite for a map held by the specified field.
+     *
+     * @param field
+     *            the name of the field holding the map
+     * @return the new composite
+     */
+    public MapComposite createMapComposite(String field) {
+        try {
+            Field f = type.getDeclaredField(field);
+            if (!Map.class.isAssignableFrom(f.getType())) {
+                throw new IllegalArgumentException("The specified field is not a map, field = " + field);
+            }
+            return new MapComposite(ne.fieldAccess(f.getName()));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Could not find a field with the specified name, name = " + field, e);
+        }
+    }
+
+    private Expression accessorOf(String fieldOrMethod) {
+        return isMethod(fieldOrMethod) ? ne.invoke(fieldOrMethod.substring(0, fieldOrMethod.length() - 2)) : ne
+                .fieldAccess(fieldOrMethod);
+    }
+
+    private Expression bound(String fieldOrMethod) {
+        if (typeOf(fieldOrMethod) != int.class) {
+            throw new IllegalArgumentException("The specified field or method is not an int, name = " + fieldOrMethod);
+        }
+        return accessorOf(fieldOrMethod);
+    }
+
+    /**
+     * Returns the type of the specified field, or the return type of the specified method.
+     *
+     * @param fieldOrMethod
+     *            the name of the field, or the name of the method followed by {@code ()}
+     * @return the type of the field or method
+     */
+    private Class<?> typeOf(String fieldOrMethod) {
+        if (isMethod(fieldOrMethod)) {
+            String name = fieldOrMethod.substring(0, fieldOrMethod.length() - 2);
             try {
-                Field f = type.getDeclaredField(fieldOrMethod);
-                ArrayOrListComposite ibv = ArrayOrListComposite.create(f.getType(), ne.fieldAccess(f.getName()));
-                return ibv;
-            } catch (NoSuchFieldException e) {
-                throw new IllegalArgumentException("Could not find a field with the specified name, name = "
-                        + fieldOrMethod, e);
+                return type.getMethod(name).getReturnType();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Could not find a public method with the specified name, name = "
+                        + name, e);
             }
+        } else if (fieldOrMethod.contains("(")) {
+            throw new IllegalArgumentException("Only methods without parameters are accepted, name = " + fieldOrMethod);
+        }
+        try {
+            return type.getDeclaredField(fieldOrMethod).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Could not find a field with the specified name, name = "
+                    + fieldOrMethod, e);
         }
     }
+
+    private static boolean isMethod(String fieldOrMethod) {
+        return fieldOrMethod.endsWith("()");
+    }
 }
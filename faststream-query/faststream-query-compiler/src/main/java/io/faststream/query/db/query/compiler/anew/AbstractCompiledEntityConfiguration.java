@@ -17,6 +17,7 @@ package io.faststream.query.db.query.compiler.anew;
 
 import static java.util.Objects.requireNonNull;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,11 +30,29 @@ import io.faststream.codegen.model.util.Identifier;
  */
 public class AbstractCompiledEntityConfiguration<T> {
 
+    /**
+     * The directory, relative to the root of the class path, where query classes generated at build time are located.
+     * Classes in this directory are used before any classes in the {@link #setCacheDirectory(Path) cache directory}.
+     */
+    public static final String PREGENERATED_DIRECTORY = QueryClassCache.RESOURCE_DIRECTORY;
+
     final List<Identifier> identifiers = new ArrayList<>();
 
+    /** A directory where compiled classes are cached, or null if classes are not cached on disk. */
+    private Path cacheDirectory;
+
     /** Whether or not caching of generated views is disabled */
     private boolean isCachingDisabled;
 
+    /** The maximum number of compiled queries that are cached, or 0 if the cache is unbounded. */
+    private int maximumCacheSize;
+
+    /** Whether or not a query is compiled for every combination of function classes it is used with. */
+    private boolean isSpecializingFunctions;
+
+    /** Statistics about the cached queries. */
+    private QueryCacheStatistics statistics = new QueryCacheStatistics();
+
     final Class<?> type;
 
     final Codegen codegen;
@@ -47,10 +66,54 @@ public class AbstractCompiledEntityConfiguration<T> {
         identifiers.add(requireNonNull(i));
     }
 
+    /**
+     * Appends a description of everything, except the query itself, that affects the code that is generated. Used for
+     * keying classes stored in the {@link #setCacheDirectory(Path) cache directory}.
+     *
+     * @param sb
+     *            the string builder to append to
+     */
+    void appendSignature(StringBuilder sb) {
+        sb.append(type.getName());
+        for (Identifier i : identifiers) {
+            sb.append(',').append(i.getType().getName()).append(' ').append(i.getName());
+        }
+    }
+
     public QueryCompiler<T> create() {
         return null;
     }
 
+    /**
+     * Returns the directory where compiled classes are cached.
+     *
+     * @return the directory where compiled classes are cached, or null if classes are not cached on disk
+     * @see #setCacheDirectory(Path)
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the maximum number of compiled queries that are cached.
+     *
+     * @return the maximum number of compiled queries that are cached, or 0 if the cache is unbounded
+     * @see #setMaximumCacheSize(int)
+     */
+    public int getMaximumCacheSize() {
+        return maximumCacheSize;
+    }
+
+    /**
+     * Returns the statistics that are updated by the query cache.
+     *
+     * @return the statistics that are updated by the query cache
+     * @see #setStatistics(QueryCacheStatistics)
+     */
+    public QueryCacheStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Returns whether or not caching of generated classes is disabled.
      *
@@ -61,6 +124,72 @@ public class AbstractCompiledEntityConfiguration<T> {
         return isCachingDisabled;
     }
 
+    /**
+     * Returns whether or not queries are specialized for the classes of the functions they use.
+     *
+     * @return whether or not queries are specialized for the classes of the functions they use
+     * @see #setSpecializingFunctions(boolean)
+     */
+    public boolean isSpecializingFunctions() {
+        return isSpecializingFunctions;
+    }
+
+    /**
+     * Sets a directory where compiled classes are cached across JVM restarts. Avoiding both planning and compiling
+     * queries that have already been compiled by a previous JVM. The directory may be shared by multiple processes.
+     *
+     * @param cacheDirectory
+     *            the cache directory, or null if compiled classes should not be cached on disk
+     * @see #getCacheDirectory()
+     */
+    public void setCacheDirectory(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Sets the maximum number of compiled queries that are cached. When the cache is full, a query that has not been
+     * used recently is evicted, allowing its classes to be unloaded. An evicted query is compiled again the next time it is
+     * executed.
+     *
+     * @param maximumCacheSize
+     *            the maximum number of compiled queries, or 0 if the cache should be unbounded
+     * @throws IllegalArgumentException
+     *             if the specified size is negative
+     * @see #getMaximumCacheSize()
+     */
+    public void setMaximumCacheSize(int maximumCacheSize) {
+        if (maximumCacheSize < 0) {
+            throw new IllegalArgumentException("maximumCacheSize must be non-negative, was " + maximumCacheSize);
+        }
+        this.maximumCacheSize = maximumCacheSize;
+    }
+
+    /**
+     * Sets whether or not queries are specialized for the classes of the functions (predicates, mappers, comparators,
+     * ...) they use. If enabled, a query is compiled once for every combination of function classes it is used with.
+     * Functions whose classes can be named by generated code are invoked directly on the concrete class. Other
+     * functions, such as lambdas, are still invoked through their interface, but from a call site that only ever sees a
+     * single class.
+     *
+     * @param specializeFunctions
+     *            whether or not queries should be specialized for the classes of the functions they use
+     * @see #isSpecializingFunctions()
+     */
+    public void setSpecializingFunctions(boolean specializeFunctions) {
+        this.isSpecializingFunctions = specializeFunctions;
+    }
+
+    /**
+     * Sets the statistics that are updated by the query cache. The statistics may be shared by several configurations.
+     *
+     * @param statistics
+     *            the statistics to update
+     * @see #getStatistics()
+     */
+    public void setStatistics(QueryCacheStatistics statistics) {
+        this.statistics = requireNonNull(statistics);
+    }
+
     /**
      * Disables caching of generated classes.
      *
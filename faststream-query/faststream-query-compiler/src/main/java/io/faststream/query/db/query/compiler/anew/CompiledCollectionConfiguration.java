@@ -17,10 +17,24 @@ package io.faststream.query.db.query.compiler.anew;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.model.expression.NameExpression;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.common.nodes.render.ParallelCollectionTerminal;
 import io.faststream.query.db.query.common.nodes.elements.SingleElement;
 import io.faststream.query.db.query.compiler.Order;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.BufferComposite;
+import io.faststream.query.db.query.compiler.datasource.HashTableComposite;
+import io.faststream.query.db.query.compiler.datasource.IndexedContainerComposite;
 import io.faststream.query.db.query.compiler.render.util.FilterNodes;
 import io.faststream.query.db.query.compiler.render.util.GroupNodes;
 import io.faststream.query.db.query.compiler.render.util.IntroduceArrays;
@@ -31,7 +45,11 @@ import io.faststream.query.db.query.plan.QueryEngine;
 import io.faststream.query.db.query.plan.QueryEngineBuilder;
 import io.faststream.query.db.query.plan.QueryPlan;
 import io.faststream.query.db.query.plan.logical.LogicalElementProperties;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.plan.logical.LogicalReferenceTracker;
+import io.faststream.query.db.query.runtime.ArrayUtil;
+import io.faststream.query.db.query.runtime.MapEntries;
+import io.faststream.query.view.interpreter.ViewInterpreters;
 
 /**
  *
@@ -46,18 +64,98 @@ public class CompiledCollectionConfiguration<T> extends AbstractCompiledEntityCo
         super(codegen, type);
     }
 
+    /** The executor used for compiling queries in the background, or null if queries are compiled when first used. */
+    private Executor compilationExecutor;
+
     /** Whether or not elements can be null. */
     private boolean isNullable = true;
 
     ArrayOrListComposite main;
 
+    /** The pool used for executing parallel queries. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /** The number of elements below which parallel queries are not split further. */
+    private int parallelThreshold = ParallelCollectionTerminal.DEFAULT_THRESHOLD;
+
     /** The order of elements */
     private Order order = Order.NONE;
 
     /** The type of elements */
     private Class<?> type = Object.class;
 
+    /** {@inheritDoc} */
+    @Override
+    void appendSignature(StringBuilder sb) {
+        super.appendSignature(sb);
+        sb.append(",elements=").append(type.getName()).append(",nullable=").append(isNullable);
+        sb.append(",order=").append(order).append(",parallelThreshold=").append(parallelThreshold);
+        sb.append(",bounds=").append(main.getLowerBound()).append("..").append(main.getUpperBound());
+        if (main.isIterableOnly()) {
+            sb.append(",element=").append(main.getElement(new NameExpression("i")));
+        }
+    }
+
     public QueryCompiler<T> create() {
+        QueryEngine qo = newPlanner(main);
+        ParallelCollectionTerminal parallel = new ParallelCollectionTerminal(main,
+                newPlanner(ParallelCollectionTerminal.rangeOf(main)), pool, parallelThreshold);
+        CompiledViewRoot<T> r = new CompiledViewRoot<>(qo, codegen, this, parallel);
+        if (isCachingDisabled()) {
+            return r;
+        }
+        return new QueryCacheProcessor<>(r, null, compilationExecutor, compilationExecutor == null ? null
+                : createInterpreter(), getMaximumCacheSize(), isSpecializingFunctions(), getStatistics());
+    }
+
+    /**
+     * Creates a processor that interprets queries by applying the operations of the query to a {@link java.util.stream
+     * stream} over the main data structure.
+     *
+     * @return the new interpreter
+     */
+    @SuppressWarnings("unchecked")
+    private T createInterpreter() {
+        Codegen c = new Codegen(codegen);
+        CodegenClass cl = c.newClass();
+        cl.setDefinition("public class Interpreter extends ", super.type);
+        cl.addImport(super.type, TerminalQueryOperationNode.class, Arrays.class, ViewInterpreters.class);
+        ArrayList<Object> l = new ArrayList<>();
+        l.add("public Object process(");
+        for (Identifier i : identifiers) {
+            cl.addImport(i.getType());
+            l.add(i.getType());
+            l.add(" ");
+            l.add(i.getName());
+            l.add(", ");
+        }
+        l.add(TerminalQueryOperationNode.class);
+        l.add(" node)");
+        CodegenMethod m = cl.addMethod(l.toArray());
+        // Arrays.stream picks IntStream, LongStream, DoubleStream or Stream depending on the type of array
+        if (main instanceof HashTableComposite) {
+            cl.addImport(Map.class, MapEntries.class);
+            m.add("return ", ViewInterpreters.class, ".process(", ((HashTableComposite) main).toCollection(),
+                    ".stream(), node);");
+        } else if (main instanceof IndexedContainerComposite) {
+            // Generated code cannot contain lambdas, so the elements are copied into an array
+            m.add("Object[] a = new Object[", main.size(), "];");
+            m.add("for (int i = ", main.getLowerBound(), "; i < ", main.getUpperBound(), "; i++) {");
+            m.add("a[i - ", main.getLowerBound(), "] = ", main.getElement(new NameExpression("i")), ";");
+            m.add("}");
+            m.add("return ", ViewInterpreters.class, ".process(", Arrays.class, ".stream(a), node);");
+        } else if (main instanceof BufferComposite) {
+            cl.addImport(ArrayUtil.class);
+            m.add("return ", ViewInterpreters.class, ".process(", Arrays.class, ".stream(", ArrayUtil.class,
+                    ".copy(", main.getAccessor(), ", ", main.getLowerBound(), ", ", main.getUpperBound(), ")), node);");
+        } else {
+            m.add("return ", ViewInterpreters.class, ".process(", Arrays.class, ".stream(", main.getAccessor(), ", ",
+                    main.getLowerBound(), ", ", main.getUpperBound(), "), node);");
+        }
+        return (T) cl.compileAndInstantiate();
+    }
+
+    private QueryEngine newPlanner(ArrayOrListComposite composite) {
         QueryEngineBuilder m = new QueryEngineBuilder();
         m.add(new SetRealNode());
         m.add(new FilterNodes().processAll());
@@ -73,20 +171,26 @@ public class CompiledCollectionConfiguration<T> extends AbstractCompiledEntityCo
         // m.add(plan -> plan.getPq().print(n -> "" + n.getOperation()));
         // m.add(new ReducingNodes().processAll());
 
-        QueryEngine qo = new QueryEngine(m) {
+        return new QueryEngine(m) {
             public void initRoot(QueryPlan plan) {
                 SingleElement cd = new SingleElement();
                 cd.setElement(new LogicalElementProperties(new LogicalReferenceTracker(), getType(), isNullable()));
-                main.setImmutable(true);
-                cd.sources().setMain(main);
+                cd.setOrder(getOrder());
+                composite.setImmutable(true);
+                cd.sources().setMain(composite);
                 plan.getPq().setRoot(cd);
             }
         };
-        CompiledViewRoot<T> r = new CompiledViewRoot<>(qo, codegen, this);
-        if (isCachingDisabled()) {
-            return r;
-        }
-        return new QueryCacheProcessor<>(r, null);
+    }
+
+    /** @return the executor used for compiling queries as set by {@link #setCompilationExecutor(Executor)} */
+    public Executor getCompilationExecutor() {
+        return compilationExecutor;
+    }
+
+    /** @return the pool used for executing parallel queries as set by {@link #setForkJoinPool(ForkJoinPool)} */
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
     }
 
     /** @return the order of elements as set by {@link #setOrder(Order)} */
@@ -99,11 +203,40 @@ public class CompiledCollectionConfiguration<T> extends AbstractCompiledEntityCo
         return type;
     }
 
+    /** @return the parallel threshold as set by {@link #setParallelThreshold(int)} */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
     /** @return whether or not elements are nullable as set by {@link #setNullable(boolean)} */
     public boolean isNullable() {
         return isNullable;
     }
 
+    /**
+     * Sets an executor that is used for compiling queries in the background. While a query is being compiled, it is
+     * interpreted. Once the compilation has finished all subsequent executions of the query use the compiled code. If
+     * no executor is set, the default, queries are compiled by the thread that first executes them.
+     *
+     * @param executor
+     *            the executor used for compiling queries, or null to compile queries when first executed
+     */
+    public CompiledCollectionConfiguration<T> setCompilationExecutor(Executor executor) {
+        this.compilationExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the pool used for executing parallel queries. The default pool is {@link ForkJoinPool#commonPool()}.
+     *
+     * @param pool
+     *            the pool used for executing parallel queries
+     */
+    public CompiledCollectionConfiguration<T> setForkJoinPool(ForkJoinPool pool) {
+        this.pool = requireNonNull(pool, "pool is null");
+        return this;
+    }
+
     /**
      * Sets the main data structure.
      *
@@ -133,6 +266,21 @@ public class CompiledCollectionConfiguration<T> extends AbstractCompiledEntityCo
         return this;
     }
 
+    /**
+     * Sets the number of elements below which a parallel query is no longer split into smaller tasks. The default
+     * value is {@value ParallelCollectionTerminal#DEFAULT_THRESHOLD}.
+     *
+     * @param parallelThreshold
+     *            the parallel threshold
+     */
+    public CompiledCollectionConfiguration<T> setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be positive, was " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
     /**
      * Sets the type of elements in this data structure.
      *
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.anew;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.common.nodes.elements.MapElement;
+import io.faststream.query.db.query.compiler.Order;
+import io.faststream.query.db.query.compiler.datasource.Composite;
+import io.faststream.query.db.query.compiler.datasource.HashTableMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.compiler.render.util.GroupNodes;
+import io.faststream.query.db.query.compiler.render.util.IntroduceArrays;
+import io.faststream.query.db.query.compiler.render.util.IntroduceForAll;
+import io.faststream.query.db.query.compiler.render.util.ReducingNodes;
+import io.faststream.query.db.query.compiler.render.util.SetRealNode;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+import io.faststream.query.db.query.plan.QueryEngine;
+import io.faststream.query.db.query.plan.QueryEngineBuilder;
+import io.faststream.query.db.query.plan.QueryPlan;
+import io.faststream.query.db.query.plan.logical.LogicalElementProperties;
+import io.faststream.query.db.query.plan.logical.LogicalReferenceTracker;
+import io.faststream.query.db.query.runtime.MapEntries;
+import io.faststream.query.view.interpreter.ViewInterpreters;
+
+/**
+ * The configuration of compiled map view queries. The generated code iterates the entries of the map directly,
+ * instead of copying them into an array first.
+ *
+ * @author Kasper Nielsen
+ */
+public class CompiledMapConfiguration<T> extends AbstractCompiledEntityConfiguration<T> {
+
+    /** The executor used for compiling queries in the background, or null if queries are compiled when first used. */
+    private Executor compilationExecutor;
+
+    /** Whether or not keys can be null. */
+    private boolean isKeyNullable = true;
+
+    /** Whether or not values can be null. */
+    private boolean isValueNullable = true;
+
+    /** The type of keys. */
+    private Class<?> keyType = Object.class;
+
+    /** The map to query, a {@link MapComposite} or a {@link HashTableMapComposite}. */
+    Composite main;
+
+    /** The order of entries. */
+    private Order order = Order.NONE;
+
+    /** The type of values. */
+    private Class<?> valueType = Object.class;
+
+    /**
+     * @param codegen
+     *            the codegen used for compiling queries
+     * @param type
+     *            the type that compiled queries extend
+     */
+    public CompiledMapConfiguration(Codegen codegen, Class<?> type) {
+        super(codegen, type);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void appendSignature(StringBuilder sb) {
+        super.appendSignature(sb);
+        sb.append(",keys=").append(keyType.getName()).append(",keyNullable=").append(isKeyNullable);
+        sb.append(",values=").append(valueType.getName()).append(",valueNullable=").append(isValueNullable);
+        sb.append(",order=").append(order).append(",map=").append(main.getAccessor());
+    }
+
+    public QueryCompiler<T> create() {
+        CompiledViewRoot<T> r = new CompiledViewRoot<>(newPlanner(), codegen, this);
+        if (isCachingDisabled()) {
+            return r;
+        }
+        return new QueryCacheProcessor<>(r, null, compilationExecutor, compilationExecutor == null ? null
+                : createInterpreter(), getMaximumCacheSize(), isSpecializingFunctions(), getStatistics());
+    }
+
+    /**
+     * Creates a processor that interprets queries on the main map.
+     *
+     * @return the new interpreter
+     */
+    @SuppressWarnings("unchecked")
+    private T createInterpreter() {
+        Codegen c = new Codegen(codegen);
+        CodegenClass cl = c.newClass();
+        cl.setDefinition("public class Interpreter extends ", super.type);
+        cl.addImport(super.type, TerminalQueryOperationNode.class, ViewInterpreters.class);
+        ArrayList<Object> l = new ArrayList<>();
+        l.add("public Object process(");
+        for (Identifier i : identifiers) {
+            cl.addImport(i.getType());
+            l.add(i.getType());
+            l.add(" ");
+            l.add(i.getName());
+            l.add(", ");
+        }
+        l.add(TerminalQueryOperationNode.class);
+        l.add(" node)");
+        CodegenMethod m = cl.addMethod(l.toArray());
+        if (main instanceof HashTableMapComposite) {
+            cl.addImport(Map.class, MapEntries.class);
+            m.add("return ", ViewInterpreters.class, ".createMapViewProcessor((", Map.class, ") ",
+                    ((HashTableMapComposite) main).entries(), ".toMap()).process(node);");
+        } else {
+            m.add("return ", ViewInterpreters.class, ".createMapViewProcessor(", main.getAccessor(), ").process(node);");
+        }
+        return (T) cl.compileAndInstantiate();
+    }
+
+    private QueryEngine newPlanner() {
+        QueryEngineBuilder m = new QueryEngineBuilder();
+        m.add(new SetRealNode());
+        m.add(new GroupNodes());
+        m.add(new IntroduceForAll().processAll());
+        m.add(new ReducingNodes().processAll());
+        m.add(new IntroduceArrays());
+
+        return new QueryEngine(m) {
+            public void initRoot(QueryPlan plan) {
+                MapElement cd = new MapElement();
+                cd.setKey(new LogicalElementProperties(new LogicalReferenceTracker(), keyType, isKeyNullable));
+                cd.setValue(new LogicalElementProperties(new LogicalReferenceTracker(), valueType, isValueNullable));
+                cd.setOrder(order);
+                cd.sources().setMain(main);
+                plan.getPq().setRoot(cd);
+            }
+        };
+    }
+
+    /** @return the executor used for compiling queries as set by {@link #setCompilationExecutor(Executor)} */
+    public Executor getCompilationExecutor() {
+        return compilationExecutor;
+    }
+
+    /** @return the type of keys as set by {@link #setKeyType(Class)} */
+    public Class<?> getKeyType() {
+        return keyType;
+    }
+
+    /** @return the order of entries as set by {@link #setOrder(Order)} */
+    public Order getOrder() {
+        return order;
+    }
+
+    /** @return the type of values as set by {@link #setValueType(Class)} */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /** @return whether or not keys are nullable as set by {@link #setKeyNullable(boolean)} */
+    public boolean isKeyNullable() {
+        return isKeyNullable;
+    }
+
+    /** @return whether or not values are nullable as set by {@link #setValueNullable(boolean)} */
+    public boolean isValueNullable() {
+        return isValueNullable;
+    }
+
+    /**
+     * Sets an executor that is used for compiling queries in the background. While a query is being compiled, it is
+     * interpreted.
+     *
+     * @param executor
+     *            the executor used for compiling queries, or null to compile queries when first executed
+     */
+    public CompiledMapConfiguration<T> setCompilationExecutor(Executor executor) {
+        this.compilationExecutor = executor;
+        return this;
+    }
+
+    /** Sets whether or not the map can contain null keys. */
+    public CompiledMapConfiguration<T> setKeyNullable(boolean isKeyNullable) {
+        this.isKeyNullable = isKeyNullable;
+        return this;
+    }
+
+    /** Sets the type of keys in the map. */
+    public CompiledMapConfiguration<T> setKeyType(Class<?> keyType) {
+        this.keyType = requireNonNull(keyType, "keyType is null");
+        return this;
+    }
+
+    /**
+     * Sets the map to query.
+     *
+     * @param map
+     *            the map
+     */
+    public CompiledMapConfiguration<T> setMain(MapComposite map) {
+        this.main = requireNonNull(map, "map is null");
+        return this;
+    }
+
+    /**
+     * Sets the hash table to query.
+     *
+     * @param table
+     *            the hash table
+     */
+    public CompiledMapConfiguration<T> setMain(HashTableMapComposite table) {
+        this.main = requireNonNull(table, "table is null");
+        return this;
+    }
+
+    /**
+     * Sets the order of entries. The default order is {@link Order#NONE}.
+     *
+     * @param order
+     *            the order of entries
+     */
+    public CompiledMapConfiguration<T> setOrder(Order order) {
+        this.order = requireNonNull(order, "order is null");
+        return this;
+    }
+
+    /** Sets whether or not the map can contain null values. */
+    public CompiledMapConfiguration<T> setValueNullable(boolean isValueNullable) {
+        this.isValueNullable = isValueNullable;
+        return this;
+    }
+
+    /** Sets the type of values in the map. */
+    public CompiledMapConfiguration<T> setValueType(Class<?> valueType) {
+        this.valueType = requireNonNull(valueType, "valueType is null");
+        return this;
+    }
+}
@@ -18,14 +18,20 @@ package io.faststream.query.db.query.compiler.anew;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import io.faststream.codegen.core.Codegen;
 import io.faststream.codegen.core.CodegenClass;
 import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.janino.compiler.CompileException;
 import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.common.nodes.render.ParallelCollectionTerminal;
 import io.faststream.query.db.query.compiler.render.QueryPlanRender;
 import io.faststream.query.db.query.compiler.render.ViewRender;
+import io.faststream.query.db.query.compiler.render.util.FunctionClasses;
+import io.faststream.query.db.query.node.QueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.plan.QueryEngine;
 import io.faststream.query.db.query.plan.QueryPlan;
@@ -40,24 +46,72 @@ class CompiledViewRoot<T> implements QueryCompiler<T> {
     /** The codegen used for compiling view queries. */
     private final Codegen codegen;
 
+    /** The codegen used for defining compiled queries as hidden classes. */
+    private final Codegen hidden;
+
     private final ConcurrentHashMap<String, Integer> names = new ConcurrentHashMap<>();
 
     private final AbstractCompiledEntityConfiguration<T> viewSource;
 
     private final QueryEngine planner;
 
+    /** Renders parallel queries, or null if parallel queries are rendered serially. */
+    private final ParallelCollectionTerminal parallel;
+
+    /** A persistent cache of compiled classes, or null if classes are not cached on disk. */
+    private final QueryClassCache cache;
+
     CompiledViewRoot(QueryEngine planner, Codegen codegen, AbstractCompiledEntityConfiguration<T> viewSource) {
+        this(planner, codegen, viewSource, null);
+    }
+
+    CompiledViewRoot(QueryEngine planner, Codegen codegen, AbstractCompiledEntityConfiguration<T> viewSource,
+            ParallelCollectionTerminal parallel) {
         this.planner = requireNonNull(planner);
         this.codegen = requireNonNull(codegen);
+        this.hidden = new Codegen(codegen);
         this.viewSource = requireNonNull(viewSource);
+        this.parallel = parallel;
+        this.cache = viewSource.getCacheDirectory() == null ? null : new QueryClassCache(
+                viewSource.getCacheDirectory());
     }
 
     /** {@inheritDoc} */
-    @SuppressWarnings("unchecked")
     @Override
     public T create(TerminalQueryOperationNode node) {
+        if (viewSource.isSpecializingFunctions()) {
+            try {
+                return create(node, new QueryPlanRender(this::isSpecializable));
+            } catch (IllegalStateException e) {
+                if (!isImportClash(e)) {
+                    throw e;
+                }
+                // The simple name of a function class clashes with another class used by the query
+                viewSource.getStatistics().specializationFallback();
+                return create(node, QueryPlanRender.DEFAULT);
+            }
+        }
+        return create(node, QueryPlanRender.DEFAULT);
+    }
+
+    private T create(TerminalQueryOperationNode node, QueryPlanRender render) {
         // System.out.println(node);
-        QueryPlan plan = planner.createPlan(node);
+        boolean isParallel = parallel != null && parallel.isParallel(node);
+        // The signature is only needed for finding or storing previously compiled classes
+        ClassLoader loader = pregeneratedLoader();
+        String signature = loader == null && cache == null ? null : signature(node, render);
+        // First check for classes generated at build time, then for classes compiled by a previous JVM
+        QueryClassCache.Entry e = loader == null ? null : QueryClassCache.loadResource(loader, signature);
+        if (e == null && cache != null) {
+            e = cache.load(signature);
+        }
+        if (e != null) {
+            T t = instantiateCached(e, isParallel);
+            if (t != null) {
+                return t;
+            }
+        }
+        QueryPlan plan = isParallel ? parallel.createPlan(node) : planner.createPlan(node);
         // Do not think we want more than say 100 characters so we need to trim the string before adding the count
         String name = plan.getTerminalOperation().toFileName();
 
@@ -70,27 +124,160 @@ class CompiledViewRoot<T> implements QueryCompiler<T> {
         // className = "xxx" + System.nanoTime();
         // assert !className.endsWith("1");
 
-        ViewRender vr = new ViewRender(new Codegen(codegen));
+        Codegen c = new Codegen(codegen);
+        ViewRender vr = new ViewRender(c);
         CodegenClass cl = vr.cc().setDefinition("public class ", className, " extends ", viewSource.type);
         cl.addImport(viewSource.type);
 
-        ArrayList<Object> l = new ArrayList<>();
-        l.add("public Object process(");
+        cl.addImport(TerminalQueryOperationNode.class);
         for (Identifier i : viewSource.identifiers) {
             cl.addImport(i.getType());
-            l.add(i.getType());
-            l.add(" ");
-            l.add(i.getName());
-            l.add(", ");
         }
+        if (isParallel) {
+            // The serial query is rendered into processRange, process splits the data structure into ranges
+            CodegenMethod method = cl.addMethod(parallel.rangeDeclaration(viewSource.identifiers));
+            render.render(vr, plan, method);
+            parallel.render(cl, viewSource.identifiers, node);
+        } else {
+            ArrayList<Object> l = new ArrayList<>();
+            l.add("public Object process(");
+            for (Identifier i : viewSource.identifiers) {
+                l.add(i.getType());
+                l.add(" ");
+                l.add(i.getName());
+                l.add(", ");
+            }
 
-        l.add(TerminalQueryOperationNode.class);
-        cl.addImport(TerminalQueryOperationNode.class);
-        l.add(" node)");
-        CodegenMethod method = cl.addMethod(l.toArray());
+            l.add(TerminalQueryOperationNode.class);
+            l.add(" node)");
+            CodegenMethod method = cl.addMethod(l.toArray());
 
-        QueryPlanRender.DEFAULT.render(vr, plan, method);
+            render.render(vr, plan, method);
+        }
+
+        Map<String, byte[]> bytecode = c.compileBytecode(cl);
+        if (cache != null) {
+            cache.store(signature, cl.getQualifiedName(), bytecode);
+        }
+        // Prefer a hidden class that can be unloaded as soon as the query is evicted from the query cache
+        Class<?> type = hidden.defineHiddenClass(bytecode);
+        try {
+            return newInstance(type == null ? cl.compile() : type, isParallel);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
 
-        return (T) cl.compileAndInstantiate();
+    /**
+     * Returns the class loader whose class path contains classes generated at build time, or null if there are no such
+     * classes. The context class loader is checked first, as the library is often loaded by a parent of the class
+     * loader that loads the application.
+     *
+     * @return the class loader whose class path contains pregenerated classes, or null
+     */
+    private ClassLoader pregeneratedLoader() {
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        if (context != null && QueryClassCache.hasResources(context)) {
+            return context;
+        }
+        ClassLoader loader = viewSource.type.getClassLoader();
+        return loader != context && QueryClassCache.hasResources(loader) ? loader : null;
+    }
+
+    /**
+     * Instantiates a class that was pregenerated or loaded from the persistent cache.
+     *
+     * @param e
+     *            the cached entry
+     * @param isParallel
+     *            whether or not the class is a parallel processor
+     * @return the instance, or null if the class could not be loaded
+     */
+    private T instantiateCached(QueryClassCache.Entry e, boolean isParallel) {
+        try {
+            Class<?> type = hidden.defineHiddenClass(e.classes);
+            if (type == null) {
+                Codegen c = new Codegen(codegen);
+                c.addBytecode(e.classes);
+                type = c.loadClass(e.className);
+            }
+            return newInstance(type, isParallel);
+        } catch (ReflectiveOperationException | LinkageError ignore) {
+            return null; // Could not load the cached class, so we just compile it again
+        }
+    }
+
+    /**
+     * Instantiates a compiled query.
+     *
+     * @param type
+     *            the class of the query
+     * @param isParallel
+     *            whether or not the class is a parallel processor
+     * @return the instance
+     * @throws ReflectiveOperationException
+     *             if the class could not be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    private T newInstance(Class<?> type, boolean isParallel) throws ReflectiveOperationException {
+        return (T) (isParallel ? type.getConstructor(ForkJoinPool.class).newInstance(parallel.getPool()) : type
+                .getConstructor().newInstance());
+    }
+
+    /**
+     * Returns whether or not the specified exception was thrown because two classes with the same simple name was
+     * imported by a generated class.
+     *
+     * @param e
+     *            the exception thrown while compiling a query
+     * @return whether or not the exception was thrown because of clashing imports
+     */
+    private static boolean isImportClash(IllegalStateException e) {
+        return e.getCause() instanceof CompileException
+                && e.getCause().getMessage().contains("was previously imported");
+    }
+
+    /**
+     * Returns whether or not the generated code can refer to the specified function class.
+     *
+     * @param type
+     *            the class of the function
+     * @return whether or not the generated code can refer to the specified function class
+     */
+    private boolean isSpecializable(Class<?> type) {
+        if (!FunctionClasses.isNameable(type)) {
+            return false;
+        }
+        try {
+            return codegen.loadClass(type.getName()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a signature of the specified query that, together with the library version, uniquely determines the
+     * generated code.
+     *
+     * @param node
+     *            the terminal node of the query
+     * @param render
+     *            the render used for generating the code
+     * @return the signature
+     */
+    private String signature(TerminalQueryOperationNode node, QueryPlanRender render) {
+        StringBuilder sb = new StringBuilder();
+        viewSource.appendSignature(sb);
+        // The root node is the data source and does not represent an operation
+        for (QueryOperationNode n = node; n.previous() != null; n = n.previous()) {
+            sb.append(';').append(n.getClass().getName());
+        }
+        // Only function classes that are referred to by the generated code affect it
+        if (render != QueryPlanRender.DEFAULT) {
+            for (Class<?> c : FunctionClasses.of(node)) {
+                sb.append(c != null && isSpecializable(c) ? ',' + c.getName() : ",?");
+            }
+        }
+        return sb.toString();
     }
 }
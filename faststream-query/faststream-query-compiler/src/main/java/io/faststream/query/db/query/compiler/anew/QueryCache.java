@@ -15,8 +15,17 @@
  */
 package io.faststream.query.db.query.compiler.anew;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import io.faststream.query.db.nodes.Constants;
@@ -24,159 +33,517 @@ import io.faststream.query.db.query.node.QueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 
 /**
+ * A concurrent trie of queries. The first level is indexed by the id of the terminal operation of a query. Each
+ * following level is indexed by the type and id of the previous operation, until the root of the query is reached.
+ * Optionally, queries with the same operations are further distinguished by the classes of the functions used by the
+ * query. These classes are only weakly referenced, once any of them is garbage collected the value of the query is
+ * removed.
+ * <p>
+ * Nodes are never copied, new nodes and values are installed with a single compare and set operation. A thread that
+ * looks up a query that is being created by another thread waits for the other thread to finish instead of creating
+ * the query itself.
+ * <p>
+ * When a value is {@link #remove(Node, Object) removed}, nodes without a value, children or specializations are
+ * pruned from the trie. A node is pruned by first marking it as dead, which prevents values from being installed in
+ * the node. A thread that adds a child to a node checks that the node has not been marked afterwards, and starts over
+ * if it has. The pruning thread checks that the node has no children after marking it, and revives the node if it has.
  *
  * @author Kasper Nielsen
  */
-class QueryCache<T> extends AtomicReference<CachedNode[]> {
+class QueryCache<T> {
+
     static final int ID_MASK = 0xff0000ff;// keep left negatives bits
-    // TODO we should use this for leafs, since we never write directly into an array
-    // private static final CachedNode[] EMPTY_NODE = new CachedNode[LAST_NODE - FIRST_NODE + 1];
-    private static final Object PROMISE = new Object();
 
-    /** serialVersionUID. */
-    private static final long serialVersionUID = -8941471052145713212L;
+    /** The value of a node that is being pruned. */
+    static final Object DEAD = new Object();
+
+    /** The nodes of each terminal operation. */
+    private final AtomicReferenceArray<Node> roots = new AtomicReferenceArray<>(Constants.TERMINAL_NODE_COUNT);
+
+    /** The references of function classes that have been garbage collected. */
+    private final ReferenceQueue<Class<?>> collected = new ReferenceQueue<>();
+
+    /** Derives the function classes of a query, or null if queries are keyed by their operations only. */
+    private final Function<TerminalQueryOperationNode, List<Class<?>>> specializer;
 
     QueryCache() {
-        set(new CachedNode[Constants.TERMINAL_NODE_COUNT]);
+        this(null);
     }
 
-    private static int size(QueryOperationNode v) {
-        // TODO fix return Constants.NODE_COUNT[v.getNodeType()];//
-        return 30;
-
-        // Constants.NODE_COUNT[v.getNodeType()];//
-        // QueryOperationDefinitionSystem.getLastNodeIntConstant(v.definition().getFromType());
+    /**
+     * Creates a new cache.
+     *
+     * @param specializer
+     *            derives the function classes of a query, or null if queries are keyed by their operations only
+     */
+    QueryCache(Function<TerminalQueryOperationNode, List<Class<?>>> specializer) {
+        this.specializer = specializer;
     }
 
     private static int id(int id) {
         return id & ID_MASK;
     }
 
-    T lookup(TerminalQueryOperationNode topNode) {
-        start: for (;;) {
-            CachedNode c = get()[id(topNode.getNodeId())];
+    /** Returns the node of the specified query, or null if no node has been created for the query. */
+    private Node find(TerminalQueryOperationNode topNode) {
+        Node c = roots.get(id(topNode.getNodeId()));
+        QueryOperationNode n = topNode.previous();
+        while (c != null) {
+            int t = id(n.getNodeId());
+            if (t < 0) {
+                return specializer == null ? c : c.specialization(new Key(specializer.apply(topNode)));
+            }
+            c = c.child(n.getNodeType(), t);
+            n = n.previous();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the node of the specified query, creating it if it does not already exist.
+     *
+     * @param topNode
+     *            the terminal node of the query
+     * @return the node of the query
+     */
+    Node node(TerminalQueryOperationNode topNode) {
+        Key key = specializer == null ? null : new Key(specializer.apply(topNode));
+        expunge();
+        for (;;) {
+            Node c = root(id(topNode.getNodeId()));
             QueryOperationNode n = topNode.previous();
-            while (c != null) {
-                int t = id(n.getNodeId());
-                if (t < 0) {
-                    Object vp = c.mapper;
-                    if (vp == null || vp != PROMISE) {
-                        return (T) vp;
-                    } else {
-                        synchronized (c) {
-                            continue start;// some other thread is compiling the query, restart lookup
-                        }
-                    }
-                } else {
-                    try {
-                        c = c.cache[t];
-                    } catch (ArrayIndexOutOfBoundsException e) {
-                        System.err.println(c.cache.length);
-                        System.err.println(t);
-                        System.err.println(topNode);
-                        System.err.println(n.getOperationPackage().getOperation().toString());
-                        throw e;
-                    }
-                    n = n.previous();
+            while (c != null && id(n.getNodeId()) >= 0) {
+                Node parent = c;
+                c = parent.getOrCreateChild(n.getNodeType(), id(n.getNodeId()));
+                n = n.previous();
+                if (parent.value == DEAD) {
+                    c = null; // the child might have been added to a node that is being pruned
                 }
             }
-            return null;
+            if (c != null && specializer != null) {
+                Node parent = c;
+                c = parent.getOrCreateSpecialization(key, collected);
+                if (parent.value == DEAD) {
+                    c = null;
+                }
+            }
+            if (c != null) {
+                return c;
+            }
+        }
+    }
+
+    /** Removes the values of specializations with function classes that have been garbage collected. */
+    private void expunge() {
+        for (Reference<?> r; (r = collected.poll()) != null;) {
+            Node n = ((ClassReference) r).key.node;
+            Object v = n.value;
+            // A value that is being created is removed when it is evicted
+            while (v != null && v != DEAD && !(v instanceof Promise) && !n.compareAndSet(v, null)) {
+                v = n.value;
+            }
+            prune(n);
+        }
+    }
+
+    /** Returns the root node with the specified id, creating it if it does not already exist. */
+    private Node root(int id) {
+        for (;;) {
+            Node c = roots.get(id);
+            if (c == null) {
+                if (roots.compareAndSet(id, null, c = new Node(null, -1, id, null))) {
+                    return c;
+                }
+            } else if (c.value != DEAD) {
+                return c;
+            } else {
+                Thread.yield(); // wait for the node to be pruned or revived
+            }
+        }
+    }
+
+    /**
+     * Prunes the specified node and its ancestors from the trie, for as long as they have no value, children or
+     * specializations.
+     */
+    private void prune(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            if (!n.compareAndSet(null, DEAD)) {
+                return; // the node has a value, or is being pruned by another thread
+            } else if (n.hasChildren()) {
+                n.compareAndSet(DEAD, null);
+                return;
+            }
+            if (n.parent == null) {
+                roots.compareAndSet(n.id, n, null);
+            } else {
+                n.parent.detach(n);
+            }
         }
     }
 
-    private CachedNode createNode(QueryOperationNode node, int type, Object mapper, CachedNode[] caches) {
-        CachedNode c = caches[type];
-        c = caches[type] = c == null ? new CachedNode(new CachedNode[size(node)], null) : new CachedNode(Arrays.copyOf(
-                c.cache, c.cache.length), c.mapper);
-        QueryOperationNode prev = node.previous();
-        int prevType = id(prev.getNodeId());
-        if (prevType < 0) {
-            return caches[type] = new CachedNode(Arrays.copyOf(c.cache, c.cache.length), mapper);
-        } else {
-            return createNode(prev, prevType, mapper, c.cache);
+    T lookup(TerminalQueryOperationNode topNode) {
+        Node c = find(topNode);
+        return c == null ? null : value(c.value);
+    }
+
+    /** Returns the number of nodes in the trie, for testing purposes. */
+    int nodeCount() {
+        int count = 0;
+        for (int i = 0; i < roots.length(); i++) {
+            Node n = roots.get(i);
+            count += n == null ? 0 : n.count();
         }
+        return count;
     }
 
-    final T cache(Supplier<T> generator, TerminalQueryOperationNode topNode) {
-        return cache(generator, topNode, topNode.operations());
+    /**
+     * Returns the value of the specified query, using the specified generator to create the value if it does not
+     * already exist. If multiple threads try to create the same query concurrently, only one thread invokes the
+     * generator, while the others wait for it to finish.
+     *
+     * @param generator
+     *            the generator used for creating the value
+     * @param topNode
+     *            the terminal node of the query
+     * @return the value
+     */
+    T cache(Supplier<T> generator, TerminalQueryOperationNode topNode) {
+        Node c = node(topNode);
+        for (;;) {
+            Object v = c.value;
+            if (v == DEAD) {
+                c = node(topNode);
+                continue;
+            } else if (v != null) {
+                return value(v);
+            }
+            Promise p = new Promise(generator);
+            if (c.compareAndSet(null, p)) {
+                p.run();
+                try {
+                    T t = value(p);
+                    c.compareAndSet(p, t);
+                    return t;
+                } catch (RuntimeException | Error e) {
+                    c.compareAndSet(p, null); // let the next thread try again
+                    throw e;
+                }
+            }
+        }
     }
 
-    T cache(Supplier<T> generator, TerminalQueryOperationNode topNode, QueryOperationNode[] nodes) {
-        T vp = cache0(generator, topNode, nodes);
-        if (vp != lookup(topNode)) {
-            throw new Error();
+    /**
+     * Associates the specified value with the specified query. Replacing any existing value.
+     *
+     * @param topNode
+     *            the terminal node of the query
+     * @param value
+     *            the value to associate with the query
+     */
+    void put(TerminalQueryOperationNode topNode, T value) {
+        Node c = node(topNode);
+        for (;;) {
+            Object v = c.value;
+            if (v == DEAD) {
+                c = node(topNode);
+            } else if (c.compareAndSet(v, value)) {
+                return;
+            }
         }
-        return vp;
     }
 
-    private T cache0(Supplier<T> generator, TerminalQueryOperationNode topNode, QueryOperationNode[] nodes) {
+    /**
+     * Associates the specified value with the specified query, unless the query already has a value associated.
+     *
+     * @param topNode
+     *            the terminal node of the query
+     * @param value
+     *            the value to associate with the query
+     * @return the existing value, or null if the specified value was associated with the query
+     */
+    T putIfAbsent(TerminalQueryOperationNode topNode, T value) {
+        Node c = node(topNode);
         for (;;) {
-            CachedNode[] cache = get();
-            CachedNode c = cache[id(topNode.getNodeId())];
-            QueryOperationNode n = topNode.previous();
-            while (c != null) {
-                int t = id(n.getNodeId());
-                if (t < 0) {
-                    Object vp = c.mapper;
-                    if (vp == null) {
-                        break;
-                    } else if (vp != PROMISE) {
-                        return (T) vp;
-                    } else {
-                        synchronized (c) {
-                            cache = null;
-                            break;
-                        }
+            Object v = c.value;
+            if (v == DEAD) {
+                c = node(topNode);
+            } else if (v != null) {
+                return value(v);
+            } else if (c.compareAndSet(null, value)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes the specified value from the specified node, if it is still the value of the node. The node is pruned
+     * from the trie if it has no children.
+     *
+     * @param node
+     *            the node as returned by {@link #node(TerminalQueryOperationNode)}
+     * @param value
+     *            the value to remove
+     * @return whether or not the value was removed
+     */
+    boolean remove(Node node, T value) {
+        if (node.compareAndSet(value, null)) {
+            prune(node);
+            return true;
+        }
+        return false;
+    }
+
+    /** Returns the value of the specified object, waiting for it to be created if it is a promise. */
+    @SuppressWarnings("unchecked")
+    private T value(Object v) {
+        if (v == DEAD) {
+            return null;
+        } else if (v instanceof Promise) {
+            try {
+                return (T) ((Promise) v).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for query to be created", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+        return (T) v;
+    }
+
+    /** A node in the trie. */
+    static final class Node {
+
+        private static final AtomicReferenceFieldUpdater<Node, Object> VALUE = AtomicReferenceFieldUpdater.newUpdater(
+                Node.class, Object.class, "value");
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, ConcurrentHashMap> SPECIALIZATIONS = AtomicReferenceFieldUpdater
+                .newUpdater(Node.class, ConcurrentHashMap.class, "specializations");
+
+        /** The children of this node, indexed by the type of node and then by the id of the node. */
+        private final AtomicReferenceArray<AtomicReferenceArray<Node>> children = new AtomicReferenceArray<>(
+                Constants.NODE_COUNT.length);
+
+        /** The specializations of this node, or null if no specializations have been added to this node. */
+        private volatile ConcurrentHashMap<Key, Node> specializations;
+
+        /** The parent of this node, or null if this node is a root. */
+        final Node parent;
+
+        /** The type of this node, 0 if this node is a specialization of its parent, or -1 if this node is a root. */
+        private final int type;
+
+        /** The id of this node. */
+        private final int id;
+
+        /** The key of this node if it is a specialization of its parent. */
+        private final Key key;
+
+        /**
+         * The value of this node, a promise if the value is being created, {@link QueryCache#DEAD} if the node is being
+         * pruned, or null if there is no value.
+         */
+        volatile Object value;
+
+        Node(Node parent, int type, int id, Key key) {
+            this.parent = parent;
+            this.type = type;
+            this.id = id;
+            this.key = key;
+        }
+
+        Node child(int type, int id) {
+            AtomicReferenceArray<Node> a = children.get(type - 1);
+            return a == null ? null : a.get(id);
+        }
+
+        boolean compareAndSet(Object expect, Object update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+
+        /** Returns the number of nodes in the subtree rooted at this node. */
+        int count() {
+            int count = 1;
+            for (int i = 0; i < children.length(); i++) {
+                AtomicReferenceArray<Node> a = children.get(i);
+                for (int j = 0; a != null && j < a.length(); j++) {
+                    Node n = a.get(j);
+                    count += n == null ? 0 : n.count();
+                }
+            }
+            ConcurrentHashMap<Key, Node> m = specializations;
+            if (m != null) {
+                for (Node n : m.values()) {
+                    count += n.count();
+                }
+            }
+            return count;
+        }
+
+        /** Removes the specified child, which has been marked as dead, from this node. */
+        void detach(Node child) {
+            if (child.type == 0) {
+                specializations.remove(child.key, child);
+            } else {
+                children.get(child.type - 1).compareAndSet(child.id, child, null);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Node getOrCreateSpecialization(Key key, ReferenceQueue<Class<?>> queue) {
+            ConcurrentHashMap<Key, Node> m = specializations;
+            if (m == null && !SPECIALIZATIONS.compareAndSet(this, null, m = new ConcurrentHashMap<>())) {
+                m = specializations;
+            }
+            for (;;) {
+                Node n = m.get(key);
+                if (n == null) {
+                    Key weak = new Key(key, queue);
+                    n = weak.node = new Node(this, 0, 0, weak);
+                    Node existing = m.putIfAbsent(weak, n);
+                    if (existing == null) {
+                        return n;
                     }
-                } else {
-                    c = c.cache[t];
-                    n = n.previous();
+                    n = existing;
+                }
+                if (n.value != DEAD) {
+                    return n;
                 }
+                Thread.yield(); // wait for the node to be pruned or revived
             }
-            if (cache != null) {// No promise
-                // Lets first create a promise
-                CachedNode[] newRoot = Arrays.copyOf(cache, cache.length);
-                CachedNode cn = createNode(topNode, id(topNode.getNodeId()), PROMISE, newRoot);
-                synchronized (cn) {// other threads will try to synchronize on cn for the same query
-                    if (compareAndSet(cache, newRoot)) {// This thread wins
-                        T e = generator.get();// compile
-                        for (;;) {
-                            newRoot = Arrays.copyOf(cache, cache.length);
-                            cn = createNode(topNode, id(topNode.getNodeId()), e, newRoot);
-                            if (compareAndSet(get(), newRoot)) {
-
-                                return e;
-                            }
-                            Thread.yield();
-                        }
+        }
+
+        /** Returns whether or not this node has any children or specializations. */
+        boolean hasChildren() {
+            for (int i = 0; i < children.length(); i++) {
+                AtomicReferenceArray<Node> a = children.get(i);
+                for (int j = 0; a != null && j < a.length(); j++) {
+                    if (a.get(j) != null) {
+                        return true;
                     }
                 }
             }
+            ConcurrentHashMap<Key, Node> m = specializations;
+            return m != null && !m.isEmpty();
         }
-    }
-}
 
-class CachedNode {
-    final CachedNode[] cache;
-    final Object mapper;
-    final Class<?>[] firstOperationType;
+        Node specialization(Key key) {
+            ConcurrentHashMap<Key, Node> m = specializations;
+            return m == null ? null : m.get(key);
+        }
 
-    CachedNode(CachedNode[] cache, Object mapper) {
-        this(cache, mapper, null);
+        Node getOrCreateChild(int type, int id) {
+            AtomicReferenceArray<Node> a = children.get(type - 1);
+            if (a == null && !children.compareAndSet(type - 1, null, a = new AtomicReferenceArray<>(
+                    Constants.NODE_COUNT[type - 1]))) {
+                a = children.get(type - 1);
+            }
+            for (;;) {
+                Node n = a.get(id);
+                if (n == null) {
+                    if (a.compareAndSet(id, null, n = new Node(this, type, id, null))) {
+                        return n;
+                    }
+                } else if (n.value != DEAD) {
+                    return n;
+                } else {
+                    Thread.yield(); // wait for the node to be pruned or revived
+                }
+            }
+        }
     }
 
-    CachedNode(CachedNode[] cache, Object mapper, Class<?>[] firstOperationType) {
-        this.cache = cache;
-        this.mapper = mapper;
-        this.firstOperationType = firstOperationType;
+    /**
+     * The function classes of a query. Keys that are used for looking up queries reference the classes directly, while
+     * keys that are stored in the trie only weakly reference them. So that caching a query does not prevent the
+     * classes of its functions, and their class loaders, from being garbage collected.
+     */
+    static final class Key {
+
+        /** The classes, or references to the classes. A function that is null is represented by null. */
+        private final Object[] classes;
+
+        private final int hash;
+
+        /** The node of this key, if this key is stored in the trie. */
+        Node node;
+
+        /**
+         * Creates a new key used for looking up queries.
+         *
+         * @param classes
+         *            the function classes of the query
+         */
+        Key(List<Class<?>> classes) {
+            this.classes = classes.toArray();
+            this.hash = Arrays.hashCode(this.classes);
+        }
+
+        /** Creates a copy of the specified key that only weakly references its classes. */
+        private Key(Key key, ReferenceQueue<Class<?>> queue) {
+            classes = new Object[key.classes.length];
+            for (int i = 0; i < classes.length; i++) {
+                Class<?> c = (Class<?>) key.classes[i];
+                classes[i] = c == null ? null : new ClassReference(c, this, queue);
+            }
+            hash = key.hash;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Key) || ((Key) obj).hash != hash
+                    || ((Key) obj).classes.length != classes.length) {
+                return false;
+            }
+            Object[] other = ((Key) obj).classes;
+            for (int i = 0; i < classes.length; i++) {
+                Class<?> a = get(classes[i]);
+                // A class that has been garbage collected is not equal to anything
+                if (a != get(other[i]) || a == null && classes[i] != other[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static Class<?> get(Object o) {
+            return o instanceof ClassReference ? ((ClassReference) o).get() : (Class<?>) o;
+        }
     }
-}
 
-class CachedSecondaryNode<T> extends CachedNode {
-    final Class<?>[] firstOperationType;
+    /** A weak reference to a function class of a key. */
+    private static final class ClassReference extends WeakReference<Class<?>> {
 
-    CachedSecondaryNode(CachedNode[] cache, final Class<?>[] firstOperationType) {
-        super(cache, null);
-        this.firstOperationType = firstOperationType;
+        /** The key that references the class. */
+        final Key key;
+
+        ClassReference(Class<?> referent, Key key, ReferenceQueue<Class<?>> queue) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
+
+    /** A value that is being created by another thread. */
+    private static final class Promise extends FutureTask<Object> {
+        Promise(Supplier<?> generator) {
+            super(generator::get);
+        }
     }
 }
@@ -15,45 +15,164 @@
  */
 package io.faststream.query.db.query.compiler.anew;
 
-import java.util.concurrent.atomic.AtomicLong;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
+import io.faststream.query.db.query.compiler.render.util.FunctionClasses;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNodeProcessor;
 
 /**
  * A view root that caches {@link TerminalQueryOperationNodeProcessor view processors}.
+ * <p>
+ * If a maximum size is specified, processors are evicted when the cache grows beyond the maximum size. Evictions use
+ * the CLOCK approximation of least recently used. A processor that has been used since it was last considered for
+ * eviction gets a second chance, so a cache hit only needs to mark the processor as used. Every compiled processor
+ * is defined by its own class loader, so the classes of evicted processors can be unloaded by the JVM once they are
+ * no longer in use.
+ * <p>
+ * If functions are specialized, queries are also keyed by the classes of the functions they use. So every generated
+ * processor only ever invokes a single implementation of each function, allowing the JIT to inline them.
  *
  * @author Kasper Nielsen
  */
-class QueryCacheProcessor<T> implements QueryCompiler<T> {
+public class QueryCacheProcessor<T> implements QueryCompiler<T> {
+
+    private final QueryCache<Entry<T>> cache;
+
+    /** All entries that can be evicted in the order they are considered for eviction, only used if bounded. */
+    private final ConcurrentLinkedQueue<Entry<T>> entries = new ConcurrentLinkedQueue<>();
 
-    private final QueryCache<T> cache = new QueryCache<>();
+    /** The number of entries that can be evicted. */
+    private final AtomicInteger size = new AtomicInteger();
 
-    private final AtomicLong cacheMisses = new AtomicLong();
+    /** Statistics about the queries of this cache. */
+    private final QueryCacheStatistics statistics;
 
     private final QueryCacheFactory<T> factory;
 
     private final T serialProcessor;
 
+    /** The executor used for compiling queries in the background, or null if queries are compiled when first used. */
+    private final Executor executor;
+
+    /** A processor that interprets queries while they are being compiled in the background. */
+    private final T interpreter;
+
+    /** The maximum number of compiled processors to keep, or 0 if the cache is unbounded. */
+    private final int maximumSize;
+
     QueryCacheProcessor(QueryCompiler<T> factory, T serialProcessor) {
+        this(factory, serialProcessor, null, null, 0, false, new QueryCacheStatistics());
+    }
+
+    QueryCacheProcessor(QueryCompiler<T> factory, T serialProcessor, Executor executor, T interpreter,
+            int maximumSize, boolean specializeFunctions, QueryCacheStatistics statistics) {
+        this.cache = new QueryCache<>(specializeFunctions ? FunctionClasses::of : null);
         this.factory = new QueryCacheFactory<T>() {
             public Supplier<T> createCachable(TerminalQueryOperationNode node) {
                 return () -> factory.create(node);
             }
         };
         this.serialProcessor = serialProcessor;
+        this.executor = executor;
+        this.interpreter = executor == null ? null : interpreter;
+        this.maximumSize = maximumSize;
+        this.statistics = requireNonNull(statistics);
+    }
+
+    /** Returns a generator that compiles the specified query and records statistics about the compilation. */
+    private Supplier<Entry<T>> compiler(TerminalQueryOperationNode node, Supplier<T> generator) {
+        return () -> {
+            long start = System.nanoTime();
+            T t = generator.get();
+            statistics.compiled(System.nanoTime() - start);
+            // The node holds a value while the query is compiled, so it cannot have been pruned
+            return new Entry<>(t, cache.node(node));
+        };
+    }
+
+    /**
+     * Installs the interpreter for the specified query and starts compiling the query in the background. When the
+     * compilation has finished the interpreter is replaced by the compiled processor. If the query cannot be compiled
+     * the query will continue to be interpreted. If the executor rejects the compilation, the query is compiled by the
+     * calling thread instead.
+     */
+    private T backgroundCompile(TerminalQueryOperationNode node) {
+        Entry<T> existing = cache.putIfAbsent(node, new Entry<>(interpreter, null));
+        if (existing != null) {
+            return existing.processor; // Another thread has already started compiling the query
+        }
+        Supplier<Entry<T>> generator = compiler(node, factory.createCachable(node));
+        try {
+            executor.execute(() -> install(node, generator));
+        } catch (RejectedExecutionException e) {
+            Entry<T> compiled = install(node, generator);
+            if (compiled != null) {
+                return compiled.processor;
+            }
+        }
+        return interpreter;
+    }
+
+    /** Compiles the specified query and replaces the interpreter, returns null if the query could not be compiled. */
+    private Entry<T> install(TerminalQueryOperationNode node, Supplier<Entry<T>> generator) {
+        Entry<T> e;
+        try {
+            e = generator.get();
+        } catch (RuntimeException ignore) {
+            return null; // keep interpreting the query
+        }
+        cache.put(node, e);
+        added(e);
+        return e;
+    }
+
+    /** Records a newly compiled entry, evicting entries if the cache is full. */
+    private void added(Entry<T> e) {
+        if (maximumSize > 0) {
+            entries.add(e);
+            // The new entry gets a second chance like a used entry. Entries that are continuously used by other
+            // threads only get a second chance for a single round
+            int chances = size.incrementAndGet();
+            while (size.get() > maximumSize) {
+                Entry<T> c = entries.poll();
+                if (c == null) {
+                    return;
+                } else if ((c == e || c.isUsed) && chances-- > 0) {
+                    c.isUsed = false;
+                    entries.add(c);
+                } else {
+                    size.decrementAndGet();
+                    if (cache.remove(c.slot, c)) {
+                        statistics.evicted();
+                    }
+                }
+            }
+        }
     }
 
     private T cacheMiss(TerminalQueryOperationNode node) {
+        if (interpreter != null) {
+            return backgroundCompile(node);
+        }
         Supplier<T> generator = factory.createCachable(node);
         if (generator != null) {
+            Entry<T> e;
             try {
-                return cache.cache(generator, node);
-            } catch (RuntimeException e) {
+                e = cache.cache(compiler(node, generator), node);
+            } catch (RuntimeException ex) {
                 System.err.println(node);
-                throw e;
+                throw ex;
             }
+            added(e);
+            return e.processor;
         } else {
             if (serialProcessor == null) {
                 throw new Error("This node does not support evaluation");
@@ -62,16 +181,62 @@ class QueryCacheProcessor<T> implements QueryCompiler<T> {
         }
     }
 
-    long getCacheMisses() {
-        return cacheMisses.get();
-    }
-
     public T create(TerminalQueryOperationNode node) {
-        T cachedProcessor = cache.lookup(node);
-        if (cachedProcessor != null) {
-            return cachedProcessor;
+        Entry<T> e = cache.lookup(node);
+        if (e != null) {
+            statistics.hit();
+            if (maximumSize > 0 && !e.isUsed) {
+                e.isUsed = true;
+            }
+            return e.processor;
         }
-        cacheMisses.incrementAndGet();
+        statistics.miss();
         return cacheMiss(node);
     }
+
+    public final long getNumberOfCacheHits() {
+        return statistics.getNumberOfCacheHits();
+    }
+
+    public final long getNumberOfCacheMisses() {
+        return statistics.getNumberOfCacheMisses();
+    }
+
+    public final long getNumberOfEvictions() {
+        return statistics.getNumberOfEvictions();
+    }
+
+    public final long getNumberOfQueriesCompiled() {
+        return statistics.getNumberOfQueriesCompiled();
+    }
+
+    /**
+     * Returns the statistics of this cache, which may be shared with other caches.
+     *
+     * @return the statistics of this cache
+     */
+    public final QueryCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public final long getTotalCompileTime(TimeUnit unit) {
+        return statistics.getTotalCompileTime(unit);
+    }
+
+    /** A cached processor. */
+    static final class Entry<T> {
+
+        /** Whether or not the entry has been used since it was last considered for eviction. */
+        volatile boolean isUsed;
+
+        /** The node of the entry in the cache, or null if the entry cannot be evicted. */
+        final QueryCache.Node slot;
+
+        final T processor;
+
+        Entry(T processor, QueryCache.Node slot) {
+            this.processor = processor;
+            this.slot = slot;
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.anew;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the compiled queries of one or more {@link QueryCacheProcessor query caches}. If shared by several
+ * caches, the statistics are the sum of the statistics of each cache.
+ *
+ * @author Kasper Nielsen
+ */
+public class QueryCacheStatistics {
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final LongAdder compileNanos = new LongAdder();
+
+    private final LongAdder compiled = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder specializationFallbacks = new LongAdder();
+
+    /** Records that a query was compiled. */
+    void compiled(long nanos) {
+        compiled.increment();
+        compileNanos.add(nanos);
+    }
+
+    /** Records that a query was evicted. */
+    void evicted() {
+        evictions.increment();
+    }
+
+    /**
+     * Returns the number of times a query was found in the cache.
+     *
+     * @return the number of times a query was found in the cache
+     */
+    public final long getNumberOfCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of times a query was not found in the cache.
+     *
+     * @return the number of times a query was not found in the cache
+     */
+    public final long getNumberOfCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Returns the number of compiled queries that have been evicted from the cache.
+     *
+     * @return the number of compiled queries that have been evicted from the cache
+     */
+    public final long getNumberOfEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of queries that have been compiled, or loaded from previously compiled classes.
+     *
+     * @return the number of queries that have been compiled
+     */
+    public final long getNumberOfQueriesCompiled() {
+        return compiled.sum();
+    }
+
+    /**
+     * Returns the number of queries that could not be specialized for the classes of their functions, because the
+     * simple name of a function class clashed with another class used by the query. Such queries are compiled with
+     * functions declared by their functional interface instead.
+     *
+     * @return the number of queries that could not be specialized for the classes of their functions
+     */
+    public final long getNumberOfSpecializationFallbacks() {
+        return specializationFallbacks.sum();
+    }
+
+    /**
+     * Returns the total time spent compiling queries.
+     *
+     * @param unit
+     *            the unit of the returned time
+     * @return the total time spent compiling queries
+     */
+    public final long getTotalCompileTime(TimeUnit unit) {
+        return unit.convert(compileNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Records a cache hit. */
+    void hit() {
+        cacheHits.increment();
+    }
+
+    /** Records a cache miss. */
+    void miss() {
+        cacheMisses.increment();
+    }
+
+    /** Records that a query could not be specialized for the classes of its functions. */
+    void specializationFallback() {
+        specializationFallbacks.increment();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "hits=" + getNumberOfCacheHits() + ", misses=" + getNumberOfCacheMisses() + ", compiled="
+                + getNumberOfQueriesCompiled() + ", evictions=" + getNumberOfEvictions() + ", specializationFallbacks="
+                + getNumberOfSpecializationFallbacks();
+    }
+}
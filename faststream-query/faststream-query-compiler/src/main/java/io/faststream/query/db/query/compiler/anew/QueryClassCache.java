@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.anew;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A persistent cache of compiled query classes. Entries are keyed by a signature of the query and the data structure
+ * being queried, and stored in a sub directory named after the version of the library. So entries created by other
+ * versions of the library are never read.
+ * <p>
+ * Entries can also be generated at build time and packaged under {@value #RESOURCE_DIRECTORY} in a jar. Such
+ * pregenerated entries are found via {@link #loadResource(ClassLoader, String)}. The jar must contain entries for
+ * directories, as jars created by Maven and the jar tool do, since the directory is looked up first.
+ * <p>
+ * Entries are written to a temporary file that is atomically moved into place. So several processes can safely share
+ * the same directory, at worst a class is compiled by more than one process. Any entry that cannot be read, or that
+ * was written for another signature, is treated as a cache miss. Failing to write an entry is silently ignored.
+ *
+ * @author Kasper Nielsen
+ */
+final class QueryClassCache {
+
+    /** The version of the file format, must be incremented whenever the format changes. */
+    static final int FORMAT_VERSION = 1;
+
+    /** The version of the library. */
+    static final String LIBRARY_VERSION = libraryVersion();
+
+    /** The directory, relative to the class path, where pregenerated entries are located. */
+    static final String RESOURCE_DIRECTORY = "META-INF/faststream/queries";
+
+    /** The file extension of entries. */
+    private static final String SUFFIX = ".query";
+
+    /** The first bytes of every entry. */
+    private static final int MAGIC = 0xFA57C1A5;
+
+    /** The directory holding entries for this version of the library. */
+    private final Path directory;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param root
+     *            the root directory of the cache
+     */
+    QueryClassCache(Path root) {
+        this.directory = requireNonNull(root, "root is null").resolve(LIBRARY_VERSION);
+    }
+
+    /**
+     * Returns the entry for the specified signature, or null if no valid entry exists.
+     *
+     * @param signature
+     *            the signature of the query
+     * @return the entry, or null if no valid entry exists
+     */
+    Entry load(String signature) {
+        try (InputStream in = Files.newInputStream(directory.resolve(hash(signature) + SUFFIX))) {
+            return read(in, signature);
+        } catch (NoSuchFileException ignore) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return null; // A corrupt entry is treated as a miss, and will be overwritten
+        }
+    }
+
+    /**
+     * Stores an entry for the specified signature. Any existing entry is replaced.
+     *
+     * @param signature
+     *            the signature of the query
+     * @param className
+     *            the name of the class that should be instantiated
+     * @param classes
+     *            the class files of the class and any inner classes
+     */
+    void store(String signature, String className, Map<String, byte[]> classes) {
+        String hash = hash(signature);
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, hash, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(LIBRARY_VERSION);
+                out.writeUTF(signature);
+                out.writeUTF(className);
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeInt(e.getValue().length);
+                    out.write(e.getValue());
+                }
+            }
+            Path file = directory.resolve(hash + SUFFIX);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException ignore) {
+            // The cache is only an optimization, we will just compile the class again next time
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignore) {}
+            }
+        }
+    }
+
+    /** Returns a hex encoded SHA-256 hash of the specified signature. */
+    static String hash(String signature) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // All JVMs must support SHA-256
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest(signature.getBytes(StandardCharsets.UTF_8))) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns whether or not the class path of the specified class loader contains pregenerated entries for this
+     * version of the library. Only the directory of the entries is looked up, so no signature needs to be hashed if
+     * there are none.
+     *
+     * @param loader
+     *            the class loader to find the entries with, or null for the system class loader
+     * @return whether or not the class path contains pregenerated entries
+     */
+    static boolean hasResources(ClassLoader loader) {
+        String name = RESOURCE_DIRECTORY + "/" + LIBRARY_VERSION + "/";
+        return (loader == null ? ClassLoader.getSystemResource(name) : loader.getResource(name)) != null;
+    }
+
+    /**
+     * Returns the pregenerated entry for the specified signature, or null if no valid entry can be found on the class
+     * path of the specified class loader.
+     *
+     * @param loader
+     *            the class loader to find the entry with
+     * @param signature
+     *            the signature of the query
+     * @return the entry, or null if no valid entry exists
+     */
+    static Entry loadResource(ClassLoader loader, String signature) {
+        String name = RESOURCE_DIRECTORY + "/" + LIBRARY_VERSION + "/" + hash(signature) + SUFFIX;
+        InputStream is = loader == null ? ClassLoader.getSystemResourceAsStream(name) : loader.getResourceAsStream(name);
+        if (is == null) {
+            return null;
+        }
+        try (InputStream in = is) {
+            return read(in, signature);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Reads an entry, returning null if it was not created for the specified signature. */
+    private static Entry read(InputStream is, String signature) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !LIBRARY_VERSION.equals(in.readUTF())
+                || !signature.equals(in.readUTF())) {
+            return null;
+        }
+        String className = in.readUTF();
+        int count = in.readInt();
+        HashMap<String, byte[]> classes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytecode = new byte[in.readInt()];
+            in.readFully(bytecode);
+            classes.put(name, bytecode);
+        }
+        return classes.containsKey(className) ? new Entry(className, classes) : null;
+    }
+
+    /**
+     * Returns the version of the library as written into {@code version.properties} by the build. Snapshot versions
+     * include the time of the build, so entries are invalidated whenever the library is rebuilt.
+     */
+    static String libraryVersion() {
+        Properties p = new Properties();
+        try (InputStream in = QueryClassCache.class.getResourceAsStream("version.properties")) {
+            if (in != null) {
+                p.load(in);
+            }
+        } catch (IOException ignore) {}
+        String version = filtered(p.getProperty("version"));
+        if (version == null) {
+            Package pack = QueryClassCache.class.getPackage();
+            version = pack == null ? null : pack.getImplementationVersion();
+            return version == null ? "unversioned" : version;
+        }
+        String build = filtered(p.getProperty("build"));
+        return version.endsWith("-SNAPSHOT") && build != null ? version + "-" + build : version;
+    }
+
+    /** Returns the specified property value, or null if it is missing or was not filtered by the build. */
+    private static String filtered(String value) {
+        return value == null || value.isEmpty() || value.contains("${") ? null : value;
+    }
+
+    /** A cached entry. */
+    static final class Entry {
+
+        /** The class files of the class and any inner classes. */
+        final Map<String, byte[]> classes;
+
+        /** The name of the class that should be instantiated. */
+        final String className;
+
+        Entry(String className, Map<String, byte[]> classes) {
+            this.className = className;
+            this.classes = classes;
+        }
+    }
+}
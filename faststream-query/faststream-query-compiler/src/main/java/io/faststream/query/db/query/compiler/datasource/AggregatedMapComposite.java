@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import static java.util.Objects.requireNonNull;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.query.runtime.AggregatingHashMap;
+import io.faststream.query.db.query.runtime.CountingHashMap;
+
+/**
+ * A map that has been aggregated into an {@link AggregatingHashMap}, for example, by {@code groupBy(...).count()}.
+ *
+ * @author Kasper Nielsen
+ */
+public class AggregatedMapComposite extends IndexedMapComposite {
+
+    /** The type of the map. */
+    private final Class<? extends AggregatingHashMap> type;
+
+    /**
+     * @param type
+     *            the type of the map
+     * @param accessor
+     *            the map
+     */
+    public AggregatedMapComposite(Class<? extends AggregatingHashMap> type, Expression accessor) {
+        super(accessor);
+        this.type = requireNonNull(type);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StreamingMapComposite getEntry(Expression index) {
+        if (type == CountingHashMap.class) {
+            return new StreamingMapComposite(Object.class, getAccessor().invoke("keyAt", index), long.class,
+                    getAccessor().invoke("countAt", index));
+        }
+        return new StreamingMapComposite(Object.class, getAccessor().invoke("keyAt", index), Object.class,
+                getAccessor().invoke("valueAt", index));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
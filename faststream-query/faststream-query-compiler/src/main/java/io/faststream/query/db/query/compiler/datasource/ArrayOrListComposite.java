@@ -35,6 +35,9 @@ import io.faststream.query.db.query.runtime.ArrayUtil;
  */
 public class ArrayOrListComposite extends Composite {
 
+    /** Whether or not the elements are an array passed by the user, and not the array backing a data structure. */
+    private boolean isArraySource;
+
     private boolean isImmutable;
 
     /** The lower bound. Is of int type. */
@@ -59,14 +62,16 @@ public class ArrayOrListComposite extends Composite {
         if (!isImmutable) {
             return this;
         }
-        Identifier id = new Identifier(Object[].class, "array");
+        // Primitive arrays are copied into an array of the same type
+        Class<?> arrayType = type.isArray() ? type : Object[].class;
+        Identifier id = new Identifier(arrayType, "array");
         if (type.isArray()) {
             is.addImport(ArrayUtil.class);
-            b.add(newVar(id, Object[].class, staticMethodInvoke(ArrayUtil.class, "copy", asExpressionIfNonDefault())));
+            b.add(newVar(id, arrayType, staticMethodInvoke(ArrayUtil.class, "copy", asExpressionIfNonDefault())));
         } else {
-            b.add(newVar(id, Object[].class, getAccessor().invoke("toArray()")));
+            b.add(newVar(id, arrayType, getAccessor().invoke("toArray()")));
         }
-        return create(Object[].class, id);
+        return create(arrayType, id);
     }
 
     public Class<?> getComponentType() {
@@ -151,6 +156,16 @@ public class ArrayOrListComposite extends Composite {
         }
     }
 
+    /**
+     * Returns whether or not the elements are an array passed by the user. As opposed to, for example, the array
+     * backing a list which may be modified after a query has been created.
+     *
+     * @return whether or not the elements are an array passed by the user
+     */
+    public boolean isArraySource() {
+        return isArraySource;
+    }
+
     /**
      * @return the isImmutable
      */
@@ -158,6 +173,42 @@ public class ArrayOrListComposite extends Composite {
         return isImmutable;
     }
 
+    /**
+     * Returns an expression that tests whether or not the specified index holds an element.
+     *
+     * @param index
+     *            the index to test
+     * @return an expression that tests whether or not the specified index holds an element, or null if every index
+     *         between the bounds holds an element
+     */
+    public Expression isPresent(Expression index) {
+        return null;
+    }
+
+    /**
+     * Returns whether or not the elements can only be accessed one index at a time, via
+     * {@link #getElement(Expression)}. Such elements are copied into an array before any operation other than
+     * iteration.
+     *
+     * @return whether or not the elements can only be accessed one index at a time
+     */
+    public boolean isIterableOnly() {
+        return false;
+    }
+
+    /**
+     * Returns whether or not {@link #size()} can be used to find the number of elements without iterating them.
+     *
+     * @return whether or not the number of elements is known without iterating them
+     */
+    public boolean isSizeKnown() {
+        return true;
+    }
+
+    public void setArraySource(boolean b) {
+        this.isArraySource = b;
+    }
+
     public void setImmutable(boolean b) {
         this.isImmutable = b;
     }
@@ -168,7 +219,9 @@ public class ArrayOrListComposite extends Composite {
 
     /** {@inheritDoc} */
     public ArrayOrListComposite withAccessor(Expression e) {
-        return new ArrayOrListComposite(type, e, lowerBound, upperBound, isImmutable);
+        ArrayOrListComposite c = new ArrayOrListComposite(type, e, lowerBound, upperBound, isImmutable);
+        c.isArraySource = isArraySource;
+        return c;
     }
 
     public ArrayOrListComposite withUpperBounds(Expression upperBound) {
@@ -181,12 +234,16 @@ public class ArrayOrListComposite extends Composite {
     }
 
     public ArrayOrListComposite withBounds(Expression lowerBound, Expression upperBound) {
-        return new ArrayOrListComposite(type, getAccessor(), lowerBound, upperBound, isImmutable);
+        ArrayOrListComposite c = new ArrayOrListComposite(type, getAccessor(), lowerBound, upperBound, isImmutable);
+        c.isArraySource = isArraySource;
+        return c;
     }
 
     public static ArrayOrListComposite create(Class<?> type, Expression accessor) {
         if (type.isArray() || List.class.isAssignableFrom(type)) {// ok
             return new ArrayOrListComposite(type, accessor, new Literal(0), defaultUpperBound(type, accessor), false);
+        } else if (BufferComposite.isBuffer(type)) {
+            return new BufferComposite(type, accessor, accessor.invoke("position"), accessor.invoke("limit"), false);
         }
         throw new IllegalArgumentException("'" + type.getCanonicalName() + "' is not a valid type for an "
                 + ArrayOrListComposite.class.getSimpleName());
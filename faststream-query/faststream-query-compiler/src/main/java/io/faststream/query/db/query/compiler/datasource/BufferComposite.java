@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import static io.faststream.codegen.model.expression.Expressions.newVar;
+import static io.faststream.codegen.model.expression.Expressions.staticMethodInvoke;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.codegen.model.statement.BlockStatement;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.compiler.render.util.AbstractOperationNode;
+import io.faststream.query.db.query.runtime.ArrayUtil;
+
+/**
+ * A composite of the remaining elements of an {@link IntBuffer}, {@link LongBuffer}, {@link DoubleBuffer} or
+ * {@link ByteBuffer}. Elements are read with absolute gets between the position and the limit of the buffer. So the
+ * buffer, for example, a view of a {@link java.nio.MappedByteBuffer}, is never copied to the heap unless the query
+ * needs to sort or otherwise rearrange the elements.
+ * <p>
+ * The elements of a byte buffer are widened to ints.
+ *
+ * @author Kasper Nielsen
+ */
+public class BufferComposite extends ArrayOrListComposite {
+
+    BufferComposite(Class<?> type, Expression accessor, Expression lowerBound, Expression upperBound,
+            boolean isImmutable) {
+        super(type, accessor, lowerBound, upperBound, isImmutable);
+    }
+
+    /**
+     * Returns the type of array that elements are copied into.
+     *
+     * @return the type of array that elements are copied into
+     */
+    public Class<?> getArrayType() {
+        Class<?> type = getComponentType();
+        return type == int.class ? int[].class : type == long.class ? long[].class : double[].class;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayOrListComposite cloneIfImmutable(AbstractOperationNode is, BlockStatement b) {
+        if (!isImmutable()) {
+            return this;
+        }
+        Identifier id = new Identifier(getArrayType(), "array");
+        b.add(newVar(id, getArrayType(), cloneForReturn(is)));
+        return create(getArrayType(), id);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression cloneForReturn(AbstractOperationNode is) {
+        is.addImport(ArrayUtil.class);
+        return staticMethodInvoke(ArrayUtil.class, "copy", asExpression());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Class<?> getComponentType() {
+        Class<?> type = getType();
+        if (LongBuffer.class.isAssignableFrom(type)) {
+            return long.class;
+        } else if (DoubleBuffer.class.isAssignableFrom(type)) {
+            return double.class;
+        }
+        return int.class;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "buffer";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isDefaultBounds() {
+        return false; // there is no method for copying all elements of a buffer
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression isEmpty() {
+        return getUpperBound().equalsTo(getLowerBound());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferComposite withAccessor(Expression e) {
+        return new BufferComposite(getType(), e, getLowerBound(), getUpperBound(), isImmutable());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferComposite withBounds(Expression lowerBound, Expression upperBound) {
+        return new BufferComposite(getType(), getAccessor(), lowerBound, upperBound, isImmutable());
+    }
+
+    /**
+     * Returns whether or not the specified type is a buffer type supported by this composite.
+     *
+     * @param type
+     *            the type to test
+     * @return whether or not the specified type is a supported buffer type
+     */
+    public static boolean isBuffer(Class<?> type) {
+        return ByteBuffer.class.isAssignableFrom(type) || DoubleBuffer.class.isAssignableFrom(type)
+                || IntBuffer.class.isAssignableFrom(type) || LongBuffer.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import static io.faststream.codegen.model.expression.Expressions.literal;
+import static io.faststream.codegen.model.expression.Expressions.staticMethodInvoke;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.query.runtime.MapEntries;
+import io.faststream.query.db.query.runtime.MapUtil;
+
+/**
+ * The keys, values or entries of an open addressing hash table with parallel key and value arrays. Slots without an
+ * entry have a null key, so the table is iterated by index, skipping the empty slots. Operations that need the
+ * elements to be stored consecutively, such as sorting, copy the elements into an array first.
+ *
+ * @author Kasper Nielsen
+ */
+public class HashTableComposite extends ArrayOrListComposite {
+
+    /** The part of each entry that makes up the elements. */
+    public enum Kind {
+        /** The entries as {@link Map.Entry immutable entries}. */
+        ENTRIES,
+
+        /** The keys of the entries. */
+        KEYS,
+
+        /** The values of the entries. */
+        VALUES;
+    }
+
+    /** The part of each entry that makes up the elements. */
+    private final Kind kind;
+
+    /** The number of entries in the table. Is of int type. */
+    private final Expression size;
+
+    /** The values of the table. */
+    private final Expression values;
+
+    /**
+     * Creates a new composite.
+     *
+     * @param kind
+     *            the part of each entry that makes up the elements
+     * @param keys
+     *            the keys of the table
+     * @param values
+     *            the values of the table
+     * @param size
+     *            the number of entries in the table
+     */
+    public HashTableComposite(Kind kind, Expression keys, Expression values, Expression size) {
+        this(kind, keys, values, size, literal(0), keys.fieldAccess("length"));
+    }
+
+    private HashTableComposite(Kind kind, Expression keys, Expression values, Expression size,
+            Expression lowerBound, Expression upperBound) {
+        super(Object[].class, keys, lowerBound, upperBound, false);
+        this.kind = requireNonNull(kind);
+        this.values = requireNonNull(values);
+        this.size = requireNonNull(size);
+    }
+
+    /** @return the part of each entry that makes up the elements */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression getElement(Expression index) {
+        Expression key = getAccessor().arrayAccess(index);
+        if (kind == Kind.KEYS) {
+            return key;
+        }
+        Expression value = values.arrayAccess(index);
+        return kind == Kind.VALUES ? value : staticMethodInvoke(MapUtil.class, "immutableEntry", key, value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "table";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression isEmpty() {
+        return size().equalsTo(literal(0));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression isPresent(Expression index) {
+        return getAccessor().arrayAccess(index).notEquals(literal(null));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isIterableOnly() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isSizeKnown() {
+        return isDefaultBounds();
+    }
+
+    /**
+     * Returns the number of entries in the table. The number of entries in a range of the table is not known without
+     * iterating it.
+     *
+     * @throws IllegalStateException
+     *             if the bounds of this composite does not cover the whole table
+     */
+    @Override
+    public Expression size() {
+        if (!isDefaultBounds()) {
+            throw new IllegalStateException("The number of entries in a range of the table is not known");
+        }
+        return size;
+    }
+
+    /**
+     * Returns an expression that copies the elements into a new collection.
+     *
+     * @return an expression that copies the elements into a new collection
+     */
+    public Expression toCollection() {
+        Expression map = staticMethodInvoke(MapEntries.class, "of", getAccessor(), values, size).invoke("toMap")
+                .cast(Map.class).encapsulate();
+        return map.invoke(kind == Kind.KEYS ? "keySet" : kind == Kind.VALUES ? "values" : "entrySet");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public HashTableComposite withAccessor(Expression e) {
+        return new HashTableComposite(kind, e, values, size, getLowerBound(), getUpperBound());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public HashTableComposite withBounds(Expression lowerBound, Expression upperBound) {
+        return new HashTableComposite(kind, getAccessor(), values, size, lowerBound, upperBound);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import static io.faststream.codegen.model.expression.Expressions.literal;
+import static io.faststream.codegen.model.expression.Expressions.staticMethodInvoke;
+import static java.util.Objects.requireNonNull;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.query.runtime.MapEntries;
+
+/**
+ * An open addressing hash table with parallel key and value arrays, queried as a map. Slots without an entry have a
+ * null key.
+ *
+ * @author Kasper Nielsen
+ * @see HashTableComposite
+ */
+public class HashTableMapComposite extends IndexedMapComposite {
+
+    /** The number of entries in the table. Is of int type. */
+    private final Expression size;
+
+    /** The values of the table. */
+    private final Expression values;
+
+    /**
+     * Creates a new composite.
+     *
+     * @param keys
+     *            the keys of the table
+     * @param values
+     *            the values of the table
+     * @param size
+     *            the number of entries in the table
+     */
+    public HashTableMapComposite(Expression keys, Expression values, Expression size) {
+        super(keys);
+        this.values = requireNonNull(values);
+        this.size = requireNonNull(size);
+    }
+
+    /**
+     * Returns an expression that copies the entries of the table into a new {@link MapEntries}.
+     *
+     * @return an expression that copies the entries of the table
+     */
+    public Expression entries() {
+        return staticMethodInvoke(MapEntries.class, "of", getAccessor(), values, size);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StreamingMapComposite getEntry(Expression index) {
+        return new StreamingMapComposite(Object.class, getAccessor().arrayAccess(index), Object.class,
+                values.arrayAccess(index));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Class<?> getType() {
+        return Object[].class;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression getUpperBound() {
+        return getAccessor().fieldAccess("length");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression isPresent(Expression index) {
+        return getAccessor().arrayAccess(index).notEquals(literal(null));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression size() {
+        return size;
+    }
+}
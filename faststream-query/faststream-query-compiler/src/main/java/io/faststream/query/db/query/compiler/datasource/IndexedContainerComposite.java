@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import static io.faststream.codegen.model.expression.Expressions.literal;
+import static java.util.Objects.requireNonNull;
+
+import io.faststream.codegen.model.expression.Expression;
+
+/**
+ * A custom container whose elements are accessed through a {@code get(int)} method, and whose number of elements is
+ * returned by a {@code size()} method. The container is iterated by index, operations that need the elements in an
+ * array, such as sorting, copy the elements into an array first.
+ *
+ * @author Kasper Nielsen
+ */
+public class IndexedContainerComposite extends ArrayOrListComposite {
+
+    /** The name of the method taking an index and returning the element at the index. */
+    private final String get;
+
+    /** The name of the method returning the number of elements. */
+    private final String size;
+
+    /**
+     * Creates a new composite.
+     *
+     * @param type
+     *            the type of the container
+     * @param accessor
+     *            an expression to access the container
+     * @param get
+     *            the name of the method taking an index and returning the element at the index
+     * @param size
+     *            the name of the method returning the number of elements
+     */
+    public IndexedContainerComposite(Class<?> type, Expression accessor, String get, String size) {
+        this(type, accessor, get, size, literal(0), accessor.invoke(size));
+    }
+
+    private IndexedContainerComposite(Class<?> type, Expression accessor, String get, String size,
+            Expression lowerBound, Expression upperBound) {
+        super(type, accessor, lowerBound, upperBound, false);
+        this.get = requireNonNull(get);
+        this.size = requireNonNull(size);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression getElement(Expression index) {
+        return getAccessor().invoke(get, requireNonNull(index));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "container";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isDefaultBounds() {
+        return getLowerBound().equals(literal(0)) && getUpperBound().equals(getAccessor().invoke(size));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Expression isEmpty() {
+        return getUpperBound().equalsTo(getLowerBound());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isIterableOnly() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexedContainerComposite withAccessor(Expression e) {
+        return new IndexedContainerComposite(getType(), e, get, size, getLowerBound(), getUpperBound());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexedContainerComposite withBounds(Expression lowerBound, Expression upperBound) {
+        return new IndexedContainerComposite(getType(), getAccessor(), get, size, lowerBound, upperBound);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import io.faststream.codegen.model.expression.Expression;
+
+/**
+ * A map whose entries can be accessed by index, from 0 (inclusive) to the {@link #getUpperBound() upper bound}
+ * (exclusive).
+ *
+ * @author Kasper Nielsen
+ */
+public abstract class IndexedMapComposite extends Composite {
+
+    /**
+     * @param accessor
+     *            the map
+     */
+    IndexedMapComposite(Expression accessor) {
+        super(accessor);
+    }
+
+    /**
+     * Returns a composite for the entry at the specified index.
+     *
+     * @param index
+     *            the index of the entry
+     * @return a composite for the entry at the specified index
+     */
+    public abstract StreamingMapComposite getEntry(Expression index);
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "map";
+    }
+
+    /** @return the index after the last entry, by default the size of the map */
+    public Expression getUpperBound() {
+        return size();
+    }
+
+    /**
+     * Returns an expression that tests whether or not the specified index holds an entry.
+     *
+     * @param index
+     *            the index to test
+     * @return an expression that tests whether or not the specified index holds an entry, or null if every index
+     *         below the upper bound holds an entry
+     */
+    public Expression isPresent(Expression index) {
+        return null;
+    }
+
+    /** @return the number of entries in the map */
+    public Expression size() {
+        return getAccessor().invoke("size");
+    }
+}
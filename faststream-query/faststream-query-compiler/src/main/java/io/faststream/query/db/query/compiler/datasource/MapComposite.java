@@ -20,21 +20,31 @@ import java.util.Map;
 import io.faststream.codegen.model.expression.Expression;
 
 /**
+ * A {@link Map}, whose entries are iterated using {@link Map#entrySet()}.
  *
  * @author Kasper Nielsen
  */
 public class MapComposite extends Composite {
 
+    /**
+     * @param accessor
+     *            the map
+     */
     public MapComposite(Expression accessor) {
         super(accessor);
     }
 
+    /** @return an iterator over the entries of the map */
+    public Expression iterator() {
+        return getAccessor().invoke("entrySet").invoke("iterator");
+    }
+
     public Expression isEmpty() {
-        throw new UnsupportedOperationException();
+        return getAccessor().invoke("isEmpty");
     }
 
     public Expression size() {
-        throw new UnsupportedOperationException();
+        return getAccessor().invoke("size");
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.query.runtime.MapEntries;
+
+/**
+ * The entries of a map view that have been collected into {@link MapEntries}, for example, before sorting them.
+ *
+ * @author Kasper Nielsen
+ */
+public class MapEntriesComposite extends IndexedMapComposite {
+
+    /**
+     * @param accessor
+     *            the entries
+     */
+    public MapEntriesComposite(Expression accessor) {
+        super(accessor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StreamingMapComposite getEntry(Expression index) {
+        return new StreamingMapComposite(Object.class, getAccessor().invoke("keyAt", index), Object.class,
+                getAccessor().invoke("valueAt", index));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Class<?> getType() {
+        return MapEntries.class;
+    }
+}
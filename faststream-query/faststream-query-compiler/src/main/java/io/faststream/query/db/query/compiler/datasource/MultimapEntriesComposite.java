@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.datasource;
+
+import io.faststream.codegen.model.expression.Expression;
+import io.faststream.query.db.query.runtime.MultimapEntries;
+
+/**
+ * The entries of a multimap view that have been grouped by key into {@link MultimapEntries}.
+ *
+ * @author Kasper Nielsen
+ */
+public class MultimapEntriesComposite extends Composite {
+
+    /**
+     * @param accessor
+     *            the entries
+     */
+    public MultimapEntriesComposite(Expression accessor) {
+        super(accessor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "multimap";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Class<?> getType() {
+        return MultimapEntries.class;
+    }
+}
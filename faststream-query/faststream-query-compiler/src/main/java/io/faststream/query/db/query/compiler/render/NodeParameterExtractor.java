@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import io.faststream.codegen.core.CodegenUtil;
 import io.faststream.codegen.model.body.VariableDeclarator;
@@ -30,6 +31,7 @@ import io.faststream.codegen.model.expression.VariableDeclarationExpression;
 import io.faststream.codegen.model.statement.BlockStatement;
 import io.faststream.codegen.model.type.Type;
 import io.faststream.query.db.query.common.nodes.elements.IterateContinue;
+import io.faststream.query.db.query.compiler.render.util.FunctionClasses;
 import io.faststream.query.db.query.node.QueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.plan.QueryNode;
@@ -51,8 +53,11 @@ class NodeParameterExtractor {
      *            the query plan
      * @param importset
      *            a set of imports
+     * @param specializable
+     *            tests whether or not a function can be declared with its concrete class, or null if functions are
+     *            always declared with their functional interface
      */
-    static void extract(Expression node, QueryPlan plan, BlockStatement bs) {
+    static void extract(Expression node, QueryPlan plan, BlockStatement bs, Predicate<Class<?>> specializable) {
         // Since we sometimes optimize some statements away we need to find all query operations
         // that are still in the query and which provides one or more parameters
         Map<QueryOperationNode, List<QueryOperationParameter>> m = new HashMap<>();
@@ -67,12 +72,12 @@ class NodeParameterExtractor {
         }
         // Extract the actual parameters if there are any
         if (!m.isEmpty()) {
-            extract(node, plan, bs, m);
+            extract(node, plan, bs, m, specializable);
         }
     }
 
     private static void extract(Expression node, QueryPlan plan, BlockStatement bs,
-            Map<QueryOperationNode, List<QueryOperationParameter>> m) {
+            Map<QueryOperationNode, List<QueryOperationParameter>> m, Predicate<Class<?>> specializable) {
         Expression accessor = node; // The terminal node
 
         QueryOperationNode[] operations = plan.getTerminalOperation().operations();
@@ -86,8 +91,17 @@ class NodeParameterExtractor {
 
                 for (QueryOperationParameter parameter : c) {
 
+                    // Declaring the function with its concrete class allows the JIT to bind the calls statically
+                    Class<?> type = parameter.getType();
+                    if (specializable != null) {
+                        Class<?> functionClass = FunctionClasses.of(operationNode, parameter.getIndex() - 1);
+                        if (functionClass != null && specializable.test(functionClass)) {
+                            type = functionClass;
+                        }
+                    }
+
                     plan.imports.add(operationNode.getClass());
-                    plan.imports.add(parameter.getType());
+                    plan.imports.add(type);
 
                     // Create code that extracts the previous QueryOperation
                     String method = "get" + CodegenUtil.capitalizeFirstLetter(parameter.getName());
@@ -100,7 +114,9 @@ class NodeParameterExtractor {
                     } else {
                         e = new EncapsulatedExpression(accessor.cast(operationNode.getClass()));
                     }
-                    define(bs, Type.of(parameter.getType()), parameter.accessor(), e.invoke(method));
+                    Expression value = e.invoke(method);
+                    define(bs, Type.of(type), parameter.accessor(), type == parameter.getType() ? value : value
+                            .cast(type));
                 }
                 bs.addEmptyLine();
             }
@@ -15,6 +15,7 @@
  */
 package io.faststream.query.db.query.compiler.render;
 
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -26,7 +27,7 @@ import io.faststream.codegen.model.expression.VariableDeclarationExpression;
 import io.faststream.codegen.model.placeholders.PlaceholderStatement;
 import io.faststream.codegen.model.statement.BlockStatement;
 import io.faststream.codegen.model.statement.ExpressionStatement;
-import io.faststream.codegen.model.visitor.JavaRenderer;
+import io.faststream.codegen.model.visitor.JaninoRenderer;
 import io.faststream.codegen.model.visitor.Visitors;
 import io.faststream.query.db.query.common.nodes.elements.RealNode;
 import io.faststream.query.db.query.compiler.datasource.Composite;
@@ -46,7 +47,21 @@ import io.faststream.query.db.query.plan.QueryPlan;
  */
 public final class QueryPlanRender {
 
-    public static final QueryPlanRender DEFAULT = new QueryPlanRender();
+    public static final QueryPlanRender DEFAULT = new QueryPlanRender(null);
+
+    /** Tests whether or not generated code may use the concrete class of a function, or null if it never may. */
+    private final Predicate<Class<?>> specializable;
+
+    /**
+     * Creates a new render.
+     *
+     * @param specializable
+     *            tests whether or not the generated code may declare a function with its concrete class, instead of
+     *            its functional interface. Or null if functions are always declared with their functional interface
+     */
+    public QueryPlanRender(Predicate<Class<?>> specializable) {
+        this.specializable = specializable;
+    }
 
     public void render(ViewRender vr, QueryPlan plan, CodegenBlock block) {
         BlockStatement bs = plan.getPq().main;
@@ -57,7 +72,7 @@ public final class QueryPlanRender {
         writeQueryInformation(plan, bs);
 
         // Extracts all functions (predicates, consumers, comparators, ...) from the various nodes.
-        NodeParameterExtractor.extract(new NameExpression("node"), plan, bs);
+        NodeParameterExtractor.extract(new NameExpression("node"), plan, bs, specializable);
 
         Composite com = plan.getPq().getRoot().sources().getMain();
         Expression main = null;
@@ -68,6 +83,7 @@ public final class QueryPlanRender {
             NameExpression na = new NameExpression("main");
             // The expression declaring the temporary variable
             VariableDeclarationExpression newVar = Expressions.newVar(na, com.getType(), com.getAccessor());
+            plan.imports.add(com.getType());
             bs.add(place);
             main = com.getAccessor();
             replaceWith = na;
@@ -94,11 +110,14 @@ public final class QueryPlanRender {
         Visitors.renameDuplicateNameExpressions(bs);
         ReducerSimplifier.check(plan, bs);
 
-        vr.render();
+        // Views are rendered without a view render
+        if (vr != null) {
+            vr.render();
+        }
 
         // Renders the actual java code, from the model
         block.addImports(plan.imports);
-        block.add(JavaRenderer.renderBlock(bs, 2));
+        block.add(JaninoRenderer.renderBlock(bs, 2));
     }
 
     private static void writeQueryInformation(QueryPlan plan, BlockStatement bs) {
@@ -30,7 +30,6 @@ import io.faststream.codegen.model.visitor.Visitors;
 import io.faststream.query.db.query.common.nodes.elements.MapElement;
 import io.faststream.query.db.query.common.nodes.elements.MultimapElement;
 import io.faststream.query.db.query.common.nodes.elements.SingleElement;
-import io.faststream.query.db.query.compiler.datasource.Composite;
 import io.faststream.query.db.query.compiler.datasource.StreamingComposite;
 import io.faststream.query.db.query.compiler.datasource.StreamingMapComposite;
 import io.faststream.query.db.query.compiler.render.PartialQuery;
@@ -43,11 +42,22 @@ import io.faststream.query.db.query.compiler.render.PartialQuery;
 public class CacheStatement extends PlaceholderStatement {
 
     private final static String CACHE_KEY = CacheStatement.class.getSimpleName();
-    final Composite c;
+
+    /** The expression that is cached. */
+    final Expression accessor;
+
+    /** The name of the variable holding the cached value. */
+    final String name;
+
+    /** The type of the variable holding the cached value. */
+    final Class<?> type;
+
     AbstractOperationNode first;
 
-    public CacheStatement(Composite c, AbstractOperationNode first) {
-        this.c = requireNonNull(c);
+    public CacheStatement(String name, Class<?> type, Expression accessor, AbstractOperationNode first) {
+        this.name = requireNonNull(name);
+        this.type = requireNonNull(type);
+        this.accessor = requireNonNull(accessor);
         this.first = first;
     }
 
@@ -62,27 +72,27 @@ public class CacheStatement extends PlaceholderStatement {
     }
 
     public static void addTo(SingleElement aon, StreamingComposite com) {
-        lazyCache(com.getAccessor(), aon, com);
+        lazyCache(com.getName(), com.getType(), com.getAccessor(), aon);
     }
 
-    private static void lazyCache(Expression accessor, AbstractOperationNode node, Composite com) {
+    private static void lazyCache(String name, Class<?> type, Expression accessor, AbstractOperationNode node) {
         Map<Expression, CacheStatement> cacheIt = cache(node.getTree(), true);
 
         if (!cacheIt.containsKey(accessor)) {
-            CacheStatement cs = new CacheStatement(com, node);
+            CacheStatement cs = new CacheStatement(name, type, accessor, node);
             cacheIt.putIfAbsent(accessor, cs);
             node.firstBlock().add(cs);
         }
     }
 
     public static void addTo(MultimapElement aon, StreamingMapComposite com) {
-        lazyCache(com.getKeyAccessor(), aon, com);
-        lazyCache(com.getValueAccessor(), aon, com);
+        lazyCache(com.getKeyName(), com.getKeyType(), com.getKeyAccessor(), aon);
+        lazyCache(com.getValueName(), com.getValueType(), com.getValueAccessor(), aon);
     }
 
     public static void addTo(MapElement aon, StreamingMapComposite com) {
-        lazyCache(com.getKeyAccessor(), aon, com);
-        lazyCache(com.getValueAccessor(), aon, com);
+        lazyCache(com.getKeyName(), com.getKeyType(), com.getKeyAccessor(), aon);
+        lazyCache(com.getValueName(), com.getValueType(), com.getValueAccessor(), aon);
     }
 
     public static void doMagic(PartialQuery pq) {
@@ -105,19 +115,12 @@ public class CacheStatement extends PlaceholderStatement {
         // All expressions that occur at least twice
         for (Expression e : countingSet.findGreaterThan(1)) {
             CacheStatement cs = cacheItMaybe.get(e);
-            NameExpression na = new NameExpression(cs.c.getName());
+            NameExpression na = new NameExpression(cs.name);
             Visitors.replace(pq.main, e, na);
 
             // The expression declaring the temporary variable
-            if (cs.c instanceof StreamingMapComposite) {
-
-                VariableDeclarationExpression newVar = Expressions.newVar(na,
-                        ((StreamingMapComposite) cs.c).getKeyType(), cs.c.getAccessor());
-                cs.setStatement(new ExpressionStatement(newVar));
-            } else {
-                VariableDeclarationExpression newVar = Expressions.newVar(na, cs.c.getType(), cs.c.getAccessor());
-                cs.setStatement(new ExpressionStatement(newVar));
-            }
+            VariableDeclarationExpression newVar = Expressions.newVar(na, cs.type, cs.accessor);
+            cs.setStatement(new ExpressionStatement(newVar));
         }
         // now remove all these temporary statements we have inserted
         // Visitors.removeStatements(plan.main, e -> e instanceof CacheStatement);
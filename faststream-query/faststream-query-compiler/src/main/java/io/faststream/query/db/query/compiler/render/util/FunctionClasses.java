@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.render.util;
+
+import static java.lang.reflect.Modifier.isAbstract;
+import static java.lang.reflect.Modifier.isPublic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.faststream.codegen.core.CodegenUtil;
+import io.faststream.query.db.query.node.QueryOperationNode;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+
+/**
+ * A helper class for finding the concrete classes of the functions (predicates, mappers, comparators, ...) that are
+ * captured by the operations of a query.
+ *
+ * @author Kasper Nielsen
+ */
+public final class FunctionClasses {
+
+    /** The type of the getters after they have been adapted. */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, QueryOperationNode.class);
+
+    /**
+     * The getters of the parameters of each type of operation, in the order they are defined by the operation. The
+     * getter of a parameter that is not a function is null.
+     */
+    private static final ConcurrentHashMap<Class<?>, MethodHandle[]> GETTERS = new ConcurrentHashMap<>();
+
+    /** Cannot instantiate. */
+    private FunctionClasses() {}
+
+    /**
+     * Returns the classes of all functions of all operations of the specified query. Starting with the functions of
+     * the terminal operation. A function that is null is represented by null. Parameters that are not functions, such
+     * as the identity of a reduction, are ignored.
+     *
+     * @param node
+     *            the terminal node of the query
+     * @return the classes of all functions of the query
+     */
+    public static List<Class<?>> of(TerminalQueryOperationNode node) {
+        ArrayList<Class<?>> result = new ArrayList<>();
+        // The root node is the data source and does not represent an operation
+        for (QueryOperationNode n = node; n.previous() != null; n = n.previous()) {
+            for (MethodHandle getter : getters(n)) {
+                if (getter != null) {
+                    Object o = invoke(getter, n);
+                    result.add(o == null ? null : o.getClass());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the class of a function parameter of the specified operation.
+     *
+     * @param node
+     *            the operation
+     * @param index
+     *            the index of the parameter, starting from 0
+     * @return the class of the parameter, or null if the parameter is null or not a function
+     */
+    public static Class<?> of(QueryOperationNode node, int index) {
+        MethodHandle getter = getters(node)[index];
+        Object o = getter == null ? null : invoke(getter, node);
+        return o == null ? null : o.getClass();
+    }
+
+    /**
+     * Returns whether or not the specified type is a functional interface.
+     *
+     * @param type
+     *            the type to test
+     * @return whether or not the specified type is a functional interface
+     */
+    static boolean isFunctionalInterface(Class<?> type) {
+        if (!type.isInterface()) {
+            return false;
+        } else if (type.isAnnotationPresent(FunctionalInterface.class)) {
+            return true;
+        }
+        int abstractMethods = 0;
+        for (Method m : type.getMethods()) {
+            if (isAbstract(m.getModifiers()) && !isObjectMethod(m)) {
+                abstractMethods++;
+            }
+        }
+        return abstractMethods == 1;
+    }
+
+    /** Returns whether or not the specified interface method is a public method of Object, such as equals. */
+    private static boolean isObjectMethod(Method m) {
+        try {
+            Object.class.getMethod(m.getName(), m.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether or not generated code can refer to the specified class by its name. Which is not the case for,
+     * for example, lambdas, anonymous classes and classes that are not public.
+     *
+     * @param type
+     *            the type to test
+     * @return whether or not generated code can refer to the specified class by its name
+     */
+    public static boolean isNameable(Class<?> type) {
+        if (type.isSynthetic() || type.getCanonicalName() == null || type.getPackage() == null
+                || type.getPackage().getName().isEmpty()) {
+            return false;
+        }
+        for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+            if (!isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MethodHandle[] getters(QueryOperationNode node) {
+        MethodHandle[] getters = GETTERS.get(node.getClass());
+        return getters == null ? GETTERS.computeIfAbsent(node.getClass(), c -> createGetters(node)) : getters;
+    }
+
+    private static MethodHandle[] createGetters(QueryOperationNode node) {
+        ArrayList<MethodHandle> result = new ArrayList<>();
+        for (String name : node.getOperationPackage().getAll().keySet()) {
+            String method = "get" + CodegenUtil.capitalizeFirstLetter(name);
+            try {
+                Method m = node.getClass().getMethod(method);
+                result.add(isFunctionalInterface(m.getReturnType()) ? MethodHandles.publicLookup().unreflect(m).asType(
+                        GETTER_TYPE) : null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not find " + method + "() on " + node.getClass(), e);
+            }
+        }
+        return result.toArray(new MethodHandle[result.size()]);
+    }
+
+    private static Object invoke(MethodHandle getter, QueryOperationNode node) {
+        try {
+            return (Object) getter.invokeExact(node);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e); // Getters do not throw checked exceptions
+        }
+    }
+}
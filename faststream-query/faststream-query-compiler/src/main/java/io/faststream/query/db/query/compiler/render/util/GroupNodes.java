@@ -17,6 +17,8 @@ package io.faststream.query.db.query.compiler.render.util;
 
 import java.util.ArrayList;
 
+import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.db.query.compiler.datasource.Composite;
 import io.faststream.query.db.query.node.Operation;
 import io.faststream.query.db.query.node.defaults.AllQueryOperations;
 import io.faststream.query.db.query.plan.QueryNode;
@@ -49,26 +51,51 @@ public class GroupNodes implements QueryPlan.Processor, AllQueryOperations {
         QueryNode root = plan.getPq().getRoot();
         boolean specielSpliterator = root.lastChild().is(CT_TO_ITERATOR, CT_TO_SPLITERATOR);
 
+        // A generated iterator/spliterator can only resume iterating the stream of a single flatMap operation. So if
+        // there are more, we break before the last one, and materialize the result of the operations up to it
         QueryNode lastFlatMap = null;
         if (specielSpliterator) {
+            int flatMaps = 0;
             for (QueryNode n : new ArrayList<>(root.children())) {
                 if (n.is(C_FLAT_MAP)) {
                     lastFlatMap = n;
+                    flatMaps++;
                 }
             }
+            if (flatMaps < 2) {
+                lastFlatMap = null;
+            }
+        }
+
+        // The elements of an iterable only composite can only be iterated. Any other operation, and iterators which resume
+        // iterating at an index, need the elements copied into an array by an empty group first
+        QueryNode first = root.firstChild();
+        Composite main = root.sources().getMain();
+        boolean isIterableOnly = main instanceof ArrayOrListComposite
+                && ((ArrayOrListComposite) main).isIterableOnly();
+        if (isIterableOnly && (!first.is(ITERABLE) || specielSpliterator)) {
+            StreamingGroup fa = new StreamingGroup();
+            fa.setSource(first.sources());
+            first.insertBeforeThis(fa);
+            isIterableOnly = false;
         }
+
         // We make a copy in case the processor changes the layout
         for (QueryNode n : new ArrayList<>(root.children())) {
             if (root == n.getParent()) {
-                processNode(n, lastFlatMap);
+                processNode(n, lastFlatMap, isIterableOnly && n == first);
             }
         }
     }
 
     // Det er vigtigt naar vi beregner navne
-    public void processNode(QueryNode n, QueryNode lastFlatMap) {
-
-        if (!n.is(ITERABLE) || n.is(CA_ITERABLE_NON_STARTING)) {
+    public void processNode(QueryNode n, QueryNode lastFlatMap, boolean isIterableOnly) {
+        // The size of a map is known without iterating it
+        if (!n.is(ITERABLE) || n.is(MT_SIZEABLE)) {
+            return;
+        }
+        // An iterable only composite must be iterated, unless only its size is needed and it is known
+        if (n.is(CA_ITERABLE_NON_STARTING) && (!isIterableOnly || isSizeKnown(n))) {
             return;
         }
         StreamingGroup fa = new StreamingGroup();
@@ -81,11 +108,13 @@ public class GroupNodes implements QueryPlan.Processor, AllQueryOperations {
         QueryNode next = n.next();
 
         fa.addChild(n);
-        if (!n.is(ITERABLE) || n == lastFlatMap) {
+        if (!n.is(ITERABLE)) {
             return;
         }
         // Man skal den som man plejer men skubber iterator ud paa deres egen linje
-        while (next != null && next.is(ITERABLE) && next != lastFlatMap) {
+        // An aggregation ends the group, the operations following it iterate the aggregated map instead
+        QueryNode last = n;
+        while (next != null && next.is(ITERABLE) && next != lastFlatMap && !last.is(AGGREGATING)) {
             QueryNode nextnext = next.next();
             if (right instanceof StreamingGroup || right.is(FILTER)) {
                 right.addChild(next);
@@ -95,7 +124,7 @@ public class GroupNodes implements QueryPlan.Processor, AllQueryOperations {
             if (next.is(FILTER)) {
                 right = next;
             }
-
+            last = next;
             next = nextnext;
         }
 
@@ -109,6 +138,11 @@ public class GroupNodes implements QueryPlan.Processor, AllQueryOperations {
         // }
         // }
     }
+    /** Returns whether or not the node only needs the size of its iterable only source, and the size is known. */
+    private static boolean isSizeKnown(QueryNode n) {
+        return n.is(SIZE, IS_EMPTY) && ((ArrayOrListComposite) n.sources().getMain()).isSizeKnown();
+    }
+
     // /** {@inheritDoc} */
     // public void processNod3e(QueryNode n) {
     // if (n.is(CA_ITERABLE, MA_ITERABLE) && !n.is(CT_ANYFIRSTLAST, CT_SIZEABLE)) {
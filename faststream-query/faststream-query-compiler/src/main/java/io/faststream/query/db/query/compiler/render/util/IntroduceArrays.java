@@ -59,12 +59,16 @@ public class IntroduceArrays implements AllQueryOperations, ModelProcessor {
             QueryNode n = c.get(i);
             CopyToArray cpa = null;
             if (n.children().size() > 0) {
-                cpa = (CopyToArray) n.firstChild().find(WalkOrder.DOWN_AND_IN).first(e -> e instanceof CopyToArray);
+                cpa = (CopyToArray) n.firstChild().findFirstIncludeThis(WalkOrder.DOWN_AND_IN,
+                        e -> e instanceof CopyToArray);
             }
             // System.out.println("A " + n + "  " + cpa);
             if (cpa != null) {
-                RealNode prev = (RealNode) cpa.find(WalkOrder.PREVIOUS_OR_PARENT).first();
-                Class<?> tmp = ((SingleElement) prev.getRealNext()).getElement().getType();
+                // A copy that is not preceded by any operation copies the elements of the data structure
+                QueryNode prev = cpa.find(WalkOrder.PREVIOUS_OR_PARENT).first();
+                RealNode real = prev instanceof RealNode ? ((RealNode) prev).getRealNext() : (RealNode) plan.getPq()
+                        .getRoot();
+                Class<?> tmp = ((SingleElement) real).getElement().getType();
                 Class<?> t = tmp.isPrimitive() ? tmp : Object.class;
                 if (first) {
                     cpa.ar = new Array(t);
@@ -16,7 +16,11 @@
 package io.faststream.query.db.query.compiler.render.util;
 
 import io.faststream.query.db.query.common.nodes.elements.CopyToArray;
+import io.faststream.query.db.query.common.nodes.elements.CopyToMapEntries;
+import io.faststream.query.db.query.common.nodes.elements.CopyToMultimapEntries;
 import io.faststream.query.db.query.common.nodes.elements.ForAll;
+import io.faststream.query.db.query.common.nodes.elements.InterpretMultimap;
+import io.faststream.query.db.query.common.nodes.elements.MapElement;
 import io.faststream.query.db.query.node.defaults.AllQueryOperations;
 import io.faststream.query.db.query.plan.QueryNode;
 import io.faststream.query.db.query.plan.QueryNodeProcessor;
@@ -41,14 +45,29 @@ public class IntroduceForAll extends QueryNodeProcessor implements AllQueryOpera
             // }
             // node.addChild(fa);
 
-            if (fa.next() != null) {
-                CopyToArray cta = new CopyToArray();
+            // An empty group only copies the elements of the data structure
+            if (fa.firstChild() == null) {
+                fa.addChild(new CopyToArray());
+                return;
+            }
+            QueryNode last = fa.next() == null ? null : fa.firstChild().find(WalkOrder.DOWN_AND_IN).last();
+            // Aggregations pass the aggregated map on to the next node themselves
+            if (last != null && !last.is(AGGREGATING)) {
+                // Map operations following the group need the entries, interpreted multimap operations the entries
+                // grouped by key, and other operations the elements
+                AbstractOperationNode cta;
+                if (fa.next() instanceof MapElement) {
+                    cta = new CopyToMapEntries();
+                } else if (fa.next() instanceof InterpretMultimap) {
+                    cta = new CopyToMultimapEntries();
+                } else {
+                    cta = new CopyToArray();
+                }
                 // cta.sets
-                QueryNode qn = fa.firstChild().find(WalkOrder.DOWN_AND_IN).last();
-                if (qn.is(FILTER, C_FLAT_MAP, C_DISTINCT)) {
-                    qn.addChild(cta);
+                if (last.is(FILTER, C_FLAT_MAP, C_DISTINCT)) {
+                    last.addChild(cta);
                 } else {
-                    qn.insertAfterThis(cta);
+                    last.insertAfterThis(cta);
                 }
             }
         }
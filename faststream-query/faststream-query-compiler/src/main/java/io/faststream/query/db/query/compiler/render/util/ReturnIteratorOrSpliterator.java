@@ -28,8 +28,10 @@ import io.faststream.codegen.model.expression.Expressions;
 import io.faststream.codegen.model.expression.NameExpression;
 import io.faststream.codegen.model.expression.NewInstanceExpression;
 import io.faststream.codegen.model.statement.BlockStatement;
+import io.faststream.codegen.model.statement.BreakStatement;
 import io.faststream.codegen.model.statement.WhileStatement;
 import io.faststream.codegen.model.type.ClassOrInterfaceType;
+import io.faststream.codegen.model.type.Type;
 import io.faststream.codegen.model.visitor.JavaRenderer;
 import io.faststream.codegen.model.visitor.Visitors;
 import io.faststream.query.db.query.common.nodes.elements.ForAll;
@@ -54,6 +56,9 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
     final List<QueryOperationParameter> l;
 
     final NameExpression next;
+
+    /** Whether a single element should be advanced, or all remaining elements. Only used by spliterators. */
+    final NameExpression single = new NameExpression("single");
     final PartialQuery pq;
 
     final SingleElement toIterator;
@@ -71,6 +76,18 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
 
     final String className;
 
+    /** The flatMap operation whose stream is iterated across invocations, or null if there is no such operation. */
+    QueryNode flatMap;
+
+    /** The field holding the stream returned by {@link #flatMap} that is currently being iterated. */
+    final NameExpression flatMapStream = new NameExpression("flatMapStream");
+
+    /** The field holding the iterator over {@link #flatMapStream}, null if no stream is being iterated. */
+    final NameExpression flatMapIterator = new NameExpression("flatMapIterator");
+
+    /** The block that continues iterating over {@link #flatMapStream}. */
+    final BlockStatement flatMapResume = new BlockStatement();
+
     /**
      *
      */
@@ -88,6 +105,7 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
 
     void build(ArrayOrListComposite existing) {
         ArrayOrListComposite newC = ArrayOrListComposite.create(existing.getType(), arrayName);
+        newC.setArraySource(existing.isArraySource());
         sources().setMain(newC);
         setIn(bs);
         render();
@@ -114,36 +132,32 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
             ArrayOrListComposite ac = (ArrayOrListComposite) v;
 
             NameExpression o = new NameExpression("o");
+            NameExpression cursor = new NameExpression("cursor");
+            NameExpression end = new NameExpression("end");
             pq.main = bs;
-            if (isIterator) {
-                NameExpression cursor = new NameExpression("cursor");
-                NameExpression end = new NameExpression("end");
+            // The iterator uses a pre increment because the cursor is moved to the next element when constructed
+            Expression element = ac.getElement(isIterator ? cursor.preIncrement() : cursor.postIncrement());
 
-                BlockStatement body = new BlockStatement();
+            BlockStatement body = new BlockStatement();
+            flatMap = pq.getRoot().findFirst(WalkOrder.DOWN_AND_IN, n -> n.is(C_FLAT_MAP));
+            if (flatMap == null) {
                 bs.add(new WhileStatement(cursor.lessThen(end), body));
-                body.add(newVar(o, ac.getComponentType(), arrayName.arrayAccess(cursor.preIncrement())));
-
-                bs.add(cursor.assign(end).plus(Expressions.literal(1)));
-                pq.getRoot().children().forEach(d -> d.setIn(body));
-                StreamingComposite sc = new StreamingComposite(Object.class, o);
-
-                pq.getRoot().children().forEach(d -> d.sources().setMain(sc));
-
             } else {
-                NameExpression cursor = new NameExpression("cursor");
-                NameExpression end = new NameExpression("end");
-
-                BlockStatement body = new BlockStatement();
-
-                bs.add(new WhileStatement(cursor.lessThen(end), body));
-                body.add(newVar(o, ac.getComponentType(), arrayName.arrayAccess(cursor.postIncrement())));
-
-                pq.getRoot().children().forEach(d -> d.setIn(body));
-                StreamingComposite sc = new StreamingComposite(Object.class, o);
-
-                pq.getRoot().children().forEach(d -> d.sources().setMain(sc));
+                // The elements of the stream returned by the flatMap operation are iterated in the next invocations.
+                // Instead of reading the whole stream (and the rest of the source) at once
+                bs.add(new WhileStatement(Expressions.literal(true), body));
+                body.addIf(flatMapIterator.notEquals(Expressions.literal(null)), flatMapResume);
+                body.addIf(cursor.greaterThenOrEquals(end), new BreakStatement());
+            }
+            body.add(newVar(o, ac.getComponentType(), element));
+            if (isIterator) {
+                bs.add(cursor.assign(end.plus(Expressions.literal(1))));
             }
 
+            pq.getRoot().children().forEach(d -> d.setIn(body));
+            StreamingComposite sc = new StreamingComposite(Object.class, o);
+            pq.getRoot().children().forEach(d -> d.sources().setMain(sc));
+
             pq.getRoot().renderChildren();
 
             vr.addRender(() -> new ReturnIteratorOrSpliteratorGenerator(cc, toIterator.getElement().getType(), this)
@@ -159,6 +173,59 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
 
     }
 
+    /**
+     * Returns whether or not every operation preserves the number of elements of the source. In which case the exact
+     * number of remaining elements of the iterator/spliterator is known.
+     *
+     * @return whether or not every operation preserves the number of elements of the source
+     */
+    boolean isSizePreserving() {
+        for (QueryNode n : pq.getRoot().depthFirstTraversal(n -> n != this && n != toIterator)) {
+            if (!n.is(CA_SIZE_CONSTANT)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether or not the stream returned by the specified flatMap operation is iterated across invocations of
+     * the generated iterator. If so, {@link #resumeFlatMap(Class, Type)} must be used to render the operation.
+     *
+     * @param flatMap
+     *            the flatMap operation
+     * @return whether or not the stream of the specified operation is iterated across invocations
+     */
+    public boolean isResumable(QueryNode flatMap) {
+        return this.flatMap == flatMap;
+    }
+
+    /**
+     * Adds the fields that keep track of the stream returned by the flatMap operation.
+     *
+     * @param streamType
+     *            the type of stream returned by the flatMap operation
+     * @param iteratorType
+     *            the type of iterator over the stream
+     * @return the block that is executed when the iterator is resumed, and {@link #getFlatMapIterator()} is non-null
+     */
+    public BlockStatement resumeFlatMap(Class<?> streamType, Type iteratorType) {
+        cc.addImport(streamType);
+        cc.addField(streamType, " ", flatMapStream, ";");
+        cc.addField(JavaRenderer.toString(iteratorType), " ", flatMapIterator, ";");
+        return flatMapResume;
+    }
+
+    /** @return the field holding the stream returned by the flatMap operation */
+    public NameExpression getFlatMapStream() {
+        return flatMapStream;
+    }
+
+    /** @return the field holding the iterator over the stream returned by the flatMap operation */
+    public NameExpression getFlatMapIterator() {
+        return flatMapIterator;
+    }
+
     /**
      * @return the next
      */
@@ -166,6 +233,11 @@ public class ReturnIteratorOrSpliterator extends StreamingGroup implements AllQu
         return next;
     }
 
+    /** @return the parameter indicating whether a spliterator should advance a single element or all elements */
+    public NameExpression getSingle() {
+        return single;
+    }
+
     public static void foo(ViewRender vr, PartialQuery plan) {
         QueryNode qn = plan.getRoot().lastChild();
         SingleElement se = qn.findFirst(WalkOrder.DOWN_AND_IN, SingleElement.class,
@@ -27,7 +27,8 @@ import io.faststream.codegen.core.CodegenClass;
 import io.faststream.codegen.core.CodegenMethod;
 import io.faststream.codegen.core.CodegenUtil;
 import io.faststream.codegen.model.expression.NameExpression;
-import io.faststream.codegen.model.visitor.JavaRenderer;
+import io.faststream.codegen.model.visitor.JaninoRenderer;
+import io.faststream.query.db.query.compiler.Order;
 import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
 import io.faststream.query.db.query.plan.QueryOperationParameterList.QueryOperationParameter;
 
@@ -99,7 +100,7 @@ public class ReturnIteratorOrSpliteratorGenerator {
             // m.add("this.cursor = 0;");
             m.add("this.end = end;");
             // m.add("System.out.println(start + \"-\" + end);");
-            generateSpliterator();
+            generateSpliterator(com);
         }
     }
 
@@ -109,7 +110,7 @@ public class ReturnIteratorOrSpliteratorGenerator {
 
         // m.add("while (cursor < end) {");
         // m.add(com.getComponentType(), " o = a[++cursor];");
-        m.add(JavaRenderer.renderBlock(ri.bs, 3));
+        m.add(JaninoRenderer.renderBlock(ri.bs, 3));
         // m.add("}");
         // m.add("cursor = end + 1;");
 
@@ -132,30 +133,50 @@ public class ReturnIteratorOrSpliteratorGenerator {
         }
     }
 
-    void generateSpliterator() {
+    void generateSpliterator(ArrayOrListComposite com) {
         c.addImport(t.getConsumerType(), Objects.class);
         CodegenMethod m = c.addMethod("public boolean tryAdvance(", t.getConsumerType(), " consumer)");
+        m.add("return advance(consumer, true);");
+
+        // All remaining elements are processed by a single invocation, instead of one invocation per element
+        m = c.addMethod("public void forEachRemaining(", t.getConsumerType(), " consumer)");
+        m.add("advance(consumer, false);");
+
+        m = c.addMethod("private boolean advance(", t.getConsumerType(), " consumer, boolean single)");
         m.add("Objects.requireNonNull(consumer, \"consumer is null\");");
-        m.add(JavaRenderer.renderBlock(ri.bs, 3));
+        m.add(JaninoRenderer.renderBlock(ri.bs, 3));
         m.add("return false;");
 
         m = c.addMethod("public ", t.getSpliteratorType().getCanonicalName(), " trySplit()");
         m.add("int mid = (cursor + end) >>> 1;");
-        m.add("if (cursor >= mid) {");
+        if (ri.flatMap == null) {
+            m.add("if (cursor >= mid) {");
+        } else {
+            // Elements of a stream returned by flatMap must be processed before the elements of a split
+            m.add("if (cursor >= mid || ", ri.flatMapIterator, " != null) {");
+        }
         m.add("return null;");
         m.add("}");
 
         String arg = ri.l.stream().map(e -> ", " + e.accessor().toString()).collect(Collectors.joining(""));
 
         m.add("return new ", ri.className, "(a, cursor, cursor = mid", arg, ");");
-        // int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
-        // return (lo >= mid) ? null : // divide range in half unless too small
-        // new ArrayListSpliterator<E>(list, lo, index = mid,
-        // expectedModCount);
 
+        ArrayList<String> characteristics = new ArrayList<>();
+        if (ri.toIterator.getOrder() == Order.ORDERED) {
+            characteristics.add("ORDERED");
+        }
+        // Same as the spliterators returned by Arrays.spliterator(). The array backing a list may still be modified
+        if (com.isArraySource()) {
+            characteristics.add("IMMUTABLE");
+        }
         c.addMethod("public long estimateSize()").add("return end - cursor;");
-        c.addMethod("public long getExactSizeIfKnown()").add("return end - cursor;");
-        c.addMethod("public int characteristics()").add("return SIZED | SUBSIZED;");
-
+        if (ri.isSizePreserving()) {
+            characteristics.add("SIZED");
+            characteristics.add("SUBSIZED");
+            c.addMethod("public long getExactSizeIfKnown()").add("return end - cursor;");
+        }
+        c.addMethod("public int characteristics()").add("return ",
+                characteristics.isEmpty() ? "0" : String.join(" | ", characteristics), ";");
     }
 }
@@ -83,6 +83,28 @@ public final class QueryOperationParameterList implements Iterable<QueryOperatio
         return parameters.get(2);
     }
 
+    /**
+     * Returns a parameter list containing the parameters of the first list followed by the parameters of the second
+     * list. Used when two nodes are merged into a single node.
+     *
+     * @param first
+     *            the first parameter list
+     * @param second
+     *            the second parameter list
+     * @return the combined parameter list
+     */
+    public static QueryOperationParameterList concat(QueryOperationParameterList first,
+            QueryOperationParameterList second) {
+        if (second.getSize() == 0) {
+            return first;
+        } else if (first.getSize() == 0) {
+            return second;
+        }
+        ArrayList<QueryOperationParameter> result = new ArrayList<>(first.parameters);
+        result.addAll(second.parameters);
+        return new QueryOperationParameterList(result);
+    }
+
     @SuppressWarnings("unchecked")
     public static QueryOperationParameterList from(QueryOperationNode view) {
         QueryOperationNodeDefinition o = view.getOperationPackage();
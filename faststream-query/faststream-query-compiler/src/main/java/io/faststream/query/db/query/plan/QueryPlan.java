@@ -21,7 +21,9 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import io.faststream.codegen.core.ImportSet;
+import io.faststream.query.db.query.common.nodes.elements.InterpretMultimap;
 import io.faststream.query.db.query.compiler.render.PartialQuery;
+import io.faststream.query.db.query.node.Operation;
 import io.faststream.query.db.query.node.QueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 
@@ -66,9 +68,17 @@ public final class QueryPlan {
         // setRoot(new QueryNode(new AliasedElement("root") {}) {});
         planner.initRoot(this);
         // Create initial nodes
-        for (QueryOperationNode n : terminalNode.operations()) {
-            QueryNode child = InstalledNodes.newInstance(n.getOperationPackage().getOperation());
-            child.setOperation(n.getOperationPackage().getOperation());
+        QueryOperationNode[] operations = terminalNode.operations();
+        for (int i = 0; i < operations.length; i++) {
+            QueryOperationNode n = operations[i];
+            Operation operation = n.getOperationPackage().getOperation();
+            // Multimap operations that depend on how values are grouped are interpreted, together with the rest
+            if (InterpretMultimap.isInterpreted(operation)) {
+                pq.getRoot().addChild(new InterpretMultimap(i));
+                break;
+            }
+            QueryNode child = InstalledNodes.newInstance(operation);
+            child.setOperation(operation);
             child.setParameterList(QueryOperationParameterList.from(n));
             pq.getRoot().addChild(child);
         }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A map from keys to an aggregated value per key, used by generated code for {@code groupBy(...).count()} and
+ * {@code groupBy(...).reduce(...)}. The keys are stored in the order they are added in a dense array that is indexed by
+ * an open addressing table using linear probing. Subclasses store the aggregated values in arrays with the same index
+ * as the key. So adding a value for a key that is already present allocates nothing.
+ *
+ * @author Kasper Nielsen
+ */
+public abstract class AggregatingHashMap {
+
+    /** The largest possible capacity of the table. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The keys in the order they were added. */
+    private Object[] keys;
+
+    /** The hash of each key in {@link #keys}. */
+    private int[] hashes;
+
+    /** The index in {@link #keys} plus 1 of the key in each slot, 0 marks an empty slot. */
+    private int[] table;
+
+    /** The number of keys. */
+    private int size;
+
+    /** The number of keys at which the table is rehashed into a larger table. */
+    private int threshold;
+
+    /** Creates a new map. */
+    AggregatingHashMap() {
+        keys = new Object[0];
+        hashes = new int[0];
+        allocate(16);
+    }
+
+    /**
+     * Returns the index of the specified key. Adding it if it is not already present, in which case the returned index
+     * is equal to the size of this map before the key was added.
+     *
+     * @param key
+     *            the key, may be null
+     * @return the index of the key
+     */
+    final int indexOf(Object key) {
+        int h = hash(key);
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int i = h & mask;
+        for (int slot; (slot = table[i]) != 0; i = (i + 1) & mask) {
+            int index = slot - 1;
+            if (hashes[index] == h && Objects.equals(keys[index], key)) {
+                return index;
+            }
+        }
+        int index = size;
+        keys[index] = key;
+        hashes[index] = h;
+        table[i] = index + 1;
+        if (++size >= threshold) {
+            rehash();
+        }
+        return index;
+    }
+
+    /**
+     * Returns the key at the specified index.
+     *
+     * @param index
+     *            the index of the key, in the order the keys were added
+     * @return the key at the specified index
+     */
+    public final Object keyAt(int index) {
+        return keys[index];
+    }
+
+    /** @return the number of keys in this map */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Copies the keys and values of this map into a new map that keeps the order the keys were added in.
+     *
+     * @return the new map
+     */
+    public final Map<Object, Object> toMap() {
+        return toMap(LinkedHashMap.class);
+    }
+
+    /**
+     * Copies the keys and values of this map into a new map of the specified type.
+     *
+     * @param type
+     *            the type of map to return, either {@code Map}, {@code HashMap}, {@code LinkedHashMap} or
+     *            {@code ConcurrentHashMap}
+     * @return the new map
+     */
+    public final Map<Object, Object> toMap(Class<?> type) {
+        Map<Object, Object> map;
+        if (type == ConcurrentHashMap.class) {
+            map = new ConcurrentHashMap<>(size);
+        } else {
+            map = type == HashMap.class ? new HashMap<>(size) : new LinkedHashMap<>(size);
+        }
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], valueAt(i));
+        }
+        return map;
+    }
+
+    /**
+     * Returns the aggregated value of the key at the specified index.
+     *
+     * @param index
+     *            the index of the key
+     * @return the aggregated value
+     */
+    public abstract Object valueAt(int index);
+
+    /**
+     * Invoked whenever the arrays holding the keys are resized. Subclasses must resize their arrays to the same length.
+     * Is first invoked from the constructor of this class, before the fields of the subclass have been initialized.
+     *
+     * @param length
+     *            the new length of the arrays
+     */
+    abstract void resize(int length);
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        // Always leave at least one empty slot, otherwise a lookup of an absent key would never terminate
+        threshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+        // A key is added before the table is rehashed, so the arrays must have room for threshold keys
+        keys = Arrays.copyOf(keys, threshold);
+        hashes = Arrays.copyOf(hashes, threshold);
+        resize(threshold);
+    }
+
+    private void rehash() {
+        int length = table.length;
+        if (length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map cannot contain more than " + threshold + " keys");
+        }
+        allocate(length << 1);
+        int[] table = this.table;
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int i = hashes[index] & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = index + 1;
+        }
+    }
+
+    /** Spreads the bits of the hash code, as the lower bits of hash codes such as Integer.hashCode() are poor. */
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -15,7 +15,12 @@
  */
 package io.faststream.query.db.query.runtime;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -30,6 +35,32 @@ public class ArrayUtil {
 
     private static final String OUT_OF_MEMORY = "Required array size too large, size=";
 
+    public static int[] copy(ByteBuffer n, int from, int to) {
+        int[] result = new int[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = n.get(i);
+        }
+        return result;
+    }
+
+    public static double[] copy(DoubleBuffer n, int from, int to) {
+        double[] result = new double[to - from];
+        ((DoubleBuffer) n.duplicate().limit(to).position(from)).get(result);
+        return result;
+    }
+
+    public static int[] copy(IntBuffer n, int from, int to) {
+        int[] result = new int[to - from];
+        ((IntBuffer) n.duplicate().limit(to).position(from)).get(result);
+        return result;
+    }
+
+    public static long[] copy(LongBuffer n, int from, int to) {
+        long[] result = new long[to - from];
+        ((LongBuffer) n.duplicate().limit(to).position(from)).get(result);
+        return result;
+    }
+
     public static double[] copy(double[] n) {
         return Arrays.copyOf(n, n.length);
     }
@@ -67,11 +98,16 @@ public class ArrayUtil {
     }
 
     public static double[] distinct(double[] n, int from, int to) {
-        HashSet<Double> i = new HashSet<>();
+        // Double.equals() compares the bits of two doubles
+        LongHashSet set = new LongHashSet();
+        double[] result = new double[to - from];
+        int size = 0;
         for (int j = from; j < to; j++) {
-            i.add(n[j]);
+            if (set.add(Double.doubleToLongBits(n[j]))) {
+                result[size++] = n[j];
+            }
         }
-        return i.stream().mapToDouble(e -> e).toArray();
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
     public static int[] distinct(int[] n) {
@@ -79,11 +115,15 @@ public class ArrayUtil {
     }
 
     public static int[] distinct(int[] n, int from, int to) {
-        HashSet<Integer> i = new HashSet<>();
+        IntHashSet set = new IntHashSet();
+        int[] result = new int[to - from];
+        int size = 0;
         for (int j = from; j < to; j++) {
-            i.add(n[j]);
+            if (set.add(n[j])) {
+                result[size++] = n[j];
+            }
         }
-        return i.stream().mapToInt(e -> e).toArray();
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
     public static long[] distinct(long[] n) {
@@ -91,11 +131,15 @@ public class ArrayUtil {
     }
 
     public static long[] distinct(long[] n, int from, int to) {
-        HashSet<Long> i = new HashSet<>();
+        LongHashSet set = new LongHashSet();
+        long[] result = new long[to - from];
+        int size = 0;
         for (int j = from; j < to; j++) {
-            i.add(n[j]);
+            if (set.add(n[j])) {
+                result[size++] = n[j];
+            }
         }
-        return i.stream().mapToLong(e -> e).toArray();
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
     public static Object[] distinct(Object[] n) {
@@ -103,11 +147,51 @@ public class ArrayUtil {
     }
 
     public static Object[] distinct(Object[] n, int from, int to) {
-        HashSet<Object> i = new HashSet<>();
+        HashSet<Object> set = new HashSet<>();
+        Object[] result = new Object[to - from];
+        int size = 0;
         for (int j = from; j < to; j++) {
-            i.add(n[j]);
+            if (set.add(n[j])) {
+                result[size++] = n[j];
+            }
         }
-        return i.toArray();
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /** Returns the distinct elements of the specified range, which must be sorted. */
+    public static double[] distinctSorted(double[] n, int from, int to) {
+        double[] result = new double[to - from];
+        int size = 0;
+        for (int j = from; j < to; j++) {
+            if (size == 0 || Double.doubleToLongBits(n[j]) != Double.doubleToLongBits(result[size - 1])) {
+                result[size++] = n[j];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /** Returns the distinct elements of the specified range, which must be sorted. */
+    public static int[] distinctSorted(int[] n, int from, int to) {
+        int[] result = new int[to - from];
+        int size = 0;
+        for (int j = from; j < to; j++) {
+            if (size == 0 || n[j] != result[size - 1]) {
+                result[size++] = n[j];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /** Returns the distinct elements of the specified range, which must be sorted. */
+    public static long[] distinctSorted(long[] n, int from, int to) {
+        long[] result = new long[to - from];
+        int size = 0;
+        for (int j = from; j < to; j++) {
+            if (size == 0 || n[j] != result[size - 1]) {
+                result[size++] = n[j];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
     public static int nextArraySize(int n) {
@@ -155,6 +239,390 @@ public class ArrayUtil {
         return toList(o);
     }
 
+    /**
+     * Returns the number of elements kept by {@link #sortedTop(int[], int, int, long, boolean)} and friends.
+     *
+     * @param size
+     *            the number of elements in the range
+     * @param n
+     *            the number of elements to keep, negative to keep the last elements
+     * @return the number of elements kept
+     */
+    private static int sortedTopCount(int size, long n) {
+        return n < 0 ? (n < -size ? size : (int) -n) : (int) Math.min(n, size);
+    }
+
+    /**
+     * Equivalent to sorting a copy of the specified range, reversing it if {@code reverse} is true, and then keeping
+     * the first {@code n} elements, or the last {@code -n} elements if {@code n} is negative. But instead of sorting
+     * all elements the {@code n} elements that are kept are selected using a bounded binary heap. Which takes
+     * O(size * log(n)) time and O(n) space.
+     *
+     * @param a
+     *            the array
+     * @param from
+     *            the index of the first element (inclusive)
+     * @param to
+     *            the index of the last element (exclusive)
+     * @param n
+     *            the number of elements to keep, negative to keep the last elements
+     * @param reverse
+     *            whether or not the elements are sorted in descending order
+     * @return a new array with the kept elements
+     */
+    public static double[] sortedTop(double[] a, int from, int to, long n, boolean reverse) {
+        int size = to - from;
+        int k = sortedTopCount(size, n);
+        boolean largest = n < 0 != reverse;
+        double[] h;
+        if (k > size >>> 2) { // A full sort is faster if most of the elements are kept
+            double[] s = Arrays.copyOfRange(a, from, to);
+            Arrays.sort(s);
+            h = largest ? Arrays.copyOfRange(s, size - k, size) : Arrays.copyOf(s, k);
+            largest = false;
+        } else {
+            h = new double[k];
+            if (k > 0) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    double e = a[i];
+                    if (count < k) {
+                        siftUp(h, count++, e, largest);
+                    } else if (worse(h[0], e, largest)) {
+                        siftDown(h, e, k, largest);
+                    }
+                }
+                for (int i = k - 1; i > 0; i--) { // heap sort, the worst element is moved to the end
+                    double e = h[i];
+                    h[i] = h[0];
+                    siftDown(h, e, i, largest);
+                }
+            }
+        }
+        if (largest != reverse) {
+            for (int i = 0, j = k - 1; i < j; i++, j--) {
+                double tmp = h[i];
+                h[i] = h[j];
+                h[j] = tmp;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Equivalent to sorting a copy of the specified range, reversing it if {@code reverse} is true, and then keeping
+     * the first {@code n} elements, or the last {@code -n} elements if {@code n} is negative. But instead of sorting
+     * all elements the {@code n} elements that are kept are selected using a bounded binary heap. Which takes
+     * O(size * log(n)) time and O(n) space.
+     *
+     * @param a
+     *            the array
+     * @param from
+     *            the index of the first element (inclusive)
+     * @param to
+     *            the index of the last element (exclusive)
+     * @param n
+     *            the number of elements to keep, negative to keep the last elements
+     * @param reverse
+     *            whether or not the elements are sorted in descending order
+     * @return a new array with the kept elements
+     */
+    public static int[] sortedTop(int[] a, int from, int to, long n, boolean reverse) {
+        int size = to - from;
+        int k = sortedTopCount(size, n);
+        boolean largest = n < 0 != reverse;
+        int[] h;
+        if (k > size >>> 2) { // A full sort is faster if most of the elements are kept
+            int[] s = Arrays.copyOfRange(a, from, to);
+            Arrays.sort(s);
+            h = largest ? Arrays.copyOfRange(s, size - k, size) : Arrays.copyOf(s, k);
+            largest = false;
+        } else {
+            h = new int[k];
+            if (k > 0) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    int e = a[i];
+                    if (count < k) {
+                        siftUp(h, count++, e, largest);
+                    } else if (largest ? e > h[0] : e < h[0]) {
+                        siftDown(h, e, k, largest);
+                    }
+                }
+                for (int i = k - 1; i > 0; i--) { // heap sort, the worst element is moved to the end
+                    int e = h[i];
+                    h[i] = h[0];
+                    siftDown(h, e, i, largest);
+                }
+            }
+        }
+        if (largest != reverse) {
+            for (int i = 0, j = k - 1; i < j; i++, j--) {
+                int tmp = h[i];
+                h[i] = h[j];
+                h[j] = tmp;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Equivalent to sorting a copy of the specified range, reversing it if {@code reverse} is true, and then keeping
+     * the first {@code n} elements, or the last {@code -n} elements if {@code n} is negative. But instead of sorting
+     * all elements the {@code n} elements that are kept are selected using a bounded binary heap. Which takes
+     * O(size * log(n)) time and O(n) space.
+     *
+     * @param a
+     *            the array
+     * @param from
+     *            the index of the first element (inclusive)
+     * @param to
+     *            the index of the last element (exclusive)
+     * @param n
+     *            the number of elements to keep, negative to keep the last elements
+     * @param reverse
+     *            whether or not the elements are sorted in descending order
+     * @return a new array with the kept elements
+     */
+    public static long[] sortedTop(long[] a, int from, int to, long n, boolean reverse) {
+        int size = to - from;
+        int k = sortedTopCount(size, n);
+        boolean largest = n < 0 != reverse;
+        long[] h;
+        if (k > size >>> 2) { // A full sort is faster if most of the elements are kept
+            long[] s = Arrays.copyOfRange(a, from, to);
+            Arrays.sort(s);
+            h = largest ? Arrays.copyOfRange(s, size - k, size) : Arrays.copyOf(s, k);
+            largest = false;
+        } else {
+            h = new long[k];
+            if (k > 0) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    long e = a[i];
+                    if (count < k) {
+                        siftUp(h, count++, e, largest);
+                    } else if (largest ? e > h[0] : e < h[0]) {
+                        siftDown(h, e, k, largest);
+                    }
+                }
+                for (int i = k - 1; i > 0; i--) { // heap sort, the worst element is moved to the end
+                    long e = h[i];
+                    h[i] = h[0];
+                    siftDown(h, e, i, largest);
+                }
+            }
+        }
+        if (largest != reverse) {
+            for (int i = 0, j = k - 1; i < j; i++, j--) {
+                long tmp = h[i];
+                h[i] = h[j];
+                h[j] = tmp;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Equivalent to stable sorting a copy of the specified range, reversing it if {@code reverse} is true, and then
+     * keeping the first {@code n} elements, or the last {@code -n} elements if {@code n} is negative. But instead of
+     * sorting all elements the {@code n} elements that are kept are selected using a bounded binary heap. Which takes
+     * O(size * log(n)) time and O(n) space. Elements that are equal according to the comparator are ordered by their
+     * index to keep the sort stable.
+     *
+     * @param a
+     *            the array
+     * @param from
+     *            the index of the first element (inclusive)
+     * @param to
+     *            the index of the last element (exclusive)
+     * @param n
+     *            the number of elements to keep, negative to keep the last elements
+     * @param comparator
+     *            the comparator, or null to use the natural ordering of the elements
+     * @param reverse
+     *            whether or not the elements are sorted in descending order
+     * @return a new array with the kept elements
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static Object[] sortedTop(Object[] a, int from, int to, long n, Comparator comparator, boolean reverse) {
+        int size = to - from;
+        int k = sortedTopCount(size, n);
+        boolean largest = n < 0 != reverse;
+        Object[] result;
+        if (k > size >>> 2) { // A full sort is faster if most of the elements are kept
+            Object[] s = Arrays.copyOfRange(a, from, to);
+            Arrays.sort(s, comparator);
+            result = largest ? Arrays.copyOfRange(s, size - k, size) : Arrays.copyOf(s, k);
+            largest = false;
+        } else {
+            Comparator c = comparator == null ? Comparator.naturalOrder() : comparator;
+            int[] h = new int[k]; // the heap contains indexes into a
+            if (k > 0) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    if (count < k) {
+                        siftUp(a, c, h, count++, i, largest);
+                    } else if (worse(a, c, h[0], i, largest)) {
+                        siftDown(a, c, h, i, k, largest);
+                    }
+                }
+                for (int i = k - 1; i > 0; i--) { // heap sort, the worst element is moved to the end
+                    int e = h[i];
+                    h[i] = h[0];
+                    siftDown(a, c, h, e, i, largest);
+                }
+            }
+            result = new Object[k];
+            for (int i = 0; i < k; i++) {
+                result[i] = a[h[i]];
+            }
+        }
+        return largest != reverse ? reverse(result) : result;
+    }
+
+    /** Returns whether or not x should be evicted from the heap before y. */
+    private static boolean worse(double x, double y, boolean largest) {
+        int c = Double.compare(x, y);
+        return largest ? c < 0 : c > 0;
+    }
+
+    /** Returns whether or not the element at index x should be evicted from the heap before the element at index y. */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static boolean worse(Object[] a, Comparator c, int x, int y, boolean largest) {
+        int d = c.compare(a[x], a[y]);
+        if (d == 0) {
+            d = Integer.compare(x, y);
+        }
+        return largest ? d < 0 : d > 0;
+    }
+
+    /** Inserts e at the specified index of the heap and moves it up until the heap invariant holds. */
+    private static void siftUp(double[] h, int index, double e, boolean largest) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(e, h[parent], largest)) {
+                break;
+            }
+            h[index] = h[parent];
+            index = parent;
+        }
+        h[index] = e;
+    }
+
+    /** Inserts e at the specified index of the heap and moves it up until the heap invariant holds. */
+    private static void siftUp(int[] h, int index, int e, boolean largest) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            int p = h[parent];
+            if (largest ? e >= p : e <= p) {
+                break;
+            }
+            h[index] = p;
+            index = parent;
+        }
+        h[index] = e;
+    }
+
+    /** Inserts e at the specified index of the heap and moves it up until the heap invariant holds. */
+    private static void siftUp(long[] h, int index, long e, boolean largest) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            long p = h[parent];
+            if (largest ? e >= p : e <= p) {
+                break;
+            }
+            h[index] = p;
+            index = parent;
+        }
+        h[index] = e;
+    }
+
+    /** Inserts e at the specified index of the heap and moves it up until the heap invariant holds. */
+    @SuppressWarnings("rawtypes")
+    private static void siftUp(Object[] a, Comparator c, int[] h, int index, int e, boolean largest) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(a, c, e, h[parent], largest)) {
+                break;
+            }
+            h[index] = h[parent];
+            index = parent;
+        }
+        h[index] = e;
+    }
+
+    /** Replaces the root of the heap of the specified size with e and moves it down until the heap invariant holds. */
+    private static void siftDown(double[] h, double e, int size, boolean largest) {
+        int index = 0;
+        int child;
+        while ((child = (index << 1) + 1) < size) {
+            if (child + 1 < size && worse(h[child + 1], h[child], largest)) {
+                child++;
+            }
+            if (!worse(h[child], e, largest)) {
+                break;
+            }
+            h[index] = h[child];
+            index = child;
+        }
+        h[index] = e;
+    }
+
+    /** Replaces the root of the heap of the specified size with e and moves it down until the heap invariant holds. */
+    private static void siftDown(int[] h, int e, int size, boolean largest) {
+        int index = 0;
+        int child;
+        while ((child = (index << 1) + 1) < size) {
+            int c = h[child];
+            if (child + 1 < size && (largest ? h[child + 1] < c : h[child + 1] > c)) {
+                c = h[++child];
+            }
+            if (largest ? c >= e : c <= e) {
+                break;
+            }
+            h[index] = c;
+            index = child;
+        }
+        h[index] = e;
+    }
+
+    /** Replaces the root of the heap of the specified size with e and moves it down until the heap invariant holds. */
+    private static void siftDown(long[] h, long e, int size, boolean largest) {
+        int index = 0;
+        int child;
+        while ((child = (index << 1) + 1) < size) {
+            long c = h[child];
+            if (child + 1 < size && (largest ? h[child + 1] < c : h[child + 1] > c)) {
+                c = h[++child];
+            }
+            if (largest ? c >= e : c <= e) {
+                break;
+            }
+            h[index] = c;
+            index = child;
+        }
+        h[index] = e;
+    }
+
+    /** Replaces the root of the heap of the specified size with e and moves it down until the heap invariant holds. */
+    @SuppressWarnings("rawtypes")
+    private static void siftDown(Object[] a, Comparator c, int[] h, int e, int size, boolean largest) {
+        int index = 0;
+        int child;
+        while ((child = (index << 1) + 1) < size) {
+            if (child + 1 < size && worse(a, c, h[child + 1], h[child], largest)) {
+                child++;
+            }
+            if (!worse(a, c, h[child], e, largest)) {
+                break;
+            }
+            h[index] = h[child];
+            index = child;
+        }
+        h[index] = e;
+    }
+
     /**
      * @param a
      *            the array to be sorted
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Counts the number of times each key is added. Unlike a {@code HashMap<Object, Long>} the counters are not boxed.
+ *
+ * @author Kasper Nielsen
+ */
+public final class CountingHashMap extends AggregatingHashMap {
+
+    /** The count of each key. */
+    private long[] counts;
+
+    /**
+     * Increments the count of the specified key by 1.
+     *
+     * @param key
+     *            the key, may be null
+     */
+    public void add(Object key) {
+        // The key must be added first, as adding it might replace the counts array
+        int index = indexOf(key);
+        counts[index]++;
+    }
+
+    /**
+     * Returns the count of the key at the specified index.
+     *
+     * @param index
+     *            the index of the key
+     * @return the count of the key
+     */
+    public long countAt(int index) {
+        return counts[index];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object valueAt(int index) {
+        return Long.valueOf(counts[index]);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void resize(int length) {
+        counts = counts == null ? new long[length] : Arrays.copyOf(counts, length);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+/**
+ * A set of longs using open addressing with linear probing. Unlike a {@code HashSet<Long>} no objects are allocated
+ * when adding elements. Used by generated code for {@code LongStream.distinct()} and {@code DoubleStream.distinct()},
+ * in which case the elements are added as {@link Double#doubleToLongBits(double)}.
+ *
+ * @author Kasper Nielsen
+ */
+public final class LongHashSet {
+
+    /** The largest possible capacity. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The keys, 0 marks an empty slot. */
+    private long[] keys;
+
+    /** The number of keys in {@link #keys}. */
+    private int size;
+
+    /** The size at which the keys are rehashed into a larger array. */
+    private int threshold;
+
+    /** Whether or not 0 has been added, which cannot be stored in {@link #keys}. */
+    private boolean containsZero;
+
+    /** Creates a new set. */
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Creates a new set that can hold the specified number of elements without being resized.
+     *
+     * @param expectedSize
+     *            the expected number of elements
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < MAXIMUM_CAPACITY && capacity * 3L / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @param key
+     *            the element to add
+     * @return true if the set did not already contain the element
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            return true;
+        }
+        long[] keys = this.keys;
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) {
+                return false;
+            }
+        }
+        keys[i] = key;
+        if (++size >= threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether or not this set contains the specified element.
+     *
+     * @param key
+     *            the element to test
+     * @return whether or not this set contains the specified element
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        long[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the number of elements in this set */
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        // Always leave at least one empty slot, otherwise a lookup of an absent key would never terminate
+        threshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        if (old.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Set cannot contain more than " + threshold + " elements");
+        }
+        allocate(old.length << 1);
+        long[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int i = hash(key) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    /** Spreads the bits of the key, as keys such as ids are often sequential. */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
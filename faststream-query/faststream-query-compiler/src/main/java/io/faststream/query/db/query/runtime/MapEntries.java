@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import io.faststream.query.db.nodes.view.ViewHelpers;
+import io.faststream.query.util.BiComparator;
+
+/**
+ * The entries of a map view, used by generated code for operations that need all entries before they can proceed,
+ * such as {@code sortedByValue()} and {@code take(...)}. Entries are sorted and truncated in place.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public final class MapEntries {
+
+    /** The entries, the valid entries are those between {@link #lo} (inclusive) and {@link #hi} (exclusive). */
+    private Map.Entry[] entries;
+
+    /** The index of the first entry. */
+    private int lo;
+
+    /** The index after the last entry. */
+    private int hi;
+
+    /** Creates a new empty list of entries. */
+    public MapEntries() {
+        entries = new Map.Entry[16];
+    }
+
+    private MapEntries(Map.Entry[] entries) {
+        this.entries = entries;
+        this.hi = entries.length;
+    }
+
+    /**
+     * Adds a new entry.
+     *
+     * @param key
+     *            the key of the entry
+     * @param value
+     *            the value of the entry
+     */
+    public void add(Object key, Object value) {
+        if (hi == entries.length) {
+            entries = Arrays.copyOf(entries, hi << 1);
+        }
+        entries[hi++] = new SimpleImmutableEntry(key, value);
+    }
+
+    /**
+     * Returns the key of the entry at the specified index.
+     *
+     * @param index
+     *            the index of the entry
+     * @return the key of the entry at the specified index
+     */
+    public Object keyAt(int index) {
+        return entries[lo + index].getKey();
+    }
+
+    /** @return the number of entries */
+    public int size() {
+        return hi - lo;
+    }
+
+    /**
+     * Sorts the entries using the specified comparator.
+     *
+     * @param comparator
+     *            the comparator to sort the entries with
+     */
+    public void sort(BiComparator comparator) {
+        Arrays.sort(entries, lo, hi, (a, b) -> comparator.compare(a.getKey(), a.getValue(), b.getKey(), b.getValue()));
+    }
+
+    /**
+     * Sorts the entries by key.
+     *
+     * @param comparator
+     *            the comparator to sort the keys with, or null to sort the keys in their natural order
+     * @param reverse
+     *            whether or not to reverse the order
+     */
+    public void sortByKey(Comparator comparator, boolean reverse) {
+        Comparator c = order(comparator, reverse);
+        Arrays.sort(entries, lo, hi, (a, b) -> c.compare(a.getKey(), b.getKey()));
+    }
+
+    /**
+     * Sorts the entries by value.
+     *
+     * @param comparator
+     *            the comparator to sort the values with, or null to sort the values in their natural order
+     * @param reverse
+     *            whether or not to reverse the order
+     */
+    public void sortByValue(Comparator comparator, boolean reverse) {
+        Comparator c = order(comparator, reverse);
+        Arrays.sort(entries, lo, hi, (a, b) -> c.compare(a.getValue(), b.getValue()));
+    }
+
+    /**
+     * Keeps the specified number of entries. A negative number keeps the entries at the end.
+     *
+     * @param count
+     *            the number of entries to keep
+     */
+    public void take(long count) {
+        if (count > 0) {
+            if (count < hi - lo) {
+                hi = lo + (int) count;
+            }
+        } else if (count > lo - hi) {
+            lo = hi + (int) count;
+        }
+    }
+
+    /**
+     * Copies the entries into a new map that keeps the order of the entries.
+     *
+     * @return the new map
+     */
+    public Object toMap() {
+        return toMap(Map.class);
+    }
+
+    /**
+     * Copies the entries into a new map of the specified type.
+     *
+     * @param type
+     *            the type of map to return, either {@code Map}, {@code HashMap}, {@code LinkedHashMap} or
+     *            {@code ConcurrentHashMap}
+     * @return the new map
+     */
+    public Object toMap(Class<?> type) {
+        return ViewHelpers.mapFrom(type, entries, lo, hi);
+    }
+
+    /**
+     * Returns the value of the entry at the specified index.
+     *
+     * @param index
+     *            the index of the entry
+     * @return the value of the entry at the specified index
+     */
+    public Object valueAt(int index) {
+        return entries[lo + index].getValue();
+    }
+
+    /**
+     * Returns the entries of the specified map. The entries are not copied, only the array holding them.
+     *
+     * @param map
+     *            the map
+     * @return the entries of the map
+     */
+    public static MapEntries of(Map<?, ?> map) {
+        return new MapEntries(map.entrySet().toArray(new Map.Entry[0]));
+    }
+
+    /**
+     * Returns the entries of the specified aggregated map.
+     *
+     * @param map
+     *            the map
+     * @return the entries of the map
+     */
+    public static MapEntries of(AggregatingHashMap map) {
+        MapEntries entries = new MapEntries(new Map.Entry[map.size()]);
+        for (int i = 0; i < entries.hi; i++) {
+            entries.entries[i] = new SimpleImmutableEntry(map.keyAt(i), map.valueAt(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the entries of an open addressing hash table with parallel key and value arrays. Empty slots have a
+     * null key.
+     *
+     * @param keys
+     *            the keys of the table
+     * @param values
+     *            the values of the table
+     * @param size
+     *            the number of entries in the table
+     * @return the entries of the table
+     */
+    public static MapEntries of(Object[] keys, Object[] values, int size) {
+        MapEntries entries = new MapEntries(new Map.Entry[size]);
+        int index = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                entries.entries[index++] = new SimpleImmutableEntry(keys[i], values[i]);
+            }
+        }
+        return entries;
+    }
+
+    private static Comparator order(Comparator comparator, boolean reverse) {
+        if (comparator == null) {
+            return reverse ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        }
+        return reverse ? comparator.reversed() : comparator;
+    }
+}
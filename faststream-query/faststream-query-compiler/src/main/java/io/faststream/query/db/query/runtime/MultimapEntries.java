@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+import io.faststream.query.view.interpreter.ViewInterpreters;
+
+/**
+ * The values of a multimap view grouped by key, used by generated code for the multimap operations that depend on how
+ * values are grouped, such as {@code keys()} and {@code values()}. The values are grouped like the interpreter groups
+ * them, which then processes the remaining operations of the query.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public final class MultimapEntries {
+
+    /** The values grouped by key. */
+    private final HashMap<Object, ArrayList> map = new HashMap<>();
+
+    /**
+     * Adds a new entry.
+     *
+     * @param key
+     *            the key of the entry
+     * @param value
+     *            the value of the entry
+     */
+    public void add(Object key, Object value) {
+        ArrayList values = map.get(key);
+        if (values == null) {
+            values = new ArrayList(2);
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Interprets the operations of the specified query, starting with the operation at the specified index.
+     *
+     * @param node
+     *            the terminal node of the query
+     * @param start
+     *            the index of the first multimap operation to interpret
+     * @return the result of the query
+     */
+    public Object process(TerminalQueryOperationNode node, int start) {
+        return ViewInterpreters.process(map, node, start);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A fork join task that splits the index range {@code [lower, upper)} of an array or list into halves until each range
+ * is no larger than a threshold. Generated parallel processors extend this class with a task that evaluates the
+ * serial query on a single range, and with a function that merges two partial results.
+ *
+ * @author Kasper Nielsen
+ */
+public abstract class ParallelRangeTask extends RecursiveTask<Object> {
+
+    /** serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The lower bound (inclusive) of the range processed by this task. */
+    private final int lower;
+
+    /** The largest range that will be processed without splitting it further. */
+    private final int threshold;
+
+    /** The upper bound (exclusive) of the range processed by this task. */
+    private final int upper;
+
+    /**
+     * Creates a new task.
+     *
+     * @param lower
+     *            the lower bound (inclusive)
+     * @param upper
+     *            the upper bound (exclusive)
+     * @param threshold
+     *            the largest range that will be processed without splitting it further
+     */
+    protected ParallelRangeTask(int lower, int upper, int threshold) {
+        this.lower = lower;
+        this.upper = upper;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Merges the partial results of two adjacent ranges. The left result is always from the range with the lowest
+     * indexes.
+     *
+     * @param left
+     *            the result of the left range
+     * @param right
+     *            the result of the right range
+     * @return the merged result
+     */
+    protected abstract Object combine(Object left, Object right);
+
+    /** {@inheritDoc} */
+    @Override
+    protected final Object compute() {
+        int lower = this.lower;
+        int upper = this.upper;
+        if (upper - lower <= threshold) {
+            return processRange(lower, upper);
+        }
+        int mid = (lower + upper) >>> 1;
+        ParallelRangeTask right = newTask(mid, upper);
+        right.fork();
+        Object left = newTask(lower, mid).compute();
+        return combine(left, right.join());
+    }
+
+    /**
+     * Creates a new task of the same type for the specified range.
+     *
+     * @param lower
+     *            the lower bound (inclusive)
+     * @param upper
+     *            the upper bound (exclusive)
+     * @return the new task
+     */
+    protected abstract ParallelRangeTask newTask(int lower, int upper);
+
+    /**
+     * Evaluates the query serially on the specified range.
+     *
+     * @param lower
+     *            the lower bound (inclusive)
+     * @param upper
+     *            the upper bound (exclusive)
+     * @return the partial result of the range
+     */
+    protected abstract Object processRange(int lower, int upper);
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.Collector;
+
+import io.faststream.query.db.query.node.EmptyResult;
+
+/**
+ * Functions used by generated parallel processors for merging the partial results of two {@link ParallelRangeTask
+ * ranges}. Partial results are always boxed, and {@link EmptyResult#EMPTY_RESULT} is used for ranges that did not
+ * produce a value.
+ *
+ * @author Kasper Nielsen
+ */
+public class ParallelUtil {
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object collect(Object left, Object right, Collector collector) {
+        return collector.combiner().apply(left, right);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object collect(Object left, Object right, BiConsumer combiner) {
+        combiner.accept(left, right);
+        return left;
+    }
+
+    /**
+     * Returns whether or not the partial results of the specified collector can be merged. This is only the case if
+     * the result container is the final result.
+     *
+     * @param collector
+     *            the collector
+     * @return whether or not the partial results of the specified collector can be merged
+     */
+    public static boolean isIdentityFinish(Collector<?, ?, ?> collector) {
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object max(Object left, Object right) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        } else if (left instanceof Double) {
+            // Double.compareTo orders NaN and -0.0 differently than Math.max, which is used for each range
+            return Double.valueOf(Math.max((Double) left, (Double) right));
+        }
+        return ((Comparable) left).compareTo(right) >= 0 ? left : right;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object max(Object left, Object right, Comparator comparator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return comparator.compare(left, right) >= 0 ? left : right;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object min(Object left, Object right) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        } else if (left instanceof Double) {
+            // Double.compareTo orders NaN and -0.0 differently than Math.min, which is used for each range
+            return Double.valueOf(Math.min((Double) left, (Double) right));
+        }
+        return ((Comparable) left).compareTo(right) <= 0 ? left : right;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object min(Object left, Object right, Comparator comparator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return comparator.compare(left, right) <= 0 ? left : right;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object reduce(Object left, Object right, BinaryOperator operator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return operator.apply(left, right);
+    }
+
+    public static Object reduceDouble(Object left, Object right, DoubleBinaryOperator operator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return Double.valueOf(operator.applyAsDouble((Double) left, (Double) right));
+    }
+
+    public static Object reduceInt(Object left, Object right, IntBinaryOperator operator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return Integer.valueOf(operator.applyAsInt((Integer) left, (Integer) right));
+    }
+
+    public static Object reduceLong(Object left, Object right, LongBinaryOperator operator) {
+        if (left == EmptyResult.EMPTY_RESULT) {
+            return right;
+        } else if (right == EmptyResult.EMPTY_RESULT) {
+            return left;
+        }
+        return Long.valueOf(operator.applyAsLong((Long) left, (Long) right));
+    }
+
+    /**
+     * Adds two boxed sums or counts of the same type.
+     *
+     * @param left
+     *            the left sum
+     * @param right
+     *            the right sum
+     * @return the sum of the two
+     */
+    public static Object sum(Object left, Object right) {
+        if (left instanceof Integer) {
+            return Integer.valueOf((Integer) left + (Integer) right);
+        } else if (left instanceof Long) {
+            return Long.valueOf((Long) left + (Long) right);
+        }
+        return Double.valueOf((Double) left + (Double) right);
+    }
+
+    public static Object summary(Object left, Object right) {
+        if (left instanceof IntSummaryStatistics) {
+            ((IntSummaryStatistics) left).combine((IntSummaryStatistics) right);
+        } else if (left instanceof LongSummaryStatistics) {
+            ((LongSummaryStatistics) left).combine((LongSummaryStatistics) right);
+        } else {
+            ((DoubleSummaryStatistics) left).combine((DoubleSummaryStatistics) right);
+        }
+        return left;
+    }
+}
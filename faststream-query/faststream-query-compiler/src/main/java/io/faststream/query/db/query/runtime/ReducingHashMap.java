@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.function.BinaryOperator;
+
+/**
+ * Reduces the values added for each key, without keeping a list of the values of each key.
+ *
+ * @author Kasper Nielsen
+ */
+public final class ReducingHashMap extends AggregatingHashMap {
+
+    /** The function reducing two values into one. */
+    @SuppressWarnings("rawtypes")
+    private final BinaryOperator reducer;
+
+    /** The reduced value of each key. */
+    private Object[] values;
+
+    /**
+     * Creates a new map.
+     *
+     * @param reducer
+     *            the function reducing two values into one
+     */
+    @SuppressWarnings("rawtypes")
+    public ReducingHashMap(BinaryOperator reducer) {
+        this.reducer = requireNonNull(reducer, "reducer is null");
+    }
+
+    /**
+     * Reduces the specified value with the current value of the specified key. Or, if this is the first value of the
+     * key, uses the specified value as is.
+     *
+     * @param key
+     *            the key, may be null
+     * @param value
+     *            the value to add
+     */
+    @SuppressWarnings("unchecked")
+    public void add(Object key, Object value) {
+        int size = size();
+        int index = indexOf(key);
+        values[index] = index == size ? value : reducer.apply(values[index], value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object valueAt(int index) {
+        return values[index];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void resize(int length) {
+        values = values == null ? new Object[length] : Arrays.copyOf(values, length);
+    }
+}
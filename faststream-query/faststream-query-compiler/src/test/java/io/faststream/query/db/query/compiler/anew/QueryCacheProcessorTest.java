@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.anew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.faststream.query.db.nodes.stream.stream.AbstractStream;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+
+/**
+ * Tests {@link QueryCacheProcessor}.
+ *
+ * @author Kasper Nielsen
+ */
+public class QueryCacheProcessorTest {
+
+    /** Returns the terminal node of the specified query. */
+    static TerminalQueryOperationNode node(Consumer<Stream<Object>> query) {
+        TerminalQueryOperationNode[] result = new TerminalQueryOperationNode[1];
+        try {
+            query.accept(AbstractStream.from(node -> {
+                result[0] = node;
+                throw new Captured();
+            }));
+        } catch (Captured ignore) {}
+        return result[0];
+    }
+
+    static TerminalQueryOperationNode count() {
+        return node(s -> s.count());
+    }
+
+    static TerminalQueryOperationNode filterCount() {
+        return node(s -> s.filter(e -> true).count());
+    }
+
+    @Test
+    public void backgroundCompile() throws InterruptedException {
+        CountDownLatch compiling = new CountDownLatch(1);
+        QueryCompiler<String> compiler = node -> {
+            try {
+                compiling.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "compiled";
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        QueryCacheProcessor<String> p = new QueryCacheProcessor<>(compiler, null, executor, "interpreter", 0, false,
+                new QueryCacheStatistics());
+        // The query is interpreted until the compilation has finished
+        assertEquals("interpreter", p.create(count()));
+        assertEquals("interpreter", p.create(count()));
+        compiling.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals("compiled", p.create(count()));
+        assertEquals(1, p.getNumberOfQueriesCompiled());
+    }
+
+    @Test
+    public void backgroundCompileRejected() {
+        AtomicInteger compiled = new AtomicInteger();
+        QueryCacheProcessor<String> p = new QueryCacheProcessor<>(node -> "compiled" + compiled.incrementAndGet(), null,
+                r -> {
+                    throw new RejectedExecutionException();
+                }, "interpreter", 0, false, new QueryCacheStatistics());
+        // The calling thread compiles the query, and uses it straight away
+        assertEquals("compiled1", p.create(count()));
+        assertEquals("compiled1", p.create(count()));
+        assertEquals(1, compiled.get());
+    }
+
+    @Test
+    public void backgroundCompileFails() {
+        QueryCacheProcessor<String> p = new QueryCacheProcessor<>(node -> {
+            throw new IllegalStateException();
+        }, null, Runnable::run, "interpreter", 0, false, new QueryCacheStatistics());
+        // Queries that cannot be compiled are interpreted
+        assertEquals("interpreter", p.create(filterCount()));
+        assertEquals("interpreter", p.create(filterCount()));
+    }
+
+    @Test
+    public void evictions() {
+        QueryCacheStatistics statistics = new QueryCacheStatistics();
+        AtomicInteger compiled = new AtomicInteger();
+        QueryCacheProcessor<String> p = new QueryCacheProcessor<>(node -> "compiled" + compiled.incrementAndGet(), null,
+                null, null, 2, false, statistics);
+        TerminalQueryOperationNode sum = node(s -> s.mapToInt(e -> 1).sum());
+        assertEquals("compiled1", p.create(count()));
+        assertEquals("compiled2", p.create(filterCount()));
+        assertEquals("compiled1", p.create(count()));
+        // Evicts the query that has not been used since it was added
+        assertEquals("compiled3", p.create(sum));
+        assertEquals("compiled1", p.create(count()));
+        assertEquals("compiled3", p.create(sum));
+        // All queries have been used, so the least recently considered query is evicted
+        assertEquals("compiled4", p.create(filterCount()));
+        assertEquals("compiled1", p.create(count()));
+
+        assertEquals(4, statistics.getNumberOfCacheHits());
+        assertEquals(4, statistics.getNumberOfCacheMisses());
+        assertEquals(4, statistics.getNumberOfQueriesCompiled());
+        assertEquals(2, statistics.getNumberOfEvictions());
+        assertEquals(statistics.getNumberOfEvictions(), p.getNumberOfEvictions());
+    }
+
+    /** Thrown when the terminal node of a query has been captured. */
+    @SuppressWarnings("serial")
+    static class Captured extends RuntimeException {}
+}
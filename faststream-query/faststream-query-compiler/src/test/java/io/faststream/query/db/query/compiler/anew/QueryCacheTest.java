@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.compiler.anew;
+
+import static io.faststream.query.db.query.compiler.anew.QueryCacheProcessorTest.count;
+import static io.faststream.query.db.query.compiler.anew.QueryCacheProcessorTest.filterCount;
+import static io.faststream.query.db.query.compiler.anew.QueryCacheProcessorTest.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+
+/**
+ * Tests {@link QueryCache}.
+ *
+ * @author Kasper Nielsen
+ */
+public class QueryCacheTest {
+
+    /** Returns distinct queries made from up to 3 intermediate operations followed by a terminal operation. */
+    static List<TerminalQueryOperationNode> queries() {
+        List<Function<Stream<Object>, Stream<Object>>> intermediates = new ArrayList<>();
+        intermediates.add(s -> s.filter(e -> true));
+        intermediates.add(s -> s.map(e -> e));
+        intermediates.add(s -> s.limit(2));
+        intermediates.add(s -> s.skip(1));
+        intermediates.add(s -> s.distinct());
+        List<TerminalQueryOperationNode> result = new ArrayList<>();
+        for (int i = 0; i < 1 + 5 + 25 + 125; i++) {
+            int ops = i;
+            result.add(node(s -> {
+                Stream<Object> t = s;
+                for (int j = ops; j > 0; j = (j - 1) / 5) {
+                    t = intermediates.get((j - 1) % 5).apply(t);
+                }
+                if (ops % 2 == 0) {
+                    t.count();
+                } else {
+                    t.findFirst();
+                }
+            }));
+        }
+        return result;
+    }
+
+    @Test
+    public void cache() {
+        QueryCache<String> c = new QueryCache<>();
+        assertNull(c.lookup(count()));
+        assertEquals("count", c.cache(() -> "count", count()));
+        assertEquals("count", c.cache(() -> "other", count()));
+        assertEquals("count", c.lookup(count()));
+        assertNull(c.lookup(filterCount()));
+
+        assertNull(c.putIfAbsent(filterCount(), "filter"));
+        assertEquals("filter", c.putIfAbsent(filterCount(), "other"));
+        c.put(filterCount(), "replaced");
+        assertEquals("replaced", c.lookup(filterCount()));
+        assertEquals("count", c.lookup(count()));
+    }
+
+    @Test
+    public void cacheFails() {
+        QueryCache<String> c = new QueryCache<>();
+        try {
+            c.cache(() -> {
+                throw new IllegalStateException();
+            }, count());
+        } catch (IllegalStateException ignore) {}
+        // The next thread creates the value instead
+        assertEquals("count", c.cache(() -> "count", count()));
+    }
+
+    @Test
+    public void removePrunesNodes() {
+        QueryCache<String> c = new QueryCache<>();
+        c.put(count(), "count");
+        c.put(filterCount(), "filter");
+        assertEquals(2, c.nodeCount());
+
+        // A node with children is kept
+        assertTrue(c.remove(c.node(count()), "count"));
+        assertFalse(c.remove(c.node(count()), "count"));
+        assertNull(c.lookup(count()));
+        assertEquals("filter", c.lookup(filterCount()));
+        assertEquals(2, c.nodeCount());
+
+        // Its ancestors are pruned together with the last node
+        assertFalse(c.remove(c.node(filterCount()), "other"));
+        assertTrue(c.remove(c.node(filterCount()), "filter"));
+        assertEquals(0, c.nodeCount());
+        assertNull(c.lookup(filterCount()));
+
+        // Pruned queries can be added again
+        c.put(filterCount(), "filter");
+        assertEquals("filter", c.lookup(filterCount()));
+    }
+
+    @Test
+    public void removeSpecializations() {
+        QueryCache<String> c = new QueryCache<>(node -> Collections.singletonList(node.getClass()));
+        c.put(count(), "count");
+        assertEquals("count", c.lookup(count()));
+        assertEquals(2, c.nodeCount());
+        assertTrue(c.remove(c.node(count()), "count"));
+        assertEquals(0, c.nodeCount());
+    }
+
+    /** Tests that specializations do not prevent function classes from being garbage collected. */
+    @Test
+    public void collectedFunctionClasses() throws Exception {
+        Class<?>[] function = { new IsolatingClassLoader().loadClass(Unloadable.class.getName()) };
+        QueryCache<String> c = new QueryCache<>(node -> Collections.singletonList(function[0]));
+        c.put(count(), "count");
+        assertEquals("count", c.lookup(count()));
+        assertEquals(2, c.nodeCount());
+
+        function[0] = String.class;
+        assertNull(c.lookup(count()));
+        c.node(count());
+        assertEquals(3, c.nodeCount());
+        for (int i = 0; i < 100 && c.nodeCount() > 2; i++) {
+            System.gc();
+            Thread.sleep(10);
+            c.node(count()); // expunges specializations with collected classes
+        }
+        assertEquals(2, c.nodeCount());
+    }
+
+    /** A class that is loaded by a class loader that can be garbage collected. */
+    public static class Unloadable {}
+
+    /** Loads {@link Unloadable} itself, instead of delegating to its parent. */
+    static class IsolatingClassLoader extends ClassLoader {
+        IsolatingClassLoader() {
+            super(IsolatingClassLoader.class.getClassLoader());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Unloadable.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            try (InputStream is = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                for (int n; (n = is.read(buffer)) > 0;) {
+                    bytes.write(buffer, 0, n);
+                }
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+
+    /** Concurrently creates, looks up and removes overlapping queries. */
+    @Test
+    public void concurrent() throws Exception {
+        List<TerminalQueryOperationNode> queries = queries();
+        // Values are removed by identity
+        String[] values = new String[queries.size()];
+        Arrays.setAll(values, i -> "q" + i);
+        QueryCache<String> c = new QueryCache<>();
+        AtomicInteger created = new AtomicInteger();
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                for (int j = 0; j < 20000; j++) {
+                    int q = r.nextInt(queries.size());
+                    TerminalQueryOperationNode node = queries.get(q);
+                    String value = c.lookup(node);
+                    if (value != null) {
+                        assertSame(values[q], value);
+                    }
+                    if (r.nextInt(3) == 0) {
+                        c.remove(c.node(node), values[q]);
+                    } else {
+                        assertSame(values[q], c.cache(() -> {
+                            created.incrementAndGet();
+                            return values[q];
+                        }, node));
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        executor.shutdown();
+        assertTrue(created.get() > 0);
+
+        // All nodes are pruned once every query has been removed
+        for (int i = 0; i < queries.size(); i++) {
+            String value = values[i];
+            assertSame(value, c.cache(() -> value, queries.get(i)));
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            assertTrue(c.remove(c.node(queries.get(i)), values[i]));
+        }
+        assertEquals(0, c.nodeCount());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CountingHashMap} and {@link ReducingHashMap}.
+ *
+ * @author Kasper Nielsen
+ */
+public class AggregatingHashMapTest {
+
+    @Test
+    public void countingHashMap() {
+        CountingHashMap map = new CountingHashMap();
+        map.add(null);
+        // Enough keys to force several rehashes
+        for (int i = 0; i < 30000; i++) {
+            map.add(Integer.valueOf(i % 10000));
+        }
+        assertEquals(10001, map.size());
+        assertEquals(null, map.keyAt(0));
+        assertEquals(1, map.countAt(0));
+        for (int i = 1; i < map.size(); i++) {
+            assertEquals(i - 1, map.keyAt(i));
+            assertEquals(3, map.countAt(i));
+        }
+        assertEquals(Long.valueOf(3), map.toMap().get(5000));
+    }
+
+    @Test
+    public void reducingHashMap() {
+        ReducingHashMap map = new ReducingHashMap((a, b) -> (Integer) a + (Integer) b);
+        for (int i = 0; i < 100; i++) {
+            map.add(i % 3 == 0 ? "a" : "b", i);
+        }
+        Map<Object, Object> m = map.toMap();
+        assertTrue(m instanceof LinkedHashMap);
+        // The keys are in the order they were added
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(m.keySet().toArray()));
+        assertEquals(1683, m.get("a"));
+        assertEquals(3267, m.get("b"));
+        assertTrue(map.toMap(HashMap.class).getClass() == HashMap.class);
+    }
+}
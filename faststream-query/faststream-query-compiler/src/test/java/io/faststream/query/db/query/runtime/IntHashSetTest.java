@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.db.query.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link IntHashSet} and {@link LongHashSet}.
+ *
+ * @author Kasper Nielsen
+ */
+public class IntHashSetTest {
+
+    @Test
+    public void intHashSet() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        // Enough elements to force several rehashes
+        for (int i = -10000; i < 10000; i++) {
+            assertEquals(i != 0, set.add(i * 16));
+        }
+        assertEquals(20000, set.size());
+        assertTrue(set.contains(-160000));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void longHashSet() {
+        LongHashSet set = new LongHashSet(100);
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(0));
+        assertFalse(set.add(Long.MIN_VALUE));
+        for (long i = 1; i < 10000; i++) {
+            assertTrue(set.add(i << 32));
+        }
+        assertEquals(10001, set.size());
+        assertTrue(set.contains(1L << 32));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void distinct() {
+        assertTrue(Arrays.equals(new int[] { 3, 0, 1 }, ArrayUtil.distinct(new int[] { 3, 0, 3, 1, 0 })));
+        assertTrue(Arrays.equals(new int[] { 0, 1, 3 }, ArrayUtil.distinctSorted(new int[] { 0, 0, 1, 3, 3 }, 0, 5)));
+        // Like Double.equals(), NaN equals NaN and 0.0 does not equal -0.0
+        assertTrue(Arrays.equals(new double[] { Double.NaN, 0.0, -0.0 }, ArrayUtil.distinct(new double[] { Double.NaN,
+                0.0, -0.0, Double.NaN, 0.0 })));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.compiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.query.db.query.compiler.CompiledCollectionViewConfiguration;
+import io.faststream.query.db.query.compiler.DataSource;
+import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+import io.faststream.query.util.view.CollectionView;
+
+/**
+ * Tests compiled queries on data sources accessed through methods and custom containers.
+ *
+ * @author Kasper Nielsen
+ */
+public class DataSourceTest {
+
+    static CollectionView<Object> create(Object data, Function<DataSource, ArrayOrListComposite> main) {
+        CompiledCollectionViewConfiguration<Object> conf = new CompiledCollectionViewConfiguration<>();
+        conf.setCachingDisabled(true);
+        DataSource src = conf.addSource("source", data);
+        conf.setMain(main.apply(src));
+        return conf.compile(new Codegen()).create();
+    }
+
+    @Test
+    public void method() {
+        CollectionView<Object> v = create(new RingBuffer(), s -> s.createIndexBoundComposite("getArray()"));
+        assertEquals(6, v.size());
+    }
+
+    @Test
+    public void arrayWithBounds() {
+        RingBuffer data = new RingBuffer();
+        CollectionView<Object> v = create(data, s -> s.createIndexBoundComposite("getArray()", "head", "tail()"));
+        assertEquals(3, v.size());
+        assertEquals(Arrays.asList(3, 4), v.filter(e -> (Integer) e > 2).toList());
+        data.head = 0;
+        assertEquals(Arrays.asList(4, 3, 2), create(data,
+                s -> s.createIndexBoundComposite("getArray()", "head", "tail()")).sortedDescending().take(3).toList());
+    }
+
+    @Test
+    public void container() {
+        Column data = new Column();
+        CollectionView<Object> v = create(data, s -> s.createIndexedComposite("get", "size"));
+        assertEquals(4, v.size());
+        assertEquals(Arrays.asList(30, 10), v.filter(e -> (Integer) e != 20).toList());
+        assertEquals(Arrays.asList(10, 20, 20, 30), v.sorted().toList());
+        data.size = 1;
+        assertEquals(1, v.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void methodWithParameters() {
+        create(new Column(), s -> s.createIndexBoundComposite("get(int)"));
+    }
+
+    /** A ring buffer whose elements are stored between head and tail. */
+    public static class RingBuffer {
+        public int head = 1;
+
+        final Object[] array = { 0, 2, 3, 4, 1, 9 };
+
+        public Object[] getArray() {
+            return array;
+        }
+
+        public int tail() {
+            return 4;
+        }
+    }
+
+    /** A column of values accessed through get and size. */
+    public static class Column {
+        final int[] values = { 30, 20, 10, 20 };
+
+        int size = values.length;
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.compiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.query.db.query.compiler.CompiledCollectionViewConfiguration;
+import io.faststream.query.db.query.compiler.DataSource;
+import io.faststream.query.util.view.CollectionView;
+import io.faststream.query.view.interpreter.ViewInterpreters;
+
+/**
+ * Tests compiled queries that aggregate a value per key.
+ *
+ * @author Kasper Nielsen
+ */
+public class GroupByTest {
+
+    static CollectionView<Object> create() {
+        CompiledCollectionViewConfiguration<Object> conf = new CompiledCollectionViewConfiguration<>();
+        conf.setCachingDisabled(true);
+        conf.setType(Object.class);
+        DataSource src = conf.addSource("source", new Data());
+        conf.setMain(src.createIndexBoundComposite("strings"));
+        return conf.compile(new Codegen()).create();
+    }
+
+    @Test
+    public void count() {
+        CollectionView<Object> v = create();
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(1, 3L);
+        expected.put(2, 2L);
+        expected.put(3, 1L);
+        assertEquals(expected, v.groupBy(e -> ((String) e).length()).count().toMap());
+        assertEquals(6L, v.count().size());
+
+        List<Object> list = new ArrayList<>();
+        v.groupBy(e -> ((String) e).length()).count().forEach((k, c) -> list.add(k + "=" + c));
+        assertEquals(Arrays.asList("1=3", "2=2", "3=1"), list);
+    }
+
+    @Test
+    public void reduce() {
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(1, "ADF");
+        expected.put(2, "BBCC");
+        expected.put(3, "EEE");
+        assertEquals(expected, create().groupBy(e -> ((String) e).length()).reduce((a, b) -> (String) a + b)
+                .to(HashMap.class));
+    }
+
+    /** Multimap operations that depend on how values are grouped by key give the same result as when interpreted. */
+    @Test
+    public void multimap() {
+        List<Function<CollectionView<Object>, Object>> queries = new ArrayList<>();
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).keys().toList());
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).values().toList());
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).toMultimap());
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).head().toMap());
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).filterOnKey(k -> (Integer) k > 1).values().toList());
+        queries.add(v -> v.groupBy(e -> ((String) e).length()).mapValue(e -> e + "!").keys().size());
+        queries.add(v -> v.filter(e -> !e.equals("D")).groupBy(e -> ((String) e).length()).values().toList());
+        CollectionView<Object> compiled = create();
+        CollectionView<Object> interpreted = ViewInterpreters.createCollectionView(new Data().strings);
+        for (Function<CollectionView<Object>, Object> q : queries) {
+            assertEquals(q.apply(interpreted), q.apply(compiled));
+        }
+        assertEquals(Arrays.asList(1, 2, 3), queries.get(0).apply(compiled));
+        assertEquals(Arrays.asList("A", "D", "F", "BB", "CC", "EEE"), queries.get(1).apply(compiled));
+    }
+
+    /** The data that is queried. */
+    public static class Data {
+        public Object[] strings = { "A", "BB", "CC", "D", "EEE", "F" };
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.compiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.query.db.query.compiler.CompiledMapViewConfiguration;
+import io.faststream.query.db.query.compiler.DataSource;
+import io.faststream.query.util.view.MapView;
+import io.faststream.query.view.interpreter.ViewInterpreters;
+
+/**
+ * Tests compiled queries on a map.
+ *
+ * @author Kasper Nielsen
+ */
+public class MapViewTest {
+
+    static MapView<Object, Object> create(Data data) {
+        CompiledMapViewConfiguration<Object, Object> conf = new CompiledMapViewConfiguration<>();
+        conf.setCachingDisabled(true);
+        DataSource src = conf.addSource("source", data);
+        conf.setMain(src.createMapComposite("map"));
+        return conf.compile(new Codegen()).create();
+    }
+
+    @Test
+    public void filter() {
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(3, "CCC!");
+        assertEquals(expected, create(new Data()).filterOnKey(k -> (Integer) k > 2).mapValue(v -> v + "!").toMap());
+        assertEquals(2, create(new Data()).filterOnValue(v -> ((String) v).length() < 3).size());
+    }
+
+    @Test
+    public void sortedTake() {
+        assertEquals(Arrays.asList(3, 2), create(new Data()).sortedByKeyDescending().take(2).keys().toList());
+        assertEquals(Arrays.asList("A"), create(new Data()).sortedByValue().take(1).values().toList());
+    }
+
+    @Test
+    public void size() {
+        Data data = new Data();
+        MapView<Object, Object> v = create(data);
+        assertEquals(3, v.size());
+        data.map.put(4, "DDDD");
+        assertEquals(4, v.size());
+    }
+
+    /** Multimaps created by mapKey() give the same result as when interpreted. */
+    @Test
+    public void mapKey() {
+        List<Function<MapView<Object, Object>, Object>> queries = new ArrayList<>();
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).keys().toList());
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).values().toList());
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).toMultimap());
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).size());
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).count().toMap());
+        queries.add(v -> v.mapKey(k -> (Integer) k % 2).filterOnKey(k -> (Integer) k > 0).values().size());
+        MapView<Object, Object> interpreted = ViewInterpreters.createMapView(new Data().map);
+        for (Function<MapView<Object, Object>, Object> q : queries) {
+            assertEquals(q.apply(interpreted), q.apply(create(new Data())));
+        }
+        assertEquals(Arrays.asList(0, 1), queries.get(0).apply(create(new Data())));
+    }
+
+    /** The data that is queried. */
+    public static class Data {
+        public Map<Object, Object> map = new HashMap<>();
+        {
+            map.put(1, "A");
+            map.put(2, "BB");
+            map.put(3, "CCC");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.compiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenConfiguration;
+import io.faststream.query.db.query.compiler.CompiledCollectionViewConfiguration;
+import io.faststream.query.db.query.compiler.DataSource;
+import io.faststream.query.util.view.CollectionView;
+
+/**
+ * Tests that the bodies of compiled queries are compiled from a syntax tree, and that the result is the same as when
+ * they are compiled from source code.
+ *
+ * @author Kasper Nielsen
+ */
+public class SyntaxTreeTest {
+
+    /** Representative queries, covering loops, sorting, limits, reductions and streams. */
+    static final List<Function<CollectionView<Object>, Object>> QUERIES = new ArrayList<>();
+
+    static {
+        QUERIES.add(v -> v.size());
+        QUERIES.add(v -> v.isEmpty());
+        QUERIES.add(v -> v.filter(e -> (Integer) e % 2 == 0).toList());
+        QUERIES.add(v -> v.map(e -> (Integer) e * 3).filter(e -> e > 10).size());
+        QUERIES.add(v -> v.sorted().take(3).toList());
+        QUERIES.add(v -> v.sortedDescending().take(2).toList());
+        QUERIES.add(v -> v.take(4).map(e -> -(Integer) e).toList());
+        QUERIES.add(v -> v.distinct().toList());
+        QUERIES.add(v -> v.reduce((a, b) -> (Integer) a + (Integer) b));
+        QUERIES.add(v -> v.filter(e -> (Integer) e > 100).reduce(0, (a, b) -> (Integer) a + (Integer) b));
+        QUERIES.add(v -> v.first());
+        QUERIES.add(v -> v.last());
+        QUERIES.add(v -> v.count().toMap());
+        QUERIES.add(v -> v.groupBy(e -> (Integer) e % 3).size());
+        QUERIES.add(v -> v.asStream().filter(e -> (Integer) e > 3).count());
+        QUERIES.add(v -> v.asStream().anyMatch(e -> (Integer) e > 8));
+        QUERIES.add(v -> v.asStream().map(e -> (Integer) e + 1).sorted().limit(3).collect(Collectors.toList()));
+    }
+
+    static CollectionView<Object> create(Codegen codegen, Data data) {
+        CompiledCollectionViewConfiguration<Object> conf = new CompiledCollectionViewConfiguration<>();
+        conf.setCachingDisabled(true);
+        DataSource src = conf.addSource("source", data);
+        conf.setMain(src.createIndexBoundComposite("values"));
+        return conf.compile(codegen).create();
+    }
+
+    @Test
+    public void noFallbacks() {
+        Codegen tree = new Codegen();
+        // A code writer forces classes to be compiled from source code
+        CodegenConfiguration conf = new CodegenConfiguration();
+        conf.addCodeWriter(new PrintWriter(new StringWriter()));
+        Codegen source = new Codegen(conf);
+
+        Data data = new Data();
+        for (Function<CollectionView<Object>, Object> query : QUERIES) {
+            assertEquals(query.apply(create(source, data)), query.apply(create(tree, data)));
+        }
+        assertEquals(0, tree.getNumberOfSyntaxTreeFallbacks());
+    }
+
+    /** The data that is queried. */
+    public static class Data {
+        public Object[] values = { 5, 3, 8, 1, 9, 2, 8, 7, 4, 6 };
+    }
+}
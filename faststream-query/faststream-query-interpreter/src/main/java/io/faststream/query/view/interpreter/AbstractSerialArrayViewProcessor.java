@@ -17,6 +17,7 @@ package io.faststream.query.view.interpreter;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -51,6 +52,39 @@ abstract class AbstractSerialArrayViewProcessor<T> extends AbstractSingleNodeVie
         this.isSafeArray = isSafeArray;
     }
 
+    /**
+     * Creates a processor for the collection view that follows the operation being processed.
+     *
+     * @param handoff
+     *            the elements of the view, may be modified by the new processor
+     * @return the new processor
+     */
+    AbstractSingleNodeViewQueryProcessor collectionProcessor(Object[] handoff) {
+        return SerialCollectionViewProcessor.createUsingHandoff(handoff);
+    }
+
+    /**
+     * Creates a processor for the map view that follows the operation being processed.
+     *
+     * @param entries
+     *            the entries of the view, may be modified by the new processor
+     * @return the new processor
+     */
+    AbstractSingleNodeViewQueryProcessor mapProcessor(Map.Entry[] entries) {
+        return new SerialMapViewProcessor(entries);
+    }
+
+    /**
+     * Creates a processor for the multimap view that follows the operation being processed.
+     *
+     * @param entries
+     *            the entries of the view, may be modified by the new processor
+     * @return the new processor
+     */
+    AbstractSingleNodeViewQueryProcessor multimapProcessor(MutableMultimapEntry[] entries) {
+        return new SerialMultimapMapViewProcessor(entries);
+    }
+
     void map(Function<? super Object, ?> mapper) {
         if (hasResult()) {
             Object result = getResult();
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import io.faststream.query.db.nodes.view.collectionview.CV_Filter;
+import io.faststream.query.db.nodes.view.collectionview.CV_FilterNulls;
+import io.faststream.query.db.nodes.view.collectionview.CV_FilterOnType;
+import io.faststream.query.db.nodes.view.collectionview.CV_Map;
+import io.faststream.query.db.nodes.view.collectionview.CV_Take;
+import io.faststream.query.db.query.node.QueryOperationNode;
+
+/**
+ * Consecutive stateless operations on a collection view that are applied to each element in a single pass, instead of
+ * making a pass over all elements for each operation.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class FusedOperations {
+
+    /** Returned by {@link #apply(Object)} if an element is rejected by a filter. */
+    static final Object REJECTED = new Object();
+
+    /** Kinds of operations. */
+    private static final byte FILTER = 0, MAP = 1, TAKE = 2;
+
+    /** The number of elements that have passed each take operation. */
+    private long[] counts = new long[4];
+
+    /** The number of elements to take for each take operation. */
+    private long[] limits = new long[4];
+
+    /** Whether or not the number of elements to take have been reached for one of the take operations. */
+    private boolean isDone;
+
+    /** The kind of each operation. */
+    private byte[] kinds = new byte[4];
+
+    /** The nodes of the operations. */
+    private final ArrayList<QueryOperationNode> nodes = new ArrayList<>(4);
+
+    /** The predicate or function of each filter or map operation. */
+    private Object[] operations = new Object[4];
+
+    /**
+     * Adds the specified node if it can be fused with the operations already added.
+     *
+     * @param node
+     *            the node to add
+     * @return whether or not the node was added
+     */
+    boolean add(QueryOperationNode node) {
+        if (node instanceof CV_Filter) {
+            add(node, FILTER, ((CV_Filter) node).getPredicate());
+        } else if (node instanceof CV_FilterNulls) {
+            add(node, FILTER, (Predicate) Objects::nonNull);
+        } else if (node instanceof CV_FilterOnType) {
+            add(node, FILTER, (Predicate) ((CV_FilterOnType) node).getClazz()::isInstance);
+        } else if (node instanceof CV_Map) {
+            add(node, MAP, ((CV_Map) node).getMapper());
+        } else if (node instanceof CV_Take && !nodes.isEmpty()) {
+            // Only taking from the start of the view can be done without knowing the number of elements
+            long count = ((CV_Take) node).getNumberOfElementsToTake();
+            if (count <= 0) {
+                return false;
+            }
+            add(node, TAKE, null);
+            limits[nodes.size() - 1] = count;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void add(QueryOperationNode node, byte kind, Object operation) {
+        int index = nodes.size();
+        if (index == kinds.length) {
+            counts = Arrays.copyOf(counts, index * 2);
+            limits = Arrays.copyOf(limits, index * 2);
+            kinds = Arrays.copyOf(kinds, index * 2);
+            operations = Arrays.copyOf(operations, index * 2);
+        }
+        nodes.add(node);
+        kinds[index] = kind;
+        operations[index] = operation;
+    }
+
+    /**
+     * Applies the operations to the specified element.
+     *
+     * @param element
+     *            the element to apply the operations to
+     * @return the mapped element, or {@link #REJECTED} if the element was rejected by a filter
+     */
+    Object apply(Object element) {
+        byte[] kinds = this.kinds;
+        Object[] operations = this.operations;
+        for (int i = 0, size = nodes.size(); i < size; i++) {
+            Object operation = operations[i];
+            switch (kinds[i]) {
+            case FILTER:
+                if (!((Predicate) operation).test(element)) {
+                    return REJECTED;
+                }
+                break;
+            case MAP:
+                element = ((Function) operation).apply(element);
+                break;
+            default:
+                if (++counts[i] == limits[i]) {
+                    isDone = true;
+                }
+            }
+        }
+        return element;
+    }
+
+    /** @return whether or not there is a take operation, in which case the elements must be processed in order */
+    boolean hasTake() {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (kinds[i] == TAKE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return whether or not no elements following the current element can be accepted */
+    boolean isDone() {
+        return isDone;
+    }
+
+    /** @return the nodes of the operations */
+    ArrayList<QueryOperationNode> nodes() {
+        return nodes;
+    }
+}
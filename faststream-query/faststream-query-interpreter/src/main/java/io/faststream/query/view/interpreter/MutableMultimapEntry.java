@@ -15,9 +15,11 @@
  */
 package io.faststream.query.view.interpreter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
@@ -266,6 +268,23 @@ class MutableMultimapEntry implements Map.Entry {
         return b.append(']').toString();
     }
 
+    /**
+     * Creates an entry for each key in the specified map with the values of the list mapped to the key.
+     *
+     * @param map
+     *            the map to create entries from
+     * @return the new entries
+     */
+    public static MutableMultimapEntry[] from(Map<Object, ArrayList> map) {
+        MutableMultimapEntry[] entries = new MutableMultimapEntry[map.size()];
+        Iterator<Map.Entry<Object, ArrayList>> iter = map.entrySet().iterator();
+        for (int i = 0; i < entries.length; i++) {
+            Map.Entry<Object, ArrayList> entry = iter.next();
+            entries[i] = new MutableMultimapEntry(entry.getKey(), entry.getValue().toArray());
+        }
+        return entries;
+    }
+
     public static Multimap from(MutableMultimapEntry[] entries, int start, int stop) {
         Multimap map = Multimaps.newOrderedListMultimap();
         for (int i = start; i < stop; i++) {
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Fork join versions of the array operations used by the parallel view processors. In the style of ParallelArray, a
+ * range of an array is split into halves until each range is no larger than a threshold. Each such range is then
+ * processed serially and the partial results are merged in the order of the ranges.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+class ParallelArrayUtil {
+
+    /**
+     * Returns the number of occurrences of each element in the specified range.
+     *
+     * @param a
+     *            the array
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @return a map from each element to the number of occurrences of the element
+     */
+    static HashMap<Object, Long> count(Object[] a, int lo, int hi, int threshold) {
+        return invoke(lo, hi, threshold, (l, u) -> {
+            HashMap<Object, Long> map = new HashMap<>();
+            for (int i = l; i < u; i++) {
+                map.merge(a[i], 1L, Long::sum);
+            }
+            return map;
+        }, (left, right) -> {
+            right.forEach((k, v) -> left.merge(k, v, Long::sum));
+            return left;
+        });
+    }
+
+    /**
+     * Removes the elements in the specified range that do not satisfy the specified predicate. The remaining elements
+     * are moved to the start of the range, keeping their order.
+     *
+     * @param a
+     *            the array
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @param predicate
+     *            the predicate to test the elements against
+     * @return the new high index (excluded) of the range
+     */
+    static int filter(Object[] a, int lo, int hi, int threshold, Predicate predicate) {
+        return compact(a, lo, hi, threshold, (l, u) -> {
+            int k = l;
+            for (int i = l; i < u; i++) {
+                Object o = a[i];
+                if (predicate.test(o)) {
+                    a[k++] = o;
+                }
+            }
+            return k;
+        });
+    }
+
+    /**
+     * Applies the specified operations, that must not include take operations, to the elements in the specified range.
+     * The remaining elements are moved to the start of the range, keeping their order.
+     *
+     * @param a
+     *            the array
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @param operations
+     *            the operations to apply
+     * @return the new high index (excluded) of the range
+     */
+    static int apply(Object[] a, int lo, int hi, int threshold, FusedOperations operations) {
+        return compact(a, lo, hi, threshold, (l, u) -> {
+            int k = l;
+            for (int i = l; i < u; i++) {
+                Object o = operations.apply(a[i]);
+                if (o != FusedOperations.REJECTED) {
+                    a[k++] = o;
+                }
+            }
+            return k;
+        });
+    }
+
+    /**
+     * Splits the specified range into smaller ranges that are each compacted by the specified function, and moves the
+     * compacted ranges together.
+     *
+     * @return the new high index (excluded) of the range
+     */
+    private static int compact(Object[] a, int lo, int hi, int threshold, RangeFunction<Integer> compactor) {
+        ArrayList<int[]> ranges = invoke(lo, hi, threshold, (l, u) -> {
+            ArrayList<int[]> list = new ArrayList<>();
+            list.add(new int[] { l, compactor.apply(l, u) });
+            return list;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+        int k = lo;
+        for (int[] range : ranges) {
+            int length = range[1] - range[0];
+            System.arraycopy(a, range[0], a, k, length);
+            k += length;
+        }
+        return k;
+    }
+
+    /**
+     * Performs the specified action for each index in the specified range. The action may be performed concurrently
+     * for different indexes.
+     *
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @param action
+     *            the action to perform
+     */
+    static void forEachIndex(int lo, int hi, int threshold, IntConsumer action) {
+        invoke(lo, hi, threshold, (l, u) -> {
+            for (int i = l; i < u; i++) {
+                action.accept(i);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Groups the elements in the specified range by the key returned by the specified key mapper. The values of each
+     * key are kept in the same order as the elements they are mapped from.
+     *
+     * @param a
+     *            the array
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @param keyMapper
+     *            maps each element to its key
+     * @param valueMapper
+     *            maps each element to the value that is added for its key
+     * @return a map from each key to the values of the key
+     */
+    static <T> HashMap<Object, ArrayList> groupBy(T[] a, int lo, int hi, int threshold,
+            Function<? super T, ?> keyMapper, Function<? super T, ?> valueMapper) {
+        return invoke(lo, hi, threshold, (l, u) -> {
+            HashMap<Object, ArrayList> map = new HashMap<>();
+            for (int i = l; i < u; i++) {
+                T t = a[i];
+                map.computeIfAbsent(keyMapper.apply(t), k -> new ArrayList(2)).add(valueMapper.apply(t));
+            }
+            return map;
+        }, (left, right) -> {
+            right.forEach((k, v) -> {
+                ArrayList values = left.get(k);
+                if (values == null) {
+                    left.put(k, v);
+                } else {
+                    values.addAll(v);
+                }
+            });
+            return left;
+        });
+    }
+
+    /**
+     * Reduces the elements in the specified non-empty range using the specified reducer.
+     *
+     * @param a
+     *            the array
+     * @param lo
+     *            the low index (included)
+     * @param hi
+     *            the high index (excluded)
+     * @param threshold
+     *            the largest range that is processed without splitting it further
+     * @param reducer
+     *            the associative reducer
+     * @return the reduced value
+     */
+    static Object reduce(Object[] a, int lo, int hi, int threshold, BinaryOperator<Object> reducer) {
+        return invoke(lo, hi, threshold, (l, u) -> {
+            Object result = a[l];
+            for (int i = l + 1; i < u; i++) {
+                result = reducer.apply(result, a[i]);
+            }
+            return result;
+        }, reducer);
+    }
+
+    static <R> R invoke(int lo, int hi, int threshold, RangeFunction<R> function, BinaryOperator<R> combiner) {
+        return new RangeTask<>(lo, hi, Math.max(1, threshold), function, combiner).invoke();
+    }
+
+    /** Computes a partial result for a range of indexes. */
+    interface RangeFunction<R> {
+
+        /**
+         * Computes the partial result of the specified range.
+         *
+         * @param lo
+         *            the low index (included)
+         * @param hi
+         *            the high index (excluded)
+         * @return the partial result
+         */
+        R apply(int lo, int hi);
+    }
+
+    /** A task that splits a range of indexes into halves until each range is no larger than a threshold. */
+    static final class RangeTask<R> extends RecursiveTask<R> {
+
+        /** serialVersionUID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Merges the partial results of two adjacent ranges, the left result is from the lowest indexes. */
+        private final BinaryOperator<R> combiner;
+
+        /** Computes the partial result of a range no larger than the threshold. */
+        private final RangeFunction<R> function;
+
+        /** The range processed by this task. */
+        private final int lo, hi;
+
+        /** The largest range that is processed without splitting it further. */
+        private final int threshold;
+
+        RangeTask(int lo, int hi, int threshold, RangeFunction<R> function, BinaryOperator<R> combiner) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.function = function;
+            this.combiner = combiner;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected R compute() {
+            if (hi - lo <= threshold) {
+                return function.apply(lo, hi);
+            }
+            int mid = (lo + hi) >>> 1;
+            RangeTask<R> right = new RangeTask<>(mid, hi, threshold, function, combiner);
+            right.fork();
+            R left = new RangeTask<>(lo, mid, threshold, function, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+}
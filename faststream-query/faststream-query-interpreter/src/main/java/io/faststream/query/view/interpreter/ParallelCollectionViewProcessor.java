@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import io.faststream.query.db.nodes.view.collectionview.CV_Count;
+
+/**
+ * A collection view processor that uses fork join tasks to process views with more elements than a threshold. Views
+ * that become smaller than the threshold, for example, after filtering, are processed serially.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+class ParallelCollectionViewProcessor<E> extends SerialCollectionViewProcessor<E> {
+
+    /** The largest number of elements that are processed serially. */
+    private final int threshold;
+
+    ParallelCollectionViewProcessor(Object[] a, boolean isSafe, int threshold) {
+        super(a, isSafe);
+        this.threshold = threshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void apply(FusedOperations operations) {
+        if (hi - lo <= threshold || operations.hasTake()) {
+            super.apply(operations);
+        } else {
+            checkSafe();
+            hi = ParallelArrayUtil.apply(a, lo, hi, threshold, operations);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor collectionProcessor(Object[] handoff) {
+        return ViewInterpreters.collectionProcessor(handoff, true, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void count(CV_Count node) {
+        if (hi - lo <= threshold) {
+            super.count(node);
+        } else {
+            setNext(mapProcessor(SerialMapViewProcessor.entries(ParallelArrayUtil.count(a, lo, hi, threshold))));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void filter(Predicate filter) {
+        if (hi - lo <= threshold) {
+            super.filter(filter);
+        } else {
+            checkSafe();
+            hi = ParallelArrayUtil.filter(a, lo, hi, threshold, filter);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void groupBy(Function<? super Object, ?> mapper) {
+        if (hi - lo <= threshold) {
+            super.groupBy(mapper);
+        } else {
+            setNext(multimapProcessor(MutableMultimapEntry.from(ParallelArrayUtil.groupBy(a, lo, hi, threshold, mapper,
+                    Function.identity()))));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void map(Function<? super Object, ?> mapper) {
+        if (hasResult() || hi - lo <= threshold) {
+            super.map(mapper);
+        } else {
+            checkSafe();
+            Object[] a = this.a;
+            ParallelArrayUtil.forEachIndex(lo, hi, threshold, i -> a[i] = mapper.apply(a[i]));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor mapProcessor(Map.Entry[] entries) {
+        return ViewInterpreters.mapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor multimapProcessor(MutableMultimapEntry[] entries) {
+        return ViewInterpreters.multimapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reduce(BinaryOperator<? super Object> reducer) {
+        if (hi - lo <= threshold) {
+            super.reduce(reducer);
+        } else {
+            setResult(ParallelArrayUtil.reduce(a, lo, hi, threshold, (BinaryOperator) reducer));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void sort(Comparator comparator) {
+        if (hi - lo <= threshold) {
+            super.sort(comparator);
+        } else {
+            checkSafe();
+            // A parallel merge sort
+            Arrays.parallelSort(a, lo, hi, comparator);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A map view processor that uses fork join tasks to process views with more entries than a threshold. Views that
+ * become smaller than the threshold, for example, after filtering, are processed serially.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+class ParallelMapViewProcessor extends SerialMapViewProcessor {
+
+    /** The largest number of entries that are processed serially. */
+    private final int threshold;
+
+    ParallelMapViewProcessor(Entry[] e, int threshold) {
+        super(e);
+        this.threshold = threshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor collectionProcessor(Object[] handoff) {
+        return ViewInterpreters.collectionProcessor(handoff, true, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void filter(Predicate filter) {
+        if (hi - lo <= threshold) {
+            super.filter(filter);
+        } else {
+            checkSafe();
+            hi = ParallelArrayUtil.filter(a, lo, hi, threshold, filter);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void map(BiFunction<? super Object, ? super Object, ?> mapper) {
+        if (hi - lo <= threshold) {
+            super.map(mapper);
+        } else {
+            Entry[] a = this.a;
+            int lo = this.lo;
+            Object[] o = new Object[hi - lo];
+            ParallelArrayUtil.forEachIndex(lo, hi, threshold, i -> o[i - lo] = mapper.apply(a[i].getKey(),
+                    a[i].getValue()));
+            setNext(collectionProcessor(o));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void mapKey(Function<? super Object, ?> mapper) {
+        if (hi - lo <= threshold) {
+            super.mapKey(mapper);
+        } else {
+            setNext(multimapProcessor(MutableMultimapEntry.from(ParallelArrayUtil.groupBy(a, lo, hi, threshold,
+                    e -> mapper.apply(e.getKey()), Entry::getValue))));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor mapProcessor(Map.Entry[] entries) {
+        return ViewInterpreters.mapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void mapValue(Function<? super Object, ?> mapper) {
+        if (hi - lo <= threshold) {
+            super.mapValue(mapper);
+        } else {
+            Entry[] a = this.a;
+            ParallelArrayUtil.forEachIndex(lo, hi, threshold, i -> a[i] = new SimpleImmutableEntry(a[i].getKey(),
+                    mapper.apply(a[i].getValue())));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor multimapProcessor(MutableMultimapEntry[] entries) {
+        return ViewInterpreters.multimapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void sort(Comparator comparator) {
+        if (hi - lo <= threshold) {
+            super.sort(comparator);
+        } else {
+            checkSafe();
+            // A parallel merge sort
+            Arrays.parallelSort(a, lo, hi, comparator);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A multimap view processor that uses fork join tasks to process views with more keys than a threshold. The values of
+ * a single key are always processed serially.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+class ParallelMultimapMapViewProcessor extends SerialMultimapMapViewProcessor {
+
+    /** The largest number of keys that are processed serially. */
+    private final int threshold;
+
+    ParallelMultimapMapViewProcessor(MutableMultimapEntry[] e, int threshold) {
+        super(e);
+        this.threshold = threshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor collectionProcessor(Object[] handoff) {
+        return ViewInterpreters.collectionProcessor(handoff, true, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void filter(BiPredicate<? super Object, ? super Object> predicate) {
+        if (hi - lo <= threshold) {
+            super.filter(predicate);
+        } else {
+            forEachEntry(e -> e.filter(predicate));
+            removeEmptyEntries();
+        }
+    }
+
+    /** Performs the specified action for each entry, possibly concurrently. */
+    private void forEachEntry(Consumer<MutableMultimapEntry> action) {
+        MutableMultimapEntry[] a = this.a;
+        ParallelArrayUtil.forEachIndex(lo, hi, threshold, i -> action.accept(a[i]));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor mapProcessor(Map.Entry[] entries) {
+        return ViewInterpreters.mapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void mapValue(Function<? super Object, ?> op) {
+        if (hi - lo <= threshold) {
+            super.mapValue(op);
+        } else {
+            forEachEntry(e -> {
+                Object[] data = e.values;
+                for (int j = e.offset; j < e.length; j++) {
+                    data[j] = op.apply(data[j]);
+                }
+            });
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    AbstractSingleNodeViewQueryProcessor multimapProcessor(MutableMultimapEntry[] entries) {
+        return ViewInterpreters.multimapProcessor(entries, threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reduce(BinaryOperator<? super Object> reducer) {
+        if (hi - lo <= threshold) {
+            super.reduce(reducer);
+        } else {
+            MutableMultimapEntry[] a = this.a;
+            int lo = this.lo;
+            Map.Entry[] entries = new Map.Entry[hi - lo];
+            ParallelArrayUtil.forEachIndex(lo, hi, threshold, i -> entries[i - lo] = new SimpleImmutableEntry(
+                    a[i].getKey(), a[i].reduce(reducer)));
+            setNext(mapProcessor(entries));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void sort(Comparator comparator) {
+        if (hi - lo <= threshold) {
+            super.sort(comparator);
+        } else {
+            checkSafe();
+            // A parallel merge sort
+            Arrays.parallelSort(a, lo, hi, comparator);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void sortedValues(Comparator comparator) {
+        if (hi - lo <= threshold) {
+            super.sortedValues(comparator);
+        } else {
+            forEachEntry(e -> e.sort(comparator));
+        }
+    }
+}
@@ -20,7 +20,6 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -62,10 +61,13 @@ import io.faststream.query.db.query.node.EmptyResult;
 import io.faststream.query.db.query.node.QueryOperationNode;
 
 @SuppressWarnings({ "rawtypes", "unchecked" })
-final class SerialCollectionViewProcessor<E> extends AbstractSerialArrayViewProcessor<Object> implements
+class SerialCollectionViewProcessor<E> extends AbstractSerialArrayViewProcessor<Object> implements
 CollectionViewVisitable.CollectionViewVisitor {
 
-    private SerialCollectionViewProcessor(Object[] a, boolean isSafe) {
+    /** Stateless operations that have not yet been applied to the elements. */
+    private FusedOperations pending;
+
+    SerialCollectionViewProcessor(Object[] a, boolean isSafe) {
         super(a, isSafe);
     }
 
@@ -104,7 +106,7 @@ CollectionViewVisitable.CollectionViewVisitor {
             Long current = m.get(e);
             m.put(e, current == null ? 1L : current + 1);
         }
-        setNext(new SerialMapViewProcessor(m));
+        setNext(mapProcessor(SerialMapViewProcessor.entries(m)));
     }
 
     @Override
@@ -142,7 +144,7 @@ CollectionViewVisitable.CollectionViewVisitor {
         for (int i = lo; i < hi; i++) {
             p.accept(a[i]);
         }
-        setNext(createUsingHandoff(new Object[] { p }));
+        setNext(collectionProcessor(new Object[] { p }));
     }
 
     public void groupBy(CV_GroupBy node) {
@@ -161,13 +163,7 @@ CollectionViewVisitable.CollectionViewVisitor {
             }
             al.add(o);
         }
-        MutableMultimapEntry[] me = new MutableMultimapEntry[map.size()];
-        Iterator<Map.Entry<Object, ArrayList>> iter = map.entrySet().iterator();
-        for (int i = 0; i < me.length; i++) {
-            Map.Entry<Object, ArrayList> entry = iter.next();
-            me[i] = new MutableMultimapEntry(entry.getKey(), entry.getValue().toArray());
-        }
-        setNext(new SerialMultimapMapViewProcessor(me));
+        setNext(multimapProcessor(MutableMultimapEntry.from(map)));
     }
 
     @Override
@@ -189,7 +185,7 @@ CollectionViewVisitable.CollectionViewVisitor {
         for (int i = lo; i < hi; i++) {
             map.put(Long.valueOf(i - lo), a[i]);
         }
-        setNext(new SerialMapViewProcessor(map));
+        setNext(mapProcessor(SerialMapViewProcessor.entries(map)));
     }
 
     @Override
@@ -198,7 +194,48 @@ CollectionViewVisitable.CollectionViewVisitor {
     }
 
     public void process(QueryOperationNode node) {
-        ((CollectionViewVisitable) node).accept(this);
+        if (pending == null) {
+            pending = new FusedOperations();
+        }
+        if (!pending.add(node)) {
+            applyPending();
+            ((CollectionViewVisitable) node).accept(this);
+        }
+    }
+
+    /**
+     * Applies the specified operations to all elements in a single pass.
+     *
+     * @param operations
+     *            the operations to apply
+     */
+    void apply(FusedOperations operations) {
+        Object[] a = this.a;
+        Object[] dest = isSafeArray ? a : newArray(hi - lo);
+        int k = isSafeArray ? lo : 0;
+        for (int i = lo; i < hi && !operations.isDone(); i++) {
+            Object o = operations.apply(a[i]);
+            if (o != FusedOperations.REJECTED) {
+                dest[k++] = o;
+            }
+        }
+        if (!isSafeArray) {
+            this.a = dest;
+            lo = 0;
+            isSafeArray = true;
+        }
+        hi = k;
+    }
+
+    private void applyPending() {
+        FusedOperations pending = this.pending;
+        this.pending = null;
+        List<QueryOperationNode> nodes = pending.nodes();
+        if (nodes.size() == 1) {
+            ((CollectionViewVisitable) nodes.get(0)).accept(this);
+        } else if (nodes.size() > 1) {
+            apply(pending);
+        }
     }
 
     public void reduce(BinaryOperator<? super Object> reducer) {
@@ -19,7 +19,6 @@ import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -68,7 +67,7 @@ MapViewVisitable.MapViewVisitor {
     }
 
     public SerialMapViewProcessor(Map m) {
-        this((Entry[]) m.entrySet().toArray(new Map.Entry[m.size()]));
+        this(entries(m));
     }
 
     public void forEach(MVT_ForEach node) {
@@ -84,7 +83,7 @@ MapViewVisitable.MapViewVisitor {
     }
 
     public void entries(MV_Entries node) {
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(toMap().entrySet().toArray()));
+        setNext(collectionProcessor(toMap().entrySet().toArray()));
     }
 
     private void filter(final BiPredicate<? super Object, ? super Object> predicate) {
@@ -146,7 +145,7 @@ MapViewVisitable.MapViewVisitor {
     }
 
     public void keys(MV_Keys node) {
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(toMap().keySet().toArray()));
+        setNext(collectionProcessor(toMap().keySet().toArray()));
     }
 
     public void map(MV_Map node) {
@@ -160,7 +159,7 @@ MapViewVisitable.MapViewVisitor {
             Map.Entry e = a[i + lo];
             o[i] = mapper.apply(e.getKey(), e.getValue());
         }
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(o));
+        setNext(collectionProcessor(o));
     }
 
     public void mapKey(MV_MapKey node) {
@@ -179,13 +178,7 @@ MapViewVisitable.MapViewVisitor {
             }
             al.add(e.getValue());
         }
-        MutableMultimapEntry[] me = new MutableMultimapEntry[map.size()];
-        Iterator<Map.Entry<Object, ArrayList>> iter = map.entrySet().iterator();
-        for (int i = 0; i < me.length; i++) {
-            Map.Entry<Object, ArrayList> entry = iter.next();
-            me[i] = new MutableMultimapEntry(entry.getKey(), entry.getValue().toArray());
-        }
-        setNext(new SerialMultimapMapViewProcessor(me));
+        setNext(multimapProcessor(MutableMultimapEntry.from(map)));
     }
 
     public void mapValue(MV_MapValue node) {
@@ -282,7 +275,7 @@ MapViewVisitable.MapViewVisitor {
     }
 
     public void values(MV_Values node) {
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(toMap().values().toArray()));
+        setNext(collectionProcessor(toMap().values().toArray()));
     }
 
     /** {@inheritDoc} */
@@ -290,4 +283,15 @@ MapViewVisitable.MapViewVisitor {
     public void toMap(MVT_ToMap node) {
         to(Map.class);
     }
+
+    /**
+     * Returns the entries of the specified map.
+     *
+     * @param map
+     *            the map to return the entries of
+     * @return the entries of the map
+     */
+    static Entry[] entries(Map map) {
+        return (Entry[]) map.entrySet().toArray(new Map.Entry[map.size()]);
+    }
 }
@@ -75,7 +75,7 @@ MultimapViewVisitable.MultimapViewVisitor {
             MutableMultimapEntry entry = a[i];
             e[i - lo] = new SimpleImmutableEntry(entry.key, entry.values[entry.offset]);
         }
-        setNext(new SerialMapViewProcessor(e));
+        setNext(mapProcessor(e));
     }
 
     public void count(UV_Count node) {
@@ -83,14 +83,21 @@ MultimapViewVisitable.MultimapViewVisitor {
         for (int i = lo; i < hi; i++) {
             e[i - lo] = new SimpleImmutableEntry(a[i].key, Long.valueOf(a[i].size()));
         }
-        setNext(new SerialMapViewProcessor(e));
+        setNext(mapProcessor(e));
     }
 
-    private void filter(BiPredicate<? super Object, ? super Object> predicate) {
+    void filter(BiPredicate<? super Object, ? super Object> predicate) {
+        for (int i = lo; i < hi; i++) {
+            a[i].filter(predicate);
+        }
+        removeEmptyEntries();
+    }
+
+    /** Removes entries whose values have all been filtered out. */
+    final void removeEmptyEntries() {
         int adjustment = 0;
         for (int i = lo; i < hi; i++) {
             MutableMultimapEntry e = a[i];
-            e.filter(predicate);
             if (e.isEmpty()) {
                 adjustment++;
             } else if (adjustment > 0) {
@@ -157,7 +164,7 @@ MultimapViewVisitable.MultimapViewVisitor {
             MutableMultimapEntry entry = a[i];
             e[i - lo] = new SimpleImmutableEntry(entry.key, entry.values[entry.offset]);
         }
-        setNext(new SerialMapViewProcessor(e));
+        setNext(mapProcessor(e));
     }
 
     public void isEmpty(UVT_IsEmpty node) {
@@ -169,7 +176,7 @@ MultimapViewVisitable.MultimapViewVisitor {
         for (int i = lo; i < hi; i++) {
             o[i - lo] = a[i].key;
         }
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(o));
+        setNext(collectionProcessor(o));
     }
 
     public void map(UV_Map node) {
@@ -189,7 +196,7 @@ MultimapViewVisitable.MultimapViewVisitor {
                 newData[offset++] = mapper.apply(e.key, e.values[j]);
             }
         }
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(newData));
+        setNext(collectionProcessor(newData));
     }
 
     public void mapKey(UV_MapKey node) {
@@ -245,7 +252,7 @@ MultimapViewVisitable.MultimapViewVisitor {
         mapValue(node.getMapper());
     }
 
-    private void mapValue(Function<? super Object, ?> op) {
+    void mapValue(Function<? super Object, ?> op) {
         for (int i = lo; i < hi; i++) {
             MutableMultimapEntry e = a[i];
             Object[] data = e.values;
@@ -274,7 +281,7 @@ MultimapViewVisitable.MultimapViewVisitor {
             }
             e[i - lo] = new SimpleImmutableEntry(entry.key, entry.values[entry.offset]);
         }
-        setNext(new SerialMapViewProcessor(e));
+        setNext(mapProcessor(e));
     }
 
     private void sortedKeys(final Comparator comparator) {
@@ -299,7 +306,7 @@ MultimapViewVisitable.MultimapViewVisitor {
         sortedKeys(Comparator.reverseOrder());
     }
 
-    private void sortedValues(Comparator comparator) {
+    void sortedValues(Comparator comparator) {
         for (int i = lo; i < hi; i++) {
             a[i].sort(comparator);
         }
@@ -333,7 +340,7 @@ MultimapViewVisitable.MultimapViewVisitor {
             MutableMultimapEntry me = a[i];
             entries[i - lo] = new SimpleImmutableEntry(me.getKey(), me.reduce(reducer));
         }
-        setNext(new SerialMapViewProcessor(entries));
+        setNext(mapProcessor(entries));
     }
 
     public void size(UVT_Size node) {
@@ -346,7 +353,7 @@ MultimapViewVisitable.MultimapViewVisitor {
             MutableMultimapEntry entry = a[i];
             e[i - lo] = new SimpleImmutableEntry(entry.key, entry.values[entry.length - 1]);
         }
-        setNext(new SerialMapViewProcessor(e));
+        setNext(mapProcessor(e));
     }
 
     public void take(UV_Take node) {
@@ -402,7 +409,7 @@ MultimapViewVisitable.MultimapViewVisitor {
         if (size != k) {
             throw new Error();
         }
-        setNext(SerialCollectionViewProcessor.createUsingHandoff(o));
+        setNext(collectionProcessor(o));
     }
 
     /** {@inheritDoc} */
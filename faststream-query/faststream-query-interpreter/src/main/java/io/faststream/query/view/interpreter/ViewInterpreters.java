@@ -18,12 +18,19 @@ package io.faststream.query.view.interpreter;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import io.faststream.query.db.nodes.view.collectionview.AbstractCollectionView;
 import io.faststream.query.db.nodes.view.mapview.AbstractMapView;
 import io.faststream.query.db.query.node.AbstractTerminalQueryOperationProcessor;
+import io.faststream.query.db.query.node.QueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNodeProcessor;
 import io.faststream.query.util.view.CollectionView;
@@ -35,6 +42,9 @@ import io.faststream.query.util.view.MapView;
  */
 public class ViewInterpreters {
 
+    /** The default number of elements above which a view is processed in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
     /**
      * Creates a new {@link MapView} from the specified map.
      *
@@ -79,35 +89,189 @@ public class ViewInterpreters {
     }
 
     public static TerminalQueryOperationNodeProcessor createCollectionViewProcessor(final Object[] array) {
+        return createCollectionViewProcessor(array, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a processor for collection views of the specified array. Views with more elements than the specified
+     * threshold are processed in parallel using fork join tasks.
+     *
+     * @param array
+     *            the elements of the view
+     * @param parallelThreshold
+     *            the largest number of elements that are processed serially
+     * @return the new processor
+     */
+    public static TerminalQueryOperationNodeProcessor createCollectionViewProcessor(final Object[] array,
+            int parallelThreshold) {
         requireNonNull(array, "array is null");
+        checkParallelThreshold(parallelThreshold);
         return new AbstractTerminalQueryOperationProcessor() {
             @Override
             public Object process(TerminalQueryOperationNode topNode) {
-                return SerialCollectionViewProcessor.createUsingCopy(array).run(topNode);
+                return collectionProcessor(array, false, parallelThreshold).run(topNode);
             }
         };
     }
 
     public static TerminalQueryOperationNodeProcessor createCollectionViewProcessor(Iterable<?> iterable) {
+        return createCollectionViewProcessor(iterable, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a processor for collection views of the specified iterable. Views with more elements than the specified
+     * threshold are processed in parallel using fork join tasks.
+     *
+     * @param iterable
+     *            the elements of the view
+     * @param parallelThreshold
+     *            the largest number of elements that are processed serially
+     * @return the new processor
+     */
+    public static TerminalQueryOperationNodeProcessor createCollectionViewProcessor(Iterable<?> iterable,
+            int parallelThreshold) {
         requireNonNull(iterable, "iterable is null");
+        checkParallelThreshold(parallelThreshold);
         return new AbstractTerminalQueryOperationProcessor() {
             @Override
             public Object process(TerminalQueryOperationNode topNode) {
-                return SerialCollectionViewProcessor.createUsingHandoff(convertIterableToArray(iterable)).run(topNode);
+                return collectionProcessor(convertIterableToArray(iterable), true, parallelThreshold).run(topNode);
             }
         };
     }
 
     public static TerminalQueryOperationNodeProcessor createMapViewProcessor(final Map<?, ?> map) {
+        return createMapViewProcessor(map, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a processor for map views of the specified map. Views with more entries than the specified threshold are
+     * processed in parallel using fork join tasks.
+     *
+     * @param map
+     *            the entries of the view
+     * @param parallelThreshold
+     *            the largest number of entries that are processed serially
+     * @return the new processor
+     */
+    public static TerminalQueryOperationNodeProcessor createMapViewProcessor(final Map<?, ?> map,
+            int parallelThreshold) {
         requireNonNull(map, "map is null");
+        checkParallelThreshold(parallelThreshold);
         return new AbstractTerminalQueryOperationProcessor() {
             @Override
             public Object process(TerminalQueryOperationNode topNode) {
-                return new SerialMapViewProcessor(map).run(topNode);
+                return mapProcessor(SerialMapViewProcessor.entries(map), parallelThreshold).run(topNode);
             }
         };
     }
 
+    /**
+     * Interprets the query ending with the specified node on the specified stream.
+     *
+     * @param stream
+     *            the stream to apply the operations of the query to
+     * @param node
+     *            the terminal node of the query
+     * @return the result of the query
+     */
+    public static Object process(DoubleStream stream, TerminalQueryOperationNode node) {
+        return new DoubleStreamProcessor(stream).run(node);
+    }
+
+    /**
+     * Interprets the query ending with the specified node on the specified stream.
+     *
+     * @param stream
+     *            the stream to apply the operations of the query to
+     * @param node
+     *            the terminal node of the query
+     * @return the result of the query
+     */
+    public static Object process(IntStream stream, TerminalQueryOperationNode node) {
+        return new IntStreamProcessor(stream).run(node);
+    }
+
+    /**
+     * Interprets the query ending with the specified node on the specified stream.
+     *
+     * @param stream
+     *            the stream to apply the operations of the query to
+     * @param node
+     *            the terminal node of the query
+     * @return the result of the query
+     */
+    public static Object process(LongStream stream, TerminalQueryOperationNode node) {
+        return new LongStreamProcessor(stream).run(node);
+    }
+
+    /**
+     * Interprets the query ending with the specified node on the specified stream.
+     *
+     * @param stream
+     *            the stream to apply the operations of the query to
+     * @param node
+     *            the terminal node of the query
+     * @return the result of the query
+     */
+    public static Object process(Stream<?> stream, TerminalQueryOperationNode node) {
+        return new StreamProcessor(stream).run(node);
+    }
+
+    /**
+     * Interprets the operations of the query ending with the specified node on the specified multimap, starting with
+     * the operation at the specified index. Compiled queries use this for the multimap operations that depend on how
+     * values are grouped by key.
+     *
+     * @param multimap
+     *            the values of the multimap grouped by key
+     * @param node
+     *            the terminal node of the query
+     * @param start
+     *            the index of the first multimap operation to interpret
+     * @return the result of the query
+     */
+    @SuppressWarnings("rawtypes")
+    public static Object process(Map<Object, ArrayList> multimap, TerminalQueryOperationNode node, int start) {
+        QueryOperationNode[] operations = node.operations();
+        return multimapProcessor(MutableMultimapEntry.from(multimap), DEFAULT_PARALLEL_THRESHOLD).run(
+                Arrays.copyOfRange(operations, start, operations.length));
+    }
+
+    private static void checkParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be positive, was " + parallelThreshold);
+        }
+    }
+
+    static AbstractSingleNodeViewQueryProcessor collectionProcessor(Object[] a, boolean isSafe, int parallelThreshold) {
+        if (isParallel(a.length, parallelThreshold)) {
+            return new ParallelCollectionViewProcessor<>(a, isSafe, parallelThreshold);
+        }
+        return new SerialCollectionViewProcessor<>(a, isSafe);
+    }
+
+    /** Returns whether or not a view of the specified size should be processed in parallel. */
+    private static boolean isParallel(int size, int parallelThreshold) {
+        // Like Arrays.parallelSort we do not split the work if there is only a single thread to process it
+        return size > parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    static AbstractSingleNodeViewQueryProcessor mapProcessor(Map.Entry<?, ?>[] entries, int parallelThreshold) {
+        if (isParallel(entries.length, parallelThreshold)) {
+            return new ParallelMapViewProcessor(entries, parallelThreshold);
+        }
+        return new SerialMapViewProcessor(entries);
+    }
+
+    static AbstractSingleNodeViewQueryProcessor multimapProcessor(MutableMultimapEntry[] entries,
+            int parallelThreshold) {
+        if (isParallel(entries.length, parallelThreshold)) {
+            return new ParallelMultimapMapViewProcessor(entries, parallelThreshold);
+        }
+        return new SerialMultimapMapViewProcessor(entries);
+    }
+
     static Object[] convertIterableToArray(Iterable<?> iterable) {
         if (iterable instanceof Collection) {
             return ((Collection<?>) iterable).toArray();
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.query.view.interpreter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.junit.Test;
+
+import io.faststream.query.db.nodes.view.collectionview.AbstractCollectionView;
+import io.faststream.query.util.view.CollectionView;
+
+/**
+ * Tests that chains of operations that are fused by {@link SerialCollectionViewProcessor} and
+ * {@link ParallelCollectionViewProcessor} into {@link FusedOperations} give the same result as applying each operation
+ * on its own.
+ *
+ * @author Kasper Nielsen
+ */
+public class FusedOperationsTest {
+
+    /** Operations that can be chained, each operation is applied to a view of objects. */
+    static final List<UnaryOperator<CollectionView<Object>>> OPERATIONS = new ArrayList<>();
+
+    static {
+        OPERATIONS.add(v -> v.filter(e -> e == null || (Integer) e % 3 != 0));
+        OPERATIONS.add(v -> v.filter(e -> e != null && (Integer) e > 10));
+        OPERATIONS.add(v -> v.map(e -> e == null ? null : (Integer) e + 7));
+        OPERATIONS.add(v -> v.map(e -> e == null ? -1 : (Integer) e / 2));
+        OPERATIONS.add(v -> v.filterNulls());
+        OPERATIONS.add(v -> v.filterOnType(Integer.class).map(e -> (Object) e));
+        OPERATIONS.add(v -> v.take(1));
+        OPERATIONS.add(v -> v.take(5));
+        OPERATIONS.add(v -> v.take(40));
+        // Taking from the end of the view is never fused
+        OPERATIONS.add(v -> v.take(-3));
+    }
+
+    static CollectionView<Object> serial(List<?> list) {
+        return ViewInterpreters.createCollectionView(list);
+    }
+
+    static CollectionView<Object> parallel(List<?> list) {
+        // A small threshold to make sure even small views are split into multiple tasks
+        return AbstractCollectionView.from(ViewInterpreters.createCollectionViewProcessor(list, 4));
+    }
+
+    /** Applies each operation as a separate query, so no operations are fused. */
+    static List<Object> unfused(List<Object> list, List<UnaryOperator<CollectionView<Object>>> operations) {
+        for (UnaryOperator<CollectionView<Object>> o : operations) {
+            list = o.apply(serial(list)).toList();
+        }
+        return list;
+    }
+
+    static List<Object> fused(CollectionView<Object> view, List<UnaryOperator<CollectionView<Object>>> operations) {
+        for (UnaryOperator<CollectionView<Object>> o : operations) {
+            view = o.apply(view);
+        }
+        return view.toList();
+    }
+
+    static List<Object> list(Random r, int size) {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(r.nextInt(10) == 0 ? null : r.nextInt(100));
+        }
+        return list;
+    }
+
+    @Test
+    public void chains() {
+        Random r = new Random(12345);
+        for (int i = 0; i < 2000; i++) {
+            List<Object> list = list(r, r.nextInt(5) == 0 ? 500 : r.nextInt(40));
+            List<UnaryOperator<CollectionView<Object>>> operations = new ArrayList<>();
+            for (int j = 1 + r.nextInt(6); j > 0; j--) {
+                operations.add(OPERATIONS.get(r.nextInt(OPERATIONS.size())));
+            }
+            List<Object> expected = unfused(list, operations);
+            assertEquals(expected, fused(serial(list), operations));
+            assertEquals(expected, fused(parallel(list), operations));
+        }
+    }
+
+    @Test
+    public void terminals() {
+        List<Object> list = list(new Random(54321), 1000);
+        List<Function<CollectionView<Object>, Object>> queries = new ArrayList<>();
+        queries.add(v -> v.filterNulls().map(e -> (Integer) e * 2).filter(e -> e % 3 == 0).size());
+        queries.add(v -> v.filterNulls().map(e -> (Integer) e + 1).take(10).reduce(0, (a, b) -> a + b));
+        queries.add(v -> v.filterNulls().filter(e -> (Integer) e > 50).take(3).first());
+        queries.add(v -> v.map(e -> e == null ? 0 : e).filter(e -> (Integer) e > 95).isEmpty());
+        queries.add(v -> v.filterNulls().map(e -> (Integer) e % 7).filter(e -> e > 2).distinct().sorted().toList());
+        for (Function<CollectionView<Object>, Object> q : queries) {
+            Object expected = q.apply(serial(new ArrayList<>(list)));
+            assertEquals(expected, q.apply(parallel(new ArrayList<>(list))));
+        }
+        assertEquals(Arrays.asList(3, 4, 5, 6), queries.get(4).apply(serial(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8,
+                9, 10, 11, 12, 13, 14, 15))));
+    }
+
+    /** Elements following the last element accepted by a take are not processed. */
+    @Test
+    public void takeStopsEarly() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        for (CollectionView<Object> view : Arrays.asList(serial(list), parallel(list))) {
+            AtomicInteger tested = new AtomicInteger();
+            AtomicInteger mapped = new AtomicInteger();
+            List<Object> result = view.filter(e -> {
+                tested.incrementAndGet();
+                return (Integer) e % 2 == 0;
+            }).map(e -> {
+                mapped.incrementAndGet();
+                return (Object) ((Integer) e * 10);
+            }).take(3).toList();
+            assertEquals(Arrays.asList(0, 20, 40), result);
+            assertEquals(5, tested.get());
+            assertEquals(3, mapped.get());
+        }
+    }
+}
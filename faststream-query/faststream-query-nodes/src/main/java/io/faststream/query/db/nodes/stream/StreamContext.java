@@ -26,6 +26,9 @@ public class StreamContext {
 
     Throwable t;
 
+    /** Whether or not the stream is parallel. */
+    boolean isParallel;
+
     public void close() {
         consumed = true;
         Runnable closeAction = this.closeAction;
@@ -48,6 +51,14 @@ public class StreamContext {
         }
     }
 
+    public boolean isParallel() {
+        return isParallel;
+    }
+
+    public void setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+    }
+
     public void onClose(Runnable runOnClose) {
         Runnable closeAction = this.closeAction;
         this.closeAction = (closeAction == null) ? runOnClose : suppressSecondRunnable(closeAction, runOnClose);
@@ -135,7 +135,7 @@ public abstract class AbstractDoubleStream extends QueryOperationNode implements
     }
 
     public boolean isParallel() {
-        return false;
+        return context.isParallel();
     }
 
     public PrimitiveIterator.OfDouble iterator() {
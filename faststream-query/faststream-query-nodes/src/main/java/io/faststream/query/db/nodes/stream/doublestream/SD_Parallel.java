@@ -31,6 +31,7 @@ public class SD_Parallel extends AbstractDoubleStream implements DoubleStreamVis
     public SD_Parallel(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(true);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
@@ -31,6 +31,7 @@ public class SD_Sequential extends AbstractDoubleStream implements DoubleStreamV
     public SD_Sequential(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(false);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
@@ -144,7 +144,7 @@ public abstract class AbstractIntStream extends QueryOperationNode implements In
     }
 
     public boolean isParallel() {
-        return false;
+        return context.isParallel();
     }
 
     public PrimitiveIterator.OfInt iterator() {
@@ -31,6 +31,7 @@ public class SI_Parallel extends AbstractIntStream implements IntStreamVisitable
     public SI_Parallel(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(true);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
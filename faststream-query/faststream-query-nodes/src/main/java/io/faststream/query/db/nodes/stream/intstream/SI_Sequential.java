@@ -31,6 +31,7 @@ public class SI_Sequential extends AbstractIntStream implements IntStreamVisitab
     public SI_Sequential(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(false);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
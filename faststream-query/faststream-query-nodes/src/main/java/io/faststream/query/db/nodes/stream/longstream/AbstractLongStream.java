@@ -140,7 +140,7 @@ public abstract class AbstractLongStream extends QueryOperationNode implements L
     }
 
     public boolean isParallel() {
-        return false;
+        return context.isParallel();
     }
 
     public PrimitiveIterator.OfLong iterator() {
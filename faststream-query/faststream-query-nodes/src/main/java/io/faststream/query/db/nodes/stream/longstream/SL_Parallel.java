@@ -31,6 +31,7 @@ public class SL_Parallel extends AbstractLongStream implements LongStreamVisitab
     public SL_Parallel(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(true);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
@@ -31,6 +31,7 @@ public class SL_Sequential extends AbstractLongStream implements LongStreamVisit
     public SL_Sequential(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(false);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
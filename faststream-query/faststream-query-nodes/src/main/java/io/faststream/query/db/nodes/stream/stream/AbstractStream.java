@@ -141,7 +141,7 @@ public abstract class AbstractStream extends QueryOperationNode implements Strea
     }
 
     public boolean isParallel() {
-        return false;
+        return context.isParallel();
     }
 
     public Iterator iterator() {
@@ -31,6 +31,7 @@ public class SO_Parallel extends AbstractStream implements StreamVisitable {
     public SO_Parallel(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(true);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
@@ -31,6 +31,7 @@ public class SO_Sequential extends AbstractStream implements StreamVisitable {
     public SO_Sequential(QueryOperationNode parent, StreamContext context) {
         super(parent, context);
         context.checkNotConsumed();
+        context.setParallel(false);
     }
 
     public QueryOperationNodeDefinition getOperationPackage() {
@@ -23,6 +23,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import io.faststream.query.db.query.compiler.anew.QueryCacheStatistics;
 
 /**
  * An abstract builder for data structures uses dynamic code generation to generate highly efficient code.
@@ -35,18 +39,42 @@ import java.util.List;
  */
 public abstract class AbstractBuilder {
 
+    /** A system property that can be used to set the default {@link #setCacheDirectory(String) cache directory}. */
+    public static final String CACHE_DIRECTORY_PROPERTY = "io.faststream.cacheDirectory";
+
+    /** A directory where compiled classes are cached across JVM restarts. */
+    private Path cacheDirectory = defaultCacheDirectory();
+
     /** The classloader that should be used as a parent for the generated classes. */
     private ClassLoader classLoaderParent;
 
+    /** The executor that queries are compiled in, or null if queries are compiled by the thread executing them. */
+    private Executor compilationExecutor;
+
     /** A list of printers where all code is written out to before being compiled. */
     private final List<PrintWriter> codePrinters = new ArrayList<>(0);
 
+    /** The pool that parallel streams are executed in, or null if the common pool should be used. */
+    private ForkJoinPool forkJoinPool;
+
+    /** The maximum number of compiled queries that are cached, or 0 if the cache is unbounded. */
+    private int maximumCacheSize;
+
     /** The default base package name. */
     private String packageName;
 
+    /** The number of elements below which a parallel stream is processed by a single thread, or 0 for the default. */
+    private int parallelThreshold;
+
     /** A path to write .java files to. */
     private Path sourcePath;
 
+    /** Whether or not queries are compiled for every combination of function classes they are used with. */
+    private boolean specializeFunctions;
+
+    /** Statistics about the queries of all factories created by this builder. */
+    private final QueryCacheStatistics statistics = new QueryCacheStatistics();
+
     /**
      * Sets a print stream where the source code of all generated classes will be sent to. The code is added to the
      * stream before it is compiled.
@@ -82,6 +110,15 @@ public abstract class AbstractBuilder {
         return this;
     }
 
+    /**
+     * Returns any cache directory set by {@link #setCacheDirectory(String)} or {@link #setCacheDirectory(Path)}.
+     *
+     * @return any cache directory that been set
+     */
+    public final Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
     /**
      * Returns any class loader parent set by {@link #setClassLoaderParent(ClassLoader)}. Or {@code null} if no class
      * loader parent has been set.
@@ -102,6 +139,35 @@ public abstract class AbstractBuilder {
         return new ArrayList<>(codePrinters);
     }
 
+    /**
+     * Returns any executor set by {@link #setCompilationExecutor(Executor)}. Or {@code null} if no executor has been
+     * set.
+     *
+     * @return the compilation executor if one has been set, otherwise {@code null}
+     */
+    public final Executor getCompilationExecutor() {
+        return compilationExecutor;
+    }
+
+    /**
+     * Returns any fork join pool set by {@link #setForkJoinPool(ForkJoinPool)}. Or {@code null} if no pool has been
+     * set.
+     *
+     * @return the fork join pool if one has been set, otherwise {@code null}
+     */
+    public final ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * Returns the maximum cache size set by {@link #setMaximumCacheSize(int)}. Or {@code 0} if the cache is unbounded.
+     *
+     * @return the maximum cache size, or {@code 0} if the cache is unbounded
+     */
+    public final int getMaximumCacheSize() {
+        return maximumCacheSize;
+    }
+
     /**
      * The default package as set by {@link #setPackage(Package)} or {@link #setPackage(String)}. Or {@code null} if no
      * default package has been set.
@@ -112,6 +178,16 @@ public abstract class AbstractBuilder {
         return packageName;
     }
 
+    /**
+     * Returns the parallel threshold set by {@link #setParallelThreshold(int)}. Or {@code 0} if no threshold has been
+     * set.
+     *
+     * @return the parallel threshold, or {@code 0} if no threshold has been set
+     */
+    public final int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
     /**
      * Returns any source path set by {@link #setSourcePath(String)} or {@link #setSourcePath(Path)}.
      *
@@ -121,6 +197,63 @@ public abstract class AbstractBuilder {
         return sourcePath;
     }
 
+    /**
+     * Returns statistics about the compiled queries of all factories created by this builder. Such as the number of
+     * cache hits and misses, and the number of queries that have been evicted because of the
+     * {@link #setMaximumCacheSize(int) maximum cache size}.
+     *
+     * @return statistics about the compiled queries of all factories created by this builder
+     */
+    public final QueryCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns whether or not queries are specialized for the classes of the functions they use, as set by
+     * {@link #setSpecializingFunctions(boolean)}.
+     *
+     * @return whether or not queries are specialized for the classes of the functions they use
+     */
+    public final boolean isSpecializingFunctions() {
+        return specializeFunctions;
+    }
+
+    /**
+     * Sets a directory where compiled query classes are cached across JVM restarts. When a query is executed for the
+     * first time, the cache is checked before the query is planned and compiled. Removing the latency of compiling
+     * queries that have already been compiled by a previous JVM.
+     * <p>
+     * Entries are keyed by the shape of the query and the version of the library, so upgrading the library
+     * automatically invalidates existing entries. The directory may be shared by multiple processes.
+     * <p>
+     * The default cache directory is read from the {@value #CACHE_DIRECTORY_PROPERTY} system property.
+     *
+     * @param directory
+     *            the cache directory, or null to disable caching on disk
+     * @return this configuration
+     */
+    public AbstractBuilder setCacheDirectory(Path directory) {
+        this.cacheDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Sets a directory where compiled query classes are cached across JVM restarts.
+     * <p>
+     * Equivalent to calling:
+     *
+     * <pre>
+     * setCacheDirectory(Paths.get(directory));
+     * </pre>
+     *
+     * @param directory
+     *            the cache directory, or null to disable caching on disk
+     * @return this configuration
+     */
+    public AbstractBuilder setCacheDirectory(String directory) {
+        return setCacheDirectory(directory == null ? null : Paths.get(directory));
+    }
+
     /**
      * Sets the class loader that should be used as a parent for generated classes. If no class loader parent is defined
      * by this method. The code using dynamic code generation will use the class loader available from
@@ -137,6 +270,61 @@ public abstract class AbstractBuilder {
         return this;
     }
 
+    /**
+     * Sets an executor that queries are compiled in. When a query is executed for the first time it is interpreted
+     * while being compiled in the background by the specified executor. Once compiled, all subsequent executions of the
+     * query use the compiled code. Avoiding the latency of compiling queries on the first execution.
+     * <p>
+     * If no executor is set, queries are compiled by the thread that first executes them.
+     *
+     * @param executor
+     *            the executor, or null to compile queries by the thread that first executes them
+     * @return this configuration
+     */
+    public AbstractBuilder setCompilationExecutor(Executor executor) {
+        this.compilationExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the fork join pool that parallel streams are executed in. If no pool is set, parallel streams are executed
+     * in {@link ForkJoinPool#commonPool()}.
+     *
+     * @param pool
+     *            the fork join pool
+     * @return this configuration
+     * @throws NullPointerException
+     *             if the specified pool is null
+     */
+    public AbstractBuilder setForkJoinPool(ForkJoinPool pool) {
+        this.forkJoinPool = requireNonNull(pool, "pool is null");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of compiled queries that are kept in memory. When the limit is reached, the least
+     * recently used query is evicted and its generated classes become eligible for unloading. Useful for applications
+     * that create many distinct queries, for example, from user input. By default the number of queries is unbounded.
+     *
+     * @param maximumSize
+     *            the maximum number of compiled queries, or 0 for no limit
+     * @return this configuration
+     * @throws IllegalArgumentException
+     *             if the specified size is negative
+     */
+    public AbstractBuilder setMaximumCacheSize(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must be non-negative, was " + maximumSize);
+        }
+        this.maximumCacheSize = maximumSize;
+        return this;
+    }
+
+    private static Path defaultCacheDirectory() {
+        String directory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        return directory == null ? null : Paths.get(directory);
+    }
+
     /**
      * Sets the package that all generated classes are located in.
      *
@@ -151,6 +339,24 @@ public abstract class AbstractBuilder {
         return this;
     }
 
+    /**
+     * Sets the number of elements below which a parallel stream is no longer split into smaller tasks but processed
+     * by a single thread.
+     *
+     * @param threshold
+     *            the parallel threshold
+     * @return this configuration
+     * @throws IllegalArgumentException
+     *             if the specified threshold is not positive
+     */
+    public AbstractBuilder setParallelThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive, was " + threshold);
+        }
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
     /**
      * Sets a source path where all generated source code is written to. This can be useful, for example, for debugging
      * generated classes. For example, an IDE can be set up to point to the source path specified by this method.
@@ -183,6 +389,26 @@ public abstract class AbstractBuilder {
     public AbstractBuilder setSourcePath(String directory) {
         return setSourcePath(directory == null ? null : Paths.get(directory));
     }
+
+    /**
+     * Sets whether or not queries are specialized for the classes of the functions (predicates, mappers, comparators,
+     * ...) they use. By default a query is compiled once and shared by all functions it is used with. Which makes the
+     * calls to the functions megamorphic once a query is used with many different lambdas, preventing the JIT from
+     * inlining them.
+     * <p>
+     * If enabled, a query is compiled once for every combination of function classes it is used with. Functions that
+     * are instances of public named classes are invoked directly on their class. Lambdas are still invoked through
+     * their functional interface, but each call site only ever sees a single class. This trades more compiled classes
+     * for faster queries, and is best combined with {@link #setMaximumCacheSize(int)}.
+     *
+     * @param specializeFunctions
+     *            whether or not queries should be specialized for the classes of the functions they use
+     * @return this configuration
+     */
+    public AbstractBuilder setSpecializingFunctions(boolean specializeFunctions) {
+        this.specializeFunctions = specializeFunctions;
+        return this;
+    }
 }
 //
 // // Future versions will also allow reusing of streams (breaking the spec slightly) to allow even more aggressively
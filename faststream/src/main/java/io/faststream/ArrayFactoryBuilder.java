@@ -24,6 +24,8 @@ import io.faststream.query.db.nodes.stream.stream.AbstractStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -67,18 +69,54 @@ public class ArrayFactoryBuilder extends AbstractBuilder {
                 AbstractLongStream.class);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setCacheDirectory(Path directory) {
+        return (ArrayFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setCacheDirectory(String directory) {
+        return (ArrayFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ArrayFactoryBuilder setClassLoaderParent(ClassLoader parentClassLoader) {
         return (ArrayFactoryBuilder) super.setClassLoaderParent(parentClassLoader);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setCompilationExecutor(Executor executor) {
+        return (ArrayFactoryBuilder) super.setCompilationExecutor(executor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setForkJoinPool(ForkJoinPool pool) {
+        return (ArrayFactoryBuilder) super.setForkJoinPool(pool);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setMaximumCacheSize(int maximumSize) {
+        return (ArrayFactoryBuilder) super.setMaximumCacheSize(maximumSize);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ArrayFactoryBuilder setPackage(String defaultPackage) {
         return (ArrayFactoryBuilder) super.setPackage(defaultPackage);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setParallelThreshold(int threshold) {
+        return (ArrayFactoryBuilder) super.setParallelThreshold(threshold);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ArrayFactoryBuilder setSourcePath(Path directory) {
@@ -90,4 +128,10 @@ public class ArrayFactoryBuilder extends AbstractBuilder {
     public ArrayFactoryBuilder setSourcePath(String directory) {
         return (ArrayFactoryBuilder) super.setSourcePath(directory);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayFactoryBuilder setSpecializingFunctions(boolean specializeFunctions) {
+        return (ArrayFactoryBuilder) super.setSpecializingFunctions(specializeFunctions);
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Interfaces for creating streams from NIO buffers. Is normally created by a {@link BufferFactoryBuilder}.
+ * <p>
+ * The streams consist of the elements between the position and the limit of the buffer at the time the terminal
+ * operation is executed. Elements are read directly from the buffer, so a buffer that is a view of a
+ * {@link java.nio.MappedByteBuffer} is processed without first copying its elements to the heap. The position and limit
+ * of the buffer are not modified.
+ *
+ * @author Kasper Nielsen
+ */
+public interface BufferFactory {
+
+    /**
+     * An interface for creating int streams from byte buffers. Is normally created by a {@link BufferFactoryBuilder}.
+     */
+    interface OfByte {
+        IntStream of(ByteBuffer buffer);
+    }
+
+    /**
+     * An interface for creating streams from double buffers. Is normally created by a {@link BufferFactoryBuilder}.
+     */
+    interface OfDouble {
+        DoubleStream of(DoubleBuffer buffer);
+    }
+
+    /**
+     * An interface for creating streams from int buffers. Is normally created by a {@link BufferFactoryBuilder}.
+     */
+    interface OfInt {
+        IntStream of(IntBuffer buffer);
+    }
+
+    /**
+     * An interface for creating streams from long buffers. Is normally created by a {@link BufferFactoryBuilder}.
+     */
+    interface OfLong {
+        LongStream of(LongBuffer buffer);
+    }
+}
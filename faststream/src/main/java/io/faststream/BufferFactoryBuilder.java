@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import io.faststream.internal.ArrayFactoryGenerator;
+import io.faststream.query.db.nodes.stream.doublestream.AbstractDoubleStream;
+import io.faststream.query.db.nodes.stream.intstream.AbstractIntStream;
+import io.faststream.query.db.nodes.stream.longstream.AbstractLongStream;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A builder of {@link BufferFactory buffer factories}.
+ *
+ * @author Kasper Nielsen
+ */
+public class BufferFactoryBuilder extends AbstractBuilder {
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder addCodeWriter(PrintStream stream) {
+        return (BufferFactoryBuilder) super.addCodeWriter(stream);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder addCodeWriter(PrintWriter writer) {
+        return (BufferFactoryBuilder) super.addCodeWriter(writer);
+    }
+
+    public BufferFactory.OfByte buildOfByte() {
+        return ArrayFactoryGenerator.newFactory(this, BufferFactory.OfByte.class, ByteBuffer.class, IntStream.class,
+                AbstractIntStream.class);
+    }
+
+    public BufferFactory.OfDouble buildOfDouble() {
+        return ArrayFactoryGenerator.newFactory(this, BufferFactory.OfDouble.class, DoubleBuffer.class,
+                DoubleStream.class, AbstractDoubleStream.class);
+    }
+
+    public BufferFactory.OfInt buildOfInt() {
+        return ArrayFactoryGenerator.newFactory(this, BufferFactory.OfInt.class, IntBuffer.class, IntStream.class,
+                AbstractIntStream.class);
+    }
+
+    public BufferFactory.OfLong buildOfLong() {
+        return ArrayFactoryGenerator.newFactory(this, BufferFactory.OfLong.class, LongBuffer.class, LongStream.class,
+                AbstractLongStream.class);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setCacheDirectory(Path directory) {
+        return (BufferFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setCacheDirectory(String directory) {
+        return (BufferFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setClassLoaderParent(ClassLoader parentClassLoader) {
+        return (BufferFactoryBuilder) super.setClassLoaderParent(parentClassLoader);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setCompilationExecutor(Executor executor) {
+        return (BufferFactoryBuilder) super.setCompilationExecutor(executor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setForkJoinPool(ForkJoinPool pool) {
+        return (BufferFactoryBuilder) super.setForkJoinPool(pool);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setMaximumCacheSize(int maximumSize) {
+        return (BufferFactoryBuilder) super.setMaximumCacheSize(maximumSize);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setPackage(String defaultPackage) {
+        return (BufferFactoryBuilder) super.setPackage(defaultPackage);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setParallelThreshold(int threshold) {
+        return (BufferFactoryBuilder) super.setParallelThreshold(threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setSourcePath(Path directory) {
+        return (BufferFactoryBuilder) super.setSourcePath(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setSourcePath(String directory) {
+        return (BufferFactoryBuilder) super.setSourcePath(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferFactoryBuilder setSpecializingFunctions(boolean specializeFunctions) {
+        return (BufferFactoryBuilder) super.setSpecializingFunctions(specializeFunctions);
+    }
+}
@@ -15,6 +15,9 @@
  */
 package io.faststream;
 
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -24,8 +27,8 @@ import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 /**
- * Factory methods for creating fast stream wrappers from arrays. Also creates array list implementations that return
- * fast streams.
+ * Factory methods for creating fast stream wrappers from arrays and buffers. Also creates array list implementations
+ * that return fast streams.
  *
  * @author Kasper Nielsen
  */
@@ -122,6 +125,48 @@ public class FastStreams {
         return ArrayHolderOfLong.INSTANCE.of(values);
     }
 
+    /**
+     * Returns a sequential stream of the elements between the position and the limit of the specified buffer.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the new stream
+     * @throws NullPointerException
+     *             if the specified buffer is null
+     * @see BufferFactory.OfDouble
+     */
+    public static DoubleStream of(DoubleBuffer buffer) {
+        return BufferHolderOfDouble.INSTANCE.of(buffer);
+    }
+
+    /**
+     * Returns a sequential stream of the elements between the position and the limit of the specified buffer.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the new stream
+     * @throws NullPointerException
+     *             if the specified buffer is null
+     * @see BufferFactory.OfInt
+     */
+    public static IntStream of(IntBuffer buffer) {
+        return BufferHolderOfInt.INSTANCE.of(buffer);
+    }
+
+    /**
+     * Returns a sequential stream of the elements between the position and the limit of the specified buffer.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the new stream
+     * @throws NullPointerException
+     *             if the specified buffer is null
+     * @see BufferFactory.OfLong
+     */
+    public static LongStream of(LongBuffer buffer) {
+        return BufferHolderOfLong.INSTANCE.of(buffer);
+    }
+
     /**
      * Returns a sequential ordered stream which consist of the specified values.
      *
@@ -167,6 +212,27 @@ public class FastStreams {
         static final ArrayFactory.OfLong INSTANCE = new ArrayFactoryBuilder().setClassLoaderParent(FastStreams.class.getClassLoader()).buildOfLong();
     }
 
+    /** Lazy construction of the default BufferFactory.OfDouble implementation. */
+    static class BufferHolderOfDouble {
+
+        /** Default factory of buffers. */
+        static final BufferFactory.OfDouble INSTANCE = new BufferFactoryBuilder().setClassLoaderParent(FastStreams.class.getClassLoader()).buildOfDouble();
+    }
+
+    /** Lazy construction of the default BufferFactory.OfInt implementation. */
+    static class BufferHolderOfInt {
+
+        /** Default factory of buffers. */
+        static final BufferFactory.OfInt INSTANCE = new BufferFactoryBuilder().setClassLoaderParent(FastStreams.class.getClassLoader()).buildOfInt();
+    }
+
+    /** Lazy construction of the default BufferFactory.OfLong implementation. */
+    static class BufferHolderOfLong {
+
+        /** Default factory of buffers. */
+        static final BufferFactory.OfLong INSTANCE = new BufferFactoryBuilder().setClassLoaderParent(FastStreams.class.getClassLoader()).buildOfLong();
+    }
+
     /** Lazy construction of the default ArrayListFactory implementation. */
     static class ArrayListHolder {
 
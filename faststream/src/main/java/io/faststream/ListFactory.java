@@ -50,4 +50,67 @@ public interface ListFactory<T> {
      *             if the specified collection is null
      */
     List<T> newArrayList(Collection<? super T> initial);
+
+    /**
+     * A factory for creating double array lists. Is normally created by a {@link ListFactoryBuilder}.
+     */
+    interface OfDouble {
+
+        /**
+         * Constructs an empty list with an initial capacity of ten.
+         */
+        DoubleList newArrayList();
+
+        /**
+         * Constructs an empty list with the specified initial capacity.
+         *
+         * @param initialCapacity
+         *            the initial capacity of the list
+         * @throws IllegalArgumentException
+         *             if the specified initial capacity is negative
+         */
+        DoubleList newArrayList(int initialCapacity);
+    }
+
+    /**
+     * A factory for creating int array lists. Is normally created by a {@link ListFactoryBuilder}.
+     */
+    interface OfInt {
+
+        /**
+         * Constructs an empty list with an initial capacity of ten.
+         */
+        IntList newArrayList();
+
+        /**
+         * Constructs an empty list with the specified initial capacity.
+         *
+         * @param initialCapacity
+         *            the initial capacity of the list
+         * @throws IllegalArgumentException
+         *             if the specified initial capacity is negative
+         */
+        IntList newArrayList(int initialCapacity);
+    }
+
+    /**
+     * A factory for creating long array lists. Is normally created by a {@link ListFactoryBuilder}.
+     */
+    interface OfLong {
+
+        /**
+         * Constructs an empty list with an initial capacity of ten.
+         */
+        LongList newArrayList();
+
+        /**
+         * Constructs an empty list with the specified initial capacity.
+         *
+         * @param initialCapacity
+         *            the initial capacity of the list
+         * @throws IllegalArgumentException
+         *             if the specified initial capacity is negative
+         */
+        LongList newArrayList(int initialCapacity);
+    }
 }
@@ -16,10 +16,19 @@
 package io.faststream;
 
 import io.faststream.internal.ArrayListFactoryGenerator;
+import io.faststream.internal.PrimitiveArrayListFactoryGenerator;
+import io.faststream.query.db.nodes.stream.doublestream.AbstractDoubleStream;
+import io.faststream.query.db.nodes.stream.intstream.AbstractIntStream;
+import io.faststream.query.db.nodes.stream.longstream.AbstractLongStream;
 
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  *
@@ -31,6 +40,21 @@ public final class ListFactoryBuilder extends AbstractBuilder {
         return ArrayListFactoryGenerator.build(this);
     }
 
+    public ListFactory.OfDouble buildOfDouble() {
+        return PrimitiveArrayListFactoryGenerator.build(this, ListFactory.OfDouble.class, double.class,
+                DoubleList.class, DoubleStream.class, AbstractDoubleStream.class);
+    }
+
+    public ListFactory.OfInt buildOfInt() {
+        return PrimitiveArrayListFactoryGenerator.build(this, ListFactory.OfInt.class, int.class, IntList.class,
+                IntStream.class, AbstractIntStream.class);
+    }
+
+    public ListFactory.OfLong buildOfLong() {
+        return PrimitiveArrayListFactoryGenerator.build(this, ListFactory.OfLong.class, long.class, LongList.class,
+                LongStream.class, AbstractLongStream.class);
+    }
+
     /**
      * List that are created by the factory being build will not keep track of mod count.
      * 
@@ -52,18 +76,54 @@ public final class ListFactoryBuilder extends AbstractBuilder {
         return (ListFactoryBuilder) super.addCodeWriter(writer);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setCacheDirectory(Path directory) {
+        return (ListFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setCacheDirectory(String directory) {
+        return (ListFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ListFactoryBuilder setClassLoaderParent(ClassLoader parentClassLoader) {
         return (ListFactoryBuilder) super.setClassLoaderParent(parentClassLoader);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setCompilationExecutor(Executor executor) {
+        return (ListFactoryBuilder) super.setCompilationExecutor(executor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setForkJoinPool(ForkJoinPool pool) {
+        return (ListFactoryBuilder) super.setForkJoinPool(pool);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setMaximumCacheSize(int maximumSize) {
+        return (ListFactoryBuilder) super.setMaximumCacheSize(maximumSize);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ListFactoryBuilder setPackage(String defaultPackage) {
         return (ListFactoryBuilder) super.setPackage(defaultPackage);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setParallelThreshold(int threshold) {
+        return (ListFactoryBuilder) super.setParallelThreshold(threshold);
+    }
+
     /** {@inheritDoc} */
     @Override
     public ListFactoryBuilder setSourcePath(Path directory) {
@@ -75,4 +135,10 @@ public final class ListFactoryBuilder extends AbstractBuilder {
     public ListFactoryBuilder setSourcePath(String directory) {
         return (ListFactoryBuilder) super.setSourcePath(directory);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListFactoryBuilder setSpecializingFunctions(boolean specializeFunctions) {
+        return (ListFactoryBuilder) super.setSpecializingFunctions(specializeFunctions);
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import java.util.stream.LongStream;
+
+/**
+ * A list of long values backed by a long array. Is normally created by a {@link ListFactory.OfLong}.
+ * <p>
+ * Unlike {@link java.util.List}, elements are stored without boxing.
+ *
+ * @author Kasper Nielsen
+ */
+public interface LongList {
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param element
+     *            the element to append
+     * @return true
+     */
+    boolean add(long element);
+
+    /** Removes all of the elements from this list. */
+    void clear();
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param index
+     *            the index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    long get(int index);
+
+    /**
+     * Returns whether or not this list contains no elements.
+     *
+     * @return whether or not this list contains no elements
+     */
+    boolean isEmpty();
+
+    /**
+     * Replaces the element at the specified position in this list with the specified element.
+     *
+     * @param index
+     *            the index of the element to replace
+     * @param element
+     *            the element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    long set(int index, long element);
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    int size();
+
+    /**
+     * Returns a sequential stream with this list as its source.
+     *
+     * @return a sequential stream over the elements in this list
+     */
+    LongStream stream();
+
+    /**
+     * Returns an array containing all of the elements in this list.
+     *
+     * @return an array containing all of the elements in this list
+     */
+    long[] toArray();
+}
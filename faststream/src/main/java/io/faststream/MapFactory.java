@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import java.util.Map;
+
+import io.faststream.query.util.view.MapView;
+
+/**
+ * A factory for creating hash maps and map views whose queries are compiled. Is normally created by a
+ * {@link MapFactoryBuilder}.
+ *
+ * @author Kasper Nielsen
+ */
+public interface MapFactory<K, V> {
+
+    /**
+     * Constructs an empty hash map. The map uses open addressing and stores its keys and values in two arrays. The
+     * streams of its collection views, and views of the map created by {@link #view(Map)}, are compiled into loops over
+     * the arrays. The map does not support null keys.
+     */
+    Map<K, V> newHashMap();
+
+    /**
+     * Constructs an empty hash map that can hold the specified number of entries without being resized.
+     *
+     * @param initialCapacity
+     *            the number of entries the map can hold without being resized
+     * @throws IllegalArgumentException
+     *             if the specified initial capacity is negative
+     * @see #newHashMap()
+     */
+    Map<K, V> newHashMap(int initialCapacity);
+
+    /**
+     * Returns a view of the specified map. The queries of the view iterate the entries of the map directly, the map
+     * is not copied. If the map was created by this factory, the queries iterate its arrays.
+     *
+     * @param map
+     *            the map to create a view of
+     * @return a view of the specified map
+     * @throws NullPointerException
+     *             if the specified map is null
+     */
+    MapView<K, V> view(Map<? extends K, ? extends V> map);
+}
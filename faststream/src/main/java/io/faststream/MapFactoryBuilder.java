@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import io.faststream.internal.MapFactoryGenerator;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A builder of {@link MapFactory map factories}.
+ *
+ * @author Kasper Nielsen
+ */
+public final class MapFactoryBuilder extends AbstractBuilder {
+
+    public <K, V> MapFactory<K, V> build() {
+        return MapFactoryGenerator.build(this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder addCodeWriter(PrintStream stream) {
+        return (MapFactoryBuilder) super.addCodeWriter(stream);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder addCodeWriter(PrintWriter writer) {
+        return (MapFactoryBuilder) super.addCodeWriter(writer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setCacheDirectory(Path directory) {
+        return (MapFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setCacheDirectory(String directory) {
+        return (MapFactoryBuilder) super.setCacheDirectory(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setClassLoaderParent(ClassLoader parentClassLoader) {
+        return (MapFactoryBuilder) super.setClassLoaderParent(parentClassLoader);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setCompilationExecutor(Executor executor) {
+        return (MapFactoryBuilder) super.setCompilationExecutor(executor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setForkJoinPool(ForkJoinPool pool) {
+        return (MapFactoryBuilder) super.setForkJoinPool(pool);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setMaximumCacheSize(int maximumSize) {
+        return (MapFactoryBuilder) super.setMaximumCacheSize(maximumSize);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setPackage(String defaultPackage) {
+        return (MapFactoryBuilder) super.setPackage(defaultPackage);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setParallelThreshold(int threshold) {
+        return (MapFactoryBuilder) super.setParallelThreshold(threshold);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setSourcePath(Path directory) {
+        return (MapFactoryBuilder) super.setSourcePath(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setSourcePath(String directory) {
+        return (MapFactoryBuilder) super.setSourcePath(directory);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MapFactoryBuilder setSpecializingFunctions(boolean specializeFunctions) {
+        return (MapFactoryBuilder) super.setSpecializingFunctions(specializeFunctions);
+    }
+}
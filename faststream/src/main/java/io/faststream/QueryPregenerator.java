@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import io.faststream.query.db.query.compiler.anew.AbstractCompiledEntityConfiguration;
+
+/**
+ * Generates query classes at build time, so no classes needs to be compiled at runtime for known queries.
+ * <p>
+ * The generator is invoked with an output directory, typically {@code target/classes}, followed by the names of one or
+ * more classes implementing {@link Runnable}. Each class is instantiated using its no-argument constructor and run.
+ * All queries executed while running, for example, on empty arrays, are compiled and stored under
+ * {@value AbstractCompiledEntityConfiguration#PREGENERATED_DIRECTORY} in the output directory. At runtime these classes
+ * are loaded from the class path of the context class loader, or of the class loader of the library, instead of being
+ * compiled.
+ * <p>
+ * Only factories with the same configuration as the factories used at runtime will find the generated classes. For
+ * example, a query executed via {@link FastStreams#ofInt(int...)} while generating, can only be found via
+ * {@link FastStreams#ofInt(int...)} at runtime. Any factories created by the classes that are run must not set a
+ * {@link AbstractBuilder#setCacheDirectory(Path) cache directory} explicitly.
+ * <p>
+ * Using Maven, the generator can be run with the exec-maven-plugin in the {@code process-classes} phase:
+ *
+ * <pre>
+ * &lt;plugin&gt;
+ *   &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *   &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *   &lt;executions&gt;
+ *     &lt;execution&gt;
+ *       &lt;phase&gt;process-classes&lt;/phase&gt;
+ *       &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *       &lt;configuration&gt;
+ *         &lt;mainClass&gt;io.faststream.QueryPregenerator&lt;/mainClass&gt;
+ *         &lt;arguments&gt;
+ *           &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *           &lt;argument&gt;com.acme.KnownQueries&lt;/argument&gt;
+ *         &lt;/arguments&gt;
+ *       &lt;/configuration&gt;
+ *     &lt;/execution&gt;
+ *   &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * @author Kasper Nielsen
+ */
+public final class QueryPregenerator {
+
+    /** Cannot instantiate. */
+    private QueryPregenerator() {}
+
+    /**
+     * Runs the specified classes with the specified output directory.
+     *
+     * @param outputDirectory
+     *            the root of the class path that classes should be generated into
+     * @param classNames
+     *            the names of the {@link Runnable} classes that executes the queries
+     * @throws ReflectiveOperationException
+     *             if one of the classes could not be instantiated
+     */
+    public static void generate(Path outputDirectory, String... classNames) throws ReflectiveOperationException {
+        // The static factories in FastStreams reads the property when initialized, so it must be set first
+        Path cache = outputDirectory.resolve(AbstractCompiledEntityConfiguration.PREGENERATED_DIRECTORY);
+        String existing = System.setProperty(AbstractBuilder.CACHE_DIRECTORY_PROPERTY, cache.toString());
+        try {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            for (String className : classNames) {
+                Class<?> c = Class.forName(className, true, loader);
+                if (!Runnable.class.isAssignableFrom(c)) {
+                    throw new IllegalArgumentException(className + " does not implement " + Runnable.class.getName());
+                }
+                ((Runnable) c.getConstructor().newInstance()).run();
+            }
+        } finally {
+            if (existing == null) {
+                System.clearProperty(AbstractBuilder.CACHE_DIRECTORY_PROPERTY);
+            } else {
+                System.setProperty(AbstractBuilder.CACHE_DIRECTORY_PROPERTY, existing);
+            }
+        }
+    }
+
+    /**
+     * Generates classes, the first argument is the output directory, the remaining arguments are the names of the
+     * {@link Runnable} classes to run.
+     *
+     * @param args
+     *            the arguments
+     * @throws Exception
+     *             if the classes could not be generated
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: QueryPregenerator <outputDirectory> <runnableClass>...");
+            System.exit(1);
+        }
+        String[] classNames = new String[args.length - 1];
+        System.arraycopy(args, 1, classNames, 0, classNames.length);
+        generate(Paths.get(args[0]), classNames);
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.internal;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A hash map using open addressing with linear probing. Keys and values are stored in two parallel arrays, a slot
+ * without an entry has a null key. Removing an entry moves the following entries of the probe sequence back, so the
+ * table never contains deleted markers.
+ * <p>
+ * Null keys are not supported.
+ * <p>
+ * Subclasses are generated and provide compiled streams over the arrays for the collection views.
+ *
+ * @author Kasper Nielsen
+ */
+@SuppressWarnings("unchecked")
+public abstract class AbstractHashMap<K, V> extends java.util.AbstractMap<K, V> {
+
+    /** The maximum capacity of the table. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The keys of the table, the length is always a power of two. */
+    public Object[] keys;
+
+    /** The number of entries in the table. */
+    public int size;
+
+    /** The values of the table, at the same index as their key. */
+    public Object[] values;
+
+    /** The number of structural modifications, used for detecting concurrent modifications while iterating. */
+    int modCount;
+
+    /** The number of entries the table can hold before it is resized. */
+    private int threshold;
+
+    /** The collection views, created when first requested. */
+    private transient Set<Map.Entry<K, V>> entrySetView;
+
+    private transient Set<K> keySetView;
+
+    private transient Collection<V> valuesView;
+
+    protected AbstractHashMap() {
+        this(16);
+    }
+
+    protected AbstractHashMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity must be a non-negative number, was: " + initialCapacity);
+        }
+        int capacity = 2;
+        // The table is at most 75 % full
+        while (capacity < MAXIMUM_CAPACITY && capacity * 3L / 4 < initialCapacity) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : capacity / 4 * 3;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && indexOf(key) >= 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsValue(Object value) {
+        Object[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && Objects.equals(value, values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return a compiled stream of the entries */
+    protected abstract Stream<Map.Entry<K, V>> entryStream();
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> s = entrySetView;
+        return s == null ? (entrySetView = new EntrySet()) : s;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Returns the index of the specified key, or -1 if the table does not contain the key.
+     *
+     * @param key
+     *            the key to find
+     * @return the index of the key, or -1 if the table does not contain the key
+     */
+    private int indexOf(Object key) {
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = i + 1 & mask) {
+            Object k = keys[i];
+            if (k == null) {
+                return -1;
+            } else if (k == key || k.equals(key)) {
+                return i;
+            }
+        }
+    }
+
+    /** @return a compiled stream of the keys */
+    protected abstract Stream<K> keyStream();
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<K> keySet() {
+        Set<K> s = keySetView;
+        return s == null ? (keySetView = new KeySet()) : s;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "key is null");
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (Object k; (k = keys[i]) != null; i = i + 1 & mask) {
+            if (k == key || k.equals(key)) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        modCount++;
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) values[index];
+        removeAt(index);
+        return old;
+    }
+
+    /**
+     * Removes the entry at the specified index. Entries following it in the same probe sequence are moved back, so
+     * they can still be found from their home slot.
+     *
+     * @param index
+     *            the index of the entry to remove
+     */
+    private void removeAt(int index) {
+        removeAt(index, null);
+    }
+
+    /**
+     * Removes the entry at the specified index, like {@link #removeAt(int)}.
+     *
+     * @param index
+     *            the index of the entry to remove
+     * @param iterator
+     *            an iterator that is positioned at the index, or null. Entries that wrap around the end of the table,
+     *            and are moved from below the index to the index or above it, have already been returned by it
+     */
+    private void removeAt(int index, TableIterator<?> iterator) {
+        modCount++;
+        size--;
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        int hole = index;
+        for (int i = hole + 1 & mask;; i = i + 1 & mask) {
+            Object k = keys[i];
+            if (k == null) {
+                break;
+            }
+            int home = slot(k, mask);
+            // Move the entry into the hole, unless its home slot lies cyclically in (hole, i]
+            if ((i - home & mask) >= (i - hole & mask)) {
+                if (iterator != null && i < index && hole >= index) {
+                    iterator.moved(k);
+                }
+                keys[hole] = k;
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+    }
+
+    /** Doubles the capacity of the table. */
+    private void resize() {
+        Object[] oldKeys = keys, oldValues = values;
+        if (oldKeys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("The map cannot hold more than " + threshold + " entries");
+        }
+        allocate(oldKeys.length << 1);
+        Object[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            Object k = oldKeys[j];
+            if (k != null) {
+                int i = slot(k, mask);
+                while (keys[i] != null) {
+                    i = i + 1 & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** @return a compiled stream of the values */
+    protected abstract Stream<V> valueStream();
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<V> values() {
+        Collection<V> c = valuesView;
+        return c == null ? (valuesView = new Values()) : c;
+    }
+
+    /**
+     * Returns the home slot of the specified key. The hash code is scrambled, so keys with hash codes that only differ
+     * in the upper bits are spread out.
+     */
+    static int slot(Object key, int mask) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /** An entry that writes changes to the value through to the table. */
+    final class TableEntry extends java.util.AbstractMap.SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The index of the entry when it was last looked up. */
+        private int index;
+
+        TableEntry(int index) {
+            super((K) keys[index], (V) values[index]);
+            this.index = index;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public V setValue(V value) {
+            K key = getKey();
+            // Resizing the table or removing other entries may have moved the entry
+            int i = index;
+            if (keys[i] != key) {
+                index = i = indexOf(key);
+            }
+            if (i >= 0) {
+                values[i] = value;
+            }
+            return super.setValue(value);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void clear() {
+            AbstractHashMap.this.clear();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                int index = e.getKey() == null ? -1 : indexOf(e.getKey());
+                return index >= 0 && Objects.equals(values[index], e.getValue());
+            }
+            return false;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new TableIterator<Map.Entry<K, V>>() {
+                Map.Entry<K, V> get(int index) {
+                    return new TableEntry(index);
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<Map.Entry<K, V>> parallelStream() {
+            return entryStream().parallel();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<Map.Entry<K, V>> stream() {
+            return entryStream();
+        }
+    }
+
+    final class KeySet extends AbstractSet<K> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void clear() {
+            AbstractHashMap.this.clear();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<K> iterator() {
+            return new TableIterator<K>() {
+                K get(int index) {
+                    return (K) keys[index];
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<K> parallelStream() {
+            return keyStream().parallel();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean remove(Object o) {
+            int index = o == null ? -1 : indexOf(o);
+            if (index >= 0) {
+                removeAt(index);
+                return true;
+            }
+            return false;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<K> stream() {
+            return keyStream();
+        }
+    }
+
+    /** Iterates the slots of the table that contains an entry. */
+    abstract class TableIterator<E> implements Iterator<E> {
+
+        /** The modification count expected by this iterator. */
+        private int expectedModCount = modCount;
+
+        /** The index of the entry last returned, or -1 if there is none or it has been removed. */
+        private int last = -1;
+
+        /** The keys of returned entries that {@link #remove()} has moved to an index that has not been visited. */
+        private ArrayList<Object> moved;
+
+        /** The index of the next entry, or the length of the table if there are no more entries. */
+        private int next = advance(0);
+
+        private int advance(int index) {
+            Object[] keys = AbstractHashMap.this.keys;
+            while (index < keys.length && (keys[index] == null || isMoved(keys[index]))) {
+                index++;
+            }
+            return index;
+        }
+
+        private boolean isMoved(Object key) {
+            if (moved != null) {
+                for (Object k : moved) {
+                    if (k == key) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void moved(Object key) {
+            if (moved == null) {
+                moved = new ArrayList<>(2);
+            }
+            moved.add(key);
+        }
+
+        abstract E get(int index);
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            } else if (next >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            E e = get(last = next);
+            next = advance(next + 1);
+            return e;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            } else if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last, this);
+            expectedModCount = modCount;
+            // An entry that has not been visited may have been moved into the slot of the removed entry
+            next = advance(last);
+            last = -1;
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void clear() {
+            AbstractHashMap.this.clear();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<V> iterator() {
+            return new TableIterator<V>() {
+                V get(int index) {
+                    return (V) values[index];
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<V> parallelStream() {
+            return valueStream().parallel();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Stream<V> stream() {
+            return valueStream();
+        }
+    }
+}
@@ -46,7 +46,19 @@ public abstract class AbstractList<E> extends java.util.AbstractList<E> {
      *            the desired minimum capacity
      */
     protected Object[] grow(Object[] elementData, int minCapacity) {
-        int oldCapacity = elementData.length;
+        return elementData = Arrays.copyOf(elementData, newCapacity(elementData.length, minCapacity));
+    }
+
+    /**
+     * Returns the capacity of an array that is grown to hold at least the specified minimum capacity.
+     *
+     * @param oldCapacity
+     *            the current capacity
+     * @param minCapacity
+     *            the desired minimum capacity
+     * @return the new capacity
+     */
+    static int newCapacity(int oldCapacity, int minCapacity) {
         int newCapacity = oldCapacity + (oldCapacity >> 1);
         if (newCapacity - minCapacity < 0) {
             newCapacity = minCapacity;
@@ -54,7 +66,7 @@ public abstract class AbstractList<E> extends java.util.AbstractList<E> {
         if (newCapacity - MAX_ARRAY_SIZE > 0) {
             newCapacity = hugeCapacity(minCapacity);
         }
-        return elementData = Arrays.copyOf(elementData, newCapacity);
+        return newCapacity;
     }
 
     private static int hugeCapacity(int minCapacity) {
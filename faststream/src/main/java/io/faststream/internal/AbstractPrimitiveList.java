@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.internal;
+
+import java.util.Arrays;
+
+/**
+ * An abstract base class for the generated primitive array lists.
+ *
+ * @author Kasper Nielsen
+ */
+public abstract class AbstractPrimitiveList {
+
+    protected void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    protected int checkInitialCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Initial capacity must be a non-negative number, was: " + capacity);
+        }
+        return capacity;
+    }
+
+    protected double[] grow(double[] elementData, int minCapacity) {
+        return Arrays.copyOf(elementData, AbstractList.newCapacity(elementData.length, minCapacity));
+    }
+
+    protected int[] grow(int[] elementData, int minCapacity) {
+        return Arrays.copyOf(elementData, AbstractList.newCapacity(elementData.length, minCapacity));
+    }
+
+    protected long[] grow(long[] elementData, int minCapacity) {
+        return Arrays.copyOf(elementData, AbstractList.newCapacity(elementData.length, minCapacity));
+    }
+}
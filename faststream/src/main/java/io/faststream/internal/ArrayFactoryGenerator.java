@@ -15,7 +15,7 @@
  */
 package io.faststream.internal;
 
-import io.faststream.ArrayFactoryBuilder;
+import io.faststream.AbstractBuilder;
 import io.faststream.codegen.core.Codegen;
 import io.faststream.codegen.core.CodegenClass;
 import io.faststream.codegen.core.CodegenMethod;
@@ -48,6 +48,9 @@ public class ArrayFactoryGenerator {
                 ".getIt();");
 
         cc.addImport(streamType, abstractStreamType);
+        if (!arrayType.isArray()) {
+            cc.addImport(arrayType); // a buffer
+        }
         CodegenMethod m = cc.addMethod("public ", streamType, " of(", arrayType, " values)");
         m.add("ArrayHolder h = new ArrayHolder(values);");
         m.add("return ", abstractStreamType, ".from(h);");
@@ -77,7 +80,7 @@ public class ArrayFactoryGenerator {
     }
 
     @SuppressWarnings("unchecked")
-    public static <T> T newFactory(ArrayFactoryBuilder builder, Class<T> factoryType, Class<?> arrayType,
+    public static <T> T newFactory(AbstractBuilder builder, Class<T> factoryType, Class<?> arrayType,
             Class<?> streamType, Class<?> abstractStreamType) {
         Codegen codegen = GeneratorUtil.newCodegen(builder);
         CodegenClass cc = generateClasses(codegen, factoryType, arrayType, streamType, abstractStreamType);
@@ -88,8 +91,11 @@ public class ArrayFactoryGenerator {
         CompiledCollectionConfiguration<?> vc = new CompiledCollectionConfiguration<>(codegen, proc);
         Identifier id = new Identifier(arrayType, "arr");
         vc.addParameter(id);
-        vc.setMain(ArrayOrListComposite.create(arrayType, id));
-        vc.setType(arrayType.getComponentType());
+        ArrayOrListComposite main = ArrayOrListComposite.create(arrayType, id);
+        main.setArraySource(true);
+        vc.setMain(main);
+        vc.setType(main.getComponentType());
+        GeneratorUtil.configure(builder, vc);
         return (T) GeneratorUtil.instantiate(cl, vc.create());
     }
 }
@@ -120,6 +120,7 @@ public class ArrayListFactoryGenerator {
         vc.addParameter(id);
         vc.addParameter(size);
         vc.setMain(ArrayOrListComposite.create(Object[].class, id).withUpperBounds(size));
+        GeneratorUtil.configure(builder, vc);
 
         Class<?> f = GeneratorUtil.getDeclaredClass(cl, cc -> ListFactory.class.isAssignableFrom(cc));
         return (ListFactory<T>) GeneratorUtil.instantiate(f, vc.create());
@@ -24,6 +24,7 @@ import io.faststream.query.db.query.node.TerminalQueryOperationNode;
 import io.faststream.query.db.query.node.TerminalQueryOperationNodeProcessor;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  *
@@ -32,8 +33,24 @@ import java.util.Collection;
 class ArrayListFactoryGeneratorSupport {
     private final CodegenClass c;
 
+    /** The type of array the list stores its elements in. */
+    private final Class<?> arrayType;
+
+    /** The type of factory to generate. */
+    private final Class<?> factoryType;
+
+    /** The type of list returned by the factory. */
+    private final Class<?> listType;
+
     ArrayListFactoryGeneratorSupport(CodegenClass c) {
+        this(c, Object[].class, ListFactory.class, List.class);
+    }
+
+    ArrayListFactoryGeneratorSupport(CodegenClass c, Class<?> arrayType, Class<?> factoryType, Class<?> listType) {
         this.c = requireNonNull(c);
+        this.arrayType = requireNonNull(arrayType);
+        this.factoryType = requireNonNull(factoryType);
+        this.listType = requireNonNull(listType);
     }
 
     void build() {
@@ -49,12 +66,14 @@ class ArrayListFactoryGeneratorSupport {
         c.addField("static final ", QueryCompiler.class, " P = (", QueryCompiler.class, ") ", GeneratorUtil.class,
                 ".getIt();");
 
-        c.addImport(ListFactory.class);
-        c.setDefinition("public static class Factory implements ", ListFactory.class);
-        c.addMethod("public List newArrayList()").add("return new ArrayList();");
-        c.addMethod("public List newArrayList(int size)").add("return new ArrayList(size);");
-        c.addMethod("public List newArrayList(Collection c)").add("return new ArrayList(c);");
-        c.addImport(Collection.class);
+        c.addImport(factoryType, listType);
+        c.setDefinition("public static class Factory implements ", factoryType);
+        c.addMethod("public ", listType, " newArrayList()").add("return new ArrayList();");
+        c.addMethod("public ", listType, " newArrayList(int size)").add("return new ArrayList(size);");
+        if (listType == List.class) {
+            c.addMethod("public List newArrayList(Collection c)").add("return new ArrayList(c);");
+            c.addImport(Collection.class);
+        }
     }
 
     private void info() {
@@ -76,7 +95,7 @@ class ArrayListFactoryGeneratorSupport {
     private void processor() {
         CodegenClass c = this.c.addInnerClass();
         c.setDefinition("public static class Processor");
-        c.addMethod("public Object process(Object[] array, int size, ", TerminalQueryOperationNode.class, " node)")
+        c.addMethod("public Object process(", arrayType, " array, int size, ", TerminalQueryOperationNode.class, " node)")
                 .throwNewUnsupportedOperationException("not implemented");
     }
 }
@@ -18,6 +18,9 @@ package io.faststream.internal;
 import io.faststream.AbstractBuilder;
 import io.faststream.codegen.core.Codegen;
 import io.faststream.codegen.core.CodegenConfiguration;
+import io.faststream.query.db.query.compiler.Order;
+import io.faststream.query.db.query.compiler.anew.CompiledCollectionConfiguration;
+import io.faststream.query.db.query.compiler.anew.CompiledMapConfiguration;
 import io.faststream.query.db.query.compiler.anew.QueryCompiler;
 
 import java.io.PrintWriter;
@@ -29,7 +32,7 @@ import java.util.stream.Stream;
  * @author Kasper Nielsen
  */
 public class GeneratorUtil {
-    private static final ThreadLocal<QueryCompiler<?>> TL = new ThreadLocal<>();
+    private static final ThreadLocal<QueryCompiler<?>[]> TL = new ThreadLocal<>();
 
     public static Codegen newCodegen(AbstractBuilder builder) {
         CodegenConfiguration conf = new CodegenConfiguration();
@@ -43,18 +46,68 @@ public class GeneratorUtil {
             conf.addCodeWriter(pw);
         }
         conf.setDefaultPackage("ddd");
-        conf.addCodeWriter(System.out);
         return new Codegen(conf);
     }
 
+    /**
+     * Copies the query related settings of the specified builder to the specified configuration.
+     *
+     * @param builder
+     *            the builder
+     * @param configuration
+     *            the configuration
+     */
+    public static void configure(AbstractBuilder builder, CompiledCollectionConfiguration<?> configuration) {
+        configuration.setCacheDirectory(builder.getCacheDirectory());
+        configuration.setCompilationExecutor(builder.getCompilationExecutor());
+        configuration.setMaximumCacheSize(builder.getMaximumCacheSize());
+        configuration.setSpecializingFunctions(builder.isSpecializingFunctions());
+        configuration.setStatistics(builder.getStatistics());
+        // Arrays, lists and buffers all have a defined encounter order
+        configuration.setOrder(Order.ORDERED);
+        if (builder.getForkJoinPool() != null) {
+            configuration.setForkJoinPool(builder.getForkJoinPool());
+        }
+        if (builder.getParallelThreshold() > 0) {
+            configuration.setParallelThreshold(builder.getParallelThreshold());
+        }
+    }
+
+    /**
+     * Copies the query related settings of the specified builder to the specified map configuration.
+     *
+     * @param builder
+     *            the builder
+     * @param configuration
+     *            the configuration
+     */
+    public static void configure(AbstractBuilder builder, CompiledMapConfiguration<?> configuration) {
+        configuration.setCacheDirectory(builder.getCacheDirectory());
+        configuration.setCompilationExecutor(builder.getCompilationExecutor());
+        configuration.setMaximumCacheSize(builder.getMaximumCacheSize());
+        configuration.setSpecializingFunctions(builder.isSpecializingFunctions());
+        configuration.setStatistics(builder.getStatistics());
+    }
+
     public static QueryCompiler<?> getIt() {
-        return TL.get();
+        return getIt(0);
+    }
+
+    /**
+     * Returns one of the compilers passed to {@link #instantiate(Class, QueryCompiler...)} by the current thread.
+     *
+     * @param index
+     *            the index of the compiler
+     * @return the compiler
+     */
+    public static QueryCompiler<?> getIt(int index) {
+        return TL.get()[index];
     }
 
-    public static Object instantiate(Class<?> cl, QueryCompiler<?> s) {
+    public static Object instantiate(Class<?> cl, QueryCompiler<?>... s) {
         TL.set(s);
         try {
-            return cl.newInstance();
+            return cl.getDeclaredConstructor().newInstance();
         } catch (ReflectiveOperationException e) {
             throw new RuntimeException(e);
         } finally {
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.internal;
+
+import io.faststream.MapFactory;
+import io.faststream.MapFactoryBuilder;
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.nodes.stream.stream.AbstractStream;
+import io.faststream.query.db.nodes.view.mapview.AbstractMapView;
+import io.faststream.query.db.query.compiler.anew.CompiledCollectionConfiguration;
+import io.faststream.query.db.query.compiler.anew.CompiledMapConfiguration;
+import io.faststream.query.db.query.compiler.anew.QueryCompiler;
+import io.faststream.query.db.query.compiler.datasource.HashTableComposite;
+import io.faststream.query.db.query.compiler.datasource.HashTableMapComposite;
+import io.faststream.query.db.query.compiler.datasource.MapComposite;
+import io.faststream.query.db.query.node.TerminalQueryOperationNode;
+import io.faststream.query.db.query.node.TerminalQueryOperationNodeProcessor;
+import io.faststream.query.util.view.MapView;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ *
+ * @author Kasper Nielsen
+ */
+public class MapFactoryGenerator {
+
+    private static CodegenClass generateClasses(Codegen codegen) {
+        CodegenClass cc = codegen.newClass();
+        // Generates the map factory
+        cc.addImport(MapFactory.class, MapView.class, Map.class, AbstractMapView.class);
+        cc.setDefinition("public class DefaultMapFactory implements ", MapFactory.class);
+
+        cc.addImport(GeneratorUtil.class, TerminalQueryOperationNodeProcessor.class, TerminalQueryOperationNode.class,
+                QueryCompiler.class);
+        // The compilers for views of any map, views of hash maps, and the streams of the collection views. In the
+        // order they are passed to GeneratorUtil.instantiate
+        String[] compilers = { "P", "TABLE", "ENTRIES", "KEYS", "VALUES" };
+        for (int i = 0; i < compilers.length; i++) {
+            cc.addField("static final ", QueryCompiler.class, " ", compilers[i], " = (", QueryCompiler.class, ") ",
+                    GeneratorUtil.class, ".getIt(" + i + ");");
+        }
+
+        CodegenMethod m = cc.addMethod("public ", MapView.class, " view(", Map.class, " map)");
+        m.add("if (map instanceof HashMap) {");
+        m.add("return ", AbstractMapView.class, ".from(new TableHolder((HashMap) map, TABLE));");
+        m.add("}");
+        m.add("MapHolder h = new MapHolder(map);");
+        m.add("return ", AbstractMapView.class, ".from(h);");
+
+        cc.addMethod("public ", Map.class, " newHashMap()").add("return new HashMap();");
+        cc.addMethod("public ", Map.class, " newHashMap(int initialCapacity)").add(
+                "return new HashMap(initialCapacity);");
+
+        // Generates the custom Processor
+        CodegenClass pr = cc.addInnerClass("public static class Processor ");
+        pr.addMethod("public Object process(", Map.class, " map, ", TerminalQueryOperationNode.class, " node)")
+        .throwNewUnsupportedOperationException("not implemented");
+
+        // Generates the custom Processor for hash maps created by the factory
+        pr = cc.addInnerClass("public static class TableProcessor ");
+        pr.addMethod("public Object process(Object[] keys, Object[] values, int size, ",
+                TerminalQueryOperationNode.class, " node)").throwNewUnsupportedOperationException("not implemented");
+
+        // Generate a temporary holder of the map.
+        CodegenClass ic = cc.addInnerClass("public static class MapHolder implements ",
+                TerminalQueryOperationNodeProcessor.class);
+
+        ic.addField("final ", Map.class, " map;");
+
+        m.addImport(Objects.class);
+        m = ic.addMethod("MapHolder(", Map.class, " map)");
+        m.add("Objects.requireNonNull(map, \"map is null\");");
+        m.add("this.map = map;");
+
+        m = ic.addMethod("private Processor find(", TerminalQueryOperationNode.class, " node)");
+        m.add("return (Processor) P.create(node);");
+
+        m = ic.addMethod("public Object process(", TerminalQueryOperationNode.class, " node)");
+        m.add("return find(node).process(map, node);");
+
+        // Generate a holder of a hash map, and the compiler for the kind of query on it
+        ic = cc.addInnerClass("public static final class TableHolder implements ",
+                TerminalQueryOperationNodeProcessor.class);
+        ic.addField("private final HashMap map;");
+        ic.addField("private final ", QueryCompiler.class, " compiler;");
+
+        m = ic.addMethod("TableHolder(HashMap map, ", QueryCompiler.class, " compiler)");
+        m.add("this.map = map;");
+        m.add("this.compiler = compiler;");
+
+        m = ic.addMethod("public Object process(", TerminalQueryOperationNode.class, " node)");
+        m.add("return ((TableProcessor) compiler.create(node)).process(map.keys, map.values, map.size, node);");
+
+        // Generate the hash map
+        ic = cc.addInnerClass("public static class HashMap extends ", AbstractHashMap.class);
+        ic.addImport(AbstractHashMap.class, AbstractStream.class, Stream.class);
+        ic.addMethod("public HashMap()");
+        ic.addMethod("public HashMap(int initialCapacity)").add("super(initialCapacity);");
+        ic.addMethod("protected ", Stream.class, " entryStream()").add("return ", AbstractStream.class,
+                ".from(new TableHolder(this, ENTRIES));");
+        ic.addMethod("protected ", Stream.class, " keyStream()").add("return ", AbstractStream.class,
+                ".from(new TableHolder(this, KEYS));");
+        ic.addMethod("protected ", Stream.class, " valueStream()").add("return ", AbstractStream.class,
+                ".from(new TableHolder(this, VALUES));");
+        return cc;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> MapFactory<K, V> build(MapFactoryBuilder builder) {
+        Codegen codegen = GeneratorUtil.newCodegen(builder);
+        CodegenClass cc = generateClasses(codegen);
+
+        Class<?> cl = cc.compile();
+        Class<?> proc = GeneratorUtil.getDeclaredClass(cl, e -> e.getSimpleName().equals("Processor"));
+        Class<?> tableProc = GeneratorUtil.getDeclaredClass(cl, e -> e.getSimpleName().equals("TableProcessor"));
+
+        CompiledMapConfiguration<?> vc = new CompiledMapConfiguration<>(codegen, proc);
+        Identifier id = new Identifier(Map.class, "sourceMap");
+        vc.addParameter(id);
+        vc.setMain(new MapComposite(id));
+        GeneratorUtil.configure(builder, vc);
+
+        // Hash maps created by the factory are queried through their arrays
+        Identifier keys = new Identifier(Object[].class, "tableKeys");
+        Identifier values = new Identifier(Object[].class, "tableValues");
+        Identifier size = new Identifier(int.class, "tableSize");
+        CompiledMapConfiguration<?> tc = new CompiledMapConfiguration<>(codegen, tableProc);
+        tc.addParameter(keys);
+        tc.addParameter(values);
+        tc.addParameter(size);
+        tc.setMain(new HashTableMapComposite(keys, values, size));
+        GeneratorUtil.configure(builder, tc);
+
+        ArrayList<QueryCompiler<?>> compilers = new ArrayList<>();
+        compilers.add(vc.create());
+        compilers.add(tc.create());
+        for (HashTableComposite.Kind kind : HashTableComposite.Kind.values()) {
+            CompiledCollectionConfiguration<?> c = new CompiledCollectionConfiguration<>(codegen, tableProc);
+            c.addParameter(keys);
+            c.addParameter(values);
+            c.addParameter(size);
+            c.setMain(new HashTableComposite(kind, keys, values, size));
+            GeneratorUtil.configure(builder, c);
+            compilers.add(c.create());
+        }
+        return (MapFactory<K, V>) GeneratorUtil.instantiate(cl, compilers.toArray(new QueryCompiler<?>[0]));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.internal;
+
+import static java.util.Objects.requireNonNull;
+import io.faststream.ListFactoryBuilder;
+import io.faststream.codegen.core.Codegen;
+import io.faststream.codegen.core.CodegenClass;
+import io.faststream.codegen.core.CodegenMethod;
+import io.faststream.codegen.model.util.Identifier;
+import io.faststream.query.db.query.compiler.anew.CompiledCollectionConfiguration;
+import io.faststream.query.db.query.compiler.datasource.ArrayOrListComposite;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Generates array lists of primitive values. Elements are kept in a primitive array, which the compiled queries of the
+ * list's stream iterate directly.
+ *
+ * @author Kasper Nielsen
+ */
+public class PrimitiveArrayListFactoryGenerator {
+
+    private final CodegenClass c = new CodegenClass();
+
+    /** The primitive type of elements, for example, int.class. */
+    private final Class<?> elementType;
+
+    /** The type of array elements are stored in, for example, int[].class. */
+    private final Class<?> arrayType;
+
+    /** The list interface implemented by the generated list. */
+    private final Class<?> listType;
+
+    /** The stream type returned by the list. */
+    private final Class<?> streamType;
+
+    /** The abstract stream implementation used by the list. */
+    private final Class<?> abstractStreamType;
+
+    PrimitiveArrayListFactoryGenerator(Class<?> elementType, Class<?> listType, Class<?> streamType,
+            Class<?> abstractStreamType) {
+        this.elementType = requireNonNull(elementType);
+        this.arrayType = Array.newInstance(elementType, 0).getClass();
+        this.listType = requireNonNull(listType);
+        this.streamType = requireNonNull(streamType);
+        this.abstractStreamType = requireNonNull(abstractStreamType);
+    }
+
+    void build(Class<?> factoryType) {
+        c.addImport(AbstractPrimitiveList.class, listType, Arrays.class);
+        c.setDefinition("public class ArrayList extends ", AbstractPrimitiveList.class, " implements ", listType);
+        c.addField("public ", elementType, "[] a;");
+        c.addField("public int size;");
+        c.addField("ArrayListInfo info;");
+
+        CodegenMethod m = c.addMethod("public ()");
+        m.add("a = new ", elementType, "[10];");
+        m = c.addMethod("public (int initialCapacity)");
+        m.add("a = new ", elementType, "[checkInitialCapacity(initialCapacity)];");
+
+        m = c.addMethod("public boolean add(", elementType, " e)");
+        m.add("if (size == a.length) {");
+        m.add("a = grow(a, size + 1);");
+        m.add("}");
+        m.add("a[size++] = e;");
+        m.add("return true;");
+
+        c.addMethod("public void clear()").add("size = 0;");
+
+        m = c.addMethod("public ", elementType, " get(int index)");
+        m.add("checkIndex(index, size);");
+        m.add("return a[index];");
+
+        c.addMethod("public boolean isEmpty()").add("return size == 0;");
+
+        m = c.addMethod("public ", elementType, " set(int index, ", elementType, " e)");
+        m.add("checkIndex(index, size);");
+        m.add(elementType, " old = a[index];");
+        m.add("a[index] = e;");
+        m.add("return old;");
+
+        c.addMethod("public int size()").add("return size;");
+
+        c.addImport(streamType, abstractStreamType);
+        m = c.addMethod("public ", streamType, " stream()");
+        m.add("ArrayListInfo i = info;");
+        m.add("return ", abstractStreamType, ".from(i == null ? (info = new ArrayListInfo(this)) : i);");
+
+        c.addMethod("public ", elementType, "[] toArray()").add("return Arrays.copyOf(a, size);");
+        c.addMethod("public String toString()").add("return Arrays.toString(toArray());");
+
+        new ArrayListFactoryGeneratorSupport(c, arrayType, factoryType, listType).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T build(ListFactoryBuilder builder, Class<T> factoryType, Class<?> elementType,
+            Class<?> listType, Class<?> streamType, Class<?> abstractStreamType) {
+        PrimitiveArrayListFactoryGenerator b = new PrimitiveArrayListFactoryGenerator(elementType, listType,
+                streamType, abstractStreamType);
+        b.build(factoryType);
+
+        Codegen codegen = GeneratorUtil.newCodegen(builder);
+        codegen.addClass(b.c);
+        Class<Object> cl = b.c.compile();
+
+        Class<?> proc = GeneratorUtil.getDeclaredClass(cl, e -> e.getName().contains("Processor"));
+
+        CompiledCollectionConfiguration<?> vc = new CompiledCollectionConfiguration<>(codegen, proc);
+        Identifier id = new Identifier(b.arrayType, "ar");
+        Identifier size = new Identifier(int.class, "listSize");
+        vc.addParameter(id);
+        vc.addParameter(size);
+        vc.setMain(ArrayOrListComposite.create(b.arrayType, id).withUpperBounds(size));
+        vc.setType(elementType);
+        GeneratorUtil.configure(builder, vc);
+
+        Class<?> f = GeneratorUtil.getDeclaredClass(cl, cc -> factoryType.isAssignableFrom(cc));
+        return (T) GeneratorUtil.instantiate(f, vc.create());
+    }
+}
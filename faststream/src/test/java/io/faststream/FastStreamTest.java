@@ -16,8 +16,32 @@
 package io.faststream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Test;
 
@@ -38,9 +62,298 @@ public class FastStreamTest {
         assertEquals(4, FastStreams.ofInt(new int[] { 1, 2, 3, 4 }).peek(e -> {}).count());
     }
 
+    @Test
+    public void testArrayIntParallel() {
+        int[] array = new int[100000];
+        Arrays.setAll(array, i -> i);
+        ArrayFactory.OfInt f = new ArrayFactoryBuilder().setParallelThreshold(100).buildOfInt();
+        assertEquals(Arrays.stream(array).filter(e -> e % 3 == 0).sum(), f.of(array).parallel().filter(e -> e % 3 == 0)
+                .sum());
+        assertEquals(array.length, f.of(array).parallel().count());
+        assertEquals(array.length - 1, f.of(array).parallel().max().getAsInt());
+        assertEquals(Arrays.stream(array).reduce(Integer::sum).getAsInt(), f.of(array).parallel().reduce(Integer::sum)
+                .getAsInt());
+        assertEquals(Arrays.stream(array).asLongStream().reduce(Long::sum).getAsLong(), new ArrayFactoryBuilder()
+                .setParallelThreshold(100).buildOfLong().of(Arrays.stream(array).asLongStream().toArray()).parallel()
+                .reduce(Long::sum).getAsLong());
+        assertEquals(Arrays.stream(array).boxed().collect(Collectors.toList()), f.of(array).parallel().boxed()
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testArrayDoubleParallelMinMax() {
+        ArrayFactory.OfDouble f = new ArrayFactoryBuilder().setParallelThreshold(100).buildOfDouble();
+        double[] array = new double[1000];
+        Arrays.setAll(array, i -> i);
+        array[10] = Double.NaN;
+        assertEquals(Double.NaN, f.of(array).parallel().min().getAsDouble(), 0);
+        assertEquals(Double.NaN, f.of(array).parallel().max().getAsDouble(), 0);
+        assertEquals(Double.NaN, f.of(array).parallel().reduce(Math::min).getAsDouble(), 0);
+
+        // -0.0 and 0.0 in different ranges
+        Arrays.fill(array, 1);
+        array[0] = 0.0;
+        array[999] = -0.0;
+        assertEquals(Double.doubleToLongBits(Arrays.stream(array).parallel().min().getAsDouble()),
+                Double.doubleToLongBits(f.of(array).parallel().min().getAsDouble()));
+        Arrays.fill(array, -1);
+        array[0] = -0.0;
+        array[999] = 0.0;
+        assertEquals(Double.doubleToLongBits(Arrays.stream(array).parallel().max().getAsDouble()),
+                Double.doubleToLongBits(f.of(array).parallel().max().getAsDouble()));
+    }
+
+    @Test
+    public void testCacheDirectory() throws IOException {
+        Path dir = Files.createTempDirectory("faststream");
+        assertEquals(6, new ArrayFactoryBuilder().setCacheDirectory(dir).buildOfInt().of(1, 2, 3, 4).map(e -> e - 1)
+                .sum());
+        List<Path> entries;
+        try (Stream<Path> s = Files.walk(dir)) {
+            entries = s.filter(p -> p.toString().endsWith(".query")).collect(Collectors.toList());
+        }
+        assertEquals(1, entries.size());
+        // A recompiled query would replace the entry, so its modification time would change
+        FileTime time = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(entries.get(0), time);
+
+        // A new factory uses the cached class
+        assertEquals(3, new ArrayFactoryBuilder().setCacheDirectory(dir).buildOfInt().of(1, 2, 3).map(e -> e - 1)
+                .sum());
+        assertEquals(time, Files.getLastModifiedTime(entries.get(0)));
+    }
+
+    @Test
+    public void testCompilationExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ArrayFactoryBuilder builder = new ArrayFactoryBuilder().setCompilationExecutor(executor);
+        ArrayFactory.OfInt f = builder.buildOfInt();
+        // The first execution is interpreted, subsequent executions use the compiled query
+        assertEquals(12, f.of(1, 2, 3, 4).filter(e -> e > 1).map(e -> e + 1).sum());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(12, f.of(1, 2, 3, 4).filter(e -> e > 1).map(e -> e + 1).sum());
+        assertEquals(1, builder.getStatistics().getNumberOfQueriesCompiled());
+        assertEquals(1, builder.getStatistics().getNumberOfCacheHits());
+    }
+
+    @Test
+    public void testDistinct() {
+        int[] array = { 3, 1, 3, 2, 1 };
+        // Keeps the encounter order
+        assertTrue(Arrays.equals(new int[] { 3, 1, 2 }, FastStreams.ofInt(array).distinct().toArray()));
+        assertTrue(Arrays.equals(new int[] { 1, 2, 3 }, FastStreams.ofInt(array).sorted().distinct().toArray()));
+        assertEquals(3, FastStreams.ofInt(array).map(e -> e * 2).distinct().count());
+        assertTrue(Arrays.equals(new double[] { -0.0, 0.0, Double.NaN }, FastStreams.ofDouble(0.0, -0.0, Double.NaN,
+                0.0, Double.NaN).sorted().distinct().toArray()));
+    }
+
+    @Test
+    public void testFlatMapIterator() {
+        int[] array = { 1, 2, 3, 4 };
+        int[] created = new int[1];
+        PrimitiveIterator.OfInt iterator = FastStreams.ofInt(array).flatMap(e -> {
+            created[0]++;
+            return IntStream.range(0, 1000).map(i -> i * e);
+        }).filter(e -> e % 2 == 0).iterator();
+        assertEquals(0, iterator.nextInt());
+        assertEquals(2, iterator.nextInt());
+        // The remaining elements are only mapped as they are requested
+        assertEquals(1, created[0]);
+
+        int[] result = StreamSupport.intStream(FastStreams.ofInt(array).flatMap(e -> IntStream.of(e, -e))
+                .filter(e -> e < 0).spliterator(), false).toArray();
+        assertTrue(Arrays.equals(new int[] { -1, -2, -3, -4 }, result));
+    }
+
+    @Test
+    public void testIntList() {
+        IntList list = new ListFactoryBuilder().buildOfInt().newArrayList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        assertEquals(100, list.size());
+        assertEquals(4950, list.stream().sum());
+        assertEquals(3, list.stream().filter(e -> e > 96).count());
+        assertTrue(Arrays.equals(new int[] { 0, 1 }, list.stream().sorted().limit(2).toArray()));
+    }
+
+    @Test
+    public void testLongBuffer() {
+        LongBuffer buffer = ByteBuffer.allocateDirect(8 * 10).asLongBuffer();
+        for (long i = 0; i < 10; i++) {
+            buffer.put(i);
+        }
+        buffer.position(2).limit(8);
+        assertEquals(27, FastStreams.of(buffer).sum());
+        assertEquals(3, FastStreams.of(buffer).filter(e -> e % 2 == 0).count());
+        assertTrue(Arrays.equals(new long[] { 7, 6 }, FastStreams.of(buffer).map(e -> -e).sorted().limit(2)
+                .map(e -> -e).toArray()));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void testHashMap() {
+        MapFactory<Integer, Integer> f = new MapFactoryBuilder().build();
+        Map<Integer, Integer> map = f.newHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i * 2);
+            expected.put(i, i * 2);
+        }
+        map.remove(7);
+        expected.remove(7);
+        assertEquals(expected, map);
+        assertEquals(99, map.size());
+        assertEquals(Integer.valueOf(10), map.get(5));
+        assertEquals(expected.keySet().stream().mapToInt(i -> i).sum(), map.keySet().stream().mapToInt(i -> i).sum());
+        assertEquals(expected.values().stream().filter(v -> v % 4 == 0).count(),
+                map.values().stream().filter(v -> v % 4 == 0).count());
+        assertEquals(Arrays.asList(0, 1, 2), map.keySet().stream().sorted().limit(3).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(99, 98), map.entrySet().stream().sorted(Map.Entry.comparingByKey(Comparator.reverseOrder()))
+                .limit(2).map(Map.Entry::getKey).collect(Collectors.toList()));
+        assertEquals(99, f.view(map).size());
+        assertEquals(Arrays.asList(0, 1), f.view(map).sortedByKey().take(2).keys().toList());
+        // Entries write through to the map
+        map.entrySet().iterator().next().setValue(-1);
+        assertTrue(map.containsValue(-1));
+        map.clear();
+        assertEquals(0, map.values().stream().count());
+    }
+
+    @Test
+    public void testMapView() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put(i, "v" + (9 - i));
+        }
+        MapFactory<Integer, String> f = new MapFactoryBuilder().build();
+        Map<Integer, String> expected = new HashMap<>();
+        expected.put(0, "v9!");
+        expected.put(8, "v1!");
+        assertEquals(expected, f.view(map).filterOnKey(k -> k % 8 == 0).mapValue(v -> v + "!").toMap());
+        assertEquals(Arrays.asList(9, 8), f.view(map).sortedByValue().take(2).keys().toList());
+        // Multimaps group the values by key
+        assertEquals(Arrays.asList(0, 1, 2), f.view(map).mapKey(k -> k % 3).keys().toList());
+        Map<Integer, Long> counts = new HashMap<>();
+        counts.put(0, 4L);
+        counts.put(1, 3L);
+        counts.put(2, 3L);
+        assertEquals(counts, f.view(map).mapKey(k -> k % 3).count().toMap());
+        // Views are evaluated against the current contents of the map
+        map.put(100, "x");
+        assertEquals(11, f.view(map).size());
+    }
+
+    @Test
+    public void testMaximumCacheSize() {
+        ArrayFactoryBuilder builder = new ArrayFactoryBuilder().setMaximumCacheSize(1);
+        ArrayFactory.OfInt f = builder.buildOfInt();
+        // Evicted queries are compiled again when executed
+        for (int i = 0; i < 2; i++) {
+            assertEquals(10, f.of(1, 2, 3, 4).sum());
+            assertEquals(4, f.of(1, 2, 3, 4).count());
+        }
+        assertEquals(0, builder.getStatistics().getNumberOfCacheHits());
+        assertEquals(4, builder.getStatistics().getNumberOfCacheMisses());
+        assertEquals(4, builder.getStatistics().getNumberOfQueriesCompiled());
+        assertEquals(3, builder.getStatistics().getNumberOfEvictions());
+
+        assertEquals(4, f.of(1, 2, 3, 4).count());
+        assertEquals(1, builder.getStatistics().getNumberOfCacheHits());
+    }
+
+    @Test
+    public void testSortedLimit() {
+        int[] array = new int[1000];
+        Arrays.setAll(array, i -> (i * 7919) % 1000);
+        assertTrue(Arrays.equals(new int[] { 0, 1, 2 }, FastStreams.ofInt(array).sorted().limit(3).toArray()));
+        assertEquals(0, FastStreams.ofInt(array).sorted().findFirst().getAsInt());
+        assertEquals(Arrays.asList("b", "bb", "cc"), FastStreams.of("dddd", "bb", "b", "cc", "aaa")
+                .sorted(Comparator.comparing(String::length)).limit(3).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSpecializingFunctions() {
+        StringWriter code = new StringWriter();
+        ArrayFactoryBuilder builder = new ArrayFactoryBuilder().setSpecializingFunctions(true);
+        builder.addCodeWriter(new PrintWriter(code));
+        ArrayFactory.OfInt f = builder.buildOfInt();
+        int[] array = new int[100];
+        Arrays.setAll(array, i -> i);
+        IntPredicate lambda = e -> e % 2 == 0;
+        IntPredicate anonymous = new Even() {};
+        // The same query with a named class, a lambda and an anonymous class
+        for (int i = 0; i < 2; i++) {
+            assertEquals(2450, f.of(array).filter(new Even()).sum());
+            assertEquals(2450, f.of(array).filter(lambda).sum());
+            assertEquals(2450, f.of(array).filter(anonymous).sum());
+        }
+        // A processor is generated for each class, and reused for functions of the same class
+        assertEquals(3, builder.getStatistics().getNumberOfQueriesCompiled());
+        assertEquals(3, builder.getStatistics().getNumberOfCacheHits());
+        // Only the named class can be referred to by the generated code
+        String source = code.toString();
+        assertTrue(source.indexOf("(Even)") >= 0);
+        assertEquals(source.indexOf("(Even)"), source.lastIndexOf("(Even)"));
+
+        assertEquals(50, f.of(array).filter(new Even()).count());
+        assertEquals(4, builder.getStatistics().getNumberOfQueriesCompiled());
+    }
+
+    @Test
+    public void testSpecializingFunctionsNameClash() {
+        ArrayFactoryBuilder builder = new ArrayFactoryBuilder().setSpecializingFunctions(true);
+        ArrayFactory.OfInt f = builder.buildOfInt();
+        int[] array = new int[100];
+        Arrays.setAll(array, i -> i);
+        // The function class has the same simple name as the node class imported by the generated code
+        assertEquals(2450, f.of(array).filter(new SI_Filter()).sum());
+        assertEquals(1, builder.getStatistics().getNumberOfSpecializationFallbacks());
+        assertEquals(2450, f.of(array).filter(new Even()).sum());
+        assertEquals(1, builder.getStatistics().getNumberOfSpecializationFallbacks());
+    }
+
+    @Test
+    public void testSpliterator() {
+        int[] array = new int[1000];
+        Arrays.setAll(array, i -> i);
+        Spliterator.OfInt s = FastStreams.ofInt(array).map(e -> e * 2).spliterator();
+        assertTrue(s.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(1000, s.getExactSizeIfKnown());
+        assertEquals(500, s.trySplit().getExactSizeIfKnown());
+
+        // The number of elements is not known after filtering
+        s = FastStreams.ofInt(array).filter(e -> e % 3 == 0).spliterator();
+        assertEquals(-1, s.getExactSizeIfKnown());
+        assertTrue(Arrays.equals(Arrays.stream(array).filter(e -> e % 3 == 0).toArray(), StreamSupport.intStream(
+                FastStreams.ofInt(array).filter(e -> e % 3 == 0).spliterator(), true).toArray()));
+        assertTrue(FastStreams.ofInt(array).spliterator().hasCharacteristics(Spliterator.IMMUTABLE));
+
+        // The array backing a list may be modified
+        List<Integer> list = FastStreams.newArrayList(Arrays.asList(1, 2, 3));
+        list.add(4);
+        assertFalse(list.stream().spliterator().hasCharacteristics(Spliterator.IMMUTABLE));
+        IntList intList = new ListFactoryBuilder().buildOfInt().newArrayList();
+        intList.add(1);
+        assertFalse(intList.stream().spliterator().hasCharacteristics(Spliterator.IMMUTABLE));
+    }
+
     @Test
     public void testIt() {
         assertEquals(4, FastStreams.newArrayList(Arrays.asList(1, 2, 3, 4)).stream().count());
     }
 
+    public static class Even implements IntPredicate {
+        public boolean test(int value) {
+            return value % 2 == 0;
+        }
+    }
+
+    public static class SI_Filter implements IntPredicate {
+        public boolean test(int value) {
+            return value % 2 == 0;
+        }
+    }
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.faststream.query.db.query.compiler.anew.AbstractCompiledEntityConfiguration;
+
+/**
+ * Tests {@link QueryPregenerator}.
+ *
+ * @author Kasper Nielsen
+ */
+public class QueryPregeneratorTest {
+
+    /** Returns the number of entries in the specified directory. */
+    static long entries(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(p -> p.toString().endsWith(".query")).count();
+        }
+    }
+
+    /** Executes the query on a factory created by the specified builder. */
+    static int query(ArrayFactoryBuilder builder) {
+        return builder.buildOfInt().of(1, 2, 3).map(e -> e * 2).sum();
+    }
+
+    @Test
+    public void generate() throws Exception {
+        Path output = Files.createTempDirectory("faststream");
+        QueryPregenerator.generate(output, KnownQueries.class.getName());
+        assertEquals(1, entries(output.resolve(AbstractCompiledEntityConfiguration.PREGENERATED_DIRECTORY)));
+
+        // Without the generated classes on the class path, the query is compiled and stored in the cache
+        Path cache = Files.createTempDirectory("faststream");
+        assertEquals(12, query(new ArrayFactoryBuilder().setCacheDirectory(cache)));
+        assertEquals(1, entries(cache));
+
+        // Pregenerated classes are found via the context class loader, so nothing is compiled
+        cache = Files.createTempDirectory("faststream");
+        Thread t = Thread.currentThread();
+        ClassLoader existing = t.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, existing)) {
+            t.setContextClassLoader(loader);
+            assertEquals(12, query(new ArrayFactoryBuilder().setCacheDirectory(cache)));
+        } finally {
+            t.setContextClassLoader(existing);
+        }
+        assertEquals(0, entries(cache));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateNonRunnable() throws Exception {
+        QueryPregenerator.generate(Files.createTempDirectory("faststream"), String.class.getName());
+    }
+
+    /** The queries that are generated. */
+    public static class KnownQueries implements Runnable {
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            // The generator sets the default cache directory of builders
+            query(new ArrayFactoryBuilder());
+        }
+    }
+}
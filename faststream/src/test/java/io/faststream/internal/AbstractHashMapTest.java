@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.faststream.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.junit.Test;
+
+import io.faststream.MapFactory;
+import io.faststream.MapFactoryBuilder;
+
+/**
+ * Tests {@link AbstractHashMap} with keys that collide around the end of the table, where probe sequences wrap around.
+ *
+ * @author Kasper Nielsen
+ */
+public class AbstractHashMapTest {
+
+    static final MapFactory<Key, Object> FACTORY = new MapFactoryBuilder().build();
+
+    /** Returns keys whose home slots, in a table with the specified capacity, are accepted by the predicate. */
+    static List<Key> keys(int capacity, int count, IntPredicate slots) {
+        List<Key> keys = new ArrayList<>();
+        for (int hash = 0; keys.size() < count; hash++) {
+            if (slots.test(AbstractHashMap.slot(hash, capacity - 1))) {
+                keys.add(new Key(hash, keys.size()));
+            }
+        }
+        return keys;
+    }
+
+    /** Returns keys whose probe sequences wrap around the end of a table with the specified capacity. */
+    static List<Key> wrappingKeys(int capacity, int count) {
+        return keys(capacity, count, slot -> slot >= capacity - 2 || slot == 0);
+    }
+
+    static int capacity(Map<?, ?> map) {
+        return ((AbstractHashMap<?, ?>) map).keys.length;
+    }
+
+    static void assertSame(Map<Key, Object> expected, Map<Key, Object> map) {
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Key, Object> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+    }
+
+    /** Puts and removes colliding keys, with and without resizing the table. */
+    @Test
+    public void collisions() {
+        Random r = new Random(4711);
+        for (int initialCapacity : new int[] { 10, 1000 }) {
+            Map<Key, Object> map = FACTORY.newHashMap(initialCapacity);
+            List<Key> keys = wrappingKeys(capacity(map), 40);
+            Map<Key, Object> expected = new HashMap<>();
+            for (int i = 0; i < 5000; i++) {
+                Key key = keys.get(r.nextInt(keys.size()));
+                if (r.nextBoolean()) {
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                } else {
+                    assertEquals(expected.remove(key), map.remove(key));
+                }
+                assertSame(expected, map);
+            }
+        }
+    }
+
+    /** Removes entries while iterating, every entry must be returned exactly once. */
+    @Test
+    public void iteratorRemove() {
+        Random r = new Random(1234);
+        for (int i = 0; i < 500; i++) {
+            Map<Key, Object> map = FACTORY.newHashMap();
+            Map<Key, Object> expected = new HashMap<>();
+            for (Key key : wrappingKeys(capacity(map), 3 + r.nextInt(9))) {
+                map.put(key, key.id);
+                expected.put(key, key.id);
+            }
+            Set<Key> all = new HashSet<>(expected.keySet());
+            Set<Key> returned = new HashSet<>();
+            for (Iterator<Key> iterator = map.keySet().iterator(); iterator.hasNext();) {
+                Key key = iterator.next();
+                assertTrue(returned.add(key));
+                if (r.nextBoolean()) {
+                    iterator.remove();
+                    expected.remove(key);
+                }
+            }
+            assertEquals(all, returned);
+            assertSame(expected, map);
+        }
+    }
+
+    @Test
+    public void removeIf() {
+        Map<Key, Object> map = FACTORY.newHashMap();
+        Map<Key, Object> expected = new HashMap<>();
+        for (Key key : wrappingKeys(capacity(map), 12)) {
+            map.put(key, key.id);
+            expected.put(key, key.id);
+        }
+        assertTrue(map.keySet().removeIf(k -> k.id % 3 == 0));
+        expected.keySet().removeIf(k -> k.id % 3 == 0);
+        assertSame(expected, map);
+
+        assertTrue(map.values().removeIf(v -> (Integer) v % 3 == 1));
+        expected.values().removeIf(v -> (Integer) v % 3 == 1);
+        assertSame(expected, map);
+
+        assertFalse(map.entrySet().removeIf(e -> e.getKey().id > 100));
+        assertTrue(map.entrySet().removeIf(e -> e.getKey().id > 5));
+        expected.entrySet().removeIf(e -> e.getKey().id > 5);
+        assertSame(expected, map);
+    }
+
+    /** Entries write through to the table, also after the entry has been moved. */
+    @Test
+    public void setValue() {
+        Map<Key, Object> map = FACTORY.newHashMap();
+        // The keys occupy the last slot and the first 3 slots
+        List<Key> keys = keys(capacity(map), 4, slot -> slot == capacity(map) - 1);
+        for (Key key : keys) {
+            map.put(key, key.id);
+        }
+        List<Map.Entry<Key, Object>> entries = new ArrayList<>(map.entrySet());
+
+        // Removing the first key moves the other keys back
+        map.remove(keys.get(0));
+        for (Map.Entry<Key, Object> e : entries) {
+            if (e.getKey() != keys.get(0)) {
+                e.setValue("moved" + e.getKey().id);
+                assertEquals("moved" + e.getKey().id, map.get(e.getKey()));
+            }
+        }
+        assertEquals(3, map.size());
+
+        // Resizing moves all keys
+        for (int i = 0; i < 100; i++) {
+            map.put(new Key(i, -1), i);
+        }
+        for (Map.Entry<Key, Object> e : entries) {
+            e.setValue("resized" + e.getKey().id);
+        }
+        for (Key key : keys.subList(1, keys.size())) {
+            assertEquals("resized" + key.id, map.get(key));
+        }
+        // A removed entry is not added again
+        assertFalse(map.containsKey(keys.get(0)));
+        assertEquals(103, map.size());
+    }
+
+    /** A key with a specified hash code. */
+    static final class Key {
+        final int hash;
+
+        final int id;
+
+        Key(int hash, int id) {
+            this.hash = hash;
+            this.id = id;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).hash == hash && ((Key) obj).id == id;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return hash + "/" + id;
+        }
+    }
+}